@@ -0,0 +1,79 @@
+package org.osm2world.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * a benchmark run by {@link BenchmarkRunner}.
+ *
+ * The runner calls {@link #setUp()} once, then measures many invocations
+ * of {@link #invoke()}, and finally calls {@link #tearDown()}.
+ * Work which should not be measured, but needs to be repeated for each
+ * invocation (e.g. creating a fresh copy of mutable input data),
+ * belongs into {@link #prepareInvocation()}.
+ */
+public abstract class Benchmark {
+	
+	/**
+	 * receives the results of invocations. Publishing them through a volatile
+	 * field makes them escape, so the JIT can neither remove the benchmarked
+	 * code nor skip building the results' contents.
+	 */
+	private static volatile Object sink;
+	
+	/**
+	 * returns the name of the benchmarked operation,
+	 * e.g. "TriangulationBenchmark.triangulate"
+	 */
+	public abstract String getName();
+	
+	/**
+	 * returns the parameters distinguishing variants of the same benchmark.
+	 * The default implementation returns an empty map.
+	 */
+	public Map<String, String> getParams() {
+		return Collections.emptyMap();
+	}
+	
+	/** creates the fixtures. Called once before all invocations. */
+	public void setUp() throws Exception {}
+	
+	/** releases resources. Called once after all invocations. */
+	public void tearDown() throws Exception {}
+	
+	/** called before each invocation, not included in the measured time */
+	protected void prepareInvocation() throws Exception {}
+	
+	/**
+	 * runs the benchmarked operation once
+	 *
+	 * @return  the operation's result; will be consumed by the runner
+	 */
+	protected abstract Object invoke() throws Exception;
+	
+	/**
+	 * prepares and runs one invocation, and returns its duration.
+	 * Can be overwritten by benchmarks which measure only a part
+	 * of a larger operation.
+	 *
+	 * @return  duration in nanoseconds
+	 */
+	protected long measureInvocation() throws Exception {
+		
+		prepareInvocation();
+		
+		long start = System.nanoTime();
+		Object result = invoke();
+		long duration = System.nanoTime() - start;
+		
+		consume(result);
+		
+		return duration;
+		
+	}
+	
+	protected static void consume(Object result) {
+		sink = result;
+	}
+	
+}
@@ -0,0 +1,307 @@
+package org.osm2world.benchmark;
+
+import static java.lang.Math.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMElement;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMRelation;
+import org.osm2world.core.osm.data.OSMWay;
+
+/**
+ * creates the input data used by the benchmarks.
+ * All synthetic data is created from fixed seeds,
+ * so every run of a benchmark works on the same data.
+ */
+public final class BenchmarkFixtures {
+	
+	/** files from the test files directory which are used as bundled inputs */
+	public static final String[] BUNDLED_FILES = {
+		"mp_two_holes_advanced.osm",
+		"coastline_multiple_coasts.osm"
+	};
+	
+	/** number of blocks along each side of the default synthetic city */
+	public static final int DEFAULT_CITY_SIZE = 20;
+	
+	private static final double ORIGIN_LAT = 48.0;
+	private static final double ORIGIN_LON = 11.0;
+	
+	/** size of a city block including the surrounding roads, in meters */
+	private static final double BLOCK_SIZE = 60;
+	
+	private static final double METERS_PER_DEGREE_LAT = 111320;
+	
+	private static final String[] ROOF_SHAPES = {
+		"flat", "gabled", "hipped", "half-hipped", "pyramidal", "skillion",
+		"gambrel", "mansard", "dome", "round", "onion"
+	};
+	
+	/** prevents instantiation */
+	private BenchmarkFixtures() { }
+	
+	/**
+	 * returns one of the {@link #BUNDLED_FILES}
+	 */
+	public static File getBundledFile(String name) {
+		return new File("test" + File.separator + "files" + File.separator + name);
+	}
+	
+	/**
+	 * creates a synthetic city: a grid of residential roads,
+	 * with one building in each block. The buildings have different
+	 * footprints, heights and roof shapes.
+	 *
+	 * @param blocksPerSide  number of blocks along each side of the grid
+	 */
+	public static OSMData createCity(int blocksPerSide) {
+		
+		Random random = new Random(42);
+		
+		List<OSMNode> nodes = new ArrayList<OSMNode>();
+		List<OSMWay> ways = new ArrayList<OSMWay>();
+		
+		long[] nextId = {1};
+		
+		/* create the road grid */
+		
+		OSMNode[][] junctions = new OSMNode[blocksPerSide + 1][blocksPerSide + 1];
+		
+		for (int x = 0; x <= blocksPerSide; x++) {
+			for (int z = 0; z <= blocksPerSide; z++) {
+				junctions[x][z] = createNode(x * BLOCK_SIZE, z * BLOCK_SIZE,
+						new MapBasedTagGroup(), nextId, nodes);
+			}
+		}
+		
+		for (int i = 0; i <= blocksPerSide; i++) {
+			
+			List<OSMNode> row = new ArrayList<OSMNode>();
+			List<OSMNode> column = new ArrayList<OSMNode>();
+			
+			for (int j = 0; j <= blocksPerSide; j++) {
+				row.add(junctions[j][i]);
+				column.add(junctions[i][j]);
+			}
+			
+			ways.add(new OSMWay(new MapBasedTagGroup(
+					new Tag("highway", "residential")), nextId[0]++, row));
+			ways.add(new OSMWay(new MapBasedTagGroup(
+					new Tag("highway", "residential")), nextId[0]++, column));
+			
+		}
+		
+		/* create a building in each block */
+		
+		for (int x = 0; x < blocksPerSide; x++) {
+			for (int z = 0; z < blocksPerSide; z++) {
+				
+				double minX = x * BLOCK_SIZE + 10 + random.nextDouble() * 5;
+				double minZ = z * BLOCK_SIZE + 10 + random.nextDouble() * 5;
+				double maxX = (x + 1) * BLOCK_SIZE - 10 - random.nextDouble() * 5;
+				double maxZ = (z + 1) * BLOCK_SIZE - 10 - random.nextDouble() * 5;
+				
+				List<VectorXZ> outline = new ArrayList<VectorXZ>();
+				
+				outline.add(new VectorXZ(minX, minZ));
+				outline.add(new VectorXZ(maxX, minZ));
+				
+				if ((x + z) % 3 == 0) {
+					/* L-shaped footprint */
+					double midX = (minX + maxX) / 2;
+					double midZ = (minZ + maxZ) / 2;
+					outline.add(new VectorXZ(maxX, midZ));
+					outline.add(new VectorXZ(midX, midZ));
+					outline.add(new VectorXZ(midX, maxZ));
+				} else {
+					outline.add(new VectorXZ(maxX, maxZ));
+				}
+				
+				outline.add(new VectorXZ(minX, maxZ));
+				
+				List<OSMNode> wayNodes = new ArrayList<OSMNode>();
+				
+				for (VectorXZ v : outline) {
+					wayNodes.add(createNode(v.x, v.z, new MapBasedTagGroup(), nextId, nodes));
+				}
+				
+				wayNodes.add(wayNodes.get(0));
+				
+				String roofShape = ROOF_SHAPES[(x * blocksPerSide + z) % ROOF_SHAPES.length];
+				
+				ways.add(new OSMWay(new MapBasedTagGroup(
+						new Tag("building", "yes"),
+						new Tag("building:levels", Integer.toString(2 + random.nextInt(5))),
+						new Tag("roof:shape", roofShape),
+						new Tag("roof:height", "4")),
+						nextId[0]++, wayNodes));
+				
+			}
+		}
+		
+		return new OSMData(Collections.<Bound>emptyList(), nodes, ways,
+				Collections.<OSMRelation>emptyList());
+		
+	}
+	
+	private static OSMNode createNode(double x, double z,
+			MapBasedTagGroup tags, long[] nextId, List<OSMNode> nodes) {
+		
+		double lat = ORIGIN_LAT + z / METERS_PER_DEGREE_LAT;
+		double lon = ORIGIN_LON + x / (METERS_PER_DEGREE_LAT * cos(toRadians(ORIGIN_LAT)));
+		
+		OSMNode node = new OSMNode(lat, lon, tags, nextId[0]++);
+		nodes.add(node);
+		return node;
+		
+	}
+	
+	/**
+	 * writes data to an .osm file
+	 */
+	public static void writeOSMFile(OSMData osmData, File file) throws IOException {
+		
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+				new FileOutputStream(file), "UTF-8"));
+		
+		try {
+			
+			writer.println("<?xml version='1.0' encoding='UTF-8'?>");
+			writer.println("<osm version='0.6' generator='OSM2World benchmark'>");
+			
+			for (OSMNode node : osmData.getNodes()) {
+				writer.printf(Locale.US, "  <node id='%d' timestamp='2014-01-01T00:00:00Z'"
+						+ " version='1' lat='%.9f' lon='%.9f'>%n", node.id, node.lat, node.lon);
+				writeTags(writer, node);
+				writer.println("  </node>");
+			}
+			
+			for (OSMWay way : osmData.getWays()) {
+				writer.printf("  <way id='%d' timestamp='2014-01-01T00:00:00Z'"
+						+ " version='1'>%n", way.id);
+				for (OSMNode node : way.nodes) {
+					writer.printf("    <nd ref='%d' />%n", node.id);
+				}
+				writeTags(writer, way);
+				writer.println("  </way>");
+			}
+			
+			writer.println("</osm>");
+			
+		} finally {
+			writer.close();
+		}
+		
+	}
+	
+	private static void writeTags(PrintWriter writer, OSMElement element) {
+		for (Tag tag : element.tags) {
+			writer.println("    <tag k='" + escapeXML(tag.key)
+					+ "' v='" + escapeXML(tag.value) + "' />");
+		}
+	}
+	
+	private static String escapeXML(String s) {
+		return s.replace("&", "&amp;").replace("<", "&lt;")
+				.replace(">", "&gt;").replace("'", "&apos;");
+	}
+	
+	/**
+	 * creates randomly distributed terrain sites with smoothly varying elevation
+	 *
+	 * @param size  width and depth of the square containing the sites
+	 */
+	public static List<VectorXYZ> createTerrainSites(int count, double size) {
+		
+		Random random = new Random(23);
+		
+		List<VectorXYZ> sites = new ArrayList<VectorXYZ>(count);
+		
+		for (int i = 0; i < count; i++) {
+			double x = random.nextDouble() * size;
+			double z = random.nextDouble() * size;
+			double ele = 20 * sin(x / 200) + 10 * cos(z / 150) + random.nextDouble();
+			sites.add(new VectorXYZ(x, ele, z));
+		}
+		
+		return sites;
+		
+	}
+	
+	/**
+	 * creates a regular grid of positions within a square
+	 *
+	 * @param size  width and depth of the square
+	 */
+	public static List<VectorXZ> createGridPositions(int positionsPerSide, double size) {
+		
+		List<VectorXZ> positions = new ArrayList<VectorXZ>();
+		
+		double step = size / positionsPerSide;
+		
+		for (int x = 0; x < positionsPerSide; x++) {
+			for (int z = 0; z < positionsPerSide; z++) {
+				positions.add(new VectorXZ((x + 0.5) * step, (z + 0.5) * step));
+			}
+		}
+		
+		return positions;
+		
+	}
+	
+	/**
+	 * creates a counter-clockwise, star-shaped polygon with jagged edges
+	 */
+	public static SimplePolygonXZ createStarPolygon(
+			VectorXZ center, double radius, int vertexCount) {
+		return createPolygon(center, radius, radius * 0.7, vertexCount);
+	}
+	
+	/**
+	 * creates a counter-clockwise, regular polygon
+	 */
+	public static SimplePolygonXZ createRegularPolygon(
+			VectorXZ center, double radius, int vertexCount) {
+		return createPolygon(center, radius, radius, vertexCount);
+	}
+	
+	/**
+	 * creates a counter-clockwise polygon with vertices alternating
+	 * between two distances from the center
+	 */
+	private static SimplePolygonXZ createPolygon(VectorXZ center,
+			double evenRadius, double oddRadius, int vertexCount) {
+		
+		List<VectorXZ> vertices = new ArrayList<VectorXZ>(vertexCount + 1);
+		
+		for (int i = 0; i < vertexCount; i++) {
+			double angle = 2 * PI * i / vertexCount;
+			double r = (i % 2 == 0) ? evenRadius : oddRadius;
+			vertices.add(center.add(new VectorXZ(r * cos(angle), -r * sin(angle))));
+		}
+		
+		vertices.add(vertices.get(0));
+		
+		SimplePolygonXZ polygon = new SimplePolygonXZ(vertices);
+		return polygon.makeCounterclockwise();
+		
+	}
+	
+}
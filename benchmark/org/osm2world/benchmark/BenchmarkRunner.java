@@ -0,0 +1,333 @@
+package org.osm2world.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.osm2world.benchmark.InterpolatorBenchmark.InterpolatorType;
+import org.osm2world.benchmark.TriangulationBenchmark.TriangulationMethod;
+
+/**
+ * runs the benchmarks for the conversion pipeline's hot paths
+ * and writes the results to a JSON file.
+ *
+ * Each benchmark is run for a number of warmup iterations, followed by
+ * measurement iterations. The score is the average time per invocation,
+ * with a 99.9% confidence interval based on the measurement iterations.
+ * All benchmarks run in the runner's JVM, one after the other. Because
+ * there are no forked JVMs, results depend on which benchmarks ran before
+ * and are only comparable with results of this runner using the same
+ * arguments, not with JMH results.
+ *
+ * Arguments (all optional):
+ * <ul>
+ * <li>-rf file: results file, default "build/benchmark-results.json"</li>
+ * <li>-wi n: number of warmup iterations, default 3</li>
+ * <li>-i n: number of measurement iterations, default 5</li>
+ * <li>-t ms: minimum duration of each iteration, default 1000</li>
+ * <li>regex: only runs benchmarks whose full name contains a match</li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+	
+	private static final double CONFIDENCE = 0.999;
+	
+	private final int warmupIterations;
+	private final int measurementIterations;
+	private final long iterationMillis;
+	
+	public BenchmarkRunner(int warmupIterations,
+			int measurementIterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationMillis = iterationMillis;
+	}
+	
+	/**
+	 * returns all available benchmarks, including all parameter variants
+	 */
+	public static List<Benchmark> createBenchmarks() {
+		
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		
+		benchmarks.add(new OSMFileReaderBenchmark(null));
+		for (String file : BenchmarkFixtures.BUNDLED_FILES) {
+			benchmarks.add(new OSMFileReaderBenchmark(file));
+		}
+		
+		benchmarks.add(new MapDataCreationBenchmark(null));
+		for (String file : BenchmarkFixtures.BUNDLED_FILES) {
+			benchmarks.add(new MapDataCreationBenchmark(file));
+		}
+		
+		for (TriangulationMethod method : TriangulationMethod.values()) {
+			benchmarks.add(new TriangulationBenchmark(method, false));
+			benchmarks.add(new TriangulationBenchmark(method, true));
+		}
+		
+		for (InterpolatorType type : InterpolatorType.values()) {
+			benchmarks.add(new InterpolatorBenchmark(type, false));
+			benchmarks.add(new InterpolatorBenchmark(type, true));
+		}
+		
+		benchmarks.add(new DelaunayInsertBenchmark(false));
+		benchmarks.add(new DelaunayInsertBenchmark(true));
+		benchmarks.add(new BuildingModuleBenchmark());
+		benchmarks.add(new ObjWriterBenchmark());
+		
+		return benchmarks;
+		
+	}
+	
+	public static void main(String[] args) throws Exception {
+		
+		File resultFile = new File("build" + File.separator + "benchmark-results.json");
+		int warmupIterations = 3;
+		int measurementIterations = 5;
+		long iterationMillis = 1000;
+		Pattern filter = null;
+		
+		for (int i = 0; i < args.length; i++) {
+			if ("-rf".equals(args[i])) {
+				resultFile = new File(args[++i]);
+			} else if ("-wi".equals(args[i])) {
+				warmupIterations = Integer.parseInt(args[++i]);
+			} else if ("-i".equals(args[i])) {
+				measurementIterations = Integer.parseInt(args[++i]);
+			} else if ("-t".equals(args[i])) {
+				iterationMillis = Long.parseLong(args[++i]);
+			} else {
+				filter = Pattern.compile(args[i]);
+			}
+		}
+		
+		if (measurementIterations < 1) {
+			System.err.println("at least one measurement iteration is required");
+			System.exit(1);
+		}
+		
+		BenchmarkRunner runner = new BenchmarkRunner(
+				warmupIterations, measurementIterations, iterationMillis);
+		
+		List<Result> results = new ArrayList<Result>();
+		
+		for (Benchmark benchmark : createBenchmarks()) {
+			if (filter == null || filter.matcher(getFullName(benchmark)).find()) {
+				results.add(runner.run(benchmark));
+			}
+		}
+		
+		if (resultFile.getParentFile() != null) {
+			resultFile.getParentFile().mkdirs();
+		}
+		
+		runner.writeJSON(results, resultFile);
+		
+		System.out.println("results written to " + resultFile);
+		
+	}
+	
+	/**
+	 * runs a benchmark's warmup and measurement iterations
+	 */
+	public Result run(Benchmark benchmark) throws Exception {
+		
+		System.out.println("# " + getFullName(benchmark));
+		
+		benchmark.setUp();
+		
+		try {
+			
+			for (int i = 0; i < warmupIterations; i++) {
+				double score = runIteration(benchmark);
+				System.out.printf(Locale.US, "warmup %d: %.3f ms/op%n", i + 1, score);
+			}
+			
+			double[] scores = new double[measurementIterations];
+			
+			for (int i = 0; i < measurementIterations; i++) {
+				scores[i] = runIteration(benchmark);
+				System.out.printf(Locale.US, "iteration %d: %.3f ms/op%n", i + 1, scores[i]);
+			}
+			
+			Result result = new Result(benchmark, scores);
+			
+			System.out.printf(Locale.US, "result: %.3f +- %.3f ms/op%n%n",
+					result.score, result.scoreError);
+			
+			return result;
+			
+		} finally {
+			benchmark.tearDown();
+		}
+		
+	}
+	
+	/**
+	 * invokes the benchmark until the iteration's time is used up
+	 *
+	 * @return  average duration of an invocation in milliseconds
+	 */
+	private double runIteration(Benchmark benchmark) throws Exception {
+		
+		long end = System.nanoTime() + iterationMillis * 1000000;
+		
+		long invocations = 0;
+		long totalNanos = 0;
+		
+		do {
+			totalNanos += benchmark.measureInvocation();
+			invocations += 1;
+		} while (System.nanoTime() < end);
+		
+		return totalNanos / 1e6 / invocations;
+		
+	}
+	
+	/**
+	 * writes results as a JSON array with one object per benchmark
+	 */
+	public void writeJSON(List<Result> results, File file) throws IOException {
+		
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		
+		try {
+			
+			writer.println("[");
+			
+			for (int r = 0; r < results.size(); r++) {
+				
+				Result result = results.get(r);
+				
+				writer.println("    {");
+				writer.println("        \"benchmark\" : \"" + escapeJSON(
+						Benchmark.class.getPackage().getName() + "." + result.name) + "\",");
+				writer.println("        \"warmupIterations\" : " + warmupIterations + ",");
+				writer.println("        \"iterationMillis\" : " + iterationMillis + ",");
+				writer.println("        \"measurementIterations\" : " + measurementIterations + ",");
+				
+				if (!result.params.isEmpty()) {
+					
+					writer.println("        \"params\" : {");
+					
+					int p = 0;
+					for (Map.Entry<String, String> param : result.params.entrySet()) {
+						writer.println("            \"" + escapeJSON(param.getKey())
+								+ "\" : \"" + escapeJSON(param.getValue()) + "\""
+								+ (++p < result.params.size() ? "," : ""));
+					}
+					
+					writer.println("        },");
+					
+				}
+				
+				writer.println("        \"result\" : {");
+				writer.println("            \"score\" : " + formatNumber(result.score) + ",");
+				writer.println("            \"scoreError\" : " + formatNumber(result.scoreError) + ",");
+				writer.println("            \"scoreConfidence\" : [ "
+						+ formatNumber(result.score - result.scoreError) + ", "
+						+ formatNumber(result.score + result.scoreError) + " ],");
+				writer.println("            \"scoreUnit\" : \"ms/op\",");
+				
+				StringBuilder iterationScores = new StringBuilder();
+				for (int i = 0; i < result.scores.length; i++) {
+					if (i > 0) iterationScores.append(", ");
+					iterationScores.append(formatNumber(result.scores[i]));
+				}
+				
+				writer.println("            \"iterationScores\" : [ " + iterationScores + " ]");
+				writer.println("        }");
+				writer.println("    }" + (r + 1 < results.size() ? "," : ""));
+				
+			}
+			
+			writer.println("]");
+			
+		} finally {
+			writer.close();
+		}
+		
+	}
+	
+	private static String getFullName(Benchmark benchmark) {
+		
+		String name = benchmark.getName();
+		
+		for (Map.Entry<String, String> param : benchmark.getParams().entrySet()) {
+			name += ":" + param.getKey() + "=" + param.getValue();
+		}
+		
+		return name;
+		
+	}
+	
+	private static String formatNumber(double value) {
+		if (Double.isNaN(value)) {
+			return "\"NaN\"";
+		} else {
+			return String.format(Locale.US, "%.6f", value);
+		}
+	}
+	
+	private static String escapeJSON(String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+	
+	/**
+	 * the measured scores of a benchmark
+	 */
+	public static class Result {
+		
+		public final String name;
+		public final Map<String, String> params;
+		
+		/** average time per invocation for each measurement iteration, in ms */
+		public final double[] scores;
+		
+		public final double score;
+		
+		/** half width of the confidence interval, NaN for a single iteration */
+		public final double scoreError;
+		
+		public Result(Benchmark benchmark, double[] scores) {
+			
+			this.name = benchmark.getName();
+			this.params = benchmark.getParams();
+			this.scores = scores;
+			
+			double sum = 0;
+			for (double s : scores) {
+				sum += s;
+			}
+			score = sum / scores.length;
+			
+			if (scores.length > 1) {
+				
+				double squaredDeviations = 0;
+				for (double s : scores) {
+					squaredDeviations += (s - score) * (s - score);
+				}
+				double stdDev = Math.sqrt(squaredDeviations / (scores.length - 1));
+				
+				TDistribution tDistribution = new TDistribution(scores.length - 1);
+				double t = tDistribution.inverseCumulativeProbability(
+						1 - (1 - CONFIDENCE) / 2);
+				
+				scoreError = t * stdDev / Math.sqrt(scores.length);
+				
+			} else {
+				scoreError = Double.NaN;
+			}
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,85 @@
+package org.osm2world.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.ConversionFacade;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.target.Target;
+import org.osm2world.core.target.statistics.StatisticsTarget;
+import org.osm2world.core.util.metrics.Measurement;
+import org.osm2world.core.util.metrics.MetricsListener;
+import org.osm2world.core.world.creation.WorldModule;
+import org.osm2world.core.world.modules.BuildingModule;
+
+/**
+ * benchmarks the creation of buildings with various roof shapes.
+ *
+ * Runs a complete conversion with only the {@link BuildingModule},
+ * but measures only the time for applying the module (which creates
+ * the roofs) and for rendering the buildings' geometry.
+ */
+public class BuildingModuleBenchmark extends Benchmark {
+	
+	private static final int CITY_SIZE = 10;
+	
+	private final ConversionFacade conversionFacade = new ConversionFacade();
+	
+	private OSMData osmData;
+	
+	/** duration of the measured steps of the current invocation */
+	private long nanos;
+	
+	@Override
+	public String getName() {
+		return "BuildingModuleBenchmark.createBuildings";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		return Collections.singletonMap("buildings",
+				Integer.toString(CITY_SIZE * CITY_SIZE));
+	}
+	
+	@Override
+	public void setUp() {
+		
+		osmData = BenchmarkFixtures.createCity(CITY_SIZE);
+		
+		conversionFacade.addMetricsListener(new MetricsListener() {
+			@Override
+			public void measured(Measurement measurement) {
+				if (measurement.unit == Measurement.Unit.NANOSECONDS
+						&& (measurement.name.equals("module.BuildingModule")
+						|| measurement.name.equals("target.StatisticsTarget"))) {
+					nanos += measurement.value;
+				}
+			}
+		});
+		
+	}
+	
+	@Override
+	protected long measureInvocation() throws Exception {
+		
+		nanos = 0;
+		consume(invoke());
+		return nanos;
+		
+	}
+	
+	@Override
+	protected Object invoke() throws Exception {
+		
+		StatisticsTarget target = new StatisticsTarget();
+		
+		conversionFacade.createRepresentations(osmData,
+				Collections.<WorldModule>singletonList(new BuildingModule()), null,
+				Collections.<Target<?>>singletonList(target));
+		
+		return target;
+		
+	}
+	
+}
@@ -0,0 +1,68 @@
+package org.osm2world.benchmark;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.map_elevation.creation.DelaunayTriangulation;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.VectorXYZ;
+
+/**
+ * benchmarks building a {@link DelaunayTriangulation}
+ * from randomly distributed points, either by inserting
+ * them individually or with a single bulk insertion
+ */
+public class DelaunayInsertBenchmark extends Benchmark {
+	
+	private static final int POINT_COUNT = 5000;
+	private static final double SIZE = 2000;
+	
+	private final boolean bulk;
+	
+	private List<VectorXYZ> points;
+	private AxisAlignedBoundingBoxXZ bounds;
+	
+	/**
+	 * @param bulk  true to use {@link DelaunayTriangulation#insertAll(Collection)}
+	 */
+	public DelaunayInsertBenchmark(boolean bulk) {
+		this.bulk = bulk;
+	}
+	
+	@Override
+	public String getName() {
+		return bulk ? "DelaunayInsertBenchmark.insertAll"
+				: "DelaunayInsertBenchmark.insert";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		return Collections.singletonMap("points", Integer.toString(POINT_COUNT));
+	}
+	
+	@Override
+	public void setUp() {
+		points = BenchmarkFixtures.createTerrainSites(POINT_COUNT, SIZE);
+		bounds = new AxisAlignedBoundingBoxXZ(points).pad(100);
+	}
+	
+	@Override
+	protected Object invoke() {
+		
+		DelaunayTriangulation triangulation = new DelaunayTriangulation(bounds);
+		
+		if (bulk) {
+			triangulation.insertAll(points);
+		} else {
+			for (VectorXYZ point : points) {
+				triangulation.insert(point);
+			}
+		}
+		
+		return triangulation;
+		
+	}
+	
+}
@@ -0,0 +1,111 @@
+package org.osm2world.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.map_elevation.creation.GridInterpolator;
+import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator;
+import org.osm2world.core.map_elevation.creation.NaturalNeighborInterpolator;
+import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * benchmarks either the setup of a {@link TerrainInterpolator}
+ * with a set of known sites, or queries of the set-up interpolator
+ */
+public class InterpolatorBenchmark extends Benchmark {
+	
+	public static enum InterpolatorType {
+		LEAST_SQUARES, NATURAL_NEIGHBOR, GRID
+	}
+	
+	private static final int SITE_COUNT = 5000;
+	private static final double SIZE = 2000;
+	
+	/** number of queries per invocation is the square of this */
+	private static final int QUERIES_PER_SIDE = 50;
+	
+	private final InterpolatorType type;
+	private final boolean query;
+	
+	private List<VectorXYZ> sites;
+	private List<VectorXZ> queryPositions;
+	
+	private TerrainInterpolator interpolator;
+	
+	/**
+	 * @param query  true to benchmark queries, false to benchmark the setup
+	 */
+	public InterpolatorBenchmark(InterpolatorType type, boolean query) {
+		this.type = type;
+		this.query = query;
+	}
+	
+	@Override
+	public String getName() {
+		return query ? "InterpolatorBenchmark.interpolateEle"
+				: "InterpolatorBenchmark.setKnownSites";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put("interpolator", type.toString());
+		params.put("sites", Integer.toString(SITE_COUNT));
+		return params;
+	}
+	
+	@Override
+	public void setUp() {
+		
+		sites = BenchmarkFixtures.createTerrainSites(SITE_COUNT, SIZE);
+		queryPositions = BenchmarkFixtures.createGridPositions(QUERIES_PER_SIDE, SIZE);
+		
+		if (query) {
+			interpolator = createInterpolator();
+			interpolator.setKnownSites(sites);
+		}
+		
+	}
+	
+	@Override
+	protected void prepareInvocation() {
+		if (!query) {
+			interpolator = createInterpolator();
+		}
+	}
+	
+	@Override
+	protected Object invoke() {
+		
+		if (query) {
+			
+			double eleSum = 0;
+			
+			for (VectorXZ pos : queryPositions) {
+				eleSum += interpolator.interpolateEle(pos).y;
+			}
+			
+			return eleSum;
+			
+		} else {
+			
+			interpolator.setKnownSites(sites);
+			return interpolator;
+			
+		}
+		
+	}
+	
+	private TerrainInterpolator createInterpolator() {
+		switch (type) {
+		case LEAST_SQUARES: return new LeastSquaresInterpolator(1);
+		case NATURAL_NEIGHBOR: return new NaturalNeighborInterpolator();
+		case GRID: return new GridInterpolator();
+		default: throw new Error("unsupported interpolator: " + type);
+		}
+	}
+	
+}
@@ -0,0 +1,69 @@
+package org.osm2world.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.osm2world.core.map_data.creation.MetricMapProjection;
+import org.osm2world.core.map_data.creation.OSMToMapDataConverter;
+import org.osm2world.core.map_data.creation.OriginMapProjection;
+import org.osm2world.core.osm.creation.OSMFileReader;
+import org.osm2world.core.osm.data.OSMData;
+
+/**
+ * benchmarks {@link OSMToMapDataConverter#createMapData(OSMData)},
+ * converting either a synthetic city or a bundled file
+ */
+public class MapDataCreationBenchmark extends Benchmark {
+	
+	private final String bundledFile;
+	
+	private OSMData osmData;
+	private OSMToMapDataConverter converter;
+	
+	/**
+	 * @param bundledFile  one of {@link BenchmarkFixtures#BUNDLED_FILES},
+	 *                     null to use a synthetic city
+	 */
+	public MapDataCreationBenchmark(String bundledFile) {
+		this.bundledFile = bundledFile;
+	}
+	
+	@Override
+	public String getName() {
+		return "MapDataCreationBenchmark.createMapData";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		return Collections.singletonMap("input",
+				bundledFile != null ? bundledFile : "synthetic");
+	}
+	
+	@Override
+	public void setUp() throws Exception {
+		
+		if (bundledFile != null) {
+			osmData = new OSMFileReader(
+					BenchmarkFixtures.getBundledFile(bundledFile)).getData();
+		} else {
+			osmData = BenchmarkFixtures.createCity(BenchmarkFixtures.DEFAULT_CITY_SIZE);
+		}
+		
+		OriginMapProjection mapProjection = new MetricMapProjection();
+		mapProjection.setOrigin(osmData);
+		
+		Configuration config = new BaseConfiguration();
+		config.setProperty("overlapThreads", 1);
+		
+		converter = new OSMToMapDataConverter(mapProjection, config);
+		
+	}
+	
+	@Override
+	protected Object invoke() throws Exception {
+		return converter.createMapData(osmData);
+	}
+	
+}
@@ -0,0 +1,66 @@
+package org.osm2world.benchmark;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.osm2world.core.osm.creation.OSMFileReader;
+
+/**
+ * benchmarks {@link OSMFileReader#getData()},
+ * reading either a synthetic city or a bundled file
+ */
+public class OSMFileReaderBenchmark extends Benchmark {
+	
+	private final String bundledFile;
+	
+	private File file;
+	private boolean temporaryFile;
+	
+	/**
+	 * @param bundledFile  one of {@link BenchmarkFixtures#BUNDLED_FILES},
+	 *                     null to use a synthetic city
+	 */
+	public OSMFileReaderBenchmark(String bundledFile) {
+		this.bundledFile = bundledFile;
+	}
+	
+	@Override
+	public String getName() {
+		return "OSMFileReaderBenchmark.getData";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		return Collections.singletonMap("input",
+				bundledFile != null ? bundledFile : "synthetic");
+	}
+	
+	@Override
+	public void setUp() throws Exception {
+		
+		if (bundledFile != null) {
+			file = BenchmarkFixtures.getBundledFile(bundledFile);
+			temporaryFile = false;
+		} else {
+			file = File.createTempFile("osm2world-benchmark", ".osm");
+			temporaryFile = true;
+			BenchmarkFixtures.writeOSMFile(BenchmarkFixtures.createCity(
+					BenchmarkFixtures.DEFAULT_CITY_SIZE), file);
+		}
+		
+	}
+	
+	@Override
+	public void tearDown() {
+		if (temporaryFile) {
+			file.delete();
+		}
+	}
+	
+	@Override
+	protected Object invoke() throws Exception {
+		return new OSMFileReader(file).getData();
+	}
+	
+}
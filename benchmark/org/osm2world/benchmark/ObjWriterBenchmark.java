@@ -0,0 +1,57 @@
+package org.osm2world.benchmark;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.osm2world.core.ConversionFacade;
+import org.osm2world.core.ConversionFacade.Results;
+import org.osm2world.core.target.obj.ObjWriter;
+
+/**
+ * benchmarks writing a converted synthetic city
+ * to an .obj file with {@link ObjWriter}
+ */
+public class ObjWriterBenchmark extends Benchmark {
+	
+	private Results results;
+	private File objFile;
+	
+	@Override
+	public String getName() {
+		return "ObjWriterBenchmark.writeObjFile";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		return Collections.singletonMap("input", "synthetic");
+	}
+	
+	@Override
+	public void setUp() throws Exception {
+		
+		results = new ConversionFacade().createRepresentations(
+				BenchmarkFixtures.createCity(BenchmarkFixtures.DEFAULT_CITY_SIZE),
+				null, null, null);
+		
+		objFile = File.createTempFile("osm2world-benchmark", ".obj");
+		
+	}
+	
+	@Override
+	public void tearDown() {
+		objFile.delete();
+		new File(objFile.getAbsoluteFile() + ".mtl").delete();
+	}
+	
+	@Override
+	protected Object invoke() throws Exception {
+		
+		ObjWriter.writeObjFile(objFile, results.getMapData(),
+				results.getMapProjection(), null, null);
+		
+		return objFile.length();
+		
+	}
+	
+}
@@ -0,0 +1,102 @@
+package org.osm2world.benchmark;
+
+import static java.lang.Math.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.math.LineSegmentXZ;
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.math.algorithms.EarClippingTriangulationUtil;
+import org.osm2world.core.math.algorithms.JTSTriangulationUtil;
+import org.osm2world.core.math.algorithms.Poly2TriTriangulationUtil;
+import org.osm2world.core.math.algorithms.TriangulationUtil;
+
+/**
+ * benchmarks the triangulation of a jagged polygon,
+ * optionally with some convex holes, using different triangulation methods
+ */
+public class TriangulationBenchmark extends Benchmark {
+	
+	public static enum TriangulationMethod {
+		/** {@link TriangulationUtil}, i.e. ear clipping with JTS as a fallback */
+		DEFAULT, EAR_CLIPPING, JTS, POLY2TRI
+	}
+	
+	private static final int OUTER_VERTICES = 80;
+	private static final int HOLE_COUNT = 6;
+	private static final int HOLE_VERTICES = 8;
+	
+	private final TriangulationMethod method;
+	private final boolean withHoles;
+	
+	private SimplePolygonXZ outer;
+	private List<SimplePolygonXZ> holes;
+	
+	public TriangulationBenchmark(TriangulationMethod method, boolean withHoles) {
+		this.method = method;
+		this.withHoles = withHoles;
+	}
+	
+	@Override
+	public String getName() {
+		return "TriangulationBenchmark.triangulate";
+	}
+	
+	@Override
+	public Map<String, String> getParams() {
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put("method", method.toString());
+		params.put("holes", Boolean.toString(withHoles));
+		return params;
+	}
+	
+	@Override
+	public void setUp() {
+		
+		outer = BenchmarkFixtures.createStarPolygon(
+				VectorXZ.NULL_VECTOR, 100, OUTER_VERTICES);
+		
+		holes = new ArrayList<SimplePolygonXZ>();
+		
+		if (withHoles) {
+			for (int i = 0; i < HOLE_COUNT; i++) {
+				double angle = 2 * PI * i / HOLE_COUNT;
+				VectorXZ center = new VectorXZ(35 * cos(angle), 35 * sin(angle));
+				holes.add(BenchmarkFixtures.createRegularPolygon(center, 8, HOLE_VERTICES));
+			}
+		}
+		
+	}
+	
+	@Override
+	protected Object invoke() throws Exception {
+		
+		switch (method) {
+		
+		case DEFAULT:
+			return TriangulationUtil.triangulate(outer, holes);
+		
+		case EAR_CLIPPING:
+			return EarClippingTriangulationUtil.triangulate(outer, holes);
+		
+		case JTS:
+			return JTSTriangulationUtil.triangulate(outer, holes);
+		
+		case POLY2TRI:
+			return Poly2TriTriangulationUtil.triangulate(outer, holes,
+					Collections.<LineSegmentXZ>emptyList(),
+					Collections.<VectorXZ>emptyList());
+		
+		default:
+			throw new Error("unsupported method: " + method);
+			
+		}
+		
+	}
+	
+}
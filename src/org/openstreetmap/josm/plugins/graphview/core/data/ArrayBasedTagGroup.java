@@ -0,0 +1,319 @@
+package org.openstreetmap.josm.plugins.graphview.core.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * compact TagGroup that stores tags in two parallel arrays,
+ * sorted by key. All keys and values are interned,
+ * which allows identical tag groups to be detected cheaply
+ * and makes most lookups succeed on the identity check in
+ * {@link String#equals(Object)}.
+ *
+ * Instances are usually obtained through a {@link Cache},
+ * which returns a shared instance for identical tag sets.
+ */
+public final class ArrayBasedTagGroup implements TagGroup {
+	
+	private final String[] keys;
+	private final String[] values;
+	
+	private final int hashCode;
+	
+	/**
+	 * @param keys    keys of the tags; != null, each != null.
+	 *                If a key occurs more than once, the last one is used.
+	 *                Must not be modified after being used as parameter.
+	 * @param values  values of the tags, same order as keys; != null,
+	 *                each != null. Must not be modified after being used
+	 *                as parameter.
+	 */
+	public ArrayBasedTagGroup(String[] keys, String[] values) {
+		
+		if (keys == null || values == null || keys.length != values.length) {
+			throw new IllegalArgumentException();
+		}
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null || values[i] == null) {
+				throw new IllegalArgumentException();
+			}
+			keys[i] = keys[i].intern();
+			values[i] = values[i].intern();
+		}
+		
+		sortByKey(keys, values);
+		
+		/* remove duplicate keys (the sort is stable, so keep the last one) */
+		
+		int size = 0;
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (i + 1 < keys.length && keys[i] == keys[i + 1]) continue;
+			keys[size] = keys[i];
+			values[size] = values[i];
+			size ++;
+		}
+		
+		if (size < keys.length) {
+			keys = Arrays.copyOf(keys, size);
+			values = Arrays.copyOf(values, size);
+		}
+		
+		this.keys = keys;
+		this.values = values;
+		this.hashCode = 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+		
+	}
+	
+	private int indexOfKey(String key) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public String getValue(String key) {
+		assert key != null;
+		int index = indexOfKey(key);
+		return index < 0 ? null : values[index];
+	}
+	
+	@Override
+	public boolean containsKey(String key) {
+		assert key != null;
+		return indexOfKey(key) >= 0;
+	}
+	
+	@Override
+	public boolean containsAnyKey(Iterable<String> keys) {
+		for (String key : keys) {
+			if (this.containsKey(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsValue(String value) {
+		assert value != null;
+		for (String v : values) {
+			if (v.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsAnyValue(Iterable<String> values) {
+		for (String value : values) {
+			if (this.containsValue(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean contains(Tag tag) {
+		assert tag != null;
+		return contains(tag.key, tag.value);
+	}
+	
+	@Override
+	public boolean containsAny(Iterable<Tag> tags) {
+		for (Tag tag : tags) {
+			if (this.contains(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean contains(String key, String value) {
+		assert key != null;
+		assert value != null;
+		int index = indexOfKey(key);
+		return index >= 0 && values[index].equals(value);
+	}
+	
+	@Override
+	public boolean containsAny(Iterable<String> keys, String value) {
+		for (String key : keys) {
+			if (this.contains(key, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsAny(Iterable<String> keys, Iterable<String> values) {
+		for (String key : keys) {
+			if (this.containsAny(key, values)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsAny(String key, Iterable<String> values) {
+		int index = indexOfKey(key);
+		if (index >= 0) {
+			for (String value : values) {
+				if (this.values[index].equals(value)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public int size() {
+		return keys.length;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+	
+	/**
+	 * returns an Iterator providing access to all Tags, sorted by key.
+	 * The Iterator does not support the {@link Iterator#remove()} method.
+	 */
+	@Override
+	public Iterator<Tag> iterator() {
+		return new Iterator<Tag>() {
+			
+			private int index = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return index < keys.length;
+			}
+			
+			@Override
+			public Tag next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Tag tag = new Tag(keys[index], values[index]);
+				index ++;
+				return tag;
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+			
+		};
+	}
+	
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+	
+	/**
+	 * compares the tags by identity, which is sufficient
+	 * because all keys and values are interned
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof ArrayBasedTagGroup)) {
+			return false;
+		}
+		
+		ArrayBasedTagGroup other = (ArrayBasedTagGroup) obj;
+		
+		if (hashCode != other.hashCode || keys.length != other.keys.length) {
+			return false;
+		}
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != other.keys[i] || values[i] != other.values[i]) {
+				return false;
+			}
+		}
+		
+		return true;
+		
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(keys[i]).append('=').append(values[i]);
+		}
+		return result.append('}').toString();
+	}
+	
+	/** insertion sort, tag groups are usually small */
+	private static final void sortByKey(String[] keys, String[] values) {
+		for (int i = 1; i < keys.length; i++) {
+			String key = keys[i];
+			String value = values[i];
+			int j = i - 1;
+			while (j >= 0 && keys[j].compareTo(key) > 0) {
+				keys[j + 1] = keys[j];
+				values[j + 1] = values[j];
+				j --;
+			}
+			keys[j + 1] = key;
+			values[j + 1] = value;
+		}
+	}
+	
+	/**
+	 * deduplicates {@link ArrayBasedTagGroup}s: returns one shared
+	 * instance for all identical tag sets passed to {@link #get(ArrayBasedTagGroup)}.
+	 * Not thread-safe.
+	 */
+	public static final class Cache {
+		
+		private final Map<ArrayBasedTagGroup, ArrayBasedTagGroup> instances =
+				new HashMap<ArrayBasedTagGroup, ArrayBasedTagGroup>();
+		
+		/**
+		 * returns the shared instance for a tag group,
+		 * which becomes the shared instance if it is the first one
+		 * with its tag set.
+		 */
+		public ArrayBasedTagGroup get(ArrayBasedTagGroup tagGroup) {
+			ArrayBasedTagGroup existing = instances.get(tagGroup);
+			if (existing != null) {
+				return existing;
+			} else {
+				instances.put(tagGroup, tagGroup);
+				return tagGroup;
+			}
+		}
+		
+		/** returns the number of distinct tag sets */
+		public int size() {
+			return instances.size();
+		}
+		
+	}
+	
+}
@@ -12,7 +12,7 @@ import uk.co.flamingpenguin.jewel.cli.Option;
 
 public interface CLIArguments {
 	
-	public static final String OUTPUT_PATTERN = "(.*)\\.(?:obj|pov|png|ppm|gd)";
+	public static final String OUTPUT_PATTERN = "(.*)\\.(?:obj|pov|png|ppm|gd|glb)";
 	
 	/* input and output files */
 	
@@ -39,7 +39,7 @@ public interface CLIArguments {
 	InputMode getInputMode();
 	boolean isInputMode();
 	
-	@Option(description="lat,lon pairs defining an input bounding box (does not work with files)",
+	@Option(description="lat,lon pairs defining an input bounding box (filters the data when used with files)",
 			longName="input_bbox", pattern=LatLonEle.PATTERN)
 	List<LatLonEle> getInputBoundingBox();
 	boolean isInputBoundingBox();
@@ -94,6 +94,27 @@ public interface CLIArguments {
 	double getPviewAspect();
 	boolean isPviewAspect();
 	
+	/* tile batches */
+	
+	@Option(description="lat,lon pairs defining a bounding box; all tiles intersecting it will be rendered",
+			pattern=LatLonEle.PATTERN, longName="tiles.bbox")
+	List<LatLonEle> getTilesBoundingBox();
+	boolean isTilesBoundingBox();
+	
+	@Option(description="lowest zoom level of the rendered tiles", longName="tiles.minZoom")
+	int getTilesMinZoom();
+	boolean isTilesMinZoom();
+	
+	@Option(description="highest zoom level of the rendered tiles (default: same as lowest)",
+			longName="tiles.maxZoom")
+	int getTilesMaxZoom();
+	boolean isTilesMaxZoom();
+	
+	@Option(description="directory for rendered tiles (zoom/x/y.png), existing tiles are skipped",
+			longName="tiles.dir")
+	File getTilesDir();
+	boolean isTilesDir();
+	
 	/* logging */
 	
 	@Option(description="writes execution times to the command line")
@@ -102,6 +123,10 @@ public interface CLIArguments {
 	@Option(description="appends a line with execution times to a file")
 	File getPerformanceTable();
 	boolean isPerformanceTable();
+	
+	@Option(description="appends detailed execution times, memory use and element counts to a .json or .csv file")
+	File getMetricsReport();
+	boolean isMetricsReport();
 		
 	/* other parameters */
 	
@@ -120,4 +145,24 @@ public interface CLIArguments {
 	File getParameterFile();
 	boolean isParameterFile();
 	
+	@Option(description="number of parameter file lines converted at the same time, each in a separate process")
+	int getParallel();
+	boolean isParallel();
+	
+	/* conversion server */
+	
+	@Option(description="runs a conversion server on this local port, which accepts one line of parameters per conversion")
+	int getServer();
+	boolean isServer();
+	
+	@Option(description="number of conversions run at the same time by the server (default: number of processors)",
+			longName="server.threads")
+	int getServerThreads();
+	boolean isServerThreads();
+	
+	@Option(description="memory in MB for input data cached by the server",
+			longName="server.cacheSize", defaultValue="1024")
+	int getServerCacheSize();
+	boolean isServerCacheSize();
+	
 }
@@ -6,6 +6,8 @@ import static org.osm2world.console.CLIArgumentsUtil.ProgramMode.CONVERT;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.osm2world.console.CLIArgumentsUtil.InputMode;
+
 /**
  * a group of {@link CLIArguments} that represent conversions
  * which can be performed at the same time
@@ -67,6 +69,8 @@ public class CLIArgumentsGroup {
 			&& bothNullOrEqual(args1.getInputQuery(), args2.getInputQuery())
 			&& bothNullOrEqual(args1.getInputBoundingBox(), args2.getInputBoundingBox())
 			&& bothNullOrEqual(args1.getOverpassURL(), args2.getOverpassURL())
+			&& (args1.getInputMode() != InputMode.OVERPASS // tiles can define the input area
+					|| bothNullOrEqual(args1.getTilesBoundingBox(), args2.getTilesBoundingBox()))
 			&& ((args1.isConfig() && args1.getConfig().equals(args2.getConfig()))
 					|| (!args1.isConfig() && !args2.isConfig()));
 		
@@ -13,8 +13,8 @@ import java.util.regex.Pattern;
 
 public final class CLIArgumentsUtil {
 	
-	public static enum ProgramMode {GUI, CONVERT, HELP, VERSION, PARAMFILE};
-	public static enum OutputMode {OBJ, POV, PNG, PPM, GD};
+	public static enum ProgramMode {GUI, CONVERT, HELP, VERSION, PARAMFILE, SERVER};
+	public static enum OutputMode {OBJ, POV, PNG, PPM, GD, GLB};
 	public static enum InputMode {FILE, OVERPASS};
 	
 	private CLIArgumentsUtil() { }
@@ -25,6 +25,22 @@ public final class CLIArgumentsUtil {
 	
 	public static final String getErrorString(CLIArguments args) {
 		
+		if (args.isParallel() && args.getParallel() < 1) {
+			return "parallel execution requires at least one process";
+		}
+		
+		if (getProgramMode(args) == SERVER) {
+			
+			if (args.getServer() < 0 || args.getServer() > 65535) {
+				return "invalid port for the server";
+			}
+			
+			if (args.isServerThreads() && args.getServerThreads() < 1) {
+				return "the server requires at least one thread";
+			}
+			
+		}
+		
 		if (getProgramMode(args) == CONVERT) {
 			
 			switch (args.getInputMode()) {
@@ -36,17 +52,41 @@ public final class CLIArgumentsUtil {
 				break;
 				
 			case OVERPASS:
-				if (!args.isInputQuery() && !args.isInputBoundingBox()) {
+				if (!args.isInputQuery() && !args.isInputBoundingBox()
+						&& !args.isTilesBoundingBox()) {
 					return "either a bounding box or a query string is required for Overpass"; 
 				}
 				break;
 				
 			}
 			
-			if (!args.isOutput()) {
+			if (!args.isOutput() && !args.isTilesDir()) {
 				return "output file parameter is missing";
 			}
 			
+			if (args.isTilesDir()) {
+				
+				if (!args.isTilesBoundingBox() || !args.isTilesMinZoom()) {
+					return "tile output requires a bounding box and a zoom level";
+				}
+				
+				if (args.getTilesBoundingBox().size() < 2) {
+					return "bounding box requires at least two lat,lon pairs";
+				}
+				
+				if (args.getTilesMinZoom() < 0 || args.getTilesMinZoom() > 30
+						|| (args.isTilesMaxZoom() && (args.getTilesMaxZoom()
+								< args.getTilesMinZoom() || args.getTilesMaxZoom() > 30))) {
+					return "invalid zoom range for tile output";
+				}
+				
+				if (hasOrthographicArg(args) || hasPerspectiveArg(args)) {
+					return "tile output defines its own orthographic view,"
+						+ " it cannot be combined with other view arguments";
+				}
+				
+			}
+			
 			if (args.isOviewTiles() && args.getOviewTiles().isEmpty()) {
 				return "at least one tile required";
 			}
@@ -61,10 +101,12 @@ public final class CLIArgumentsUtil {
 						" orthographic view";
 			}
 			
-			for (File outputFile : args.getOutput()) {
-				if (getOutputMode(outputFile) == null) {
-					return "cannot identify file type from name " + outputFile
-						+ "\navailable output types: " + OutputMode.values();
+			if (args.isOutput()) {
+				for (File outputFile : args.getOutput()) {
+					if (getOutputMode(outputFile) == null) {
+						return "cannot identify file type from name " + outputFile
+							+ "\navailable output types: " + OutputMode.values();
+					}
 				}
 			}
 			
@@ -100,7 +142,8 @@ public final class CLIArgumentsUtil {
 				: args.getHelp() ? HELP
 					: args.getVersion() ? VERSION
 						: args.getGui() ? GUI
-							: CONVERT;
+							: args.isServer() ? SERVER
+								: CONVERT;
 	}
 	
 	public static final OutputMode getOutputMode(File outputFile) {
@@ -114,6 +157,8 @@ public final class CLIArgumentsUtil {
 			return OutputMode.PPM;
 		} else if (outputFile.getName().toLowerCase().endsWith(".gd")) {
 			return OutputMode.GD;
+		} else if (outputFile.getName().toLowerCase().endsWith(".glb")) {
+			return OutputMode.GLB;
 		} else {
 			return null;
 		}
@@ -133,30 +178,55 @@ public final class CLIArgumentsUtil {
 			if (line.startsWith("#")) continue;
 			if (line.trim().isEmpty()) continue;
 			
-			List<String> argList = new ArrayList<String>();
+			result.add(splitParameterLine(line));
 			
-			Pattern regex = Pattern.compile("[^\\s\"']+|\"([^\"]*)\"|'([^']*)'");
-			Matcher matcher = regex.matcher(line);
+		}
+		in.close();
+		
+		return result;
+		
+	}
+	
+	/**
+	 * splits a line of parameters, as used in parameter files,
+	 * into individual arguments. Arguments can be quoted.
+	 * As in a shell, quoted and unquoted parts without whitespace
+	 * between them form a single argument, so arguments containing
+	 * both kinds of quotes can be written as e.g. "a'b"'"'"c".
+	 */
+	public static final String[] splitParameterLine(String line) {
+		
+		List<String> argList = new ArrayList<String>();
+		
+		Pattern argRegex = Pattern.compile("(?:[^\\s\"']+|\"[^\"]*\"|'[^']*')+");
+		Pattern partRegex = Pattern.compile("[^\\s\"']+|\"([^\"]*)\"|'([^']*)'");
+		
+		Matcher argMatcher = argRegex.matcher(line);
+		
+		while (argMatcher.find()) {
+			
+			StringBuilder arg = new StringBuilder();
+			
+			Matcher matcher = partRegex.matcher(argMatcher.group());
 			
 			while (matcher.find()) {
 			    if (matcher.group(1) != null) {
 			        // Add double-quoted string without the quotes
-			    	argList.add(matcher.group(1));
+			    	arg.append(matcher.group(1));
 			    } else if (matcher.group(2) != null) {
 			        // Add single-quoted string without the quotes
-			    	argList.add(matcher.group(2));
+			    	arg.append(matcher.group(2));
 			    } else {
 			        // Add unquoted word
-			    	argList.add(matcher.group());
+			    	arg.append(matcher.group());
 			    }
 			}
 			
-			result.add(argList.toArray(new String[argList.size()]));
+			argList.add(arg.toString());
 			
 		}
-		in.close();
 		
-		return result;
+		return argList.toArray(new String[argList.size()]);
 		
 	}
 	
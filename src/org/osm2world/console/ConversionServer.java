@@ -0,0 +1,359 @@
+package org.osm2world.console;
+
+import static org.osm2world.console.CLIArgumentsUtil.ProgramMode.CONVERT;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.osm2world.console.CLIArgumentsUtil.OutputMode;
+import org.osm2world.console.Output.PerformanceListener;
+import org.osm2world.core.ConversionFacade.Phase;
+
+import uk.co.flamingpenguin.jewel.cli.ArgumentValidationException;
+import uk.co.flamingpenguin.jewel.cli.CliFactory;
+
+/**
+ * server which runs conversions within a single, long-running process.
+ * This avoids the startup costs of a new process for each conversion,
+ * and allows input files, configuration files and SRTM tiles
+ * to be reused by subsequent conversions.
+ *
+ * Clients connect to a local port and send one line per conversion,
+ * using the same syntax as a line of a parameter file.
+ * For each line, the server replies with one line, in the same order:
+ * "ok" followed by the durations (in ms) of the conversion's steps,
+ * or "error" followed by a message. Conversions are run by a fixed
+ * number of worker threads, so a client can send several lines
+ * without waiting for the replies. The line "status" returns
+ * information about the cached input data instead.
+ *
+ * Conversions with image output are run one after the other,
+ * because they share the OpenGL implementation.
+ */
+public class ConversionServer {
+	
+	private final Configuration defaultConfig;
+	private final int port;
+	
+	private final ExecutorService workers;
+	private final OSMDataCache inputCache;
+	
+	/** configurations by file, see {@link #getConfiguration(CLIArguments)} */
+	private final Map<File, CachedConfiguration> configs =
+			new HashMap<File, CachedConfiguration>();
+	
+	/** held while running conversions with image output */
+	private final Object imageOutputLock = new Object();
+	
+	/**
+	 * @param defaultConfig  configuration for conversions without a config file
+	 * @param port           local port the server will listen on
+	 * @param threads        number of conversions run at the same time
+	 * @param cacheBytes     limit for the estimated size of cached input data
+	 */
+	public ConversionServer(Configuration defaultConfig,
+			int port, int threads, long cacheBytes) {
+		
+		this.defaultConfig = defaultConfig;
+		this.port = port;
+		
+		workers = Executors.newFixedThreadPool(threads);
+		inputCache = new OSMDataCache(cacheBytes);
+		
+	}
+	
+	/**
+	 * accepts connections until the process is terminated
+	 */
+	public void run() throws IOException {
+		
+		ServerSocket serverSocket = new ServerSocket(
+				port, 50, InetAddress.getByName(null));
+		
+		System.out.println("conversion server listening on port "
+				+ serverSocket.getLocalPort());
+		
+		try {
+			
+			while (true) {
+				
+				Socket socket = serverSocket.accept();
+				
+				Thread connectionThread = new Thread(new Connection(socket));
+				connectionThread.setDaemon(true);
+				connectionThread.start();
+				
+			}
+			
+		} finally {
+			serverSocket.close();
+			workers.shutdownNow();
+		}
+		
+	}
+	
+	/**
+	 * reads the lines sent by one client, passes them to the workers
+	 * and writes the replies in the order of the lines
+	 */
+	private class Connection implements Runnable {
+		
+		private final Socket socket;
+		
+		public Connection(Socket socket) {
+			this.socket = socket;
+		}
+		
+		@Override
+		public void run() {
+			
+			ExecutorService replyWriter = Executors.newSingleThreadExecutor();
+			
+			try {
+				
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), "UTF-8"));
+				final PrintWriter out = new PrintWriter(
+						new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+				
+				String line;
+				
+				while ((line = in.readLine()) != null) {
+					
+					if (line.trim().isEmpty()) continue;
+					
+					final Future<String> reply;
+					
+					if ("status".equals(line.trim())) {
+						// run by the reply writer, after the previous lines' replies
+						FutureTask<String> statusTask =
+								new FutureTask<String>(new StatusTask());
+						replyWriter.submit(statusTask);
+						reply = statusTask;
+					} else {
+						reply = workers.submit(new ConversionTask(line));
+					}
+					
+					replyWriter.submit(new Runnable() {
+						@Override
+						public void run() {
+							out.println(getReply(reply));
+						}
+					});
+					
+				}
+				
+				replyWriter.shutdown();
+				replyWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				
+			} catch (IOException e) {
+				System.err.println("conversion server connection failed: " + e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				replyWriter.shutdownNow();
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// nothing left to do
+				}
+			}
+			
+		}
+		
+	}
+	
+	private static String getReply(Future<String> reply) {
+		
+		try {
+			return reply.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "error interrupted";
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			cause.printStackTrace();
+			return getErrorReply(cause.getMessage() != null
+					? cause.getMessage() : cause.toString());
+		}
+		
+	}
+	
+	/**
+	 * returns an error reply, which must fit into a single line
+	 */
+	private static String getErrorReply(String message) {
+		return "error " + message.replaceAll("\\s+", " ");
+	}
+	
+	/**
+	 * runs a conversion and returns the durations of its steps
+	 */
+	private class ConversionTask implements Callable<String> {
+		
+		private final String line;
+		
+		public ConversionTask(String line) {
+			this.line = line;
+		}
+		
+		@Override
+		public String call() throws Exception {
+			
+			long start = System.currentTimeMillis();
+			
+			/* invalid arguments are reported to the client, not converted */
+			
+			CLIArguments args;
+			
+			try {
+				args = CliFactory.parseArguments(CLIArguments.class,
+						CLIArgumentsUtil.splitParameterLine(line));
+			} catch (ArgumentValidationException e) {
+				return getErrorReply(e.getMessage());
+			}
+			
+			String errorString = CLIArgumentsUtil.getErrorString(args);
+			
+			if (errorString == null
+					&& CLIArgumentsUtil.getProgramMode(args) != CONVERT) {
+				errorString = "the server can only run conversions";
+			}
+			
+			if (errorString != null) {
+				return getErrorReply(errorString);
+			}
+			
+			Configuration config = getConfiguration(args);
+			
+			CLIArgumentsGroup argumentsGroup = new CLIArgumentsGroup(args);
+			PerformanceListener perfListener = new PerformanceListener(args);
+			
+			if (hasImageOutput(args)) {
+				synchronized (imageOutputLock) {
+					Output.output(config, argumentsGroup, inputCache, perfListener);
+				}
+			} else {
+				Output.output(config, argumentsGroup, inputCache, perfListener);
+			}
+			
+			long end = System.currentTimeMillis();
+			
+			StringBuilder reply = new StringBuilder("ok");
+			
+			reply.append(" input=").append(
+					perfListener.getPhaseStart(Phase.MAP_DATA) - start);
+			
+			for (Phase phase : Phase.values()) {
+				if (phase != Phase.FINISHED) {
+					reply.append(" ").append(phase.toString().toLowerCase())
+						.append("=").append(perfListener.getPhaseDuration(phase));
+				}
+			}
+			
+			reply.append(" output=").append(
+					end - perfListener.getPhaseStart(Phase.FINISHED));
+			reply.append(" total=").append(end - start);
+			
+			return reply.toString();
+			
+		}
+		
+	}
+	
+	/**
+	 * returns information about the cached input data
+	 */
+	private class StatusTask implements Callable<String> {
+		
+		@Override
+		public String call() {
+			return "ok cached=" + inputCache.size()
+					+ " cachedBytes=" + inputCache.getBytes()
+					+ " hits=" + inputCache.getHits()
+					+ " misses=" + inputCache.getMisses();
+		}
+		
+	}
+	
+	/**
+	 * returns the configuration for a conversion.
+	 * Configuration files are only read again if they have been modified.
+	 */
+	private Configuration getConfiguration(CLIArguments args)
+			throws ConfigurationException {
+		
+		if (!args.isConfig()) {
+			return defaultConfig;
+		}
+		
+		File configFile = args.getConfig().getAbsoluteFile();
+		long lastModified = configFile.lastModified();
+		
+		synchronized (configs) {
+			
+			CachedConfiguration cached = configs.get(configFile);
+			
+			if (cached == null || cached.lastModified != lastModified) {
+				cached = new CachedConfiguration(
+						OSM2World.loadConfiguration(configFile), lastModified);
+				configs.put(configFile, cached);
+			}
+			
+			return cached.config;
+			
+		}
+		
+	}
+	
+	private static boolean hasImageOutput(CLIArguments args) {
+		
+		if (args.isTilesDir()) {
+			return true;
+		}
+		
+		if (args.isOutput()) {
+			for (File outputFile : args.getOutput()) {
+				OutputMode outputMode = CLIArgumentsUtil.getOutputMode(outputFile);
+				if (outputMode == OutputMode.PNG || outputMode == OutputMode.PPM
+						|| outputMode == OutputMode.GD) {
+					return true;
+				}
+			}
+		}
+		
+		return false;
+		
+	}
+	
+	private static class CachedConfiguration {
+		
+		final Configuration config;
+		final long lastModified;
+		
+		CachedConfiguration(Configuration config, long lastModified) {
+			this.config = config;
+			this.lastModified = lastModified;
+		}
+		
+	}
+	
+}
@@ -90,6 +90,18 @@ public class ImageExporter {
 	 */
 	public ImageExporter(Configuration config, Results results,
 			CLIArgumentsGroup expectedGroup) {
+		this(config, results, countExpectedFileCalls(expectedGroup),
+				getExpectedMaxSize(expectedGroup));
+	}
+	
+	/**
+	 * Creates an {@link ImageExporter} for later use.
+	 * 
+	 * @param expectedFileCalls  number of images that will be requested
+	 * @param expectedMaxSize    maximum size of the requested images
+	 */
+	public ImageExporter(Configuration config, Results results,
+			int expectedFileCalls, Resolution expectedMaxSize) {
 		
 		this.results = results;
 		this.config = config;
@@ -124,24 +136,9 @@ public class ImageExporter {
 		
 		int canvasLimit = config.getInt(CANVAS_LIMIT_KEY, DEFAULT_CANVAS_LIMIT);
 		
-		/* find out what number and size of image file requests to expect */
-		
-		int expectedFileCalls = 0;
-		int expectedMaxSizeX = 1;
-		int expectedMaxSizeY = 1;
+		int expectedMaxSizeX = expectedMaxSize.x;
+		int expectedMaxSizeY = expectedMaxSize.y;
 		
-		for (CLIArguments args : expectedGroup.getCLIArgumentsList()) {
-			
-			for (File outputFile : args.getOutput()) {
-				OutputMode outputMode = CLIArgumentsUtil.getOutputMode(outputFile);
-				if (outputMode == OutputMode.PNG || outputMode == OutputMode.PPM || outputMode == OutputMode.GD) {
-					expectedFileCalls += 1;
-					expectedMaxSizeX = max(expectedMaxSizeX, args.getResolution().x);
-					expectedMaxSizeY = max(expectedMaxSizeY, args.getResolution().y);
-				}
-			}
-			
-		}
 		boolean onlyOneRenderPass = (expectedFileCalls <= 1
 				&& expectedMaxSizeX <= canvasLimit
 				&& expectedMaxSizeY <= canvasLimit);
@@ -196,6 +193,54 @@ public class ImageExporter {
 
 	}
 	
+	/**
+	 * finds out how many image file requests to expect
+	 */
+	private static int countExpectedFileCalls(CLIArgumentsGroup expectedGroup) {
+		
+		int expectedFileCalls = 0;
+		
+		for (CLIArguments args : expectedGroup.getCLIArgumentsList()) {
+			if (!args.isOutput()) continue;
+			for (File outputFile : args.getOutput()) {
+				if (isImageOutputMode(CLIArgumentsUtil.getOutputMode(outputFile))) {
+					expectedFileCalls += 1;
+				}
+			}
+		}
+		
+		return expectedFileCalls;
+		
+	}
+	
+	/**
+	 * finds out the maximum size of image file requests to expect
+	 */
+	private static Resolution getExpectedMaxSize(CLIArgumentsGroup expectedGroup) {
+		
+		int expectedMaxSizeX = 1;
+		int expectedMaxSizeY = 1;
+		
+		for (CLIArguments args : expectedGroup.getCLIArgumentsList()) {
+			if (!args.isOutput()) continue;
+			for (File outputFile : args.getOutput()) {
+				if (isImageOutputMode(CLIArgumentsUtil.getOutputMode(outputFile))) {
+					expectedMaxSizeX = max(expectedMaxSizeX, args.getResolution().x);
+					expectedMaxSizeY = max(expectedMaxSizeY, args.getResolution().y);
+				}
+			}
+		}
+		
+		return new Resolution(expectedMaxSizeX, expectedMaxSizeY);
+		
+	}
+	
+	private static boolean isImageOutputMode(OutputMode outputMode) {
+		return outputMode == OutputMode.PNG
+				|| outputMode == OutputMode.PPM
+				|| outputMode == OutputMode.GD;
+	}
+	
 	protected void finalize() throws Throwable {
 		freeResources();
 	}
@@ -238,6 +283,80 @@ public class ImageExporter {
 			final Camera camera,
 			final Projection projection) throws IOException {
 		
+		ImageWriter imageWriter = createImageWriter(
+				outputFile, outputMode, x, y, exportAlpha);
+		
+		renderImage(imageWriter, x, y, camera, projection);
+		
+		imageWriter.close();
+		
+	}
+	
+	/**
+	 * renders this ImageExporter's content to an image in memory.
+	 * Unlike rendering, writing the result to a file with
+	 * {@link #writeImageFile(File, OutputMode, BufferedImage)}
+	 * does not need the OpenGL context and can happen on another thread.
+	 * 
+	 * @param x  horizontal resolution
+	 * @param y  vertical resolution
+	 */
+	public BufferedImage renderImage(int x, int y,
+			Camera camera, Projection projection) throws IOException {
+		
+		BufferedImageWriter imageWriter =
+				new BufferedImageWriter(x, y, exportAlpha);
+		
+		renderImage(imageWriter, x, y, camera, projection);
+		
+		imageWriter.close();
+		
+		return imageWriter.getImage();
+		
+	}
+	
+	/**
+	 * writes an image created with
+	 * {@link #renderImage(int, int, Camera, Projection)} to a file.
+	 * Does not use any of an ImageExporter's resources.
+	 * 
+	 * @param outputMode   one of the image output modes
+	 */
+	public static void writeImageFile(File outputFile, OutputMode outputMode,
+			BufferedImage image) throws IOException {
+		
+		ImageWriter imageWriter = createImageWriter(outputFile, outputMode,
+				image.getWidth(), image.getHeight(),
+				image.getType() == BufferedImage.TYPE_INT_ARGB);
+		
+		imageWriter.append(image);
+		imageWriter.close();
+		
+	}
+	
+	private static ImageWriter createImageWriter(File outputFile,
+			OutputMode outputMode, int x, int y, boolean alpha) {
+		
+		switch (outputMode) {
+		case PNG: return new PNGWriter(outputFile, x, y, alpha);
+		case PPM: return new PPMWriter(outputFile, x, y);
+		case GD: return new GDWriter(outputFile, x, y);
+		
+		default: throw new IllegalArgumentException(
+				"output mode not supported " + outputMode);
+		}
+		
+	}
+	
+	/**
+	 * renders this ImageExporter's content (maybe in multiple parts)
+	 * and passes the image lines to an {@link ImageWriter}
+	 * from top to bottom. The writer is not closed.
+	 */
+	private void renderImage(ImageWriter imageWriter, int x, int y,
+			final Camera camera,
+			final Projection projection) throws IOException {
+		
 		/* FIXME: this would be needed for cases where BufferSizes are so unbeliveable large that the temp images go beyond the memory limit
 		while (((1<<31)/x) <= pBufferSizeY) {
 			pBufferSizeY /= 2;
@@ -251,18 +370,6 @@ public class ImageExporter {
 		int xParts = 1 + ((x-1) / pBufferSizeX);
 		int yParts = 1 + ((y-1) / pBufferSizeY);
 
-		/* generate ImageWriter */
-		ImageWriter imageWriter;
-		
-		switch (outputMode) {
-		case PNG: imageWriter = new PNGWriter(outputFile, x, y, exportAlpha); break;
-		case PPM: imageWriter = new PPMWriter(outputFile, x, y); break;
-		case GD: imageWriter = new GDWriter(outputFile, x, y); break;
-		
-		default: throw new IllegalArgumentException(
-				"output mode not supported " + outputMode);
-		}
-
 		/* create image (maybe in multiple parts) */
 				
         BufferedImage image = new BufferedImage(x, pBufferSizeY, exportAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
@@ -303,8 +410,7 @@ public class ImageExporter {
         	
         	imageWriter.append(image, ySize);
 		}
-
-        imageWriter.close();
+		
 	}
 
 	private static JOGLTarget createJOGLTarget(GL gl, Results results,
@@ -359,6 +465,45 @@ public class ImageExporter {
 		void close() throws IOException;
 	}
 
+	/**
+	 * Implementation of an ImageWriter which assembles the image in memory
+	 */
+	private static class BufferedImageWriter implements ImageWriter {
+		
+		private final BufferedImage image;
+		private final Graphics2D graphics;
+		private int nextLine = 0;
+		
+		public BufferedImageWriter(int cols, int rows, boolean alpha) {
+			image = new BufferedImage(cols, rows, alpha
+					? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+			graphics = image.createGraphics();
+			graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
+		}
+		
+		@Override
+		public void append(BufferedImage img) throws IOException {
+			append(img, img.getHeight());
+		}
+		
+		@Override
+		public void append(BufferedImage img, int lines) throws IOException {
+			graphics.drawImage(img.getSubimage(0, 0, img.getWidth(), lines),
+					0, nextLine, null);
+			nextLine += lines;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			graphics.dispose();
+		}
+		
+		public BufferedImage getImage() {
+			return image;
+		}
+		
+	}
+	
 	/**
 	 * Implementation of an ImageWriter to write png files
 	 */
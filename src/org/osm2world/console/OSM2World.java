@@ -8,7 +8,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.UIManager;
 
@@ -56,6 +58,8 @@ public class OSM2World {
 		/* parse lines from parameter file (if one exists) */
 		
 		List<CLIArguments> argumentsList = Collections.singletonList(args);
+		Map<CLIArguments, String[]> unparsedArgsMap =
+				new IdentityHashMap<CLIArguments, String[]>();
 		
 		if (args.isParameterFile()) {
 			
@@ -69,7 +73,9 @@ public class OSM2World {
 				for (String[] unparsedArgsLine : unparsedArgsLines) {
 					
 					try {
-						argumentsList.add(parseArguments(unparsedArgsLine));
+						CLIArguments parsedArgs = parseArguments(unparsedArgsLine);
+						argumentsList.add(parsedArgs);
+						unparsedArgsMap.put(parsedArgs, unparsedArgsLine);
 					} catch (Exception e) {
 						System.err.println("Could not parse parameters from file:");
 						System.err.println(Arrays.toString(unparsedArgsLine));
@@ -117,6 +123,21 @@ public class OSM2World {
 			System.err.println("warning: empty parameter file, doing nothing");
 		}
 		
+		if (args.isParallel() && argumentsGroups.size() > 1) {
+			
+			boolean success = ParallelExecution.execute(argumentsGroups,
+					argumentsList, unparsedArgsMap, args.getParallel());
+			
+			if (!success) {
+				System.exit(1);
+			}
+			
+			return;
+			
+		}
+		
+		boolean failed = false;
+		
 		for (CLIArgumentsGroup argumentsGroup : argumentsGroups) {
 						
 			if (argumentsList.size() > 1) {
@@ -127,13 +148,19 @@ public class OSM2World {
 				System.out.print("\n");
 			}
 			
-			executeArgumentsGroup(argumentsGroup);
+			if (!executeArgumentsGroup(argumentsGroup)) {
+				failed = true;
+			}
 			
 		}
 		
+		if (failed) {
+			System.exit(1);
+		}
+		
 	}
 
-	private static CLIArguments parseArguments(String[] unparsedArgs)
+	static CLIArguments parseArguments(String[] unparsedArgs)
 		throws ArgumentValidationException, Exception {
 		
 		CLIArguments args = CliFactory.parseArguments(CLIArguments.class, unparsedArgs);
@@ -145,7 +172,10 @@ public class OSM2World {
 		
 	}
 
-	private static void executeArgumentsGroup(CLIArgumentsGroup argumentsGroup) {
+	/**
+	 * @return  false if the conversion failed
+	 */
+	private static boolean executeArgumentsGroup(CLIArgumentsGroup argumentsGroup) {
 		
 		/* load configuration file */
 		
@@ -157,10 +187,7 @@ public class OSM2World {
 		if (representativeArgs.isConfig()) {
 			try {
 				configFile = representativeArgs.getConfig();
-				PropertiesConfiguration fileConfig = new PropertiesConfiguration();
-				fileConfig.setListDelimiter(';');
-				fileConfig.load(configFile);
-				config = fileConfig;
+				config = loadConfiguration(configFile);
 			} catch (ConfigurationException e) {
 				System.err.println("could not read config, ignoring it: ");
 				System.err.println(e);
@@ -199,10 +226,43 @@ public class OSM2World {
 				Output.output(config, argumentsGroup);
 			} catch (IOException e) {
 				e.printStackTrace();
+				return false;
+			}
+			break;
+			
+		case SERVER:
+			try {
+				int threads = representativeArgs.isServerThreads()
+						? representativeArgs.getServerThreads()
+						: Runtime.getRuntime().availableProcessors();
+				ConversionServer server = new ConversionServer(config,
+						representativeArgs.getServer(), threads,
+						representativeArgs.getServerCacheSize() * 1024L * 1024L);
+				server.run();
+			} catch (IOException e) {
+				e.printStackTrace();
+				return false;
 			}
 			break;
 			
 		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * reads a properties file with configuration parameters
+	 */
+	static Configuration loadConfiguration(File configFile)
+			throws ConfigurationException {
+		
+		PropertiesConfiguration fileConfig = new PropertiesConfiguration();
+		fileConfig.setListDelimiter(';');
+		fileConfig.load(configFile);
+		
+		return fileConfig;
+		
 	}
 	
 }
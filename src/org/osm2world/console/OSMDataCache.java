@@ -0,0 +1,235 @@
+package org.osm2world.console;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.osm2world.core.map_data.creation.LatLonBounds;
+import org.osm2world.core.osm.creation.OSMDataReader;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMRelation;
+import org.osm2world.core.osm.data.OSMWay;
+
+/**
+ * cache for data read from input files, which allows subsequent
+ * conversions of the same file to skip reading and parsing it.
+ *
+ * Entries are identified by the file, its modification time and size,
+ * and the bounding box used as a filter. When the estimated total size
+ * of the cached data exceeds the limit, the least recently used data
+ * is removed from the cache. Concurrent requests for the same data
+ * only read the file once. This class is thread-safe.
+ */
+class OSMDataCache {
+	
+	/* rough estimates for the memory used by elements, in bytes */
+	private static final long NODE_BYTES = 100;
+	private static final long WAY_BYTES = 80;
+	private static final long RELATION_BYTES = 80;
+	private static final long REFERENCE_BYTES = 40;
+	private static final long TAG_BYTES = 120;
+	
+	/** entries by key, in access order */
+	private final Map<String, Entry> entries =
+			new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	
+	private final long maxBytes;
+	private long bytes = 0;
+	
+	private int hits = 0;
+	private int misses = 0;
+	
+	/**
+	 * @param maxBytes  limit for the estimated total size of the cached data
+	 */
+	OSMDataCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * returns the data for an input file, reading it if it is not in the cache
+	 *
+	 * @param file    the input file; != null
+	 * @param filter  bounding box used as a filter; null for all data
+	 * @param reader  reader for the file, used if the data is not cached
+	 */
+	public OSMData getData(File file, final LatLonBounds filter,
+			final OSMDataReader reader) throws IOException {
+		
+		String key = createKey(file, filter);
+		
+		Entry entry;
+		boolean loading = false;
+		
+		synchronized (this) {
+			
+			entry = entries.get(key);
+			
+			if (entry == null) {
+				
+				entry = new Entry(new FutureTask<OSMData>(new Callable<OSMData>() {
+					@Override
+					public OSMData call() throws IOException {
+						return reader.getData(filter);
+					}
+				}));
+				
+				entries.put(key, entry);
+				loading = true;
+				misses += 1;
+				
+			} else {
+				hits += 1;
+			}
+			
+		}
+		
+		if (loading) {
+			entry.task.run();
+		}
+		
+		try {
+			
+			OSMData data = entry.task.get();
+			
+			if (loading) {
+				synchronized (this) {
+					if (entries.get(key) == entry) {
+						entry.bytes = estimateByteSize(data);
+						bytes += entry.bytes;
+						evictEntries();
+					}
+				}
+			}
+			
+			return data;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while reading " + file, e);
+		} catch (ExecutionException e) {
+			
+			synchronized (this) {
+				if (entries.get(key) == entry) {
+					entries.remove(key);
+				}
+			}
+			
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IOException(cause);
+			}
+			
+		}
+		
+	}
+	
+	/** returns the estimated total size of the cached data */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+	
+	/** returns the number of cached data sets */
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	/** returns the number of requests which have used cached data */
+	public synchronized int getHits() {
+		return hits;
+	}
+	
+	/** returns the number of requests which have read a file */
+	public synchronized int getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * removes the least recently used entries until the size limit is met.
+	 * The most recently used entry and entries which are still being loaded
+	 * are always kept.
+	 */
+	private void evictEntries() {
+		
+		Iterator<Entry> iterator = entries.values().iterator();
+		int remaining = entries.size();
+		
+		while (bytes > maxBytes && remaining > 1) {
+			
+			Entry entry = iterator.next();
+			remaining -= 1;
+			
+			if (entry.task.isDone()) {
+				bytes -= entry.bytes;
+				iterator.remove();
+			}
+			
+		}
+		
+	}
+	
+	private static String createKey(File file, LatLonBounds filter) {
+		
+		String key = file.getAbsolutePath()
+				+ "|" + file.lastModified() + "|" + file.length();
+		
+		if (filter != null) {
+			key += "|" + filter.minlat + "," + filter.minlon
+					+ "," + filter.maxlat + "," + filter.maxlon;
+		}
+		
+		return key;
+		
+	}
+	
+	/**
+	 * estimates the memory used by a data set
+	 */
+	static long estimateByteSize(OSMData data) {
+		
+		long result = 0;
+		
+		for (OSMNode node : data.getNodes()) {
+			result += NODE_BYTES + node.tags.size() * TAG_BYTES;
+		}
+		
+		for (OSMWay way : data.getWays()) {
+			result += WAY_BYTES + way.tags.size() * TAG_BYTES
+					+ way.nodes.size() * REFERENCE_BYTES;
+		}
+		
+		for (OSMRelation relation : data.getRelations()) {
+			result += RELATION_BYTES + relation.tags.size() * TAG_BYTES
+					+ relation.relationMembers.size() * REFERENCE_BYTES;
+		}
+		
+		return result;
+		
+	}
+	
+	private static class Entry {
+		
+		final FutureTask<OSMData> task;
+		
+		/** estimated size, set when the data has been loaded */
+		long bytes = 0;
+		
+		Entry(FutureTask<OSMData> task) {
+			this.task = task;
+		}
+		
+	}
+	
+}
@@ -18,14 +18,16 @@ import org.osm2world.core.ConversionFacade;
 import org.osm2world.core.ConversionFacade.Phase;
 import org.osm2world.core.ConversionFacade.ProgressListener;
 import org.osm2world.core.ConversionFacade.Results;
-import org.osm2world.core.map_data.creation.LatLon;
+import org.osm2world.core.map_data.creation.LatLonBounds;
 import org.osm2world.core.map_data.creation.MapProjection;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.GridInterpolator;
 import org.osm2world.core.map_elevation.creation.LPEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator;
 import org.osm2world.core.map_elevation.creation.NaturalNeighborInterpolator;
 import org.osm2world.core.map_elevation.creation.NoneEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.SimpleEleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.SparseEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
 import org.osm2world.core.map_elevation.creation.ZeroInterpolator;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
@@ -34,13 +36,21 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.osm.creation.OSMDataReader;
 import org.osm2world.core.osm.creation.OSMFileReader;
 import org.osm2world.core.osm.creation.OverpassReader;
+import org.osm2world.core.osm.creation.StrictOSMFileReader;
+import org.osm2world.core.osm.data.OSMData;
 import org.osm2world.core.target.common.rendering.Camera;
 import org.osm2world.core.target.common.rendering.OrthoTilesUtil;
 import org.osm2world.core.target.common.rendering.OrthoTilesUtil.CardinalDirection;
 import org.osm2world.core.target.common.rendering.Projection;
+import org.osm2world.core.target.gltf.GltfWriter;
 import org.osm2world.core.target.obj.ObjWriter;
 import org.osm2world.core.target.povray.POVRayWriter;
 import org.osm2world.core.util.functions.DefaultFactory;
+import org.osm2world.core.util.functions.Factory;
+import org.osm2world.core.util.metrics.Measurement;
+import org.osm2world.core.util.metrics.Measurement.Unit;
+import org.osm2world.core.util.metrics.MetricsListener;
+import org.osm2world.core.util.metrics.MetricsReport;
 
 import sun.awt.SunToolkit.InfiniteLoop;
 
@@ -52,56 +62,112 @@ public final class Output {
 			CLIArgumentsGroup argumentsGroup)
 		throws IOException {
 		
+		output(config, argumentsGroup, null,
+				new PerformanceListener(argumentsGroup.getRepresentative()));
+		
+	}
+	
+	/**
+	 * variant of {@link #output(Configuration, CLIArgumentsGroup)}
+	 * which can reuse previously read input files
+	 * 
+	 * @param inputCache    cache for data from input files;
+	 *                      null to always read the input
+	 * @param perfListener  listener which collects the durations of the phases
+	 */
+	static void output(Configuration config,
+			CLIArgumentsGroup argumentsGroup, OSMDataCache inputCache,
+			PerformanceListener perfListener)
+		throws IOException {
+		
 		long start = System.currentTimeMillis();
 		
+		CLIArguments representativeArgs = argumentsGroup.getRepresentative();
+		
+		LatLonBounds inputBounds = null;
+		
+		if (representativeArgs.isInputBoundingBox()) {
+			
+			double minLat = POSITIVE_INFINITY;
+			double maxLat = NEGATIVE_INFINITY;
+			double minLon = POSITIVE_INFINITY;
+			double maxLon = NEGATIVE_INFINITY;
+			
+			for (LatLonEle l : representativeArgs.getInputBoundingBox()) {
+				if (l.lat < minLat) {
+					minLat = l.lat;
+				}
+				if (l.lat > maxLat) {
+					maxLat = l.lat;
+				}
+				if (l.lon < minLon) {
+					minLon = l.lon;
+				}
+				if (l.lon > maxLon) {
+					maxLon = l.lon;
+				}
+			}
+			
+			inputBounds = new LatLonBounds(minLat, minLon, maxLat, maxLon);
+			
+		}
+		
 		OSMDataReader dataReader = null;
 		
-		switch (argumentsGroup.getRepresentative().getInputMode()) {
+		switch (representativeArgs.getInputMode()) {
 		
 		case FILE:
-			dataReader = new OSMFileReader(argumentsGroup.getRepresentative().getInput());
+			dataReader = new OSMFileReader(representativeArgs.getInput(),
+					config.getInt("pbfThreads", StrictOSMFileReader.getDefaultPBFThreads()));
 			break;
 		
 		case OVERPASS:
-			if (argumentsGroup.getRepresentative().isInputBoundingBox()) {
+			if (inputBounds != null) {
 				
-				double minLat = POSITIVE_INFINITY;
-				double maxLat = NEGATIVE_INFINITY;
-				double minLon = POSITIVE_INFINITY;
-				double maxLon = NEGATIVE_INFINITY;
+				dataReader = new OverpassReader(representativeArgs.getOverpassURL(),
+						inputBounds.getMin(), inputBounds.getMax());
 				
-				for (LatLonEle l : argumentsGroup.getRepresentative().getInputBoundingBox()) {
-					if (l.lat < minLat) {
-						minLat = l.lat;
-					}
-					if (l.lat > maxLat) {
-						maxLat = l.lat;
-					}
-					if (l.lon < minLon) {
-						minLon = l.lon;
-					}
-					if (l.lon > maxLon) {
-						maxLon = l.lon;
-					}
-				}
-								
-				dataReader = new OverpassReader(argumentsGroup.getRepresentative().getOverpassURL(),
-						new LatLon(minLat, minLon), new LatLon(maxLat, maxLon));
+				// the Overpass query already restricts the data to the bounding box
+				inputBounds = null;
+				
+			} else if (!representativeArgs.isInputQuery()) {
+				
+				// the tiles' bounding box defines the input area
+				LatLonBounds tileBounds =
+						TileBatchRenderer.getInputBounds(representativeArgs);
+				dataReader = new OverpassReader(representativeArgs.getOverpassURL(),
+						tileBounds.getMin(), tileBounds.getMax());
 				
 			} else { //due to input validation, there needs to be either a query or bounding box for Overpass input mode
-				assert argumentsGroup.getRepresentative().isInputQuery();
-				dataReader = new OverpassReader(argumentsGroup.getRepresentative().getOverpassURL(),
-						argumentsGroup.getRepresentative().getInputQuery());
+				assert representativeArgs.isInputQuery();
+				dataReader = new OverpassReader(representativeArgs.getOverpassURL(),
+						representativeArgs.getInputQuery());
 			}
 			break;
 			 
 		}
 		
 		
+		OSMData osmData;
+		
+		if (inputCache != null
+				&& representativeArgs.getInputMode() == InputMode.FILE) {
+			osmData = inputCache.getData(representativeArgs.getInput(),
+					inputBounds, dataReader);
+		} else {
+			osmData = dataReader.getData(inputBounds);
+		}
+		
 		ConversionFacade cf = new ConversionFacade();
-		PerformanceListener perfListener =
-			new PerformanceListener(argumentsGroup.getRepresentative());
 		cf.addProgressListener(perfListener);
+		cf.addMetricsListener(perfListener);
+		
+		MetricsReport metricsReport = null;
+		
+		if (representativeArgs.isMetricsReport()) {
+			metricsReport = new MetricsReport();
+			cf.addMetricsListener(metricsReport);
+		}
 				
 		String interpolatorType = config.getString("terrainInterpolator");
 		if ("ZeroInterpolator".equals(interpolatorType)) {
@@ -113,6 +179,9 @@ public final class Output {
 		} else if ("NaturalNeighborInterpolator".equals(interpolatorType)) {
 			cf.setTerrainEleInterpolatorFactory(
 					new DefaultFactory<TerrainInterpolator>(NaturalNeighborInterpolator.class));
+		} else if ("GridInterpolator".equals(interpolatorType)) {
+			cf.setTerrainEleInterpolatorFactory(
+					new DefaultFactory<TerrainInterpolator>(GridInterpolator.class));
 		}
 		
 		String enforcerType = config.getString("eleConstraintEnforcer");
@@ -125,14 +194,31 @@ public final class Output {
 		} else if ("LPEleConstraintEnforcer".equals(enforcerType)) {
 			cf.setEleConstraintEnforcerFactory(
 					new DefaultFactory<EleConstraintEnforcer>(LPEleConstraintEnforcer.class));
+		} else if ("SparseEleConstraintEnforcer".equals(enforcerType)) {
+			final double tolerance = config.getDouble("eleConstraintTolerance",
+					SparseEleConstraintEnforcer.DEFAULT_TOLERANCE);
+			final int maxIterations = config.getInt("eleConstraintMaxIterations",
+					SparseEleConstraintEnforcer.DEFAULT_MAX_ITERATIONS);
+			cf.setEleConstraintEnforcerFactory(new Factory<EleConstraintEnforcer>() {
+				@Override public EleConstraintEnforcer make() {
+					return new SparseEleConstraintEnforcer(tolerance, maxIterations);
+				}
+			});
 		}
 		
-		Results results = cf.createRepresentations(dataReader.getData(), null, config, null);
+		Results results = cf.createRepresentations(osmData, null, config, null);
 		
 		ImageExporter exporter = null;
 		
 		for (CLIArguments args : argumentsGroup.getCLIArgumentsList()) {
 			
+			if (args.isTilesDir()) {
+				long tilesStart = System.nanoTime();
+				TileBatchRenderer.renderTiles(config, results, args);
+				measureOutput(metricsReport, "output.tiles", tilesStart);
+				continue;
+			}
+			
 			Camera camera = null;
 			Projection projection = null;
 			
@@ -190,12 +276,22 @@ public final class Output {
 				OutputMode outputMode =
 					CLIArgumentsUtil.getOutputMode(outputFile);
 				
+				long outputStart = System.nanoTime();
+				
 				switch (outputMode) {
 	
 				case OBJ:
 					Integer primitiveThresholdOBJ =
 						config.getInteger("primitiveThresholdOBJ", null);
-					if (primitiveThresholdOBJ == null) {
+					Double tileSizeOBJ =
+						config.getDouble("objTileSize", null);
+					if (tileSizeOBJ != null) {
+						ObjWriter.writeTiledObjFiles(outputFile,
+								results.getMapData(), results.getMapProjection(),
+								camera, projection, tileSizeOBJ,
+								config.getInt("objThreads",
+										Runtime.getRuntime().availableProcessors()));
+					} else if (primitiveThresholdOBJ == null) {
 						ObjWriter.writeObjFile(outputFile,
 								results.getMapData(), results.getMapProjection(),
 								camera, projection);
@@ -208,9 +304,15 @@ public final class Output {
 					
 				case POV:
 					POVRayWriter.writePOVInstructionFile(outputFile,
-							results.getMapData(), camera, projection);
+							results.getMapData(), results.getMaterialRegistry(),
+							camera, projection);
 					break;
 					
+				case GLB:
+					GltfWriter.writeGlbFile(outputFile,
+							results.getMapData(), results.getMapProjection());
+					break;
+				
 				case PNG:
 				case PPM:
 				case GD:
@@ -228,6 +330,8 @@ public final class Output {
 					
 				}
 				
+				measureOutput(metricsReport, "output." + outputMode, outputStart);
+				
 			}
 			
 		}
@@ -242,6 +346,10 @@ public final class Output {
 			System.out.println("finished after " + timeSec + " s");
 		}
 		
+		if (metricsReport != null) {
+			metricsReport.write(representativeArgs.getMetricsReport());
+		}
+		
 		if (argumentsGroup.getRepresentative().isPerformanceTable()) {
 			PrintWriter w = new PrintWriter(new FileWriter(
 					argumentsGroup.getRepresentative().getPerformanceTable(), true), true);
@@ -257,7 +365,20 @@ public final class Output {
 
 	}
 	
-	private static class PerformanceListener implements ProgressListener {
+	/**
+	 * reports the time needed for writing an output
+	 * 
+	 * @param metricsReport  the report, can be null
+	 */
+	private static void measureOutput(MetricsReport metricsReport,
+			String name, long start) {
+		if (metricsReport != null) {
+			metricsReport.measured(new Measurement(Phase.FINISHED, name,
+					Unit.NANOSECONDS, System.nanoTime() - start));
+		}
+	}
+	
+	static class PerformanceListener implements ProgressListener, MetricsListener {
 		
 		private final CLIArguments args;
 		public PerformanceListener(CLIArguments args) {
@@ -304,6 +425,21 @@ public final class Output {
 			
 		}
 		
+		/**
+		 * prints the durations of steps within the phases
+		 */
+		@Override
+		public void measured(Measurement measurement) {
+			
+			if (args.getPerformancePrint()
+					&& measurement.unit == Unit.NANOSECONDS
+					&& !"phase".equals(measurement.name)) {
+				System.out.println("time " + measurement.name + ": "
+						+ measurement.value / 1000000 + " ms");
+			}
+			
+		}
+		
 	}
 
 }
@@ -0,0 +1,299 @@
+package org.osm2world.console;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * executes the groups of a parameter file concurrently.
+ *
+ * Each group is converted by a separate Java process,
+ * which is started with the same JVM arguments and classpath as this one.
+ * This isolates the global state of conversions
+ * (such as OpenGL contexts) as well as failures of individual groups.
+ * Idle workers take the next group from a shared queue.
+ *
+ * If a group writes a performance table, its process writes the table row
+ * to a temporary file instead. Once all groups are finished, the rows are
+ * appended to the actual table in the order of the groups.
+ */
+public final class ParallelExecution {
+	
+	private static final String PERFORMANCE_TABLE_OPTION = "--performanceTable";
+	
+	/** prevents instantiation */
+	private ParallelExecution() { }
+	
+	/**
+	 * @param groups            the groups to convert
+	 * @param argumentsList     all parameter lines, used for messages
+	 * @param unparsedArgsMap   the original arguments for each parameter line
+	 * @param threads           number of conversions running at the same time
+	 * @return  true if all groups have been converted successfully
+	 */
+	public static boolean execute(List<CLIArgumentsGroup> groups,
+			List<CLIArguments> argumentsList,
+			Map<CLIArguments, String[]> unparsedArgsMap, int threads) {
+		
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		
+		/* temporary performance table for each group, null if it has none */
+		List<File> tempTables = new ArrayList<File>();
+		
+		boolean success = true;
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		try {
+			
+			for (CLIArgumentsGroup group : groups) {
+				
+				File tempTable = null;
+				
+				if (group.getRepresentative().isPerformanceTable()) {
+					tempTable = File.createTempFile("osm2world-performance", ".txt");
+				}
+				
+				tempTables.add(tempTable);
+				
+				List<String[]> unparsedLines = new ArrayList<String[]>();
+				StringBuilder lineNumbers = new StringBuilder();
+				
+				for (CLIArguments args : group.getCLIArgumentsList()) {
+					
+					String[] unparsedArgs = unparsedArgsMap.get(args);
+					
+					if (tempTable != null) {
+						unparsedArgs = replacePerformanceTable(unparsedArgs, tempTable);
+					}
+					
+					unparsedLines.add(unparsedArgs);
+					lineNumbers.append(argumentsList.indexOf(args)).append(" ");
+					
+				}
+				
+				tasks.add(new GroupTask(unparsedLines, lineNumbers.toString().trim()));
+				
+			}
+			
+			for (Future<Integer> future : pool.invokeAll(tasks)) {
+				if (future.get() != 0) {
+					success = false;
+				}
+			}
+			
+			/* consolidate the performance tables in the order of the groups */
+			
+			for (int i = 0; i < groups.size(); i++) {
+				if (tempTables.get(i) != null) {
+					appendFile(tempTables.get(i),
+							groups.get(i).getRepresentative().getPerformanceTable());
+				}
+			}
+			
+		} catch (IOException e) {
+			throw new RuntimeException("cannot write the performance table", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while executing conversions", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new RuntimeException(cause);
+			}
+		} finally {
+			
+			pool.shutdown();
+			
+			for (File tempTable : tempTables) {
+				if (tempTable != null) {
+					tempTable.delete();
+				}
+			}
+			
+		}
+		
+		return success;
+		
+	}
+	
+	/**
+	 * returns a copy of a parameter line's arguments
+	 * which writes the performance table to a different file
+	 */
+	static String[] replacePerformanceTable(String[] unparsedArgs, File table) {
+		
+		String[] result = unparsedArgs.clone();
+		
+		for (int i = 0; i < result.length; i++) {
+			if (PERFORMANCE_TABLE_OPTION.equals(result[i]) && i + 1 < result.length) {
+				result[i + 1] = table.getAbsolutePath();
+			} else if (result[i].startsWith(PERFORMANCE_TABLE_OPTION + "=")) {
+				result[i] = PERFORMANCE_TABLE_OPTION + "=" + table.getAbsolutePath();
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * appends the content of a file to another file
+	 */
+	private static void appendFile(File source, File target) throws IOException {
+		
+		Reader reader = new FileReader(source);
+		
+		try {
+			
+			Writer writer = new FileWriter(target, true);
+			
+			try {
+				char[] buffer = new char[4096];
+				int length;
+				while ((length = reader.read(buffer)) != -1) {
+					writer.write(buffer, 0, length);
+				}
+			} finally {
+				writer.close();
+			}
+			
+		} finally {
+			reader.close();
+		}
+		
+	}
+	
+	/**
+	 * converts one group in a separate process.
+	 * The process output is printed as a whole after the process has finished.
+	 */
+	private static class GroupTask implements Callable<Integer> {
+		
+		private final List<String[]> unparsedLines;
+		private final String lineNumbers;
+		
+		public GroupTask(List<String[]> unparsedLines, String lineNumbers) {
+			this.unparsedLines = unparsedLines;
+			this.lineNumbers = lineNumbers;
+		}
+		
+		@Override
+		public Integer call() throws Exception {
+			
+			File parameterFile = File.createTempFile("osm2world", ".txt");
+			
+			try {
+				
+				writeParameterFile(parameterFile, unparsedLines);
+				
+				List<String> command = new ArrayList<String>();
+				command.add(System.getProperty("java.home")
+						+ File.separator + "bin" + File.separator + "java");
+				command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+				command.add("-cp");
+				command.add(System.getProperty("java.class.path"));
+				command.add(OSM2World.class.getName());
+				command.add("--parameterFile");
+				command.add(parameterFile.getAbsolutePath());
+				
+				ProcessBuilder processBuilder = new ProcessBuilder(command);
+				processBuilder.redirectErrorStream(true);
+				
+				Process process = processBuilder.start();
+				
+				StringBuilder output = new StringBuilder();
+				
+				Reader reader = new InputStreamReader(process.getInputStream());
+				
+				try {
+					char[] buffer = new char[4096];
+					int length;
+					while ((length = reader.read(buffer)) != -1) {
+						output.append(buffer, 0, length);
+					}
+				} finally {
+					reader.close();
+				}
+				
+				int exitValue = process.waitFor();
+				
+				synchronized (ParallelExecution.class) {
+					
+					System.out.println("finished conversion for these parameter lines: "
+							+ lineNumbers);
+					System.out.print(output);
+					
+					if (exitValue != 0) {
+						System.err.println("conversion failed for these parameter lines: "
+								+ lineNumbers + " (exit value " + exitValue + ")");
+					}
+					
+				}
+				
+				return exitValue;
+				
+			} finally {
+				parameterFile.delete();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * writes a parameter file which can be read with
+	 * {@link CLIArgumentsUtil#getUnparsedParameterGroups(File)}
+	 */
+	static void writeParameterFile(File file, List<String[]> unparsedLines)
+			throws IOException {
+		
+		PrintWriter writer = new PrintWriter(file);
+		
+		try {
+			
+			for (String[] unparsedLine : unparsedLines) {
+				
+				for (int i = 0; i < unparsedLine.length; i++) {
+					
+					if (i > 0) {
+						writer.print(" ");
+					}
+					
+					String arg = unparsedLine[i];
+					
+					/* double quotes are written in single quotes,
+					 * the parts around them in double quotes */
+					
+					writer.print("\"" + arg.replace("\"", "\"'\"'\"") + "\"");
+					
+				}
+				
+				writer.println();
+				
+			}
+			
+		} finally {
+			writer.close();
+		}
+		
+	}
+	
+}
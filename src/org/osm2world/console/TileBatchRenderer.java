@@ -0,0 +1,296 @@
+package org.osm2world.console;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.configuration.Configuration;
+import org.osm2world.console.CLIArgumentsUtil.OutputMode;
+import org.osm2world.core.ConversionFacade.Results;
+import org.osm2world.core.map_data.creation.LatLonBounds;
+import org.osm2world.core.target.common.rendering.Camera;
+import org.osm2world.core.target.common.rendering.OrthoTilesUtil;
+import org.osm2world.core.target.common.rendering.Projection;
+import org.osm2world.core.target.common.rendering.TileNumber;
+
+/**
+ * renders all tiles of a zoom range which intersect a bounding box.
+ * All tiles are rendered from the same conversion results,
+ * using a single {@link ImageExporter} and rendering target.
+ *
+ * Tiles are written to zoom/x/y.png within the output directory.
+ * Writing happens on a separate thread while the next tiles are rendered.
+ * Tiles which already exist in the output directory are skipped,
+ * so an interrupted run can be resumed.
+ */
+public final class TileBatchRenderer {
+	
+	/**
+	 * name of the file with the times needed for each tile,
+	 * using one line per tile: zoom,x,y,render ms,write ms
+	 */
+	public static final String LOG_FILE_NAME = "tiles.log";
+	
+	/** suffix of files which are still being written */
+	private static final String PARTIAL_FILE_SUFFIX = ".part";
+	
+	/**
+	 * maximum number of rendered tiles waiting to be written,
+	 * limits the memory used for images
+	 */
+	private static final int MAX_PENDING_WRITES = 8;
+	
+	/** prevents instantiation */
+	private TileBatchRenderer() { }
+	
+	/**
+	 * returns the tiles defined by the tile batch arguments,
+	 * sorted by zoom level and then along a Z-order curve.
+	 * This keeps consecutive tiles close to each other.
+	 */
+	public static List<TileNumber> getTiles(CLIArguments args) {
+		
+		LatLonBounds bounds = getBounds(args.getTilesBoundingBox());
+		
+		int minZoom = args.getTilesMinZoom();
+		int maxZoom = args.isTilesMaxZoom() ? args.getTilesMaxZoom() : minZoom;
+		
+		List<TileNumber> result = new ArrayList<TileNumber>();
+		
+		for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+			result.addAll(OrthoTilesUtil.tilesForBounds(bounds, zoom));
+		}
+		
+		Collections.sort(result, new Comparator<TileNumber>() {
+			@Override
+			public int compare(TileNumber t1, TileNumber t2) {
+				if (t1.zoom != t2.zoom) {
+					return t1.zoom < t2.zoom ? -1 : 1;
+				} else {
+					long m1 = mortonCode(t1.x, t1.y);
+					long m2 = mortonCode(t2.x, t2.y);
+					return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+				}
+			}
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * returns the area covered by the tiles defined by the tile batch arguments.
+	 * Can be used as input bounds, as it contains every tile of every zoom level.
+	 */
+	public static LatLonBounds getInputBounds(CLIArguments args) {
+		return OrthoTilesUtil.latLonBoundsForTiles(OrthoTilesUtil.tilesForBounds(
+				getBounds(args.getTilesBoundingBox()), args.getTilesMinZoom()));
+	}
+	
+	private static LatLonBounds getBounds(List<LatLonEle> points) {
+		
+		double minLat = Double.POSITIVE_INFINITY;
+		double minLon = Double.POSITIVE_INFINITY;
+		double maxLat = Double.NEGATIVE_INFINITY;
+		double maxLon = Double.NEGATIVE_INFINITY;
+		
+		for (LatLonEle l : points) {
+			minLat = Math.min(minLat, l.lat);
+			minLon = Math.min(minLon, l.lon);
+			maxLat = Math.max(maxLat, l.lat);
+			maxLon = Math.max(maxLon, l.lon);
+		}
+		
+		return new LatLonBounds(minLat, minLon, maxLat, maxLon);
+		
+	}
+	
+	/**
+	 * interleaves the bits of x and y
+	 */
+	private static long mortonCode(int x, int y) {
+		
+		long result = 0;
+		
+		for (int i = 0; i < 31; i++) {
+			result |= ((long)((x >> i) & 1)) << (2 * i);
+			result |= ((long)((y >> i) & 1)) << (2 * i + 1);
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * returns the file for a tile within the output directory
+	 */
+	public static File getTileFile(File directory, TileNumber tile) {
+		return new File(directory,
+				tile.zoom + File.separator + tile.x + File.separator + tile.y + ".png");
+	}
+	
+	/**
+	 * renders all tiles defined by the arguments
+	 * which do not exist in the output directory yet
+	 */
+	public static void renderTiles(Configuration config, Results results,
+			CLIArguments args) throws IOException {
+		
+		File directory = args.getTilesDir();
+		
+		/* find the tiles which still need to be rendered */
+		
+		List<TileNumber> allTiles = getTiles(args);
+		List<TileNumber> tiles = new ArrayList<TileNumber>();
+		
+		for (TileNumber tile : allTiles) {
+			if (!getTileFile(directory, tile).exists()) {
+				tiles.add(tile);
+			}
+		}
+		
+		if (args.getPerformancePrint()) {
+			System.out.println("rendering " + tiles.size() + " of "
+					+ allTiles.size() + " tiles, the others exist already");
+		}
+		
+		if (tiles.isEmpty()) return;
+		
+		directory.mkdirs();
+		
+		/* render the tiles and pass them to the writing thread */
+		
+		Resolution resolution = args.getResolution();
+		
+		ImageExporter exporter = new ImageExporter(
+				config, results, tiles.size(), resolution);
+		
+		ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+		
+		PrintWriter log = new PrintWriter(new FileWriter(
+				new File(directory, LOG_FILE_NAME), true), true);
+		
+		try {
+			
+			Deque<Future<Void>> pendingWrites = new ArrayDeque<Future<Void>>();
+			
+			for (TileNumber tile : tiles) {
+				
+				long start = System.currentTimeMillis();
+				
+				Camera camera = OrthoTilesUtil.cameraForTile(
+						results.getMapProjection(), tile,
+						args.getOviewAngle(), args.getOviewFrom());
+				Projection projection = OrthoTilesUtil.projectionForTile(
+						results.getMapProjection(), tile,
+						args.getOviewAngle(), args.getOviewFrom());
+				
+				BufferedImage image = exporter.renderImage(
+						resolution.x, resolution.y, camera, projection);
+				
+				long renderTime = System.currentTimeMillis() - start;
+				
+				pendingWrites.add(ioExecutor.submit(new TileWriteTask(
+						getTileFile(directory, tile), tile, image, renderTime, log)));
+				
+				while (pendingWrites.size() > MAX_PENDING_WRITES) {
+					waitForWrite(pendingWrites.poll());
+				}
+				
+			}
+			
+			while (!pendingWrites.isEmpty()) {
+				waitForWrite(pendingWrites.poll());
+			}
+			
+		} finally {
+			exporter.freeResources();
+			ioExecutor.shutdownNow();
+			log.close();
+		}
+		
+	}
+	
+	private static void waitForWrite(Future<Void> write) throws IOException {
+		
+		try {
+			write.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while writing tiles", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new RuntimeException(cause);
+			}
+		}
+		
+	}
+	
+	/**
+	 * writes a rendered tile and logs the times needed for it.
+	 * The file is renamed after it has been written completely,
+	 * so a tile file is never left incomplete.
+	 */
+	private static class TileWriteTask implements Callable<Void> {
+		
+		private final File file;
+		private final TileNumber tile;
+		private final BufferedImage image;
+		private final long renderTime;
+		private final PrintWriter log;
+		
+		public TileWriteTask(File file, TileNumber tile, BufferedImage image,
+				long renderTime, PrintWriter log) {
+			this.file = file;
+			this.tile = tile;
+			this.image = image;
+			this.renderTime = renderTime;
+			this.log = log;
+		}
+		
+		@Override
+		public Void call() throws IOException {
+			
+			long start = System.currentTimeMillis();
+			
+			file.getParentFile().mkdirs();
+			
+			File partialFile = new File(file.getPath() + PARTIAL_FILE_SUFFIX);
+			
+			ImageExporter.writeImageFile(partialFile, OutputMode.PNG, image);
+			
+			if (!partialFile.renameTo(file)) {
+				throw new IOException("could not rename " + partialFile);
+			}
+			
+			long writeTime = System.currentTimeMillis() - start;
+			
+			log.println(tile + "," + renderTime + "," + writeTime);
+			
+			return null;
+			
+		}
+		
+	}
+	
+}
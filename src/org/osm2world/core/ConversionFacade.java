@@ -4,25 +4,45 @@ import static java.util.Collections.emptyList;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.commons.configuration.BaseConfiguration;
 import org.apache.commons.configuration.Configuration;
-import org.apache.commons.lang.time.StopWatch;
 import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.osm2world.core.map_data.creation.MapDataUpdateUtil;
 import org.osm2world.core.map_data.creation.MapProjection;
 import org.osm2world.core.map_data.creation.MetricMapProjection;
 import org.osm2world.core.map_data.creation.OSMToMapDataConverter;
 import org.osm2world.core.map_data.creation.OriginMapProjection;
+import org.osm2world.core.map_data.data.MapArea;
 import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.MapWaySegment;
+import org.osm2world.core.map_elevation.creation.ComponentEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.EleConstraintValidator;
+import org.osm2world.core.map_elevation.creation.GridInterpolator;
+import org.osm2world.core.map_elevation.creation.GridTerrainElevationData;
+import org.osm2world.core.map_elevation.creation.LPEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator;
 import org.osm2world.core.map_elevation.creation.NoneEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.SRTMData;
+import org.osm2world.core.map_elevation.creation.SparseEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.TerrainElevationData;
 import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
 import org.osm2world.core.map_elevation.creation.ZeroInterpolator;
@@ -31,14 +51,18 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.osm.creation.OSMDataReader;
 import org.osm2world.core.osm.creation.OSMFileReader;
 import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMDataDiff;
 import org.osm2world.core.target.Renderable;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.TargetUtil;
-import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.util.FaultTolerantIterationUtil;
 import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
 import org.osm2world.core.util.functions.DefaultFactory;
 import org.osm2world.core.util.functions.Factory;
+import org.osm2world.core.util.metrics.Measurement;
+import org.osm2world.core.util.metrics.Measurement.Unit;
+import org.osm2world.core.util.metrics.MetricsListener;
 import org.osm2world.core.world.creation.WorldCreator;
 import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.WorldObject;
@@ -74,11 +98,23 @@ public class ConversionFacade {
 		private final MapProjection mapProjection;
 		private final MapData mapData;
 		private final TerrainElevationData eleData;
+		private final MaterialRegistry materials;
 		
-		private Results(MapProjection mapProjection, MapData mapData, TerrainElevationData eleData) {
+		/** input data, needed for {@link ConversionFacade#updateRepresentations} */
+		private final OSMData osmData;
+		
+		/** prepared interpolator, needed for {@link ConversionFacade#updateRepresentations} */
+		private final TerrainInterpolator interpolator;
+		
+		private Results(MapProjection mapProjection, MapData mapData,
+				TerrainElevationData eleData, MaterialRegistry materials,
+				OSMData osmData, TerrainInterpolator interpolator) {
 			this.mapProjection = mapProjection;
 			this.mapData = mapData;
 			this.eleData = eleData;
+			this.materials = materials;
+			this.osmData = osmData;
+			this.interpolator = interpolator;
 		}
 
 		public MapProjection getMapProjection() {
@@ -93,6 +129,13 @@ public class ConversionFacade {
 			return eleData;
 		}
 		
+		/**
+		 * returns the materials used by the representations
+		 */
+		public MaterialRegistry getMaterialRegistry() {
+			return materials;
+		}
+		
 		/**
 		 * collects and returns all representations that implement a
 		 * renderableType, including terrain.
@@ -277,6 +320,8 @@ public class ConversionFacade {
 		OSMToMapDataConverter converter = new OSMToMapDataConverter(mapProjection, config);
 		MapData mapData = converter.createMapData(osmData);
 		
+		measureMapData(mapData);
+		
 		/* apply world modules */
 		updatePhase(Phase.REPRESENTATION);
 		
@@ -284,14 +329,15 @@ public class ConversionFacade {
 			worldModules = createDefaultModuleList();
 		}
 		
-		Materials.configureMaterials(config);
-			//this will cause problems if multiple conversions are run
-			//at the same time, because global variables are being modified
+		MaterialRegistry materials = new MaterialRegistry(config);
 		
 		WorldCreator moduleManager =
-			new WorldCreator(config, worldModules);
+			new WorldCreator(config, materials, worldModules);
+		moduleManager.setMetricsListener(metricsDispatcher);
 		moduleManager.addRepresentationsTo(mapData);
 		
+		measureWorldObjects(mapData);
+		
 		/* determine elevations */
 		updatePhase(Phase.ELEVATION);
 		
@@ -302,7 +348,10 @@ public class ConversionFacade {
 			eleData = new SRTMData(new File(srtmDir), mapProjection);
 		}
 		
-		calculateElevations(mapData, eleData, config);
+		TerrainInterpolator interpolator = createInterpolator(mapData, eleData);
+		
+		calculateElevations(mapData, interpolator,
+				Collections.<EleConnector, Double>emptyMap(), config);
 		
 		/* create terrain */
 		updatePhase(Phase.TERRAIN); //TODO this phase may be obsolete
@@ -310,26 +359,215 @@ public class ConversionFacade {
 		/* supply results to targets and caller */
 		updatePhase(Phase.FINISHED);
 		
+		renderToTargets(mapData, config, targets);
+		
+		finishPhase();
+		
+		return new Results(mapProjection, mapData, eleData, materials,
+				osmData, interpolator);
+		
+	}
+	
+	/**
+	 * updates the results of a previous conversion after changes to the
+	 * OSM data. This is much faster than a new conversion for small changes,
+	 * such as those made in editor applications.
+	 * 
+	 * The map data is created again from the changed OSM data, but only
+	 * the elements near the changes (and their neighbors) receive new
+	 * representations, with elevations calculated using the previous
+	 * terrain interpolator. All other elements reuse the representations
+	 * from the previous results, see {@link MapDataUpdateUtil}.
+	 * Connectors shared with reused representations keep their elevations.
+	 * The previous results remain usable, but share most representations
+	 * with the returned results.
+	 * 
+	 * @param previousResults  results of a previous call to this method
+	 *                      or {@link #createRepresentations(OSMData, List, Configuration, List)}
+	 *                      with the same modules, configuration and factories;
+	 *                      != null
+	 * @param diff          changes to the OSM data; != null
+	 * @param worldModules  modules that will create the {@link WorldObject}s
+	 *                      in the result; null to use a default module list
+	 * @param config        set of parameters that controls various aspects
+	 *                      of the modules' behavior; null to use defaults
+	 * @param targets       receivers of the conversion results; can be null if
+	 *                      you want to handle the returned results yourself
+	 */
+	public Results updateRepresentations(Results previousResults,
+			OSMDataDiff diff, List<WorldModule> worldModules,
+			Configuration config, List<Target<?>> targets)
+			throws IOException {
+		
+		/* check the inputs */
+		
+		if (previousResults == null || diff == null) {
+			throw new IllegalArgumentException(
+					"previousResults and diff must not be null");
+		}
+		
+		if (config == null) {
+			config = new BaseConfiguration();
+		}
+		
+		/* create map data from the changed OSM data */
+		updatePhase(Phase.MAP_DATA);
+		
+		MapProjection mapProjection = previousResults.getMapProjection();
+		
+		OSMData osmData = diff.applyTo(previousResults.osmData);
+		
+		OSMToMapDataConverter converter = new OSMToMapDataConverter(mapProjection, config);
+		MapData mapData = converter.createMapData(osmData);
+		
+		measureMapData(mapData);
+		
+		/* reuse representations of elements which are not affected */
+		
+		Map<MapElement, MapElement> matches = MapDataUpdateUtil.matchElements(
+				previousResults.getMapData(), mapData);
+		
+		Set<MapElement> affectedElements = MapDataUpdateUtil.findAffectedElements(
+				mapData, MapDataUpdateUtil.calculateChangedRegions(
+						previousResults.osmData, osmData, diff, mapProjection),
+				matches);
+		
+		List<MapNode> affectedNodes = new ArrayList<MapNode>();
+		List<MapWaySegment> affectedWaySegments = new ArrayList<MapWaySegment>();
+		List<MapArea> affectedAreas = new ArrayList<MapArea>();
+		
+		for (MapElement element : mapData.getMapElements()) {
+			if (!affectedElements.contains(element)) {
+				MapDataUpdateUtil.copyRepresentations(matches.get(element), element);
+			} else if (element instanceof MapNode) {
+				affectedNodes.add((MapNode) element);
+			} else if (element instanceof MapWaySegment) {
+				affectedWaySegments.add((MapWaySegment) element);
+			} else {
+				affectedAreas.add((MapArea) element);
+			}
+		}
+		
+		MapData affectedMapData = new MapData(affectedNodes,
+				affectedWaySegments, affectedAreas, mapData.getBoundary());
+		
+		/* apply world modules to the affected elements */
+		updatePhase(Phase.REPRESENTATION);
+		
+		if (worldModules == null) {
+			worldModules = createDefaultModuleList();
+		}
+		
+		/* reuse the registry, so reused and new representations share materials */
+		
+		MaterialRegistry materials = previousResults.materials;
+		
+		WorldCreator moduleManager =
+			new WorldCreator(config, materials, worldModules);
+		moduleManager.setMetricsListener(metricsDispatcher);
+		moduleManager.addRepresentationsTo(affectedMapData);
+		
+		measureWorldObjects(affectedMapData);
+		
+		/* determine elevations for the new representations,
+		 * keeping those shared with reused representations */
+		updatePhase(Phase.ELEVATION);
+		
+		Map<EleConnector, Double> seamElevations =
+				MapDataUpdateUtil.findSeamElevations(affectedElements, matches);
+		
+		calculateElevations(affectedMapData, previousResults.interpolator,
+				seamElevations, config);
+		
+		/* supply results to targets and caller */
+		updatePhase(Phase.FINISHED);
+		
+		renderToTargets(mapData, config, targets);
+		
+		finishPhase();
+		
+		return new Results(mapProjection, mapData, previousResults.getEleData(),
+				materials, osmData, previousResults.interpolator);
+		
+	}
+	
+	private void renderToTargets(MapData mapData,
+			Configuration config, List<Target<?>> targets) {
+		
 		boolean underground = config.getBoolean("renderUnderground", true);
 		
 		if (targets != null) {
 			for (Target<?> target : targets) {
+				
+				long start = System.nanoTime();
+				
 				TargetUtil.renderWorldObjects(target, mapData, underground);
 				target.finish();
+				
+				measured(Phase.FINISHED, "target." + target.getClass().getSimpleName(),
+						Unit.NANOSECONDS, System.nanoTime() - start);
+				
 			}
 		}
 		
-		return new Results(mapProjection, mapData, eleData);
+	}
+	
+	/**
+	 * reports the numbers of map elements
+	 */
+	private void measureMapData(MapData mapData) {
+		
+		if (metricsListeners.isEmpty()) return;
+		
+		measured(Phase.MAP_DATA, "mapData.nodes",
+				Unit.COUNT, mapData.getMapNodes().size());
+		measured(Phase.MAP_DATA, "mapData.waySegments",
+				Unit.COUNT, mapData.getMapWaySegments().size());
+		measured(Phase.MAP_DATA, "mapData.areas",
+				Unit.COUNT, mapData.getMapAreas().size());
 		
 	}
 	
 	/**
-	 * uses OSM data and an terrain elevation data (usually from an external
-	 * source) to calculate elevations for all {@link EleConnector}s of the
-	 * {@link WorldObject}s
+	 * reports the numbers of world objects, grouped by the module
+	 * (or other class) they are defined in
 	 */
-	private void calculateElevations(MapData mapData,
-			TerrainElevationData eleData, Configuration config) {
+	private void measureWorldObjects(MapData mapData) {
+		
+		if (metricsListeners.isEmpty()) return;
+		
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		
+		for (WorldObject worldObject : mapData.getWorldObjects()) {
+			
+			Class<?> c = worldObject.getClass();
+			
+			while (c.getEnclosingClass() != null) {
+				c = c.getEnclosingClass();
+			}
+			
+			String name = c.getSimpleName();
+			Long count = counts.get(name);
+			counts.put(name, count == null ? 1 : count + 1);
+			
+		}
+		
+		for (String name : counts.keySet()) {
+			measured(Phase.REPRESENTATION, "worldObjects." + name,
+					Unit.COUNT, counts.get(name));
+		}
+		
+	}
+	
+	/**
+	 * creates a terrain interpolator and provides
+	 * known elevations from eleData to it
+	 * 
+	 * @param eleData  terrain elevation data (usually from an external
+	 *                 source), can be null
+	 */
+	private TerrainInterpolator createInterpolator(MapData mapData,
+			TerrainElevationData eleData) {
 				
 		final TerrainInterpolator interpolator =
 				(eleData != null)
@@ -338,10 +576,17 @@ public class ConversionFacade {
 		
 		/* provide known elevations from eleData to the interpolator */
 		
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
+		long start = System.nanoTime();
 				
-		if (!(interpolator instanceof ZeroInterpolator)) {
+		if (interpolator instanceof GridInterpolator
+				&& eleData instanceof GridTerrainElevationData) {
+			
+			/* sample the grid directly instead of creating sites */
+			
+			((GridInterpolator) interpolator).setElevationData(
+					(GridTerrainElevationData) eleData);
+			
+		} else if (!(interpolator instanceof ZeroInterpolator)) {
 		
 			Collection<VectorXYZ> sites = emptyList();
 			
@@ -349,54 +594,121 @@ public class ConversionFacade {
 							
 				sites = eleData.getSites(mapData);
 				
-				System.out.println("time getSites: " + stopWatch);
-				stopWatch.reset();
-				stopWatch.start();
-				
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
 			
+			start = measured(Phase.ELEVATION, "eleData.getSites", start);
+			measured(Phase.ELEVATION, "eleData.sites", Unit.COUNT, sites.size());
+			
 			interpolator.setKnownSites(sites);
 			
-			System.out.println("time setKnownSites: " + stopWatch);
-			stopWatch.reset();
-			stopWatch.start();
+			measured(Phase.ELEVATION, "interpolator.setKnownSites", start);
 			
 		}
 		
+		return interpolator;
+		
+	}
+	
+	/**
+	 * uses a terrain interpolator to calculate elevations
+	 * for all {@link EleConnector}s of the {@link WorldObject}s,
+	 * then enforces the constraints defined by the {@link WorldObject}s
+	 * 
+	 * @param interpolator     interpolator returned by
+	 *                         {@link #createInterpolator(MapData, TerrainElevationData)}
+	 * @param fixedElevations  elevations required for some of the connectors,
+	 *                         see {@link EleConstraintEnforcer#requireFixedEle(EleConnector, double)}.
+	 *                         These may belong to objects outside mapData.
+	 */
+	private void calculateElevations(MapData mapData,
+			final TerrainInterpolator interpolator,
+			Map<EleConnector, Double> fixedElevations, Configuration config) {
+		
+		long start = System.nanoTime();
+		
 		/* interpolate connectors' elevations */
 		
-		final List<EleConnector> connectors = new ArrayList<EleConnector>();
+		int interpolationThreads = config.getInt("interpolationThreads",
+				Runtime.getRuntime().availableProcessors());
 		
-		FaultTolerantIterationUtil.iterate(mapData.getWorldObjects(),
-				new Operation<WorldObject>() {
-			@Override public void perform(WorldObject worldObject) {
-				
-				for (EleConnector conn : worldObject.getEleConnectors()) {
-					conn.setPosXYZ(interpolator.interpolateEle(conn.pos));
-					connectors.add(conn);
+		final List<EleConnector> connectors;
+		
+		if (interpolationThreads > 1) {
+			
+			connectors = interpolateElevations(mapData, interpolator,
+					interpolationThreads);
+			
+		} else {
+			
+			connectors = new ArrayList<EleConnector>();
+			
+			FaultTolerantIterationUtil.iterate(mapData.getWorldObjects(),
+					new Operation<WorldObject>() {
+				@Override public void perform(WorldObject worldObject) {
+					
+					for (EleConnector conn : worldObject.getEleConnectors()) {
+						conn.setPosXYZ(interpolator.interpolateEle(conn.pos));
+						connectors.add(conn);
+					}
+					
 				}
-				
-			}
-		});
+			});
+			
+		}
 		
-		System.out.println("time terrain interpolation: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
+		start = measured(Phase.ELEVATION, "interpolator.interpolateEle", start);
+		measured(Phase.ELEVATION, "connectors", Unit.COUNT, connectors.size());
 		
 		/* enforce constraints defined by WorldObjects */
 		
 		boolean debugConstraints = config.getBoolean("debugConstraints", false);
 		
+		EleConstraintEnforcer baseEnforcer = eleConstraintEnforcerFactory.make();
+		
+		if (baseEnforcer instanceof LPEleConstraintEnforcer
+				|| baseEnforcer instanceof SparseEleConstraintEnforcer) {
+			
+			/* these enforcers' results only depend on the connectors linked
+			 * by constraints, so independent parts can be solved separately */
+			
+			int enforcerThreads = config.getInt("eleConstraintThreads",
+					Runtime.getRuntime().availableProcessors());
+			
+			ComponentEleConstraintEnforcer componentEnforcer =
+					new ComponentEleConstraintEnforcer(
+							eleConstraintEnforcerFactory, enforcerThreads);
+			componentEnforcer.setMetricsListener(metricsDispatcher);
+			
+			baseEnforcer = componentEnforcer;
+			
+		}
+		
 		final EleConstraintEnforcer enforcer = debugConstraints
-				? new EleConstraintValidator(mapData,
-						eleConstraintEnforcerFactory.make())
-				: eleConstraintEnforcerFactory.make();
+				? new EleConstraintValidator(mapData, baseEnforcer)
+				: baseEnforcer;
 		
 		enforcer.addConnectors(connectors);
 		
-		if (!(enforcer instanceof NoneEleConstraintEnforcer)) {
+		if (!fixedElevations.isEmpty()) {
+			
+			Set<EleConnector> connectorSet = new HashSet<EleConnector>(connectors);
+			List<EleConnector> otherConnectors = new ArrayList<EleConnector>();
+			
+			for (EleConnector c : fixedElevations.keySet()) {
+				if (!connectorSet.contains(c)) {
+					otherConnectors.add(c);
+				}
+			}
+			
+			enforcer.addConnectors(otherConnectors);
+			
+		}
+		
+		start = measured(Phase.ELEVATION, "enforcer.addConnectors", start);
+		
+		if (!(baseEnforcer instanceof NoneEleConstraintEnforcer)) {
 			
 			FaultTolerantIterationUtil.iterate(mapData.getWorldObjects(),
 					new Operation<WorldObject>() {
@@ -407,17 +719,117 @@ public class ConversionFacade {
 				}
 			});
 			
+			for (Map.Entry<EleConnector, Double> entry : fixedElevations.entrySet()) {
+				enforcer.requireFixedEle(entry.getKey(), entry.getValue());
+			}
+			
 		}
 		
-		System.out.println("time add constraints: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
+		start = measured(Phase.ELEVATION, "enforcer.defineEleConstraints", start);
 		
 		enforcer.enforceConstraints();
 		
-		System.out.println("time enforce constraints: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
+		/* enforcers only approximate the fixed elevations */
+		
+		for (Map.Entry<EleConnector, Double> entry : fixedElevations.entrySet()) {
+			EleConnector c = entry.getKey();
+			c.setPosXYZ(c.pos.xyz(entry.getValue()));
+		}
+		
+		measured(Phase.ELEVATION, "enforcer.enforceConstraints", start);
+		
+	}
+	
+	/**
+	 * interpolates the connectors' elevations using a pool of threads.
+	 * The connectors are collected sequentially, then the world objects
+	 * are split into chunks which are interpolated concurrently.
+	 * 
+	 * @return  the connectors in the same order (and with the same
+	 *          handling of exceptions) as a sequential interpolation
+	 */
+	private static List<EleConnector> interpolateElevations(MapData mapData,
+			final TerrainInterpolator interpolator, int threads) {
+		
+		/* collect connectors. Not done concurrently because
+		 * world objects may create their connectors lazily */
+		
+		final List<List<EleConnector>> connectorsPerObject =
+				new ArrayList<List<EleConnector>>();
+		
+		FaultTolerantIterationUtil.iterate(mapData.getWorldObjects(),
+				new Operation<WorldObject>() {
+			@Override public void perform(WorldObject worldObject) {
+				List<EleConnector> objectConnectors = new ArrayList<EleConnector>();
+				connectorsPerObject.add(objectConnectors);
+				for (EleConnector conn : worldObject.getEleConnectors()) {
+					objectConnectors.add(conn);
+				}
+			}
+		});
+		
+		/* interpolate chunks of world objects' connectors.
+		 * Several chunks per thread help balancing the load. */
+		
+		int numChunks = Math.min(threads * 4, connectorsPerObject.size());
+		
+		List<Callable<List<EleConnector>>> tasks =
+				new ArrayList<Callable<List<EleConnector>>>(numChunks);
+		
+		for (int c = 0; c < numChunks; c++) {
+			
+			final List<List<EleConnector>> chunk = connectorsPerObject.subList(
+					c * connectorsPerObject.size() / numChunks,
+					(c + 1) * connectorsPerObject.size() / numChunks);
+			
+			tasks.add(new Callable<List<EleConnector>>() {
+				@Override public List<EleConnector> call() {
+					
+					final List<EleConnector> result = new ArrayList<EleConnector>();
+					
+					FaultTolerantIterationUtil.iterate(chunk,
+							new Operation<List<EleConnector>>() {
+						@Override public void perform(List<EleConnector> objectConnectors) {
+							for (EleConnector conn : objectConnectors) {
+								conn.setPosXYZ(interpolator.interpolateEle(conn.pos));
+								result.add(conn);
+							}
+						}
+					});
+					
+					return result;
+					
+				}
+			});
+			
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		try {
+			
+			List<EleConnector> connectors = new ArrayList<EleConnector>();
+			
+			for (Future<List<EleConnector>> future : pool.invokeAll(tasks)) {
+				connectors.addAll(future.get());
+			}
+			
+			return connectors;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted during interpolation", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		} finally {
+			pool.shutdown();
+		}
 		
 	}
 	
@@ -450,9 +862,109 @@ public class ConversionFacade {
 	}
 	
 	private void updatePhase(Phase newPhase) {
+		
+		finishPhase();
+		
+		currentPhase = newPhase;
+		currentPhaseStart = System.nanoTime();
+		currentPhaseAllocatedBytes = getAllocatedBytes();
+		
 		for (ProgressListener listener : listeners) {
 			listener.updatePhase(newPhase);
 		}
+		
+	}
+	
+	private List<MetricsListener> metricsListeners = new ArrayList<MetricsListener>();
+	
+	/**
+	 * adds a listener which receives {@link Measurement}s, such as
+	 * durations and memory use of the phases and their steps,
+	 * and numbers of created elements
+	 */
+	public void addMetricsListener(MetricsListener listener) {
+		metricsListeners.add(listener);
+	}
+	
+	/** passes measurements from other classes (e.g. {@link WorldCreator}) on */
+	private final MetricsListener metricsDispatcher = new MetricsListener() {
+		@Override public void measured(Measurement measurement) {
+			for (MetricsListener listener : metricsListeners) {
+				listener.measured(measurement);
+			}
+		}
+	};
+	
+	private Phase currentPhase = null;
+	private long currentPhaseStart;
+	private long currentPhaseAllocatedBytes;
+	
+	/**
+	 * reports the duration and memory use of the current phase, if any
+	 */
+	private void finishPhase() {
+		
+		if (currentPhase != null) {
+			
+			measured(currentPhase, "phase", currentPhaseStart);
+			
+			long allocatedBytes = getAllocatedBytes();
+			
+			if (allocatedBytes >= 0 && currentPhaseAllocatedBytes >= 0) {
+				measured(currentPhase, "phase.allocatedBytes", Unit.BYTES,
+						allocatedBytes - currentPhaseAllocatedBytes);
+			}
+			
+			Runtime runtime = Runtime.getRuntime();
+			measured(currentPhase, "phase.usedHeapBytes", Unit.BYTES,
+					runtime.totalMemory() - runtime.freeMemory());
+			
+			currentPhase = null;
+			
+		}
+		
+	}
+	
+	private void measured(Phase phase, String name, Unit unit, long value) {
+		metricsDispatcher.measured(new Measurement(phase, name, unit, value));
+	}
+	
+	/**
+	 * reports the time since a start time
+	 * 
+	 * @param start  start time from {@link System#nanoTime()}
+	 * @return  the current time, can be used as the start of the next step
+	 */
+	private long measured(Phase phase, String name, long start) {
+		long now = System.nanoTime();
+		measured(phase, name, Unit.NANOSECONDS, now - start);
+		return now;
+	}
+	
+	/**
+	 * returns the number of bytes allocated by the current thread so far,
+	 * or -1 if the JVM does not support this measurement.
+	 * Allocations by other threads (such as those used for
+	 * concurrently applying modules) are not included.
+	 */
+	private static long getAllocatedBytes() {
+		
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			
+			com.sun.management.ThreadMXBean sunBean =
+					(com.sun.management.ThreadMXBean) bean;
+			
+			if (sunBean.isThreadAllocatedMemorySupported()
+					&& sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+			
+		}
+		
+		return -1;
+		
 	}
 	
 //	private void updatePhaseProgress(float phaseProgress) {
@@ -0,0 +1,436 @@
+package org.osm2world.core.map_data.creation;
+
+import static org.osm2world.core.map_elevation.data.GroundState.ON;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.osm2world.core.map_data.data.MapArea;
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.MapWaySegment;
+import org.osm2world.core.map_data.data.overlaps.MapOverlap;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMDataDiff;
+import org.osm2world.core.osm.data.OSMElement;
+import org.osm2world.core.osm.data.OSMMember;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMRelation;
+import org.osm2world.core.osm.data.OSMWay;
+import org.osm2world.core.world.data.AreaWorldObject;
+import org.osm2world.core.world.data.NodeWorldObject;
+import org.osm2world.core.world.data.WaySegmentWorldObject;
+import org.osm2world.core.world.data.WorldObject;
+
+/**
+ * utility class for updating {@link MapData} after changes to the
+ * underlying {@link OSMData}, without recreating all representations
+ */
+public final class MapDataUpdateUtil {
+	
+	/**
+	 * distance (in meters) around changed elements
+	 * within which map elements are considered affected by the change
+	 */
+	public static final double CHANGE_MARGIN = 10;
+	
+	/** prevents instantiation */
+	private MapDataUpdateUtil() { }
+	
+	/**
+	 * returns bounding boxes around the previous and current versions
+	 * of the elements changed or deleted by a diff
+	 *
+	 * @param oldData  the data before the diff was applied
+	 * @param newData  the data after the diff was applied
+	 */
+	public static List<AxisAlignedBoundingBoxXZ> calculateChangedRegions(
+			OSMData oldData, OSMData newData, OSMDataDiff diff,
+			MapProjection mapProjection) {
+		
+		Map<OSMElement, OSMElement> oldElements = createElementMap(oldData);
+		Map<OSMElement, OSMElement> newElements = createElementMap(newData);
+		
+		List<AxisAlignedBoundingBoxXZ> result = new ArrayList<AxisAlignedBoundingBoxXZ>();
+		
+		List<OSMElement> elements = new ArrayList<OSMElement>();
+		elements.addAll(diff.getChangedElements());
+		elements.addAll(diff.getDeletedElements());
+		
+		for (OSMElement element : elements) {
+			for (Map<OSMElement, OSMElement> elementMap : Arrays.asList(oldElements, newElements)) {
+				
+				List<VectorXZ> positions = new ArrayList<VectorXZ>();
+				
+				collectPositions(elementMap.get(element), elementMap,
+						mapProjection, positions, new HashSet<OSMElement>());
+				
+				if (!positions.isEmpty()) {
+					result.add(new AxisAlignedBoundingBoxXZ(positions));
+				}
+				
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	private static Map<OSMElement, OSMElement> createElementMap(OSMData osmData) {
+		
+		Map<OSMElement, OSMElement> result = new HashMap<OSMElement, OSMElement>();
+		
+		for (OSMNode node : osmData.getNodes()) {
+			result.put(node, node);
+		}
+		for (OSMWay way : osmData.getWays()) {
+			result.put(way, way);
+		}
+		for (OSMRelation relation : osmData.getRelations()) {
+			result.put(relation, relation);
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * adds the positions of an element's nodes to a list.
+	 * Referenced nodes are looked up in the element map,
+	 * so their version in that data set is used.
+	 *
+	 * @param element  the element, can be null
+	 * @param visited  elements already visited, prevents endless recursion
+	 *                 for relations which are members of each other
+	 */
+	private static void collectPositions(OSMElement element,
+			Map<OSMElement, OSMElement> elementMap, MapProjection mapProjection,
+			List<VectorXZ> positions, Set<OSMElement> visited) {
+		
+		if (element == null || !visited.add(element)) return;
+		
+		if (element instanceof OSMNode) {
+			
+			OSMNode node = (OSMNode) elementMap.get(element);
+			
+			if (node != null) {
+				positions.add(mapProjection.calcPos(node.lat, node.lon));
+			}
+			
+		} else if (element instanceof OSMWay) {
+			
+			for (OSMNode node : ((OSMWay) element).nodes) {
+				collectPositions(node, elementMap, mapProjection, positions, visited);
+			}
+			
+		} else if (element instanceof OSMRelation) {
+			
+			for (OSMMember member : ((OSMRelation) element).relationMembers) {
+				collectPositions(elementMap.get(member.member), elementMap,
+						mapProjection, positions, visited);
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * matches the elements of two {@link MapData} sets which have
+	 * been created from the same OSM elements and have the same geometry.
+	 * Elements without an unambiguous match are not included in the result.
+	 *
+	 * @return  map from elements of newData to elements of oldData
+	 */
+	public static Map<MapElement, MapElement> matchElements(
+			MapData oldData, MapData newData) {
+		
+		Map<List<Object>, MapElement> oldElementMap =
+				new HashMap<List<Object>, MapElement>();
+		Set<List<Object>> ambiguousKeys = new HashSet<List<Object>>();
+		
+		for (MapElement element : oldData.getMapElements()) {
+			
+			List<Object> key = getMatchingKey(element);
+			
+			if (oldElementMap.put(key, element) != null) {
+				ambiguousKeys.add(key);
+			}
+			
+		}
+		
+		Map<MapElement, MapElement> result = new HashMap<MapElement, MapElement>();
+		
+		for (MapElement element : newData.getMapElements()) {
+			
+			List<Object> key = getMatchingKey(element);
+			
+			if (!ambiguousKeys.contains(key) && oldElementMap.containsKey(key)) {
+				result.put(element, oldElementMap.get(key));
+			}
+			
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * returns a key which is equal for elements created from the same
+	 * OSM element with the same geometry
+	 */
+	private static List<Object> getMatchingKey(MapElement element) {
+		
+		if (element instanceof MapNode) {
+			
+			MapNode node = (MapNode) element;
+			
+			return Arrays.<Object>asList(node.getOsmNode(), node.getPos());
+			
+		} else if (element instanceof MapWaySegment) {
+			
+			MapWaySegment segment = (MapWaySegment) element;
+			
+			return Arrays.<Object>asList(segment.getOsmWay(),
+					segment.getStartNode().getOsmNode(), segment.getStartNode().getPos(),
+					segment.getEndNode().getOsmNode(), segment.getEndNode().getPos());
+			
+		} else {
+			
+			MapArea area = (MapArea) element;
+			
+			List<Object> key = new ArrayList<Object>();
+			
+			key.add(area.getOsmObject());
+			key.add(getPositions(area.getBoundaryNodes()));
+			
+			for (List<MapNode> hole : area.getHoles()) {
+				key.add(getPositions(hole));
+			}
+			
+			return key;
+			
+		}
+		
+	}
+	
+	private static List<VectorXZ> getPositions(List<MapNode> nodes) {
+		
+		List<VectorXZ> result = new ArrayList<VectorXZ>(nodes.size());
+		
+		for (MapNode node : nodes) {
+			result.add(node.getPos());
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * finds the elements whose representations need to be recreated.
+	 * These are the elements near a changed region, the elements without a
+	 * matching element in the previous data, and their direct neighbors
+	 * (connected elements and overlapping elements).
+	 *
+	 * @param changedRegions  see {@link #calculateChangedRegions(OSMData, OSMData, OSMDataDiff, MapProjection)}
+	 * @param matches  see {@link #matchElements(MapData, MapData)}
+	 */
+	public static Set<MapElement> findAffectedElements(MapData mapData,
+			Collection<AxisAlignedBoundingBoxXZ> changedRegions,
+			Map<MapElement, MapElement> matches) {
+		
+		List<AxisAlignedBoundingBoxXZ> paddedRegions =
+				new ArrayList<AxisAlignedBoundingBoxXZ>(changedRegions.size());
+		
+		for (AxisAlignedBoundingBoxXZ region : changedRegions) {
+			paddedRegions.add(region.pad(CHANGE_MARGIN));
+		}
+		
+		Set<MapElement> changedElements = new LinkedHashSet<MapElement>();
+		
+		for (MapElement element : mapData.getMapElements()) {
+			
+			if (!matches.containsKey(element)) {
+				changedElements.add(element);
+				continue;
+			}
+			
+			AxisAlignedBoundingBoxXZ box = element.getAxisAlignedBoundingBoxXZ();
+			
+			for (AxisAlignedBoundingBoxXZ region : paddedRegions) {
+				if (box.overlaps(region)) {
+					changedElements.add(element);
+					break;
+				}
+			}
+			
+		}
+		
+		/* add neighbors */
+		
+		Set<MapElement> result = new LinkedHashSet<MapElement>(changedElements);
+		
+		for (MapElement element : changedElements) {
+			result.addAll(getNeighbors(element));
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * returns the elements connected to or overlapping with an element
+	 */
+	private static List<MapElement> getNeighbors(MapElement element) {
+		
+		List<MapElement> result = new ArrayList<MapElement>();
+		
+		for (MapOverlap<?, ?> overlap : element.getOverlaps()) {
+			result.add(overlap.getOther(element));
+		}
+		
+		if (element instanceof MapNode) {
+			result.addAll(((MapNode) element).getConnectedWaySegments());
+			result.addAll(((MapNode) element).getAdjacentAreas());
+		} else if (element instanceof MapWaySegment) {
+			result.add(((MapWaySegment) element).getStartNode());
+			result.add(((MapWaySegment) element).getEndNode());
+		} else if (element instanceof MapArea) {
+			result.addAll(((MapArea) element).getBoundaryNodes());
+			for (List<MapNode> hole : ((MapArea) element).getHoles()) {
+				result.addAll(hole);
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * finds the connectors whose elevations must not change when elevations
+	 * are calculated for the new representations. These are the connectors
+	 * of reused representations next to the new ones, which the new
+	 * representations' constraints may refer to, and the connectors of new
+	 * representations which would be joined with them in a full conversion.
+	 * Otherwise, the new and the reused representations would not fit together.
+	 *
+	 * @param affectedElements  elements with new representations, see
+	 *                          {@link #findAffectedElements(MapData, Collection, Map)}
+	 * @param matches           see {@link #matchElements(MapData, MapData)}
+	 * @return  the required elevation for each of these connectors,
+	 *          which is the elevation of the reused connector
+	 */
+	public static Map<EleConnector, Double> findSeamElevations(
+			Set<MapElement> affectedElements,
+			Map<MapElement, MapElement> matches) {
+		
+		/* collect the connectors of reused neighbors by position */
+		
+		Map<EleConnector, Double> result = new HashMap<EleConnector, Double>();
+		
+		Map<VectorXZ, List<EleConnector>> reusedConnectorMap =
+				new HashMap<VectorXZ, List<EleConnector>>();
+		Set<MapElement> reusedNeighbors = new HashSet<MapElement>();
+		
+		for (MapElement element : affectedElements) {
+			for (MapElement neighbor : getNeighbors(element)) {
+				
+				if (affectedElements.contains(neighbor)
+						|| !reusedNeighbors.add(neighbor)) continue;
+				
+				for (WorldObject representation : neighbor.getRepresentations()) {
+					for (EleConnector c : representation.getEleConnectors()) {
+						
+						List<EleConnector> connectorsAtPos = reusedConnectorMap.get(c.pos);
+						
+						if (connectorsAtPos == null) {
+							connectorsAtPos = new ArrayList<EleConnector>(2);
+							reusedConnectorMap.put(c.pos, connectorsAtPos);
+						}
+						
+						connectorsAtPos.add(c);
+						
+						result.put(c, c.getPosXYZ().y);
+						
+					}
+				}
+				
+			}
+		}
+		
+		/* find new connectors joined with them */
+		
+		for (MapElement element : affectedElements) {
+			for (WorldObject representation : element.getRepresentations()) {
+				for (EleConnector c : representation.getEleConnectors()) {
+					
+					List<EleConnector> connectorsAtPos = reusedConnectorMap.get(c.pos);
+					
+					if (connectorsAtPos == null) continue;
+					
+					for (EleConnector reusedConnector : connectorsAtPos) {
+						if (connectsToReused(c, reusedConnector, matches)) {
+							result.put(c, reusedConnector.getPosXYZ().y);
+							break;
+						}
+					}
+					
+				}
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * equivalent of {@link EleConnector#connectsTo(EleConnector)} for
+	 * a connector of a reused representation. Its reference belongs to the
+	 * previous data, so references are compared using the matching elements.
+	 */
+	private static boolean connectsToReused(EleConnector c,
+			EleConnector reusedConnector, Map<MapElement, MapElement> matches) {
+		
+		if (!c.pos.equals(reusedConnector.pos)) {
+			return false;
+		} else if (c.groundState == ON && reusedConnector.groundState == ON) {
+			return true;
+		} else {
+			return c.reference != null && reusedConnector.reference != null
+					&& (c.reference == reusedConnector.reference
+						|| matches.get(c.reference) == reusedConnector.reference);
+		}
+		
+	}
+	
+	/**
+	 * adds the representations of an element to another element
+	 * of the same type, without modifying the representations themselves
+	 */
+	public static void copyRepresentations(MapElement from, MapElement to) {
+		
+		for (WorldObject representation : from.getRepresentations()) {
+			
+			if (to instanceof MapNode) {
+				((MapNode) to).addRepresentation((NodeWorldObject) representation);
+			} else if (to instanceof MapWaySegment) {
+				((MapWaySegment) to).addRepresentation((WaySegmentWorldObject) representation);
+			} else {
+				((MapArea) to).addRepresentation((AreaWorldObject) representation);
+			}
+			
+		}
+		
+	}
+	
+}
@@ -423,7 +423,7 @@ final class MultipolygonAreaBuilder {
 							} else {
 								
 								intersectionNode = createFakeMapNode(intersection,
-										++highestNodeId, osmData, nodeMap, mapNodes);
+										++highestNodeId, nodeMap, mapNodes);
 								
 								coastline.add(i + 1, intersectionNode);
 								
@@ -454,7 +454,7 @@ final class MultipolygonAreaBuilder {
 				bBoxNodes.addAll(intersectionsSide);
 				
 				MapNode cornerNode = createFakeMapNode(side.p2,
-						++highestNodeId, osmData, nodeMap, mapNodes);
+						++highestNodeId, nodeMap, mapNodes);
 				bBoxNodes.add(new NodeOnBBox(cornerNode, null));
 				
 			}
@@ -589,7 +589,7 @@ final class MultipolygonAreaBuilder {
 						
 						for (VectorXZ pos : fileBoundary.polygonXZ().getVertices()) {
 							boundaryRing.add(createFakeMapNode(pos,
-									++highestNodeId, osmData, nodeMap, mapNodes));
+									++highestNodeId, nodeMap, mapNodes));
 						}
 						
 						boundaryRing.add(boundaryRing.get(0));
@@ -629,13 +629,15 @@ final class MultipolygonAreaBuilder {
 		
 	}
 
+	/**
+	 * creates a node which is not part of the OSM data.
+	 * The OSM data is not modified, so it can be reused for other conversions.
+	 */
 	private static MapNode createFakeMapNode(VectorXZ pos, long nodeId,
-			OSMData osmData, Map<OSMNode, MapNode> nodeMap,
-			Collection<MapNode> mapNodes) {
+			Map<OSMNode, MapNode> nodeMap, Collection<MapNode> mapNodes) {
 		
 		OSMNode osmNode = new OSMNode(NaN, NaN,
 				COASTLINE_NODE_TAGS, nodeId + 1);
-		osmData.getNodes().add(osmNode);
 				
 		MapNode mapNode = new MapNode(pos, osmNode);
 		mapNodes.add(mapNode);
@@ -3,16 +3,23 @@ package org.osm2world.core.map_data.creation;
 import static java.util.Collections.emptyList;
 import static org.osm2world.core.math.VectorXZ.distance;
 import static org.osm2world.core.util.FaultTolerantIterationUtil.iterate;
+import gnu.trove.list.array.TIntArrayList;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.commons.configuration.Configuration;
 import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
@@ -27,6 +34,7 @@ import org.osm2world.core.map_data.data.MapElement;
 import org.osm2world.core.map_data.data.MapNode;
 import org.osm2world.core.map_data.data.MapWaySegment;
 import org.osm2world.core.map_data.data.overlaps.MapIntersectionWW;
+import org.osm2world.core.map_data.data.overlaps.MapOverlap;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapAA;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapNA;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapType;
@@ -38,6 +46,7 @@ import org.osm2world.core.math.LineSegmentXZ;
 import org.osm2world.core.math.PolygonWithHolesXZ;
 import org.osm2world.core.math.SimplePolygonXZ;
 import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.math.datastructures.IntersectionGrid;
 import org.osm2world.core.osm.data.OSMData;
 import org.osm2world.core.osm.data.OSMElement;
 import org.osm2world.core.osm.data.OSMNode;
@@ -76,7 +85,14 @@ public class OSMToMapDataConverter {
 		MapData mapData = new MapData(mapNodes, mapWaySegs, mapAreas,
 				calculateFileBoundary(osmData.getBounds()));
 		
-		calculateIntersectionsInMapData(mapData);
+		int overlapThreads = config.getInt("overlapThreads",
+				Runtime.getRuntime().availableProcessors());
+		
+		if (overlapThreads > 1) {
+			calculateIntersectionsInMapData(mapData, overlapThreads);
+		} else {
+			calculateIntersectionsInMapData(mapData);
+		}
 
 		return mapData;
 
@@ -268,55 +284,274 @@ public class OSMToMapDataConverter {
 		
 	}
 
+	/**
+	 * parallel variant of {@link #calculateIntersectionsInMapData(MapData)}.
+	 * 
+	 * The complete index is built before any overlaps are calculated.
+	 * The grid cells are then checked independently of each other,
+	 * and each pair of elements is only tested in the first cell
+	 * (lowest x and z index) containing both of them.
+	 * The overlaps are added to the elements on the calling thread,
+	 * ordered by the elements' positions in {@link MapData#getMapElements()},
+	 * so the result doesn't depend on the number of threads.
+	 * 
+	 * @param threads  number of threads used for the overlap tests; &gt;= 1
+	 */
+	private static void calculateIntersectionsInMapData(MapData mapData,
+			int threads) {
+		
+		/* build the index and number the elements */
+		
+		MapIntersectionGrid index =
+				new MapIntersectionGrid(mapData.getDataBoundary());
+		
+		IntersectionGrid<MapElement> grid = index.getIntersectionGrid();
+		
+		final Map<MapElement, Integer> elementNumbers =
+				new IdentityHashMap<MapElement, Integer>();
+		
+		final TIntArrayList minCellX = new TIntArrayList();
+		final TIntArrayList minCellZ = new TIntArrayList();
+		
+		for (MapElement e : mapData.getMapElements()) {
+			
+			index.insert(e);
+			
+			AxisAlignedBoundingBoxXZ bbox = e.getAxisAlignedBoundingBoxXZ();
+			
+			elementNumbers.put(e, elementNumbers.size());
+			minCellX.add(grid.cellXForCoord(bbox.minX, bbox.minZ));
+			minCellZ.add(grid.cellZForCoord(bbox.minX, bbox.minZ));
+			
+		}
+		
+		/* calculate the overlaps, with one task per column of cells */
+		
+		final Collection<MapElement>[][] cells = grid.getCellArray();
+		
+		List<Callable<List<PendingOverlap>>> tasks =
+				new ArrayList<Callable<List<PendingOverlap>>>(cells.length);
+		
+		for (int x = 0; x < cells.length; x++) {
+			
+			final int cellX = x;
+			
+			tasks.add(new Callable<List<PendingOverlap>>() {
+				@Override public List<PendingOverlap> call() {
+					
+					List<PendingOverlap> result = new ArrayList<PendingOverlap>();
+					
+					for (int cellZ = 0; cellZ < cells[cellX].length; cellZ++) {
+						if (cells[cellX][cellZ] != null) {
+							calculateOverlapsInCell(cellX, cellZ,
+									cells[cellX][cellZ], elementNumbers,
+									minCellX, minCellZ, result);
+						}
+					}
+					
+					return result;
+					
+				}
+			});
+			
+		}
+		
+		List<PendingOverlap> pendingOverlaps = new ArrayList<PendingOverlap>();
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		try {
+			
+			for (Future<List<PendingOverlap>> future : pool.invokeAll(tasks)) {
+				pendingOverlaps.addAll(future.get());
+			}
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted during overlap calculation", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		
+		/* add the overlaps in the same order as the sequential calculation */
+		
+		Collections.sort(pendingOverlaps);
+		
+		for (PendingOverlap pendingOverlap : pendingOverlaps) {
+			addOverlap(pendingOverlap.overlap);
+		}
+		
+	}
+	
+	/**
+	 * calculates the overlaps between the elements in a grid cell.
+	 * Pairs which also share a cell with lower x or z index are skipped.
+	 * 
+	 * @param cell  the cell's elements, ordered by their numbers
+	 */
+	private static void calculateOverlapsInCell(int cellX, int cellZ,
+			Collection<MapElement> cell, Map<MapElement, Integer> elementNumbers,
+			TIntArrayList minCellX, TIntArrayList minCellZ,
+			List<PendingOverlap> result) {
+		
+		MapElement[] elements = cell.toArray(new MapElement[cell.size()]);
+		int[] numbers = new int[elements.length];
+		
+		for (int i = 0; i < elements.length; i++) {
+			numbers[i] = elementNumbers.get(elements[i]);
+		}
+		
+		for (int i = 1; i < elements.length; i++) {
+			for (int j = 0; j < i; j++) {
+				
+				int firstCommonCellX = Math.max(
+						minCellX.get(numbers[i]), minCellX.get(numbers[j]));
+				int firstCommonCellZ = Math.max(
+						minCellZ.get(numbers[i]), minCellZ.get(numbers[j]));
+				
+				if (firstCommonCellX == cellX && firstCommonCellZ == cellZ) {
+					
+					/* the element inserted later is passed first,
+					 * like in the sequential calculation */
+					
+					MapOverlap<?, ?> overlap =
+							calculateOverlap(elements[i], elements[j]);
+					
+					if (overlap != null) {
+						result.add(new PendingOverlap(
+								numbers[i], numbers[j], overlap));
+					}
+					
+				}
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * an overlap that has been calculated, but not yet added to the elements.
+	 * Sorted by the numbers of the later and earlier element.
+	 */
+	private static class PendingOverlap implements Comparable<PendingOverlap> {
+		
+		final int laterElement;
+		final int earlierElement;
+		final MapOverlap<?, ?> overlap;
+		
+		PendingOverlap(int laterElement, int earlierElement,
+				MapOverlap<?, ?> overlap) {
+			this.laterElement = laterElement;
+			this.earlierElement = earlierElement;
+			this.overlap = overlap;
+		}
+		
+		@Override
+		public int compareTo(PendingOverlap other) {
+			if (laterElement != other.laterElement) {
+				return laterElement < other.laterElement ? -1 : +1;
+			} else if (earlierElement != other.earlierElement) {
+				return earlierElement < other.earlierElement ? -1 : +1;
+			} else {
+				return 0;
+			}
+		}
+		
+	}
+	
 	/**
 	 * adds the overlap between two {@link MapElement}s
-	 * to both, if it exists. It calls the appropriate
-	 * subtype-specific addOverlapBetween method
+	 * to both, if it exists
 	 */
 	private static void addOverlapBetween(MapElement e1, MapElement e2) {
 		
+		MapOverlap<?, ?> overlap = calculateOverlap(e1, e2);
+		
+		if (overlap != null) {
+			addOverlap(overlap);
+		}
+		
+	}
+	
+	/**
+	 * adds an overlap to the participating elements
+	 * that store overlaps (i.e. not to {@link MapNode}s)
+	 */
+	private static void addOverlap(MapOverlap<?, ?> overlap) {
+		
+		for (MapElement e : Arrays.asList(overlap.e1, overlap.e2)) {
+			if (e instanceof MapWaySegment) {
+				((MapWaySegment) e).addOverlap(overlap);
+			} else if (e instanceof MapArea) {
+				((MapArea) e).addOverlap(overlap);
+			}
+		}
+		
+	}
+	
+	/**
+	 * calculates the overlap between two {@link MapElement}s,
+	 * without adding it to the elements. It calls the appropriate
+	 * subtype-specific calculateOverlap method
+	 * 
+	 * @return  the overlap; null if the elements don't overlap
+	 */
+	private static MapOverlap<?, ?> calculateOverlap(
+			MapElement e1, MapElement e2) {
+		
 		if (e1 instanceof MapWaySegment
 				&& e2 instanceof MapWaySegment) {
 			
-			addOverlapBetween((MapWaySegment) e1, (MapWaySegment) e2);
+			return calculateOverlap((MapWaySegment) e1, (MapWaySegment) e2);
 			
 		} else if (e1 instanceof MapWaySegment
 				&& e2 instanceof MapArea) {
 			
-			addOverlapBetween((MapWaySegment) e1, (MapArea) e2);
+			return calculateOverlap((MapWaySegment) e1, (MapArea) e2);
 			
 		} else if (e1 instanceof MapArea
 				&& e2 instanceof MapWaySegment) {
 			
-			addOverlapBetween((MapWaySegment) e2, (MapArea) e1);
+			return calculateOverlap((MapWaySegment) e2, (MapArea) e1);
 			
 		} else if (e1 instanceof MapArea
 				&& e2 instanceof MapArea) {
 			
-			addOverlapBetween((MapArea) e1, (MapArea) e2);
+			return calculateOverlap((MapArea) e1, (MapArea) e2);
 			
 		} else if (e1 instanceof MapNode
 				&& e2 instanceof MapArea) {
 			
-			addOverlapBetween((MapNode) e1, (MapArea) e2);
+			return calculateOverlap((MapNode) e1, (MapArea) e2);
 			
 		} else if (e1 instanceof MapArea
 				&& e2 instanceof MapNode) {
 			
-			addOverlapBetween((MapNode) e2, (MapArea) e1);
+			return calculateOverlap((MapNode) e2, (MapArea) e1);
+			
+		} else {
+			
+			return null;
 			
 		}
 		
 	}
 
 	/**
-	 * adds the overlap between two {@link MapWaySegment}s
-	 * to both, if it exists
+	 * calculates the overlap between two {@link MapWaySegment}s
 	 */
-	private static void addOverlapBetween(
+	private static MapIntersectionWW calculateOverlap(
 			MapWaySegment line1, MapWaySegment line2) {
 		
-		if (line1.isConnectedTo(line2)) { return; }
+		if (line1.isConnectedTo(line2)) { return null; }
 		
 		VectorXZ intersection = GeometryUtil.getLineSegmentIntersection(
 				line1.getStartNode().getPos(),
@@ -325,24 +560,18 @@ public class OSMToMapDataConverter {
 				line2.getEndNode().getPos());
 		
 		if (intersection != null) {
-			
-			/* add the intersection */
-			
-			MapIntersectionWW newIntersection =
-				new MapIntersectionWW(line1, line2, intersection);
-			
-			line1.addOverlap(newIntersection);
-			line2.addOverlap(newIntersection);
-											
+			return new MapIntersectionWW(line1, line2, intersection);
+		} else {
+			return null;
 		}
 
 	}
 	
 	/**
-	 * adds the overlap between a {@link MapWaySegment}
-	 * and a {@link MapArea} to both, if it exists
+	 * calculates the overlap between a {@link MapWaySegment}
+	 * and a {@link MapArea}
 	 */
-	private static void addOverlapBetween(
+	private static MapOverlapWA calculateOverlap(
 			MapWaySegment line, MapArea area) {
 		
 		final LineSegmentXZ segmentXZ = line.getLineSegment();
@@ -352,15 +581,9 @@ public class OSMToMapDataConverter {
 		for (MapAreaSegment areaSegment : area.getAreaSegments()) {
 			if (areaSegment.sharesBothNodes(line)) {
 				
-				MapOverlapWA newOverlap =
-					new MapOverlapWA(line, area, MapOverlapType.SHARE_SEGMENT,
-							Collections.<VectorXZ>emptyList(),
-							Collections.<MapAreaSegment>emptyList());
-				
-				line.addOverlap(newOverlap);
-				area.addOverlap(newOverlap);
-				
-				return;
+				return new MapOverlapWA(line, area, MapOverlapType.SHARE_SEGMENT,
+						Collections.<VectorXZ>emptyList(),
+						Collections.<MapAreaSegment>emptyList());
 				
 			}
 		}
@@ -407,7 +630,7 @@ public class OSMToMapDataConverter {
 			
 		}
 		
-		/* add an overlap if detected */
+		/* create an overlap if detected */
 					
 		if (contains || intersects) {
 			
@@ -436,24 +659,22 @@ public class OSMToMapDataConverter {
 				
 			}
 			
-			/* add the overlap */
+			return new MapOverlapWA(line, area,
+					intersects ? MapOverlapType.INTERSECT : MapOverlapType.CONTAIN,
+					intersectionPositions, intersectingSegments);
 			
-			MapOverlapWA newOverlap = new MapOverlapWA(line, area,
-						intersects ? MapOverlapType.INTERSECT : MapOverlapType.CONTAIN,
-						intersectionPositions, intersectingSegments);
+		} else {
 			
-			line.addOverlap(newOverlap);
-			area.addOverlap(newOverlap);
+			return null;
 			
 		}
 		
 	}
 
 	/**
-	 * adds the overlap between two {@link MapArea}s
-	 * to both, if it exists
+	 * calculates the overlap between two {@link MapArea}s
 	 */
-	private static void addOverlapBetween(
+	private static MapOverlapAA calculateOverlap(
 			MapArea area1, MapArea area2) {
 		
 		/* check whether the areas have a shared segment */
@@ -464,14 +685,7 @@ public class OSMToMapDataConverter {
 		for (MapAreaSegment area1Segment : area1Segments) {
 			for (MapAreaSegment area2Segment : area2Segments) {
 				if (area1Segment.sharesBothNodes(area2Segment)) {
-					
-					MapOverlapAA newOverlap =
-						new MapOverlapAA(area1, area2, MapOverlapType.SHARE_SEGMENT);
-					area1.addOverlap(newOverlap);
-					area2.addOverlap(newOverlap);
-					
-					return;
-					
+					return new MapOverlapAA(area1, area2, MapOverlapType.SHARE_SEGMENT);
 				}
 			}
 		}
@@ -529,40 +743,29 @@ public class OSMToMapDataConverter {
 									
 		}
 		
-		/* add an overlap if detected */
-					
-		if (contains1 || contains2 || intersects) {
-			
-			/* add the overlap */
-			
-			MapOverlapAA newOverlap = null;
-			
-			if (contains1) {
-				newOverlap = new MapOverlapAA(area2, area1, MapOverlapType.CONTAIN);
-			} else if (contains2) {
-				newOverlap = new MapOverlapAA(area1, area2, MapOverlapType.CONTAIN);
-			} else {
-				newOverlap = new MapOverlapAA(area1, area2, MapOverlapType.INTERSECT);
-			}
-			
-			area1.addOverlap(newOverlap);
-			area2.addOverlap(newOverlap);
-			
+		/* create an overlap if detected */
+		
+		if (contains1) {
+			return new MapOverlapAA(area2, area1, MapOverlapType.CONTAIN);
+		} else if (contains2) {
+			return new MapOverlapAA(area1, area2, MapOverlapType.CONTAIN);
+		} else if (intersects) {
+			return new MapOverlapAA(area1, area2, MapOverlapType.INTERSECT);
+		} else {
+			return null;
 		}
 		
 	}
 	
-	private static void addOverlapBetween(MapNode node, MapArea area) {
+	/**
+	 * calculates the overlap between a {@link MapNode} and a {@link MapArea}
+	 */
+	private static MapOverlapNA calculateOverlap(MapNode node, MapArea area) {
 		
 		if (area.getPolygon().contains(node.getPos())) {
-			
-			/* add the overlap */
-			
-			MapOverlapNA newOverlap =
-					new MapOverlapNA(node, area, MapOverlapType.CONTAIN);
-			
-			area.addOverlap(newOverlap);
-			
+			return new MapOverlapNA(node, area, MapOverlapType.CONTAIN);
+		} else {
+			return null;
 		}
 		
 	}
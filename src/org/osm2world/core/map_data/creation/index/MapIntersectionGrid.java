@@ -38,4 +38,12 @@ public class MapIntersectionGrid implements MapDataIndex {
 		return intersectionGrid.getCells();
 	}
 	
+	/**
+	 * provides access to the underlying grid, e.g. to find out
+	 * which cells are covered by an element
+	 */
+	public IntersectionGrid<MapElement> getIntersectionGrid() {
+		return intersectionGrid;
+	}
+	
 }
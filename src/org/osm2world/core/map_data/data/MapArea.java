@@ -24,13 +24,17 @@ public class MapArea implements MapElement {
 	
 	private final PolygonWithHolesXZ polygon;
 		
-	private Collection<MapAreaSegment> areaSegments;
+	/** created lazily by {@link #getAreaSegments()} */
+	private volatile Collection<MapAreaSegment> areaSegments;
 
 	@SuppressWarnings("unchecked") //is later checked for EMPTY_LIST using ==
 	private Collection<MapOverlap<?,?>> overlaps = Collections.EMPTY_LIST;
 	
-	private List<AreaWorldObject> representations =
-		new ArrayList<AreaWorldObject>(1);
+	/**
+	 * the representations of this area. The list is replaced,
+	 * rather than modified, when a representation is added.
+	 */
+	private volatile List<AreaWorldObject> representations = Collections.emptyList();
 	
 	//TODO: contained / intersecting nodes/lines
 	
@@ -142,38 +146,51 @@ public class MapArea implements MapElement {
 	 */
 	public Collection<MapAreaSegment> getAreaSegments() {
 		
-		if (areaSegments == null) {
+		Collection<MapAreaSegment> result = areaSegments;
 		
-			areaSegments = new ArrayList<MapAreaSegment>();
-			
-			for (int v = 0; v+1 < nodes.size(); v++) {
-				//relies on duplication of first/last node
-				
-				areaSegments.add(new MapAreaSegment(this,
-						getPolygon().getOuter().isClockwise(),
-						nodes.get(v), nodes.get(v+1)));
-								
+		if (result == null) {
+			synchronized (this) {
+				if (areaSegments == null) {
+					areaSegments = createAreaSegments();
+				}
+				result = areaSegments;
 			}
+		}
+		
+		return result;
+		
+	}
+	
+	private Collection<MapAreaSegment> createAreaSegments() {
+		
+		Collection<MapAreaSegment> segments = new ArrayList<MapAreaSegment>();
+		
+		for (int v = 0; v+1 < nodes.size(); v++) {
+			//relies on duplication of first/last node
 			
-			for (int h = 0; h < holes.size(); h++) {
-				
-				List<MapNode> holeNodes = holes.get(h);
-				SimplePolygonXZ holePolygon = polygon.getHoles().get(h);
+			segments.add(new MapAreaSegment(this,
+					getPolygon().getOuter().isClockwise(),
+					nodes.get(v), nodes.get(v+1)));
+							
+		}
+		
+		for (int h = 0; h < holes.size(); h++) {
+			
+			List<MapNode> holeNodes = holes.get(h);
+			SimplePolygonXZ holePolygon = polygon.getHoles().get(h);
+			
+			for (int v = 0; v+1 < holeNodes.size(); v++) {
+				//relies on duplication of first/last node
 				
-				for (int v = 0; v+1 < holeNodes.size(); v++) {
-					//relies on duplication of first/last node
-					
-					areaSegments.add(new MapAreaSegment(this,
-							!holePolygon.isClockwise(),
-							holeNodes.get(v), holeNodes.get(v+1)));
-					
-				}
+				segments.add(new MapAreaSegment(this,
+						!holePolygon.isClockwise(),
+						holeNodes.get(v), holeNodes.get(v+1)));
 				
 			}
 			
 		}
 		
-		return areaSegments;
+		return segments;
 		
 	}
 	
@@ -184,18 +201,24 @@ public class MapArea implements MapElement {
 	
 	@Override
 	public AreaWorldObject getPrimaryRepresentation() {
-		if (representations.isEmpty()) {
+		List<AreaWorldObject> currentRepresentations = representations;
+		if (currentRepresentations.isEmpty()) {
 			return null;
 		} else {
-			return representations.get(0);
+			return currentRepresentations.get(0);
 		}
 	}
 
 	/**
-	 * adds a visual representation for this area
+	 * adds a visual representation for this area.
+	 * Can be called by several threads at the same time.
 	 */
-	public void addRepresentation(AreaWorldObject representation) {
-		this.representations.add(representation);
+	public synchronized void addRepresentation(AreaWorldObject representation) {
+		List<AreaWorldObject> newRepresentations =
+				new ArrayList<AreaWorldObject>(representations.size() + 1);
+		newRepresentations.addAll(representations);
+		newRepresentations.add(representation);
+		this.representations = newRepresentations;
 	}
 	
 	public void addOverlap(MapOverlap<?, ?> overlap) {
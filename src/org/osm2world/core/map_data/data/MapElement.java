@@ -22,6 +22,8 @@ public interface MapElement extends IntersectionTestObject {
 	 * The first element is considered the "primary" representation,
 	 * and for some purposes - such as elevation calculation -, only this
 	 * representation will be used.
+	 * 
+	 * The returned list must not be modified.
 	 */
 	public List<? extends WorldObject> getRepresentations();
 	
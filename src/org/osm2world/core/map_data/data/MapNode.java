@@ -25,7 +25,11 @@ public class MapNode implements MapElement {
 	private final VectorXZ pos;
 	private final OSMNode osmNode;
 	
-	private List<NodeWorldObject> representations = new ArrayList<NodeWorldObject>(1);
+	/**
+	 * the representations of this node. The list is replaced,
+	 * rather than modified, when a representation is added.
+	 */
+	private volatile List<NodeWorldObject> representations = Collections.emptyList();
 	
 	private List<MapWaySegment> connectedWaySegments = new ArrayList<MapWaySegment>();
 	private List<MapSegment> connectedSegments = new ArrayList<MapSegment>();
@@ -211,18 +215,24 @@ public class MapNode implements MapElement {
 	
 	@Override
 	public NodeWorldObject getPrimaryRepresentation() {
-		if (representations.isEmpty()) {
+		List<NodeWorldObject> currentRepresentations = representations;
+		if (currentRepresentations.isEmpty()) {
 			return null;
 		} else {
-			return representations.get(0);
+			return currentRepresentations.get(0);
 		}
 	}
 
 	/**
-	 * adds a visual representation for this node
+	 * adds a visual representation for this node.
+	 * Can be called by several threads at the same time.
 	 */
-	public void addRepresentation(NodeWorldObject representation) {
-		this.representations.add(representation);
+	public synchronized void addRepresentation(NodeWorldObject representation) {
+		List<NodeWorldObject> newRepresentations =
+				new ArrayList<NodeWorldObject>(representations.size() + 1);
+		newRepresentations.addAll(representations);
+		newRepresentations.add(representation);
+		this.representations = newRepresentations;
 	}
 		
 	@Override
@@ -22,7 +22,11 @@ public class MapWaySegment extends MapSegment implements MapElement {
 
 	private final OSMWay osmWay;
 	
-	private List<WaySegmentWorldObject> representations = new ArrayList<WaySegmentWorldObject>(1);
+	/**
+	 * the representations of this way segment. The list is replaced,
+	 * rather than modified, when a representation is added.
+	 */
+	private volatile List<WaySegmentWorldObject> representations = Collections.emptyList();
 	
 	@SuppressWarnings("unchecked") //is later checked for EMPTY_LIST using ==
 	private Collection<MapOverlap<?,?>> overlaps = Collections.EMPTY_LIST;
@@ -83,18 +87,24 @@ public class MapWaySegment extends MapSegment implements MapElement {
 	
 	@Override
 	public WaySegmentWorldObject getPrimaryRepresentation() {
-		if (representations.isEmpty()) {
+		List<WaySegmentWorldObject> currentRepresentations = representations;
+		if (currentRepresentations.isEmpty()) {
 			return null;
 		} else {
-			return representations.get(0);
+			return currentRepresentations.get(0);
 		}
 	}
 
 	/**
-	 * adds a visual representation for this way segment
+	 * adds a visual representation for this way segment.
+	 * Can be called by several threads at the same time.
 	 */
-	public void addRepresentation(WaySegmentWorldObject representation) {
-		this.representations.add(representation);
+	public synchronized void addRepresentation(WaySegmentWorldObject representation) {
+		List<WaySegmentWorldObject> newRepresentations =
+				new ArrayList<WaySegmentWorldObject>(representations.size() + 1);
+		newRepresentations.addAll(representations);
+		newRepresentations.add(representation);
+		this.representations = newRepresentations;
 	}
 	
 	@Override
@@ -0,0 +1,424 @@
+package org.osm2world.core.map_elevation.creation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.osm2world.core.ConversionFacade.Phase;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.util.functions.Factory;
+import org.osm2world.core.util.metrics.Measurement;
+import org.osm2world.core.util.metrics.Measurement.Unit;
+import org.osm2world.core.util.metrics.MetricsListener;
+
+/**
+ * a wrapper which splits the constraint problem into independent parts
+ * and solves each of them with a separate {@link EleConstraintEnforcer}.
+ *
+ * Constraints only link the connectors of nearby features, such as a bridge
+ * and the ways below it, so the connectors usually form many small connected
+ * components. These are found with a union-find structure while the
+ * constraints are collected, and are then solved on a pool of threads.
+ * Connectors which are not part of any constraint keep their elevation.
+ *
+ * This only produces the same result as a single enforcer if the
+ * enforcer's solution for a component does not depend on other
+ * connectors, as is the case for {@link LPEleConstraintEnforcer}
+ * and {@link SparseEleConstraintEnforcer}.
+ */
+public class ComponentEleConstraintEnforcer implements EleConstraintEnforcer {
+	
+	private final Factory<? extends EleConstraintEnforcer> enforcerFactory;
+	private final int threads;
+	
+	private MetricsListener metricsListener = null;
+	
+	private final List<EleConnector> connectors = new ArrayList<EleConnector>();
+	
+	private final Map<EleConnector, Integer> connectorIndexMap =
+			new HashMap<EleConnector, Integer>();
+	
+	/** connectors at each position, used for joining connectors */
+	private final Map<VectorXZ, List<Integer>> positionMap =
+			new HashMap<VectorXZ, List<Integer>>();
+	
+	/**
+	 * parent of each connector in the union-find structure.
+	 * Connectors are the roots of their components if they are their own parent.
+	 */
+	private int[] parents = new int[64];
+	
+	/** number of connectors in a component, only valid for roots */
+	private int[] sizes = new int[64];
+	
+	private final List<Constraint> constraints = new ArrayList<Constraint>();
+	
+	/**
+	 * @param enforcerFactory  creates an enforcer for each component
+	 * @param threads          number of components solved at the same time;
+	 *                         1 solves them one after the other
+	 */
+	public ComponentEleConstraintEnforcer(
+			Factory<? extends EleConstraintEnforcer> enforcerFactory,
+			int threads) {
+		this.enforcerFactory = enforcerFactory;
+		this.threads = threads;
+	}
+	
+	/**
+	 * sets a listener which receives the number of components, and the size
+	 * and solving time of each component. It will be called from several
+	 * threads if components are solved concurrently.
+	 *
+	 * @param metricsListener  the listener; null to stop measuring
+	 */
+	public void setMetricsListener(MetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+	}
+	
+	@Override
+	public void addConnectors(Iterable<EleConnector> newConnectors) {
+		
+		for (EleConnector c : newConnectors) {
+			
+			if (connectorIndexMap.containsKey(c)) continue;
+			
+			int index = connectors.size();
+			
+			connectors.add(c);
+			connectorIndexMap.put(c, index);
+			
+			if (index == parents.length) {
+				parents = Arrays.copyOf(parents, 2 * index);
+				sizes = Arrays.copyOf(sizes, 2 * index);
+			}
+			
+			parents[index] = index;
+			sizes[index] = 1;
+			
+			/* joined connectors must be solved by the same enforcer */
+			
+			List<Integer> indicesAtPos = positionMap.get(c.pos);
+			
+			if (indicesAtPos == null) {
+				indicesAtPos = new ArrayList<Integer>(2);
+				positionMap.put(c.pos, indicesAtPos);
+			}
+			
+			for (int other : indicesAtPos) {
+				if (c.connectsTo(connectors.get(other))) {
+					union(index, other);
+				}
+			}
+			
+			indicesAtPos.add(index);
+			
+		}
+		
+	}
+	
+	@Override
+	public void requireSameEle(final EleConnector c1, final EleConnector c2) {
+		addConstraint(new Constraint(c1, c2) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireSameEle(c1, c2);
+			}
+		});
+	}
+	
+	@Override
+	public void requireSameEle(Iterable<EleConnector> cs) {
+		
+		final List<EleConnector> csCopy = new ArrayList<EleConnector>();
+		
+		for (EleConnector c : cs) {
+			csCopy.add(c);
+		}
+		
+		if (csCopy.isEmpty()) return;
+		
+		addConstraint(new Constraint(csCopy.toArray(new EleConnector[csCopy.size()])) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireSameEle(csCopy);
+			}
+		});
+		
+	}
+	
+	@Override
+	public void requireVerticalDistance(final ConstraintType type,
+			final double distance, final EleConnector upper, final EleConnector lower) {
+		addConstraint(new Constraint(upper, lower) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireVerticalDistance(type, distance, upper, lower);
+			}
+		});
+	}
+	
+	@Override
+	public void requireVerticalDistance(final ConstraintType type,
+			final double distance, final EleConnector upper,
+			final EleConnector base1, final EleConnector base2) {
+		addConstraint(new Constraint(upper, base1, base2) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireVerticalDistance(type, distance, upper, base1, base2);
+			}
+		});
+	}
+	
+	@Override
+	public void requireIncline(final ConstraintType type, final double incline,
+			List<EleConnector> cs) {
+		
+		if (cs.isEmpty()) return;
+		
+		final List<EleConnector> csCopy = new ArrayList<EleConnector>(cs);
+		
+		addConstraint(new Constraint(csCopy.toArray(new EleConnector[csCopy.size()])) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireIncline(type, incline, csCopy);
+			}
+		});
+		
+	}
+	
+	@Override
+	public void requireSmoothness(final EleConnector from,
+			final EleConnector via, final EleConnector to) {
+		addConstraint(new Constraint(from, via, to) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireSmoothness(from, via, to);
+			}
+		});
+	}
+	
+	@Override
+	public void requireFixedEle(final EleConnector c, final double ele) {
+		addConstraint(new Constraint(c) {
+			@Override void applyTo(EleConstraintEnforcer enforcer) {
+				enforcer.requireFixedEle(c, ele);
+			}
+		});
+	}
+	
+	private void addConstraint(Constraint constraint) {
+		
+		int first = getIndex(constraint.connectors[0]);
+		
+		for (int i = 1; i < constraint.connectors.length; i++) {
+			union(first, getIndex(constraint.connectors[i]));
+		}
+		
+		constraints.add(constraint);
+		
+	}
+	
+	private int getIndex(EleConnector c) {
+		
+		Integer index = connectorIndexMap.get(c);
+		
+		if (index == null) {
+			throw new IllegalArgumentException("unknown connector " + c);
+		}
+		
+		return index;
+		
+	}
+	
+	private int find(int index) {
+		
+		while (parents[index] != index) {
+			parents[index] = parents[parents[index]];
+			index = parents[index];
+		}
+		
+		return index;
+		
+	}
+	
+	private void union(int index1, int index2) {
+		
+		int root1 = find(index1);
+		int root2 = find(index2);
+		
+		if (root1 == root2) return;
+		
+		if (sizes[root1] < sizes[root2]) {
+			int temp = root1;
+			root1 = root2;
+			root2 = temp;
+		}
+		
+		parents[root2] = root1;
+		sizes[root1] += sizes[root2];
+		
+	}
+	
+	@Override
+	public void enforceConstraints() {
+		
+		List<Component> components = createComponents();
+		
+		measured("enforcer.components", Unit.COUNT, components.size());
+		
+		if (threads > 1 && components.size() > 1) {
+			solveConcurrently(components);
+		} else {
+			for (Component component : components) {
+				component.solve();
+			}
+		}
+		
+	}
+	
+	/**
+	 * groups the constraints and connectors by component.
+	 * Connectors without constraints are not part of any component.
+	 *
+	 * @return  the components, largest first
+	 */
+	private List<Component> createComponents() {
+		
+		Map<Integer, Component> componentMap =
+				new LinkedHashMap<Integer, Component>();
+		
+		for (Constraint constraint : constraints) {
+			
+			int root = find(getIndex(constraint.connectors[0]));
+			
+			Component component = componentMap.get(root);
+			
+			if (component == null) {
+				component = new Component();
+				componentMap.put(root, component);
+			}
+			
+			component.constraints.add(constraint);
+			
+		}
+		
+		for (int i = 0; i < connectors.size(); i++) {
+			
+			Component component = componentMap.get(find(i));
+			
+			if (component != null) {
+				component.connectors.add(connectors.get(i));
+			}
+			
+		}
+		
+		/* starting with the largest components helps balancing the load */
+		
+		List<Component> components = new ArrayList<Component>(componentMap.values());
+		
+		Collections.sort(components, new Comparator<Component>() {
+			@Override public int compare(Component c1, Component c2) {
+				return Integer.compare(c2.connectors.size(), c1.connectors.size());
+			}
+		});
+		
+		return components;
+		
+	}
+	
+	private void solveConcurrently(List<Component> components) {
+		
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(components.size());
+		
+		for (final Component component : components) {
+			tasks.add(new Callable<Void>() {
+				@Override public Void call() {
+					component.solve();
+					return null;
+				}
+			});
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		try {
+			
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted during constraint enforcement", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		
+	}
+	
+	private void measured(String name, Unit unit, long value) {
+		if (metricsListener != null) {
+			metricsListener.measured(new Measurement(Phase.ELEVATION,
+					name, unit, value));
+		}
+	}
+	
+	/**
+	 * a constraint which is passed on to the enforcer of its component
+	 */
+	private static abstract class Constraint {
+		
+		/** the affected connectors, at least one */
+		final EleConnector[] connectors;
+		
+		Constraint(EleConnector... connectors) {
+			this.connectors = connectors;
+		}
+		
+		abstract void applyTo(EleConstraintEnforcer enforcer);
+		
+	}
+	
+	/**
+	 * the connectors and constraints of a connected component
+	 */
+	private class Component {
+		
+		final List<EleConnector> connectors = new ArrayList<EleConnector>();
+		final List<Constraint> constraints = new ArrayList<Constraint>();
+		
+		void solve() {
+			
+			long start = System.nanoTime();
+			
+			EleConstraintEnforcer enforcer = enforcerFactory.make();
+			
+			enforcer.addConnectors(connectors);
+			
+			for (Constraint constraint : constraints) {
+				constraint.applyTo(enforcer);
+			}
+			
+			enforcer.enforceConstraints();
+			
+			measured("enforcer.component", Unit.NANOSECONDS, System.nanoTime() - start);
+			measured("enforcer.componentConnectors", Unit.COUNT, connectors.size());
+			
+		}
+		
+	}
+	
+}
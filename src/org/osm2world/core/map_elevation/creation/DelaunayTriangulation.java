@@ -1,18 +1,15 @@
 package org.osm2world.core.map_elevation.creation;
 
 import static java.lang.Math.*;
-import static org.osm2world.core.math.GeometryUtil.isRightOf;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
-import java.util.Stack;
+import java.util.NoSuchElementException;
+import java.util.Random;
 
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.TriangleXYZ;
@@ -21,11 +18,7 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.math.datastructures.IntersectionTestObject;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-
 //TODO: test performance effects of:
-// * starting point choice of the walk
 // * caching circumcircles
 // * only calculating area of triangles that are actually changed
 
@@ -34,33 +27,43 @@ import com.google.common.collect.Multimap;
  * Built to be used as a Voronoi Diagram dual for natural neighbor
  * interpolation of the y elevation values carried by each point.
  * The triangulation is constructed by incremental insertion.
+ * Many points should be inserted using {@link #insertAll(Collection)},
+ * which chooses an insertion order that keeps point location fast.
+ *
+ * Triangles are not stored as objects, but as entries in int arrays
+ * which reference vertices and neighbors by index. A flip overwrites
+ * the entries of the triangles it replaces, so inserting a point only
+ * allocates memory when the arrays need to grow.
+ * {@link DelaunayTriangle}s are views of these entries.
  */
 public class DelaunayTriangulation {
 	
 	/**
-	 * a triangle which is the dual of a site in the Voronoi Diagram.
-	 * Must be counter-clockwise.
+	 * a view of a triangle in the triangulation,
+	 * which is the dual of a site in the Voronoi Diagram.
+	 * Counter-clockwise.
+	 *
+	 * Views are only valid until the next modification of the
+	 * triangulation, because flips re-use the storage of replaced triangles.
 	 */
-	public static class DelaunayTriangle implements IntersectionTestObject {
+	public class DelaunayTriangle implements IntersectionTestObject {
 		
 		//TODO: use Site class with VectorXZ and other value - avoids all the .xz() calls
 		
-		public final VectorXYZ p0, p1, p2;
+		private final int index;
 		
-		private DelaunayTriangle neighbor0 = null;
-		private DelaunayTriangle neighbor1 = null;
-		private DelaunayTriangle neighbor2 = null;
+		public final VectorXYZ p0, p1, p2;
 		
-		public DelaunayTriangle(VectorXYZ p0, VectorXYZ p1, VectorXYZ p2) {
+		private DelaunayTriangle(int index) {
 			
-			this.p0 = p0;
-			this.p1 = p1;
-			this.p2 = p2;
+			this.index = index;
 			
-			assert !asTriangleXZ().isClockwise() : "must be counter-clockwise";
+			this.p0 = vertices[triangleVertices[3 * index]];
+			this.p1 = vertices[triangleVertices[3 * index + 1]];
+			this.p2 = vertices[triangleVertices[3 * index + 2]];
 			
 		}
-				
+		
 		public VectorXYZ getPoint(int i) {
 			switch (i) {
 				case 0: return p0;
@@ -70,14 +73,20 @@ public class DelaunayTriangulation {
 			}
 		}
 		
-		
+		/**
+		 * returns the neighbor sharing the edge from point i to point i+1,
+		 * or null if there is no neighbor at that edge
+		 */
 		public DelaunayTriangle getNeighbor(int i) {
-			switch (i) {
-				case 0: return neighbor0;
-				case 1: return neighbor1;
-				case 2: return neighbor2;
-				default: throw new Error("invalid index " + i);
+			
+			if (i < 0 || i > 2) {
+				throw new Error("invalid index " + i);
 			}
+			
+			int neighbor = triangleNeighbors[3 * index + i];
+			
+			return neighbor == NO_TRIANGLE ? null : new DelaunayTriangle(neighbor);
+			
 		}
 
 		public DelaunayTriangle getLeftNeighbor(VectorXYZ atPoint) {
@@ -88,15 +97,6 @@ public class DelaunayTriangulation {
 			return getNeighbor(indexOfPoint(atPoint));
 		}
 		
-		public void setNeighbor(int i, DelaunayTriangle neighbor) {
-			switch (i) {
-				case 0: neighbor0 = neighbor; break;
-				case 1: neighbor1 = neighbor; break;
-				case 2: neighbor2 = neighbor; break;
-				default: throw new Error("invalid index " + i);
-			}
-		}
-		
 		public int indexOfPoint(VectorXYZ point) {
 			if (point == p0) {
 				return 0;
@@ -110,20 +110,7 @@ public class DelaunayTriangulation {
 		}
 		
 		public int indexOfNeighbor(DelaunayTriangle neighbor) {
-			if (neighbor == neighbor0) {
-				return 0;
-			} else if (neighbor == neighbor1) {
-				return 1;
-			} else if (neighbor == neighbor2) {
-				return 2;
-			} else {
-				throw new IllegalArgumentException("not a neighbor");
-			}
-		}
-		
-		public void replaceNeighbor(DelaunayTriangle oldNeighbor,
-				DelaunayTriangle newNeighbor) {
-			this.setNeighbor(indexOfNeighbor(oldNeighbor), newNeighbor);
+			return DelaunayTriangulation.this.indexOfNeighbor(index, neighbor.index);
 		}
 		
 		public double angleAt(int pointIndex) {
@@ -144,16 +131,12 @@ public class DelaunayTriangulation {
 		}
 		
 		public VectorXZ getCircumcircleCenter() {
-			
-			VectorXZ b = p1.subtract(p0).xz();
-			VectorXZ c = p2.subtract(p0).xz();
 
-			double d = 2 * (b.x * c.z - b.z * c.x);
+			double[] center = new double[2];
 
-			double rX = (c.z * (b.x * b.x + b.z * b.z) - b.z * (c.x * c.x + c.z * c.z)) / d;
-			double rZ = (b.x * (c.x * c.x + c.z * c.z) - c.x * (b.x * b.x + b.z * b.z)) / d;
+			calculateCircumcenter(p0.x, p0.z, p1.x, p1.z, p2.x, p2.z, center);
 			
-			return new VectorXZ(rX, rZ).add(p0.xz());
+			return new VectorXZ(center[0], center[1]);
 			
 		}
 		
@@ -184,499 +167,982 @@ public class DelaunayTriangulation {
 					max(p0.z, max(p1.z, p2.z)));
 		}
 		
+		private DelaunayTriangulation getTriangulation() {
+			return DelaunayTriangulation.this;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			
+			if (!(obj instanceof DelaunayTriangle)) {
+				return false;
+			}
+			
+			DelaunayTriangle other = (DelaunayTriangle) obj;
+			
+			return other.getTriangulation() == getTriangulation()
+					&& other.index == index;
+			
+		}
+		
+		@Override
+		public int hashCode() {
+			return index;
+		}
+		
 		@Override
 		public String toString() {
 			return asTriangleXZ().toString();
 		}
 		
 	}
+
+	public class NaturalNeighbors {
+
+		public final VectorXYZ[] neighbors;
+		public final double[] relativeWeights;
+		
+		NaturalNeighbors(VectorXYZ[] neighbors, double[] relativeWeights) {
+			this.neighbors = neighbors;
+			this.relativeWeights = relativeWeights;
+		}
+		
+	}
+
+	/**
+	 * produces iterables for iterating over all the triangles in this
+	 * triangulation, except the {@link #handleTriangle}
+	 */
+	private final Iterable<DelaunayTriangle> ITERABLE =
+			new Iterable<DelaunayTriangle>() {
+		
+		@Override
+		public Iterator<DelaunayTriangle> iterator() {
+			
+			return new Iterator<DelaunayTriangle>() {
+				
+				private int nextIndex = HANDLE_TRIANGLE + 1;
+				
+				public boolean hasNext() {
+					return nextIndex < triangleCount;
+				};
+				
+				public DelaunayTriangle next() {
+					
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					
+					return new DelaunayTriangle(nextIndex++);
+					
+				};
+				
+				public void remove() {
+					throw new UnsupportedOperationException();
+				};
+				
+			};
+			
+		}
+		
+	};
+	
+	/** value of a neighbor entry if there is no neighbor at that edge */
+	private static final int NO_TRIANGLE = -1;
+	
+	/**
+	 * index of a fake triangle outside of the bounds that is used as a start
+	 * for walking through the triangulation along neighborships
+	 */
+	private static final int HANDLE_TRIANGLE = 0;
+	
+	/** number of points inserted in the first round of {@link #insertAll(Collection)} */
+	private static final int FIRST_ROUND_SIZE = 64;
+	
+	/** number of bits per axis used for calculating Hilbert curve indices */
+	private static final int HILBERT_ORDER = 16;
+	
+	/** average number of points per cell of the {@link #seedGrid} */
+	private static final int POINTS_PER_SEED_CELL = 8;
+	
+	private final AxisAlignedBoundingBoxXZ bounds;
+	
+	/**
+	 * the vertices, including the corners of the bounds.
+	 * Their coordinates are duplicated in {@link #vertexX} and
+	 * {@link #vertexZ} for faster access.
+	 */
+	private VectorXYZ[] vertices;
+	private double[] vertexX;
+	private double[] vertexZ;
+	private int vertexCount = 0;
+	
+	/**
+	 * indices of each triangle's vertices.
+	 * The entries for triangle t are at 3t, 3t+1 and 3t+2.
+	 */
+	private int[] triangleVertices;
 	
 	/**
-	 * operation where the triangulation is modified during an insertion
+	 * indices of each triangle's neighbors, or {@link #NO_TRIANGLE}.
+	 * The neighbor at 3t+i shares the edge from vertex i to vertex i+1.
 	 */
-	private interface Flip {
+	private int[] triangleNeighbors;
+	
+	private int triangleCount = 0;
+
+	/**
+	 * a fake triangle outside of the bounds that is used as a start
+	 * for iterating/walking through the triangulation along neighborships
+	 */
+	public final DelaunayTriangle handleTriangle;
+	
+	/**
+	 * a triangle created by the most recent insertion.
+	 * Used as a start for walks, because points are often inserted
+	 * close to the previous point.
+	 */
+	private int lastCreatedTriangle = NO_TRIANGLE;
+	
+	/**
+	 * a triangle for each cell of a regular grid covering the bounds,
+	 * used as a start for walks to arbitrary points.
+	 * Created by {@link #insertAll(Collection)}, null before that.
+	 * Entries may be {@link #NO_TRIANGLE}, or refer to a triangle
+	 * which has since been replaced by a flip. The latter is not a
+	 * problem, as a walk can start at any triangle.
+	 */
+	private int[] seedGrid = null;
+	private int seedGridCells;
+	
+	/**
+	 * triangles which need to be checked for the Delaunay property
+	 * during an insertion, see {@link #insert(VectorXYZ)}
+	 */
+	private int[] uncheckedTriangles = new int[16];
+	
+	public DelaunayTriangulation(AxisAlignedBoundingBoxXZ bounds) {
+		
+		this.bounds = bounds;
+		
+		vertices = new VectorXYZ[16];
+		vertexX = new double[16];
+		vertexZ = new double[16];
+		triangleVertices = new int[3 * 16];
+		triangleNeighbors = new int[3 * 16];
 		
-		public void perform();
-		public void undo();
+		int boundV0 = addVertex(bounds.bottomLeft().xyz(0));
+		int boundV1 = addVertex(bounds.bottomRight().xyz(0));
+		int boundV2 = addVertex(bounds.topRight().xyz(0));
+		int boundV3 = addVertex(bounds.topLeft().xyz(0));
+		int handleV = addVertex(new VectorXYZ(
+				bounds.center().x, 0, bounds.minZ - bounds.sizeZ()));
 		
-		public DelaunayTriangle[] getCreatedTriangles();
-		public DelaunayTriangle[] getRemovedTriangles();
+		int handle = addTriangle(boundV1, boundV0, handleV);
+		int t1 = addTriangle(boundV0, boundV1, boundV3);
+		int t2 = addTriangle(boundV1, boundV2, boundV3);
+		
+		assert handle == HANDLE_TRIANGLE;
+		
+		setNeighbors(t1, handle, t2, NO_TRIANGLE);
+		setNeighbors(t2, NO_TRIANGLE, NO_TRIANGLE, t1);
+		setNeighbors(handle, t1, NO_TRIANGLE, NO_TRIANGLE);
+		
+		handleTriangle = new DelaunayTriangle(HANDLE_TRIANGLE);
 		
 	}
 	
-	private class Flip13 implements Flip {
+	/**
+	 * returns all triangles
+	 */
+	public Iterable<DelaunayTriangle> getTriangles() {
+		return ITERABLE;
+	}
+
+	public void insert(VectorXYZ point) { //TODO: should use <T extends Has(Immutable)Position>
 		
-		DelaunayTriangle originalTriangle;
-		VectorXYZ point;
+		int triangleEnclosingPoint = getEnclosingTriangleIndex(point.x, point.z);
 		
-		DelaunayTriangle[] createdTriangles;
+		int vertex = addVertex(point);
 		
-		public Flip13(DelaunayTriangle triangle, VectorXYZ point) {
-			this.originalTriangle = triangle;
-			this.point = point;
-		}
-
-		@Override
-		public void perform() {
-			
-			createdTriangles = new DelaunayTriangle[3];
-			
-			createdTriangles[0] = new DelaunayTriangle(
-					originalTriangle.p0,
-					originalTriangle.p1,
-					point);
-			createdTriangles[1] = new DelaunayTriangle(
-					originalTriangle.p1,
-					originalTriangle.p2,
-					point);
-			createdTriangles[2] = new DelaunayTriangle(
-					originalTriangle.p2,
-					originalTriangle.p0,
-					point);
-						
-			DelaunayTriangle neighbor0 = originalTriangle.getNeighbor(0);
-			DelaunayTriangle neighbor1 = originalTriangle.getNeighbor(1);
-			DelaunayTriangle neighbor2 = originalTriangle.getNeighbor(2);
-			
-			createdTriangles[0].setNeighbor(0, neighbor0);
-			createdTriangles[0].setNeighbor(1, createdTriangles[1]);
-			createdTriangles[0].setNeighbor(2, createdTriangles[2]);
-			if (neighbor0 != null) {
-				neighbor0.replaceNeighbor(originalTriangle, createdTriangles[0]);
-			}
+		/* split the enclosing triangle */
+		
+		ensureTriangleCapacity(triangleCount + 2);
+		
+		split(triangleEnclosingPoint, vertex);
+		
+		/* restore the Delaunay property by flipping edges.
+		 * The unchecked triangles all have the new vertex at index 2,
+		 * and the edge which needs to be checked at index 0. */
+		
+		int uncheckedCount = 0;
+		
+		uncheckedTriangles[uncheckedCount++] = triangleEnclosingPoint;
+		uncheckedTriangles[uncheckedCount++] = triangleCount - 2;
+		uncheckedTriangles[uncheckedCount++] = triangleCount - 1;
+		
+		for (int next = 0; next < uncheckedCount; next++) {
 			
-			createdTriangles[1].setNeighbor(0, neighbor1);
-			createdTriangles[1].setNeighbor(1, createdTriangles[2]);
-			createdTriangles[1].setNeighbor(2, createdTriangles[0]);
-			if (neighbor1 != null) {
-				neighbor1.replaceNeighbor(originalTriangle, createdTriangles[1]);
-			}
+			int triangle = uncheckedTriangles[next];
 			
-			createdTriangles[2].setNeighbor(0, neighbor2);
-			createdTriangles[2].setNeighbor(1, createdTriangles[0]);
-			createdTriangles[2].setNeighbor(2, createdTriangles[1]);
-			if (neighbor2 != null) {
-				neighbor2.replaceNeighbor(originalTriangle, createdTriangles[2]);
+			if (!isDelaunay(triangle)) {
+				
+				int neighbor = flip(triangle);
+				
+				if (uncheckedCount + 2 > uncheckedTriangles.length) {
+					uncheckedTriangles = Arrays.copyOf(uncheckedTriangles,
+							2 * uncheckedTriangles.length);
+				}
+				
+				uncheckedTriangles[uncheckedCount++] = triangle;
+				uncheckedTriangles[uncheckedCount++] = neighbor;
+				
 			}
 			
 		}
 		
-		@Override
-		public void undo() {
+		/* all triangles in the list are now incident to the new vertex */
+		
+		for (int i = 0; i < uncheckedCount; i++) {
+			updateSeedGrid(uncheckedTriangles[i]);
+		}
+		
+		lastCreatedTriangle = uncheckedTriangles[uncheckedCount - 1];
+		
+	}
+	
+	/**
+	 * inserts many points into the triangulation.
+	 *
+	 * This is much faster than inserting the points individually
+	 * in an arbitrary order: The points are inserted in a
+	 * biased randomized insertion order, with each round sorted
+	 * along a Hilbert curve. Therefore, each point is usually close
+	 * to the previous one, and locating its enclosing triangle
+	 * only takes a short walk. Afterwards, a coarse grid of seed triangles
+	 * is created, which shortens the walks for later queries.
+	 */
+	public void insertAll(Collection<VectorXYZ> points) {
+		
+		ensureVertexCapacity(vertexCount + points.size());
+		ensureTriangleCapacity(triangleCount + 2 * points.size());
+		
+		for (VectorXYZ point : sortForInsertion(points)) {
+			insert(point);
+		}
+		
+		createSeedGrid(points.size());
+		
+	}
+	
+	private int addVertex(VectorXYZ point) {
+		
+		ensureVertexCapacity(vertexCount + 1);
+		
+		vertices[vertexCount] = point;
+		vertexX[vertexCount] = point.x;
+		vertexZ[vertexCount] = point.z;
+		
+		return vertexCount++;
+		
+	}
+	
+	private void ensureVertexCapacity(int capacity) {
+		
+		if (capacity > vertices.length) {
 			
-			DelaunayTriangle neighbor0 = originalTriangle.getNeighbor(0);
-			DelaunayTriangle neighbor1 = originalTriangle.getNeighbor(1);
-			DelaunayTriangle neighbor2 = originalTriangle.getNeighbor(2);
+			int newLength = max(capacity, 2 * vertices.length);
 			
-			if (neighbor0 != null) {
-				neighbor0.replaceNeighbor(createdTriangles[0], originalTriangle);
-			}
+			vertices = Arrays.copyOf(vertices, newLength);
+			vertexX = Arrays.copyOf(vertexX, newLength);
+			vertexZ = Arrays.copyOf(vertexZ, newLength);
 			
-			if (neighbor1 != null) {
-				neighbor1.replaceNeighbor(createdTriangles[1], originalTriangle);
-			}
+		}
+		
+	}
+	
+	private int addTriangle(int v0, int v1, int v2) {
+		
+		ensureTriangleCapacity(triangleCount + 1);
+		
+		int triangle = triangleCount++;
+		
+		setVertices(triangle, v0, v1, v2);
+		setNeighbors(triangle, NO_TRIANGLE, NO_TRIANGLE, NO_TRIANGLE);
+		
+		return triangle;
+		
+	}
+	
+	private void ensureTriangleCapacity(int capacity) {
+		
+		if (3 * capacity > triangleVertices.length) {
 			
-			if (neighbor2 != null) {
-				neighbor2.replaceNeighbor(createdTriangles[2], originalTriangle);
-			}
+			int newLength = max(3 * capacity, 2 * triangleVertices.length);
+			
+			triangleVertices = Arrays.copyOf(triangleVertices, newLength);
+			triangleNeighbors = Arrays.copyOf(triangleNeighbors, newLength);
 			
 		}
+		
+	}
 	
-		@Override
-		public DelaunayTriangle[] getCreatedTriangles() {
-			assert createdTriangles != null;
-			return createdTriangles;
-		}
+	private void setVertices(int triangle, int v0, int v1, int v2) {
 		
-		@Override
-		public DelaunayTriangle[] getRemovedTriangles() {
-			return new DelaunayTriangle[] {originalTriangle};
-			//TODO array creation overhead :(
+		triangleVertices[3 * triangle] = v0;
+		triangleVertices[3 * triangle + 1] = v1;
+		triangleVertices[3 * triangle + 2] = v2;
+		
+		assert !isRightOf(vertexX[v2], vertexZ[v2], v0, v1) : "must be counter-clockwise";
+		
+	}
+	
+	private void setNeighbors(int triangle, int n0, int n1, int n2) {
+		triangleNeighbors[3 * triangle] = n0;
+		triangleNeighbors[3 * triangle + 1] = n1;
+		triangleNeighbors[3 * triangle + 2] = n2;
+	}
+	
+	private int indexOfNeighbor(int triangle, int neighbor) {
+		if (triangleNeighbors[3 * triangle] == neighbor) {
+			return 0;
+		} else if (triangleNeighbors[3 * triangle + 1] == neighbor) {
+			return 1;
+		} else if (triangleNeighbors[3 * triangle + 2] == neighbor) {
+			return 2;
+		} else {
+			throw new IllegalArgumentException("not a neighbor");
+		}
+	}
+	
+	private int indexOfVertex(int triangle, int vertex) {
+		if (triangleVertices[3 * triangle] == vertex) {
+			return 0;
+		} else if (triangleVertices[3 * triangle + 1] == vertex) {
+			return 1;
+		} else if (triangleVertices[3 * triangle + 2] == vertex) {
+			return 2;
+		} else {
+			throw new IllegalArgumentException("not in this triangle");
+		}
+	}
+	
+	private void replaceNeighbor(int triangle, int oldNeighbor, int newNeighbor) {
+		if (triangle != NO_TRIANGLE) {
+			triangleNeighbors[3 * triangle + indexOfNeighbor(triangle, oldNeighbor)] = newNeighbor;
 		}
+	}
+	
+	/**
+	 * splits a triangle into three triangles which share a new vertex
+	 * at index 2. The first of the new triangles re-uses the original
+	 * triangle's entries, the other two are appended.
+	 */
+	private void split(int triangle, int vertex) {
+		
+		int v0 = triangleVertices[3 * triangle];
+		int v1 = triangleVertices[3 * triangle + 1];
+		int v2 = triangleVertices[3 * triangle + 2];
+		
+		int neighbor0 = triangleNeighbors[3 * triangle];
+		int neighbor1 = triangleNeighbors[3 * triangle + 1];
+		int neighbor2 = triangleNeighbors[3 * triangle + 2];
+		
+		int t0 = triangle;
+		int t1 = triangleCount++;
+		int t2 = triangleCount++;
+		
+		setVertices(t0, v0, v1, vertex);
+		setVertices(t1, v1, v2, vertex);
+		setVertices(t2, v2, v0, vertex);
+		
+		setNeighbors(t0, neighbor0, t1, t2);
+		setNeighbors(t1, neighbor1, t2, t0);
+		setNeighbors(t2, neighbor2, t0, t1);
+		
+		replaceNeighbor(neighbor1, triangle, t1);
+		replaceNeighbor(neighbor2, triangle, t2);
 		
 	}
 	
-	private class Flip22 implements Flip {
+	/**
+	 * flips the edge between a triangle and its neighbor 0.
+	 * Both triangles' entries are re-used for the new triangles,
+	 * which have the former vertex 2 of the triangle at index 2.
+	 *
+	 * @return  the index of the former neighbor
+	 */
+	private int flip(int triangle) {
 		
-		DelaunayTriangle[] originalTriangles;
-		DelaunayTriangle[] createdTriangles;
+		int neighbor = triangleNeighbors[3 * triangle];
 		
-		/**
-		 * neighbors of the quadrangle formed by both
-		 * {@link #originalTriangles} and {@link #createdTriangles}.
-		 */
-		final DelaunayTriangle[] neighbors = new DelaunayTriangle[4];
+		/* determine points and neighbors (4 each) of the quadrangle */
 		
-		public Flip22(DelaunayTriangle triangle) {
-			originalTriangles = new DelaunayTriangle[]{
-					triangle,
-					triangle.getNeighbor(0)};
-		}
+		int i = indexOfNeighbor(neighbor, triangle);
 		
-		@Override
-		public void perform() {
-			
-			/* determine points and neighbors (4 each) of the quadrangle */
+		int point0 = triangleVertices[3 * triangle + 1];
+		int point1 = triangleVertices[3 * triangle + 2];
+		int point2 = triangleVertices[3 * neighbor + (i + 1) % 3];
+		int point3 = triangleVertices[3 * neighbor + (i + 2) % 3];
+		
+		int neighbor0 = triangleNeighbors[3 * triangle + 1];
+		int neighbor1 = triangleNeighbors[3 * triangle + 2];
+		int neighbor2 = triangleNeighbors[3 * neighbor + (i + 1) % 3];
+		int neighbor3 = triangleNeighbors[3 * neighbor + (i + 2) % 3];
+		
+		/* build two new triangles for the quadrangle */
+		
+		setVertices(triangle, point2, point3, point1);
+		setVertices(neighbor, point3, point0, point1);
+		
+		setNeighbors(triangle, neighbor2, neighbor, neighbor1);
+		setNeighbors(neighbor, neighbor3, neighbor0, triangle);
+		
+		replaceNeighbor(neighbor0, triangle, neighbor);
+		replaceNeighbor(neighbor2, neighbor, triangle);
+		
+		return neighbor;
+		
+	}
+	
+	/**
+	 * checks the Delaunay property for the edge between a triangle
+	 * and its neighbor 0, i.e. whether the angles opposite of that edge
+	 * add up to at most 180 degrees.
+	 */
+	private boolean isDelaunay(int triangle) {
+		
+		int neighbor = triangleNeighbors[3 * triangle];
+		
+		if (neighbor != NO_TRIANGLE && neighbor != HANDLE_TRIANGLE) {
 			
-			VectorXYZ[] points = new VectorXYZ[4];
-
-			points[0] = originalTriangles[0].getPoint(1);
-			neighbors[0] = originalTriangles[0].getNeighbor(1);
-
-			points[1] = originalTriangles[0].getPoint(2);
-			neighbors[1] = originalTriangles[0].getNeighbor(2);
+			int a = triangleVertices[3 * triangle];
+			int b = triangleVertices[3 * triangle + 1];
+			int c = triangleVertices[3 * triangle + 2];
+			int d = triangleVertices[3 * neighbor
+			                         + (indexOfNeighbor(neighbor, triangle) + 2) % 3];
 			
-			int i = originalTriangles[1].indexOfNeighbor(originalTriangles[0]);
-
-			points[2] = originalTriangles[1].getPoint((i + 1) % 3);
-			neighbors[2] = originalTriangles[1].getNeighbor((i + 1) % 3);
-
-			points[3] = originalTriangles[1].getPoint((i + 2) % 3);
-			neighbors[3] = originalTriangles[1].getNeighbor((i + 2) % 3);
+			/* the sum of the angles at c and d exceeds 180 degrees
+			 * if and only if the sine of the sum is negative */
 			
-			/* build two new triangles for the quadrangle */
+			double caX = vertexX[a] - vertexX[c];
+			double caZ = vertexZ[a] - vertexZ[c];
+			double cbX = vertexX[b] - vertexX[c];
+			double cbZ = vertexZ[b] - vertexZ[c];
 			
-			createdTriangles = new DelaunayTriangle[2];
+			double daX = vertexX[a] - vertexX[d];
+			double daZ = vertexZ[a] - vertexZ[d];
+			double dbX = vertexX[b] - vertexX[d];
+			double dbZ = vertexZ[b] - vertexZ[d];
 			
-			createdTriangles[0] = new DelaunayTriangle(
-					points[2], points[3], points[1]);
-			createdTriangles[1] = new DelaunayTriangle(
-					points[3], points[0], points[1]);
+			double sinC = abs(caX * cbZ - caZ * cbX);
+			double cosC = caX * cbX + caZ * cbZ;
+			double sinD = abs(daX * dbZ - daZ * dbX);
+			double cosD = daX * dbX + daZ * dbZ;
 			
-			createdTriangles[0].setNeighbor(0, neighbors[2]);
-			createdTriangles[0].setNeighbor(1, createdTriangles[1]);
-			createdTriangles[0].setNeighbor(2, neighbors[1]);
+			return sinC * cosD + cosC * sinD >= 0;
 			
-			createdTriangles[1].setNeighbor(0, neighbors[3]);
-			createdTriangles[1].setNeighbor(1, neighbors[0]);
-			createdTriangles[1].setNeighbor(2, createdTriangles[0]);
-
-			if (neighbors[0] != null)
-				neighbors[0].replaceNeighbor(originalTriangles[0], createdTriangles[1]);
-			if (neighbors[1] != null)
-				neighbors[1].replaceNeighbor(originalTriangles[0], createdTriangles[0]);
-			if (neighbors[2] != null)
-				neighbors[2].replaceNeighbor(originalTriangles[1], createdTriangles[0]);
-			if (neighbors[3] != null)
-				neighbors[3].replaceNeighbor(originalTriangles[1], createdTriangles[1]);
-						
-		}
-		
-		@Override
-		public void undo() {
+		} else {
 			
-			if (neighbors[0] != null)
-				neighbors[0].replaceNeighbor(createdTriangles[1], originalTriangles[0]);
-			if (neighbors[1] != null)
-				neighbors[1].replaceNeighbor(createdTriangles[0], originalTriangles[0]);
-			if (neighbors[2] != null)
-				neighbors[2].replaceNeighbor(createdTriangles[0], originalTriangles[1]);
-			if (neighbors[3] != null)
-				neighbors[3].replaceNeighbor(createdTriangles[1], originalTriangles[1]);
+			return true;
 			
 		}
 		
-		@Override
-		public DelaunayTriangle[] getCreatedTriangles() {
-			assert createdTriangles != null;
-			return createdTriangles;
-		}
+	}
+	
+	/**
+	 * returns the points in a biased randomized insertion order (BRIO):
+	 * The randomly shuffled points are split into rounds, each round
+	 * as large as all previous rounds together, and the points
+	 * within each round are sorted along a Hilbert curve.
+	 */
+	private List<VectorXYZ> sortForInsertion(Collection<VectorXYZ> points) {
 		
-		@Override
-		public DelaunayTriangle[] getRemovedTriangles() {
-			return originalTriangles;
+		List<VectorXYZ> result = new ArrayList<VectorXYZ>(points);
+		
+		Collections.shuffle(result, new Random(0));
+		
+		int roundStart = 0;
+		int roundEnd = min(result.size(), FIRST_ROUND_SIZE);
+		
+		while (roundStart < result.size()) {
+			sortAlongHilbertCurve(result.subList(roundStart, roundEnd));
+			roundStart = roundEnd;
+			roundEnd = min(result.size(), 2 * roundEnd);
 		}
 		
+		return result;
+		
 	}
+	
+	private void sortAlongHilbertCurve(List<VectorXYZ> points) {
 		
-	public class NaturalNeighbors {
-
-		public final VectorXYZ[] neighbors;
-		public final double[] relativeWeights;
+		HilbertCurvePoint[] sortedPoints = new HilbertCurvePoint[points.size()];
 		
-		NaturalNeighbors(Collection<VectorXYZ> neighbors) {
-			
-			this.neighbors = new VectorXYZ[neighbors.size()];
-			neighbors.toArray(this.neighbors);
-			
-			relativeWeights = new double[neighbors.size()];
-			
+		for (int i = 0; i < sortedPoints.length; i++) {
+			VectorXYZ point = points.get(i);
+			sortedPoints[i] = new HilbertCurvePoint(point,
+					getHilbertCurveIndex(point.x, point.z));
 		}
-				
+		
+		Arrays.sort(sortedPoints);
+		
+		for (int i = 0; i < sortedPoints.length; i++) {
+			points.set(i, sortedPoints[i].point);
+		}
+		
 	}
-
+	
 	/**
-	 * produces iterables for iterating over all the triangles in this
-	 * triangulation via depth-first search
+	 * returns the position of a point along a Hilbert curve
+	 * filling the bounds of this triangulation
 	 */
-	private final Iterable<DelaunayTriangle> ITERABLE =
-			new Iterable<DelaunayTriangle>() {
+	private long getHilbertCurveIndex(double x, double z) {
 		
-		@Override
-		public Iterator<DelaunayTriangle> iterator() {
+		int n = 1 << HILBERT_ORDER;
+		
+		int cellX = toGridCell(x, bounds.minX, bounds.sizeX(), n);
+		int cellZ = toGridCell(z, bounds.minZ, bounds.sizeZ(), n);
+		
+		long index = 0;
+		
+		for (int s = n / 2; s > 0; s /= 2) {
 			
-			final DelaunayTriangle start = handleTriangle.getNeighbor(0);
+			int rx = (cellX & s) > 0 ? 1 : 0;
+			int rz = (cellZ & s) > 0 ? 1 : 0;
 			
-			final Stack<DelaunayTriangle> startStack = new Stack<DelaunayTriangle>();
-			startStack.push(start);
+			index += (long) s * s * ((3 * rx) ^ rz);
 			
-			final Set<DelaunayTriangle> startSet = new HashSet<DelaunayTriangle>();
-			startSet.add(handleTriangle);
-			startSet.add(start);
+			/* rotate the quadrant */
 			
-			return new Iterator<DelaunayTriangle>() {
+			if (rz == 0) {
 				
-				private final Set<DelaunayTriangle> visitedTriangles = startSet;
-				private final Stack<DelaunayTriangle> triangleStack = startStack;
-				private DelaunayTriangle nextTriangle = start;
-				private int nextIndex = 0;
-								
-				public boolean hasNext() {
-					return nextTriangle != null;
-				};
+				if (rx == 1) {
+					cellX = n - 1 - cellX;
+					cellZ = n - 1 - cellZ;
+				}
 				
-				public DelaunayTriangle next() {
-					
-					DelaunayTriangle currentTriangle = nextTriangle;
-					nextTriangle = null;
-					
-					while (nextTriangle == null && !triangleStack.isEmpty()) {
-												
-						while (nextIndex <= 2 && nextTriangle == null) {
-							
-							nextTriangle =
-									triangleStack.peek().getNeighbor(nextIndex);
-							
-							if (nextTriangle != null &&
-									!visitedTriangles.contains(nextTriangle)) {
-								
-								triangleStack.push(nextTriangle);
-								visitedTriangles.add(nextTriangle);
-								nextIndex = 0;
-								
-							} else {
-								
-								nextTriangle = null;
-								nextIndex ++;
-								
-							}
-							
-						}
-						
-						if (nextTriangle == null) {
-							// go back to previous triangle
-							triangleStack.pop();
-							nextIndex = 0;
-						}
-						
-					}
-										
-					return currentTriangle;
-					
-				};
-			
-				public void remove() {
-					throw new UnsupportedOperationException();
-				};
+				int temp = cellX;
+				cellX = cellZ;
+				cellZ = temp;
 				
-			};
+			}
 			
 		}
 		
-	};
-
+		return index;
+		
+	}
+	
+	private static class HilbertCurvePoint implements Comparable<HilbertCurvePoint> {
+		
+		final VectorXYZ point;
+		final long index;
+		
+		HilbertCurvePoint(VectorXYZ point, long index) {
+			this.point = point;
+			this.index = index;
+		}
+		
+		@Override
+		public int compareTo(HilbertCurvePoint other) {
+			return index < other.index ? -1 : (index == other.index ? 0 : 1);
+		}
+		
+	}
+	
 	/**
-	 * a fake triangle outside of the bounds that is used as a start
-	 * for iterating/walking through the triangulation along neighborships
+	 * creates the {@link #seedGrid} from the current triangles
+	 *
+	 * @param pointCount  number of points in the triangulation
 	 */
-	public final DelaunayTriangle handleTriangle;
-
-	public DelaunayTriangulation(AxisAlignedBoundingBoxXZ bounds) {
-				
-		VectorXYZ boundV0 = bounds.bottomLeft().xyz(0);
-		VectorXYZ boundV1 = bounds.bottomRight().xyz(0);
-		VectorXYZ boundV2 = bounds.topRight().xyz(0);
-		VectorXYZ boundV3 = bounds.topLeft().xyz(0);
+	private void createSeedGrid(int pointCount) {
 		
-		DelaunayTriangle t1 = new DelaunayTriangle(boundV0, boundV1, boundV3);
-		DelaunayTriangle t2 = new DelaunayTriangle(boundV1, boundV2, boundV3);
-				
-		t1.setNeighbor(1, t2);
-		t2.setNeighbor(2, t1);
+		seedGridCells = max(1, (int) ceil(sqrt(
+				pointCount / (double) POINTS_PER_SEED_CELL)));
 		
-		handleTriangle = new DelaunayTriangle(boundV1, boundV0,
-				new VectorXYZ(bounds.center().x, 0, bounds.minZ - bounds.sizeZ()));
-				
-		t1.setNeighbor(0, handleTriangle);
-		handleTriangle.setNeighbor(0, t1);
+		seedGrid = new int[seedGridCells * seedGridCells];
+		Arrays.fill(seedGrid, NO_TRIANGLE);
+		
+		for (int triangle = HANDLE_TRIANGLE + 1; triangle < triangleCount; triangle++) {
+			updateSeedGrid(triangle);
+		}
 		
 	}
 	
 	/**
-	 * returns all triangles
+	 * makes a triangle the seed of the grid cell containing its centroid
 	 */
-	public Iterable<DelaunayTriangle> getTriangles() {
-		return ITERABLE;
+	private void updateSeedGrid(int triangle) {
+		
+		if (seedGrid != null) {
+			
+			int v0 = triangleVertices[3 * triangle];
+			int v1 = triangleVertices[3 * triangle + 1];
+			int v2 = triangleVertices[3 * triangle + 2];
+			
+			double centroidX = (vertexX[v0] + vertexX[v1] + vertexX[v2]) / 3;
+			double centroidZ = (vertexZ[v0] + vertexZ[v1] + vertexZ[v2]) / 3;
+			
+			seedGrid[getSeedGridIndex(centroidX, centroidZ)] = triangle;
+			
+		}
+		
 	}
-
-	public Stack<Flip> insert(VectorXYZ point) { //TODO: should use <T extends Has(Immutable)Position>
+	
+	private int getSeedGridIndex(double x, double z) {
+		
+		int cellX = toGridCell(x, bounds.minX, bounds.sizeX(), seedGridCells);
+		int cellZ = toGridCell(z, bounds.minZ, bounds.sizeZ(), seedGridCells);
 		
-		DelaunayTriangle triangleEnclosingPoint = getEnlosingTriangle(point.xz());
+		return cellZ * seedGridCells + cellX;
 		
-		if (triangleEnclosingPoint == null) {
-			System.out.println("null");
-			//TODO check for null
+	}
+	
+	/**
+	 * returns the cell containing a coordinate
+	 * in a row of cells covering [min, min + size]
+	 */
+	private static int toGridCell(double coord, double min, double size, int cells) {
+		int cell = (int) ((coord - min) / size * cells);
+		return max(0, min(cells - 1, cell));
+	}
+	
+	/**
+	 * calculates the natural neighbors of a point and their Sibson weights,
+	 * without modifying the triangulation.
+	 *
+	 * The neighbors are the vertices of the Bowyer-Watson cavity, i.e. the
+	 * union of all triangles whose circumcircle contains the point. These are
+	 * the triangles which would be replaced if the point was inserted.
+	 * The weight of each neighbor is proportional to the area which the point's
+	 * Voronoi cell would take from the neighbor's Voronoi cell. That area is
+	 * bounded by the circumcenters of the neighbor's triangles in the cavity
+	 * and of the triangles the insertion would create.
+	 *
+	 * Can be called concurrently from several threads, as long as
+	 * the triangulation is not modified at the same time.
+	 */
+	public NaturalNeighbors probe(VectorXZ point) {
+		
+		ProbeBuffer buffer = PROBE_BUFFERS.get();
+		
+		int enclosingTriangle = getEnclosingTriangleIndex(point.x, point.z);
+		
+		/* a point at the position of a site has only that site as a neighbor */
+		
+		for (int i = 0; i <= 2; i++) {
+			int v = triangleVertices[3 * enclosingTriangle + i];
+			if (vertexX[v] == point.x && vertexZ[v] == point.z) {
+				return new NaturalNeighbors(new VectorXYZ[] {vertices[v]}, new double[] {1});
+			}
 		}
 		
-		/* split the enclosing triangle */
+		/* find the cavity by searching from the enclosing triangle */
 		
-		Stack<Flip> flipStack = new Stack<Flip>();
+		buffer.cavitySize = 0;
+		addToCavity(buffer, enclosingTriangle);
 		
-		Flip13 initialFlip = new Flip13(triangleEnclosingPoint, point);
-		initialFlip.perform();
-		flipStack.push(initialFlip);
+		for (int c = 0; c < buffer.cavitySize; c++) {
+			
+			int triangle = buffer.cavity[c];
+			
+			for (int i = 0; i <= 2; i++) {
+				
+				int neighbor = triangleNeighbors[3 * triangle + i];
+				
+				if (neighbor != NO_TRIANGLE && neighbor != HANDLE_TRIANGLE
+						&& buffer.indexInCavity(neighbor) < 0) {
+					
+					addToCavity(buffer, neighbor);
+					
+					if (!circumcircleContains(buffer, buffer.cavitySize - 1, point)) {
+						buffer.cavitySize -= 1;
+					}
+					
+				}
+				
+			}
+			
+		}
 		
-		Queue<DelaunayTriangle> uncheckedTriangles = new LinkedList<DelaunayTriangle>();
+		/* collect the boundary edges of the cavity.
+		 * They are counterclockwise around the point
+		 * because the triangles are counterclockwise. */
 		
-		uncheckedTriangles.offer(initialFlip.createdTriangles[0]);
-		uncheckedTriangles.offer(initialFlip.createdTriangles[1]);
-		uncheckedTriangles.offer(initialFlip.createdTriangles[2]);
+		buffer.edgeCount = 0;
 		
-		/*  */
+		for (int c = 0; c < buffer.cavitySize; c++) {
+			
+			int triangle = buffer.cavity[c];
+			
+			for (int i = 0; i <= 2; i++) {
+				if (!buffer.isInCavity(triangleNeighbors[3 * triangle + i])) {
+					buffer.addEdge(triangleVertices[3 * triangle + i],
+							triangleVertices[3 * triangle + (i + 1) % 3], c);
+				}
+			}
+			
+		}
 		
-		while (!uncheckedTriangles.isEmpty()) {
+		buffer.sortEdges();
+		
+		/* calculate the circumcenters of the triangles
+		 * which would connect the point with the boundary edges */
+		
+		double[] center = buffer.center;
+		
+		for (int e = 0; e < buffer.edgeCount; e++) {
 			
-			DelaunayTriangle triangle = uncheckedTriangles.poll();
+			int start = buffer.edgeStart[e];
+			int end = buffer.edgeEnd[e];
 			
-			//TODO: only checks with first neighbor! Document this!
+			calculateCircumcenter(point.x, point.z, vertexX[start], vertexZ[start],
+					vertexX[end], vertexZ[end], center);
 			
-			if (!isDelaunay(triangle)) {
+			buffer.edgeCenterX[e] = center[0];
+			buffer.edgeCenterZ[e] = center[1];
+			
+		}
+		
+		/* calculate the area taken from each neighbor's Voronoi cell.
+		 * The neighbor at the end of edge e is the start of edge e + 1. */
+		
+		VectorXYZ[] neighbors = new VectorXYZ[buffer.edgeCount];
+		double[] weights = new double[buffer.edgeCount];
+		
+		double areaSum = 0;
+		
+		for (int e = 0; e < buffer.edgeCount; e++) {
+			
+			int nextE = (e + 1) % buffer.edgeCount;
+			
+			int neighbor = buffer.edgeEnd[e];
+			
+			/* polygon: center for edge e, centers of the cavity triangles
+			 * around the neighbor (from edge e to edge nextE), center for nextE */
+			
+			double doubleArea = 0;
+			
+			double prevX = buffer.edgeCenterX[e];
+			double prevZ = buffer.edgeCenterZ[e];
+			
+			int c = buffer.edgeTriangle[e];
+			
+			for (int steps = 0; steps < buffer.cavitySize; steps++) {
+				
+				doubleArea += prevX * buffer.centerZ[c] - buffer.centerX[c] * prevZ;
+				prevX = buffer.centerX[c];
+				prevZ = buffer.centerZ[c];
+				
+				int triangle = buffer.cavity[c];
+				int next = triangleNeighbors[3 * triangle + indexOfVertex(triangle, neighbor)];
 				
-				Flip22 flip = new Flip22(triangle);
-				flip.perform();
-				flipStack.push(flip);
+				if (!buffer.isInCavity(next)) break;
 				
-				uncheckedTriangles.offer(flip.createdTriangles[0]);
-				uncheckedTriangles.offer(flip.createdTriangles[1]);
+				c = buffer.indexInCavity(next);
 				
 			}
 			
+			doubleArea += prevX * buffer.edgeCenterZ[nextE]
+					- buffer.edgeCenterX[nextE] * prevZ;
+			doubleArea += buffer.edgeCenterX[nextE] * buffer.edgeCenterZ[e]
+					- buffer.edgeCenterX[e] * buffer.edgeCenterZ[nextE];
+			
+			neighbors[e] = vertices[neighbor];
+			weights[e] = abs(doubleArea) / 2;
+			
+			areaSum += weights[e];
+			
+		}
+		
+		/* calculate relative weights of neighbors */
+		
+		for (int e = 0; e < weights.length; e++) {
+			weights[e] = areaSum > 0 ? weights[e] / areaSum : 1.0 / weights.length;
 		}
 		
-		return flipStack;
+		return new NaturalNeighbors(neighbors, weights);
 		
 	}
 	
 	/**
-	 * temporarily inserts a point to calculate its natural neighbors,
-	 * then undoes the insertion
+	 * adds a triangle and its circumcenter to a probe's cavity
 	 */
-	public NaturalNeighbors probe(VectorXZ point) {
-
-		VectorXYZ probePoint = point.xyz(0);
+	private void addToCavity(ProbeBuffer buffer, int triangle) {
 		
-		/* insert the point */
+		int v0 = triangleVertices[3 * triangle];
+		int v1 = triangleVertices[3 * triangle + 1];
+		int v2 = triangleVertices[3 * triangle + 2];
 		
-		Stack<Flip> flipStack = insert(probePoint);
+		calculateCircumcenter(vertexX[v0], vertexZ[v0], vertexX[v1], vertexZ[v1],
+				vertexX[v2], vertexZ[v2], buffer.center);
 		
-		/* identify neighbors and modified triangles */
+		buffer.addToCavity(triangle, buffer.center[0], buffer.center[1]);
 		
-		Set<VectorXYZ> neighbors = new HashSet<VectorXYZ>();
-		Multimap<VectorXYZ, DelaunayTriangle> oldTriangles = HashMultimap.create();
-		Multimap<VectorXYZ, DelaunayTriangle> newTriangles = HashMultimap.create();
+	}
+	
+	private boolean circumcircleContains(ProbeBuffer buffer, int c, VectorXZ point) {
 		
-		// first loop, identifies neighbors and newly created triangles
-		for (Flip flip : flipStack) {
-			for (DelaunayTriangle triangle : flip.getCreatedTriangles()) {
-				newTriangles.put(triangle.p0, triangle);
-				newTriangles.put(triangle.p1, triangle);
-				newTriangles.put(triangle.p2, triangle);
-				neighbors.add(triangle.p0);
-				neighbors.add(triangle.p1);
-				neighbors.add(triangle.p2);
-			}
-		}
+		int v0 = triangleVertices[3 * buffer.cavity[c]];
 		
-		// second loop, removes some newTriangles and identifies oldTriangles
-		for (Flip flip : flipStack) {
-			for (DelaunayTriangle triangle : flip.getRemovedTriangles()) {
-				oldTriangles.put(triangle.p0, triangle);
-				oldTriangles.put(triangle.p1, triangle);
-				oldTriangles.put(triangle.p2, triangle);
-				newTriangles.remove(triangle.p0, triangle);
-				newTriangles.remove(triangle.p1, triangle);
-				newTriangles.remove(triangle.p2, triangle);
-			}
-		}
+		double rX = vertexX[v0] - buffer.centerX[c];
+		double rZ = vertexZ[v0] - buffer.centerZ[c];
+		double dX = point.x - buffer.centerX[c];
+		double dZ = point.z - buffer.centerZ[c];
 		
-		// third loop, removes some oldTriangles
-		for (Flip flip : flipStack) {
-			for (DelaunayTriangle triangle : flip.getCreatedTriangles()) {
-				oldTriangles.remove(triangle.p0, triangle);
-				oldTriangles.remove(triangle.p1, triangle);
-				oldTriangles.remove(triangle.p2, triangle);
-			}
-		}
+		return dX * dX + dZ * dZ < rX * rX + rZ * rZ;
 		
-		// FIXME: cannot use any oldTriangle as starting point, may have been newly created before
+	}
+	
+	/**
+	 * calculates the center of the circle through three points
+	 *
+	 * @param result  receives the x and z coordinate of the center
+	 */
+	private static void calculateCircumcenter(double aX, double aZ,
+			double bX, double bZ, double cX, double cZ, double[] result) {
 		
-		neighbors.remove(probePoint);
+		double abX = bX - aX;
+		double abZ = bZ - aZ;
+		double acX = cX - aX;
+		double acZ = cZ - aZ;
 		
-		NaturalNeighbors result = new NaturalNeighbors(neighbors);
+		double d = 2 * (abX * acZ - abZ * acX);
 		
-		/* calculate size of voronoi cells with the point */
+		double abSquared = abX * abX + abZ * abZ;
+		double acSquared = acX * acX + acZ * acZ;
 		
-		for (int i = 0; i < result.neighbors.length; i++) {
-			result.relativeWeights[i] = getVoronoiCellSize(result.neighbors[i],
-					newTriangles.get(result.neighbors[i]));
-		}
+		result[0] = aX + (acZ * abSquared - abZ * acSquared) / d;
+		result[1] = aZ + (abX * acSquared - acX * abSquared) / d;
 		
-		/* undo insertion */
+	}
+	
+	/**
+	 * reusable arrays for {@link DelaunayTriangulation#probe(VectorXZ)}.
+	 * Each thread uses its own instance, see {@link #PROBE_BUFFERS}.
+	 */
+	private static class ProbeBuffer {
 		
-		while (!flipStack.isEmpty()) {
-			flipStack.pop().undo();
-		}
-
-		/* calculate difference of voronoi cell size with and without the point */
+		/** triangles in the cavity */
+		int[] cavity = new int[16];
+		
+		/** circumcenters of the triangles in the cavity */
+		double[] centerX = new double[16];
+		double[] centerZ = new double[16];
+		
+		int cavitySize = 0;
+		
+		/** boundary edges of the cavity, and the cavity triangles they belong to */
+		int[] edgeStart = new int[16];
+		int[] edgeEnd = new int[16];
+		int[] edgeTriangle = new int[16];
+		
+		/** circumcenters of the triangles formed by the point and each edge */
+		double[] edgeCenterX = new double[16];
+		double[] edgeCenterZ = new double[16];
 		
-		double areaDifferenceSum = 0;
+		int edgeCount = 0;
 		
-		for (int i = 0; i < result.neighbors.length; i++) {
+		/** result of the most recent circumcenter calculation */
+		final double[] center = new double[2];
+		
+		void addToCavity(int triangle, double x, double z) {
+			
+			if (cavitySize == cavity.length) {
+				cavity = Arrays.copyOf(cavity, 2 * cavitySize);
+				centerX = Arrays.copyOf(centerX, 2 * cavitySize);
+				centerZ = Arrays.copyOf(centerZ, 2 * cavitySize);
+			}
 			
-			double area = getVoronoiCellSize(result.neighbors[i],
-					oldTriangles.get(result.neighbors[i]));
+			cavity[cavitySize] = triangle;
+			centerX[cavitySize] = x;
+			centerZ[cavitySize] = z;
 			
-			result.relativeWeights[i] = area - result.relativeWeights[i];
+			cavitySize += 1;
 			
-			areaDifferenceSum += result.relativeWeights[i];
 		}
 		
-		/* calculate relative weights of neighbors */
+		int indexInCavity(int triangle) {
+			for (int c = 0; c < cavitySize; c++) {
+				if (cavity[c] == triangle) return c;
+			}
+			return -1;
+		}
+		
+		boolean isInCavity(int triangle) {
+			return triangle != NO_TRIANGLE && indexInCavity(triangle) >= 0;
+		}
 		
-		for (int i = 0; i < result.neighbors.length; i++) {
-			result.relativeWeights[i] /= areaDifferenceSum;
+		void addEdge(int start, int end, int triangleIndex) {
 			
-			if (result.relativeWeights[i] > 1) {
-				System.out.println(result.relativeWeights[i]);
+			if (edgeCount == edgeStart.length) {
+				edgeStart = Arrays.copyOf(edgeStart, 2 * edgeCount);
+				edgeEnd = Arrays.copyOf(edgeEnd, 2 * edgeCount);
+				edgeTriangle = Arrays.copyOf(edgeTriangle, 2 * edgeCount);
+				edgeCenterX = Arrays.copyOf(edgeCenterX, 2 * edgeCount);
+				edgeCenterZ = Arrays.copyOf(edgeCenterZ, 2 * edgeCount);
 			}
 			
+			edgeStart[edgeCount] = start;
+			edgeEnd[edgeCount] = end;
+			edgeTriangle[edgeCount] = triangleIndex;
+			
+			edgeCount += 1;
+			
 		}
 		
-		return result;
+		/**
+		 * orders the edges so that each edge starts where the previous one ends
+		 */
+		void sortEdges() {
+			
+			for (int e = 1; e < edgeCount; e++) {
+				for (int other = e; other < edgeCount; other++) {
+					if (edgeStart[other] == edgeEnd[e - 1]) {
+						swapEdges(e, other);
+						break;
+					}
+				}
+			}
+			
+		}
+		
+		private void swapEdges(int e1, int e2) {
+			
+			int tempStart = edgeStart[e1];
+			int tempEnd = edgeEnd[e1];
+			int tempTriangle = edgeTriangle[e1];
+			
+			edgeStart[e1] = edgeStart[e2];
+			edgeEnd[e1] = edgeEnd[e2];
+			edgeTriangle[e1] = edgeTriangle[e2];
+			
+			edgeStart[e2] = tempStart;
+			edgeEnd[e2] = tempEnd;
+			edgeTriangle[e2] = tempTriangle;
+			
+		}
 		
 	}
 	
+	private static final ThreadLocal<ProbeBuffer> PROBE_BUFFERS = new ThreadLocal<ProbeBuffer>() {
+		@Override
+		protected ProbeBuffer initialValue() {
+			return new ProbeBuffer();
+		}
+	};
+	
 	public List<DelaunayTriangle> getIncidentTriangles(final VectorXYZ point) {
 
 		List<DelaunayTriangle> result = new ArrayList<DelaunayTriangle>();
 		
-		for (DelaunayTriangle triangle : getTriangles()) {
-			if (triangle.p0.equals(point)) {
-				result.add(triangle);
-			} else if (triangle.p1.equals(point)) {
-				result.add(triangle);
-			} else if (triangle.p2.equals(point)) {
-				result.add(triangle);
+		for (int triangle = HANDLE_TRIANGLE + 1; triangle < triangleCount; triangle++) {
+			for (int i = 0; i <= 2; i++) {
+				if (vertices[triangleVertices[3 * triangle + i]].equals(point)) {
+					result.add(new DelaunayTriangle(triangle));
+					break;
+				}
 			}
 		}
 		
@@ -687,7 +1153,7 @@ public class DelaunayTriangulation {
 	public List<TriangleXZ> getVoronoiCellSectors(VectorXYZ point) {
 		return getVoronoiCellSectors(point, getIncidentTriangles(point));
 	}
-			
+	
 	/**
 	 * TODO describe effect of incident triangles
 	 */
@@ -700,19 +1166,21 @@ public class DelaunayTriangulation {
 		 * by starting at any incidentTriangle and going left and right
 		 * around the point, appending neighbors. */
 		
-		List<DelaunayTriangle> triangles =
-				new ArrayList<DelaunayTriangle>(incidentTriangles.size() + 2);
+		DelaunayTriangle startView = incidentTriangles.iterator().next();
+		
+		int startTriangle = startView.index;
+		int vertex = triangleVertices[3 * startTriangle + startView.indexOfPoint(point)];
 		
-		DelaunayTriangle startTriangle = incidentTriangles.iterator().next();
+		List<Integer> triangles = new ArrayList<Integer>(incidentTriangles.size() + 2);
 		triangles.add(startTriangle);
 		
-		DelaunayTriangle currentTriangle = startTriangle;
+		int currentTriangle = startTriangle;
 		
 		while (/* incidentTriangles.contains(currentTriangle)  TODO re-enable
 				&& */ (currentTriangle != startTriangle || triangles.size() == 1)
-				&& currentTriangle.getRightNeighbor(point) != null) {
+				&& getRightNeighbor(currentTriangle, vertex) != NO_TRIANGLE) {
 			
-			currentTriangle = currentTriangle.getRightNeighbor(point);
+			currentTriangle = getRightNeighbor(currentTriangle, vertex);
 			triangles.add(currentTriangle);
 			
 		}
@@ -720,17 +1188,16 @@ public class DelaunayTriangulation {
 		Collections.reverse(triangles);
 		
 		if (currentTriangle != startTriangle) { //check for full circle
-		
-			List<DelaunayTriangle> leftTriangles =
-					new ArrayList<DelaunayTriangle>();
+			
+			List<Integer> leftTriangles = new ArrayList<Integer>();
 			
 			currentTriangle = startTriangle;
-		
+			
 			while (/* incidentTriangles.contains(currentTriangle) TODO re-enable
 					&& */ (currentTriangle != startTriangle || triangles.isEmpty())
-					&& currentTriangle.getLeftNeighbor(point) != null) { //TODO: avoid infinite loop
+					&& getLeftNeighbor(currentTriangle, vertex) != NO_TRIANGLE) { //TODO: avoid infinite loop
 				
-				currentTriangle = currentTriangle.getLeftNeighbor(point);
+				currentTriangle = getLeftNeighbor(currentTriangle, vertex);
 				leftTriangles.add(currentTriangle);
 				
 			}
@@ -738,19 +1205,30 @@ public class DelaunayTriangulation {
 			triangles.addAll(leftTriangles);
 			
 		}
-				
+		
 		/* calculate the circumcircle centers */
 		
 		List<VectorXZ> centers = new ArrayList<VectorXZ>();
 		
-		for (DelaunayTriangle t : triangles) {
-			centers.add(t.getCircumcircleCenter());
+		double[] center = new double[2];
+		
+		for (int t : triangles) {
+			
+			int v0 = triangleVertices[3 * t];
+			int v1 = triangleVertices[3 * t + 1];
+			int v2 = triangleVertices[3 * t + 2];
+			
+			calculateCircumcenter(vertexX[v0], vertexZ[v0], vertexX[v1], vertexZ[v1],
+					vertexX[v2], vertexZ[v2], center);
+			
+			centers.add(new VectorXZ(center[0], center[1]));
+			
 		}
 
 		/* calculate the sectors */
 		
 		List<TriangleXZ> result = new ArrayList<TriangleXZ>();
-				
+		
 		for (int i = 0; i+1 < centers.size(); i++) {
 			result.add(new TriangleXZ(pointXZ,
 					centers.get(i),
@@ -761,9 +1239,17 @@ public class DelaunayTriangulation {
 		
 	}
 	
+	private int getLeftNeighbor(int triangle, int atVertex) {
+		return triangleNeighbors[3 * triangle + (indexOfVertex(triangle, atVertex) + 2) % 3];
+	}
+	
+	private int getRightNeighbor(int triangle, int atVertex) {
+		return triangleNeighbors[3 * triangle + indexOfVertex(triangle, atVertex)];
+	}
+	
 	/**
 	 * returns the size of a voronoi cell or a part of the voronoi cell.
-	 * 
+	 *
 	 * @param point  point corresponding to the voronoi cell
 	 * @param incidentTriangles  if this contains all triangles incident to
 	 *   point, then the size of the entire cell will be calculated.
@@ -783,36 +1269,20 @@ public class DelaunayTriangulation {
 		
 	}
 	
-	private boolean isDelaunay(DelaunayTriangle triangle) {
-		
-		DelaunayTriangle neighborTriangle = triangle.getNeighbor(0);
-		
-		if (neighborTriangle != null && neighborTriangle != handleTriangle) {
-			
-			double a1 = triangle.angleAt(2);
-			double a2 = neighborTriangle.angleOppositeOf(triangle);
-			
-			return a1 + a2 <= PI;
-			
-		} else {
-			
-			return true;
-			
-		}
-		
-	}
-	
 	/**
 	 * returns the triangle containing the given point
-	 * 
+	 *
 	 * @param point  must lie within the triangulation; != null
 	 */
 	public DelaunayTriangle getEnlosingTriangle(VectorXZ point) {
+		return new DelaunayTriangle(getEnclosingTriangleIndex(point.x, point.z));
+	}
+	
+	private int getEnclosingTriangleIndex(double x, double z) {
 		
-		/* use a 'visibility walk' through the triangulation,
-		 * starting at the handleTriangle */
+		/* use a 'visibility walk' through the triangulation */
 		
-		DelaunayTriangle currentTriangle = handleTriangle;
+		int currentTriangle = getWalkStart(x, z);
 		
 		boolean triangleContainsPoint = false;
 		
@@ -826,12 +1296,12 @@ public class DelaunayTriangulation {
 				// the target point from the current triangle center.
 				// (relies on counterclockwise winding)
 				
-				if (isRightOf(point,
-						currentTriangle.getPoint(i).xz(),
-						currentTriangle.getPoint((i + 1) % 3).xz())) { //TODO avoid xz()
+				if (isRightOf(x, z,
+						triangleVertices[3 * currentTriangle + i],
+						triangleVertices[3 * currentTriangle + (i + 1) % 3])) {
 					
 					triangleContainsPoint = false;
-					currentTriangle = currentTriangle.getNeighbor(i);
+					currentTriangle = triangleNeighbors[3 * currentTriangle + i];
 					break;
 					
 				}
@@ -844,4 +1314,40 @@ public class DelaunayTriangulation {
 		
 	}
 	
+	/**
+	 * variant of {@link org.osm2world.core.math.GeometryUtil#isRightOf(
+	 * VectorXZ, VectorXZ, VectorXZ)} for a line between two vertices
+	 */
+	private boolean isRightOf(double x, double z, int lineStart, int lineEnd) {
+		
+		double l1X = vertexX[lineStart];
+		double l1Z = vertexZ[lineStart];
+		
+		return 0 > (z - l1Z) * (vertexX[lineEnd] - l1X)
+				- (x - l1X) * (vertexZ[lineEnd] - l1Z);
+		
+	}
+	
+	/**
+	 * returns a triangle which is likely to be close to the point.
+	 * Uses the seed grid if available, then the most recently
+	 * created triangle, and the handle triangle as a last resort.
+	 */
+	private int getWalkStart(double x, double z) {
+		
+		if (seedGrid != null) {
+			int seed = seedGrid[getSeedGridIndex(x, z)];
+			if (seed != NO_TRIANGLE) {
+				return seed;
+			}
+		}
+		
+		if (lastCreatedTriangle != NO_TRIANGLE) {
+			return lastCreatedTriangle;
+		}
+		
+		return HANDLE_TRIANGLE;
+		
+	}
+	
 }
@@ -61,6 +61,12 @@ public interface EleConstraintEnforcer {
 	 */
 	void requireSmoothness(EleConnector from, EleConnector via, EleConnector to);
 	
+	/**
+	 * requires a connector to be at a given elevation, e.g. because it is
+	 * shared with features whose elevations have already been calculated
+	 */
+	void requireFixedEle(EleConnector c, double ele);
+	
 	/**
 	 * tries to enforce the previously added constraints
 	 * on elevations of connectors that have been added using
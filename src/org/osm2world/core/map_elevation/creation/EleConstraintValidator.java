@@ -135,6 +135,11 @@ public class EleConstraintValidator implements EleConstraintEnforcer {
 		smoothnessTriples.add(asList(v1, v2, v3));
 		
 	}
+	
+	@Override
+	public void requireFixedEle(EleConnector c, double ele) {
+		enforcer.requireFixedEle(c, ele);
+	}
 
 	@Override
 	public void enforceConstraints() {
@@ -0,0 +1,302 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.lang.Double.isNaN;
+import static java.lang.Math.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * samples {@link GridTerrainElevationData} directly instead of
+ * interpolating between scattered sites. Positions without data
+ * are assigned an elevation of 0.
+ *
+ * The grid is either provided using
+ * {@link #setElevationData(GridTerrainElevationData)},
+ * which avoids creating sites, or it is built from the sites passed to
+ * {@link #setKnownSites(Collection)}. Each call replaces the data
+ * provided by previous calls of either method.
+ */
+public class GridInterpolator implements TerrainInterpolator {
+	
+	private final boolean bicubic;
+	
+	private GridTerrainElevationData eleData;
+	
+	private SiteGrid siteGrid;
+	
+	/**
+	 * creates an interpolator using bicubic interpolation
+	 */
+	public GridInterpolator() {
+		this(true);
+	}
+	
+	/**
+	 * @param bicubic  whether to use bicubic or bilinear interpolation
+	 */
+	public GridInterpolator(boolean bicubic) {
+		this.bicubic = bicubic;
+	}
+	
+	public void setElevationData(GridTerrainElevationData eleData) {
+		this.eleData = eleData;
+		this.siteGrid = null;
+	}
+	
+	/**
+	 * builds a regular grid from the sites. The grid's spacing is based on
+	 * the average density of the sites, so sites which are already arranged
+	 * in a grid (such as SRTM data) are reproduced closely.
+	 */
+	@Override
+	public void setKnownSites(Collection<VectorXYZ> sites) {
+		this.eleData = null;
+		this.siteGrid = new SiteGrid(sites);
+	}
+	
+	@Override
+	public VectorXYZ interpolateEle(VectorXZ pos) {
+		
+		double ele;
+		
+		if (eleData != null) {
+			ele = eleData.getEle(pos, bicubic);
+		} else if (siteGrid != null) {
+			ele = siteGrid.getEle(pos, bicubic);
+		} else {
+			ele = Double.NaN;
+		}
+		
+		return pos.xyz(isNaN(ele) ? 0 : ele);
+		
+	}
+	
+	/**
+	 * a regular grid of elevations calculated from scattered sites.
+	 *
+	 * Each grid point's elevation is taken from a plane fitted to the sites
+	 * within {@link #FIT_RADIUS} cells, weighted by their distance to the
+	 * grid point. Linear terrain is therefore reproduced exactly. If the sites
+	 * do not determine a plane, their weighted average is used instead.
+	 * Grid points without any sites within that distance have no data.
+	 */
+	private static class SiteGrid {
+		
+		/** distance in cells up to which sites affect a grid point */
+		private static final int FIT_RADIUS = 2;
+		
+		private final double minX;
+		private final double minZ;
+		private final double cellSize;
+		
+		private final int sizeX;
+		private final int sizeZ;
+		
+		/** elevations by x * sizeZ + z, NaN for grid points without data */
+		private final double[] elevations;
+		
+		public SiteGrid(Collection<VectorXYZ> sites) {
+			
+			/* determine the grid's extent and spacing */
+			
+			double minX = Double.POSITIVE_INFINITY;
+			double minZ = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxZ = Double.NEGATIVE_INFINITY;
+			
+			for (VectorXYZ site : sites) {
+				minX = min(minX, site.x);
+				minZ = min(minZ, site.z);
+				maxX = max(maxX, site.x);
+				maxZ = max(maxZ, site.z);
+			}
+			
+			if (sites.isEmpty()) {
+				minX = minZ = maxX = maxZ = 0;
+			}
+			
+			double area = (maxX - minX) * (maxZ - minZ);
+			double cellSize = sqrt(area / max(1, sites.size()));
+			
+			if (!(cellSize > 0)) {
+				cellSize = max(1, max(maxX - minX, maxZ - minZ));
+			}
+			
+			this.minX = minX;
+			this.minZ = minZ;
+			this.cellSize = cellSize;
+			
+			sizeX = (int)ceil((maxX - minX) / cellSize) + 1;
+			sizeZ = (int)ceil((maxZ - minZ) / cellSize) + 1;
+			
+			/* accumulate the weighted normal equations of each grid point's
+			 * plane fit. The plane is ele = a + b * dx + c * dz, with dx and dz
+			 * relative to the grid point and measured in cells. */
+			
+			double[][] sums = new double[9][sizeX * sizeZ];
+			
+			final int W = 0, WX = 1, WZ = 2, WXX = 3, WXZ = 4, WZZ = 5;
+			final int WE = 6, WXE = 7, WZE = 8;
+			
+			for (VectorXYZ site : sites) {
+				
+				double x = (site.x - minX) / cellSize;
+				double z = (site.z - minZ) / cellSize;
+				
+				int x0 = (int)floor(x);
+				int z0 = (int)floor(z);
+				
+				for (int i = max(0, x0 - FIT_RADIUS + 1);
+						i <= x0 + FIT_RADIUS && i < sizeX; i++) {
+					for (int j = max(0, z0 - FIT_RADIUS + 1);
+							j <= z0 + FIT_RADIUS && j < sizeZ; j++) {
+						
+						double dx = x - i;
+						double dz = z - j;
+						
+						double w = max(0, 1 - abs(dx) / FIT_RADIUS)
+								* max(0, 1 - abs(dz) / FIT_RADIUS);
+						
+						if (w == 0) continue;
+						
+						int index = i * sizeZ + j;
+						
+						sums[W][index] += w;
+						sums[WX][index] += w * dx;
+						sums[WZ][index] += w * dz;
+						sums[WXX][index] += w * dx * dx;
+						sums[WXZ][index] += w * dx * dz;
+						sums[WZZ][index] += w * dz * dz;
+						sums[WE][index] += w * site.y;
+						sums[WXE][index] += w * dx * site.y;
+						sums[WZE][index] += w * dz * site.y;
+						
+					}
+				}
+				
+			}
+			
+			/* solve each grid point's plane fit with Cramer's rule,
+			 * the elevation at the grid point is the constant term */
+			
+			elevations = new double[sizeX * sizeZ];
+			Arrays.fill(elevations, Double.NaN);
+			
+			for (int index = 0; index < elevations.length; index++) {
+				
+				double w = sums[W][index];
+				
+				if (w == 0) continue;
+				
+				double wx = sums[WX][index], wz = sums[WZ][index];
+				double wxx = sums[WXX][index], wxz = sums[WXZ][index];
+				double wzz = sums[WZZ][index];
+				double we = sums[WE][index];
+				double wxe = sums[WXE][index], wze = sums[WZE][index];
+				
+				double det = w * (wxx * wzz - wxz * wxz)
+						- wx * (wx * wzz - wxz * wz)
+						+ wz * (wx * wxz - wxx * wz);
+				
+				if (abs(det) > 1e-6 * w * w * w) {
+					elevations[index] = (we * (wxx * wzz - wxz * wxz)
+							- wx * (wxe * wzz - wxz * wze)
+							+ wz * (wxe * wxz - wxx * wze)) / det;
+				} else {
+					elevations[index] = we / w;
+				}
+				
+			}
+			
+		}
+		
+		public double getEle(VectorXZ pos, boolean bicubic) {
+			
+			double x = (pos.x - minX) / cellSize;
+			double z = (pos.z - minZ) / cellSize;
+			
+			int x0 = (int)floor(x);
+			int z0 = (int)floor(z);
+			
+			if (bicubic) {
+				
+				double ele = sampleBicubic(x0, z0, x - x0, z - z0);
+				
+				if (!isNaN(ele)) {
+					return ele;
+				}
+				
+			}
+			
+			return sampleBilinear(x0, z0, x - x0, z - z0);
+			
+		}
+		
+		/**
+		 * @see SRTMData#getEle(VectorXZ, boolean)
+		 */
+		private double sampleBilinear(int x0, int z0, double dx, double dz) {
+			
+			double eleSum = 0;
+			double weightSum = 0;
+			
+			for (int i = 0; i <= 1; i++) {
+				for (int j = 0; j <= 1; j++) {
+					
+					double value = getGridEle(x0 + i, z0 + j);
+					
+					if (!isNaN(value)) {
+						double weight = (i == 0 ? 1 - dx : dx) * (j == 0 ? 1 - dz : dz);
+						eleSum += weight * value;
+						weightSum += weight;
+					}
+					
+				}
+			}
+			
+			return weightSum > 0 ? eleSum / weightSum : Double.NaN;
+			
+		}
+		
+		/**
+		 * @see SRTMData#getEle(VectorXZ, boolean)
+		 */
+		private double sampleBicubic(int x0, int z0, double dx, double dz) {
+			
+			double ele = 0;
+			
+			for (int j = -1; j <= 2; j++) {
+				
+				double weightZ = SRTMData.cubicWeight(j - dz);
+				
+				for (int i = -1; i <= 2; i++) {
+					
+					double value = getGridEle(x0 + i, z0 + j);
+					
+					if (isNaN(value)) return Double.NaN;
+					
+					ele += SRTMData.cubicWeight(i - dx) * weightZ * value;
+					
+				}
+				
+			}
+			
+			return ele;
+			
+		}
+		
+		private double getGridEle(int x, int z) {
+			if (x < 0 || x >= sizeX || z < 0 || z >= sizeZ) {
+				return Double.NaN;
+			} else {
+				return elevations[x * sizeZ + z];
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,24 @@
+package org.osm2world.core.map_elevation.creation;
+
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * terrain elevation data on a regular grid. Instead of providing sites
+ * for interpolation, it can be sampled directly at any position.
+ * 
+ * @see GridInterpolator
+ */
+public interface GridTerrainElevationData extends TerrainElevationData {
+	
+	/**
+	 * returns the elevation at a position, interpolated between
+	 * the neighboring grid points. Must be safe for concurrent calls.
+	 * 
+	 * @param bicubic  whether to use bicubic interpolation
+	 *                 (otherwise, bilinear interpolation is used)
+	 * @return  the elevation, or {@link Double#NaN} if there is no data
+	 *          for the position
+	 */
+	double getEle(VectorXZ pos, boolean bicubic);
+	
+}
@@ -267,6 +267,13 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 		
 	}
 	
+	@Override
+	public void requireFixedEle(EleConnector c, double ele) {
+		
+		addConstraint(1, c, "=", ele);
+		
+	}
+	
 	private void addConstraint(
 			double factor1, EleConnector var1,
 			String op, double limit) {
@@ -6,18 +6,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import org.apache.commons.lang.time.StopWatch;
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.QRDecomposition;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
@@ -34,15 +30,30 @@ public class LeastSquaresInterpolator implements TerrainInterpolator {
 	private static final int SITES_FOR_APPROX = 9;
 	private static final int SITES_FOR_INTERPOL = 29;
 	
+	private final int threads;
+	
 	private Collection<SiteWithPolynomial> sites;
 	private IntersectionGrid<SiteWithPolynomial> siteGrid; //TODO: rename IntersectionGrid to something more generic
 	
+	/**
+	 * creates an interpolator which uses all available processors
+	 * for approximating the polynomials
+	 */
+	public LeastSquaresInterpolator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * @param threads  number of threads for approximating the polynomials,
+	 *                 1 for sequential calculation
+	 */
+	public LeastSquaresInterpolator(int threads) {
+		this.threads = threads;
+	}
+	
 	@Override
 	public void setKnownSites(Collection<VectorXYZ> siteVectors) {
 		
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
-		
 		sites = new ArrayList<SiteWithPolynomial>(siteVectors.size());
 		
 		siteGrid = new IntersectionGrid<SiteWithPolynomial>(
@@ -55,62 +66,83 @@ public class LeastSquaresInterpolator implements TerrainInterpolator {
 			siteGrid.insert(s);
 		}
 		
-		System.out.println("  time grid: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
+		/* approximate a polynomial at each site.
+		 * Ranges of grid columns are processed concurrently,
+		 * each with its own PolynomialFitter */
 		
-		/* approximate a polynomial at each site */
-
-		Map<SiteWithPolynomial, List<SiteWithPolynomial>> nearestSiteMap
-			= new HashMap<SiteWithPolynomial, List<SiteWithPolynomial>>();
-
-		for (SiteWithPolynomial site : sites) {
+		int numColumns = siteGrid.getCellArray().length;
+		
+		if (threads <= 1) {
 			
-			List<SiteWithPolynomial> nearestSites =
-					findNearestSites(site.pos.xz(), SITES_FOR_APPROX, false);
-
-			nearestSiteMap.put(site, nearestSites);
+			calculatePolynomials(0, numColumns);
 			
-		}
-		
-		System.out.println("  time nearest sites: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
-
-		calculatePolynomials:
-		for (SiteWithPolynomial site : sites) {
+		} else {
 			
-			List<SiteWithPolynomial> nearestSites =
-					nearestSiteMap.get(site);
+			int numRanges = min(threads * 4, numColumns);
 			
-			RealVector vector = new ArrayRealVector(SITES_FOR_APPROX);
-			RealMatrix matrix = new Array2DRowRealMatrix(
-					SITES_FOR_APPROX, DefaultPolynomial.NUM_COEFFS);
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numRanges);
 			
-			for (int row = 0; row < SITES_FOR_APPROX; row++) {
-				SiteWithPolynomial nearSite = nearestSites.get(row);
-				DefaultPolynomial.populateMatrix(matrix, row, nearSite.pos.x, nearSite.pos.z);
-				vector.setEntry(row, nearSite.pos.y);
+			for (int r = 0; r < numRanges; r++) {
+				
+				final int startX = r * numColumns / numRanges;
+				final int endX = (r + 1) * numColumns / numRanges;
+				
+				tasks.add(new Callable<Void>() {
+					@Override public Void call() {
+						calculatePolynomials(startX, endX);
+						return null;
+					}
+				});
+				
 			}
 			
-			QRDecomposition qr = new QRDecomposition(matrix);
-			RealVector solution = qr.getSolver().solve(vector);
-				
-			double[] coeffs = solution.toArray();
+			ForkJoinPool pool = new ForkJoinPool(threads);
 			
-			for (double coeff : coeffs) {
-				if (coeff > 10e3) {
-					continue calculatePolynomials;
+			try {
+				for (Future<Void> future : pool.invokeAll(tasks)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("interrupted while approximating polynomials", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				} else if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				} else {
+					throw new RuntimeException(e.getCause());
 				}
+			} finally {
+				pool.shutdown();
 			}
 			
-			site.setPolynomial(new DefaultPolynomial(coeffs));
-			
 		}
-
-		System.out.println("  time polyonmials: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
+		
+	}
+	
+	/**
+	 * approximates the polynomials for the sites in a range of grid columns
+	 * 
+	 * @param startX  first column, inclusive
+	 * @param endX    last column, exclusive
+	 */
+	private void calculatePolynomials(int startX, int endX) {
+		
+		Collection<SiteWithPolynomial>[][] cellArray = siteGrid.getCellArray();
+		
+		PolynomialFitter fitter = new PolynomialFitter();
+		
+		for (int x = startX; x < endX; x++) {
+			for (Collection<SiteWithPolynomial> sitesInCell : cellArray[x]) {
+				if (sitesInCell != null) {
+					for (SiteWithPolynomial site : sitesInCell) {
+						site.setPolynomial(fitter.fit(findNearestSites(
+								site.pos.xz(), SITES_FOR_APPROX, false)));
+					}
+				}
+			}
+		}
 		
 	}
 	
@@ -221,6 +253,114 @@ public class LeastSquaresInterpolator implements TerrainInterpolator {
 		
 	}
 	
+	/**
+	 * approximates {@link DefaultPolynomial}s for sites' nearest neighbors.
+	 * Solves the least squares problem with a Householder QR decomposition,
+	 * reusing its arrays for all sites. Not thread-safe.
+	 */
+	private static final class PolynomialFitter {
+		
+		/** transposed matrix, overwritten by the decomposition */
+		private final double[][] qrt =
+				new double[DefaultPolynomial.NUM_COEFFS][SITES_FOR_APPROX];
+		
+		private final double[] rDiag = new double[DefaultPolynomial.NUM_COEFFS];
+		
+		private final double[] y = new double[SITES_FOR_APPROX];
+		
+		/**
+		 * @param nearestSites  {@value #SITES_FOR_APPROX} sites
+		 * @return  the polynomial, or null if the sites do not determine
+		 *          a plausible polynomial
+		 */
+		public DefaultPolynomial fit(List<SiteWithPolynomial> nearestSites) {
+			
+			for (int row = 0; row < SITES_FOR_APPROX; row++) {
+				SiteWithPolynomial nearSite = nearestSites.get(row);
+				DefaultPolynomial.populateMatrix(qrt, row, nearSite.pos.x, nearSite.pos.z);
+				y[row] = nearSite.pos.y;
+			}
+			
+			/* decompose */
+			
+			for (int minor = 0; minor < qrt.length; minor++) {
+				
+				double[] qrtMinor = qrt[minor];
+				
+				double xNormSqr = 0;
+				for (int row = minor; row < SITES_FOR_APPROX; row++) {
+					xNormSqr += qrtMinor[row] * qrtMinor[row];
+				}
+				
+				double a = (qrtMinor[minor] > 0) ? -sqrt(xNormSqr) : sqrt(xNormSqr);
+				rDiag[minor] = a;
+				
+				if (a == 0) {
+					return null; //singular matrix
+				}
+				
+				qrtMinor[minor] -= a;
+				
+				for (int col = minor + 1; col < qrt.length; col++) {
+					
+					double[] qrtCol = qrt[col];
+					
+					double alpha = 0;
+					for (int row = minor; row < SITES_FOR_APPROX; row++) {
+						alpha -= qrtCol[row] * qrtMinor[row];
+					}
+					alpha /= a * qrtMinor[minor];
+					
+					for (int row = minor; row < SITES_FOR_APPROX; row++) {
+						qrtCol[row] -= alpha * qrtMinor[row];
+					}
+					
+				}
+				
+			}
+			
+			/* calculate Q^T * y */
+			
+			for (int minor = 0; minor < qrt.length; minor++) {
+				
+				double[] qrtMinor = qrt[minor];
+				
+				double dotProduct = 0;
+				for (int row = minor; row < SITES_FOR_APPROX; row++) {
+					dotProduct += y[row] * qrtMinor[row];
+				}
+				dotProduct /= rDiag[minor] * qrtMinor[minor];
+				
+				for (int row = minor; row < SITES_FOR_APPROX; row++) {
+					y[row] += dotProduct * qrtMinor[row];
+				}
+				
+			}
+			
+			/* solve R * coeffs = Q^T * y */
+			
+			double[] coeffs = new double[DefaultPolynomial.NUM_COEFFS];
+			
+			for (int row = coeffs.length - 1; row >= 0; row--) {
+				y[row] /= rDiag[row];
+				coeffs[row] = y[row];
+				for (int i = 0; i < row; i++) {
+					y[i] -= y[row] * qrt[row][i];
+				}
+			}
+			
+			for (double coeff : coeffs) {
+				if (coeff > 10e3) {
+					return null;
+				}
+			}
+			
+			return new DefaultPolynomial(coeffs);
+			
+		}
+		
+	}
+	
 	public static interface Polynomial {
 		
 		public double evaluateAt(double x, double z);
@@ -248,15 +388,20 @@ public class LeastSquaresInterpolator implements TerrainInterpolator {
 					+ coeffs[5] * z*z;
 		}
 		
-		public static void populateMatrix(RealMatrix matrix, int row,
+		/**
+		 * writes a row of the least squares matrix for a site.
+		 * 
+		 * @param matrixT  the transposed matrix, i.e. one array per coefficient
+		 */
+		public static void populateMatrix(double[][] matrixT, int row,
 				double x, double z) {
 			
-			matrix.setEntry(row, 0, 1);
-			matrix.setEntry(row, 1, x);
-			matrix.setEntry(row, 2, z);
-			matrix.setEntry(row, 3, x*x);
-			matrix.setEntry(row, 4, x*z);
-			matrix.setEntry(row, 5, z*z);
+			matrixT[0][row] = 1;
+			matrixT[1][row] = x;
+			matrixT[2][row] = z;
+			matrixT[3][row] = x*x;
+			matrixT[4][row] = x*z;
+			matrixT[5][row] = z*z;
 			
 		}
 		
@@ -23,10 +23,7 @@ public class LinearInterpolator implements TerrainInterpolator {
 		boundingBox = boundingBox.pad(100);
 		
 		triangulation = new DelaunayTriangulation(boundingBox);
-		
-		for (VectorXYZ site : sites) {
-			triangulation.insert(site);
-		}
+		triangulation.insertAll(sites);
 		
 	}
 	
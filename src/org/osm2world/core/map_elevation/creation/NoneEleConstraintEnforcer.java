@@ -35,6 +35,9 @@ public class NoneEleConstraintEnforcer implements EleConstraintEnforcer {
 	public void requireSmoothness(
 			EleConnector from, EleConnector via, EleConnector to) {}
 	
+	@Override
+	public void requireFixedEle(EleConnector c, double ele) {}
+	
 	@Override
 	public void enforceConstraints() {}
 	
@@ -7,6 +7,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.osm2world.core.map_data.creation.MapProjection;
 import org.osm2world.core.map_data.data.MapData;
@@ -15,20 +19,52 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 
 /**
- * SRTM data for a part of the planet
+ * SRTM data for a part of the planet.
+ * Supports SRTM3 and SRTM1 tiles in .hgt format. Tiles are shared
+ * with other instances through a process-wide {@link SRTMTileCache}.
+ * 
+ * The data can either be turned into sites for a {@link TerrainInterpolator},
+ * or be sampled directly using {@link #getEle(VectorXZ, boolean)}.
  */
-public class SRTMData implements TerrainElevationData {
+public class SRTMData implements GridTerrainElevationData {
 	
 	private final File tileDirectory;
 	private final MapProjection projection;
-	private final SRTMTile[][] tiles;
+	private final SRTMTileCache tileCache;
+	
+	/**
+	 * tiles which have been used by {@link #getEle(VectorXZ, boolean)},
+	 * by {@link #tileKey(int, int)}. They are kept for the lifetime
+	 * of this object, even if they are evicted from the tile cache.
+	 */
+	private final ConcurrentMap<Integer, SRTMTile> sampledTiles =
+			new ConcurrentHashMap<Integer, SRTMTile>();
+	
+	/** keys of tiles which are not available for sampling */
+	private final Set<Integer> missingTiles =
+			Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
 	
 	public SRTMData(File tileDirectory, MapProjection projection) {
+		this(tileDirectory, projection, SRTMTileCache.getSharedInstance());
+	}
+	
+	SRTMData(File tileDirectory, MapProjection projection,
+			SRTMTileCache tileCache) {
 		this.tileDirectory = tileDirectory;
 		this.projection = projection;
-		this.tiles = new SRTMTile[360][180];
+		this.tileCache = tileCache;
 	}
-		
+	
+	/**
+	 * sets the limit for the total size of the tiles kept in memory
+	 * by the cache which is shared by all instances.
+	 * See {@link SRTMTileCache#DEFAULT_MAX_BYTES} for the default.
+	 */
+	public static void setTileCacheSize(long maxBytes) {
+		SRTMTileCache.getSharedInstance().setMaxBytes(maxBytes);
+	}
+	
+	
 	@Override
 	public Collection<VectorXYZ> getSites(double minLon, double minLat,
 			double maxLon, double maxLat) throws IOException {
@@ -43,10 +79,12 @@ public class SRTMData implements TerrainElevationData {
 		for (int lon = minLonInt; lon < maxLonInt; lon++) {
 			for (int lat = minLatInt; lat < maxLatInt; lat++) {
 				
-				loadTileIfNecessary(lon, lat);
+				SRTMTile tile = loadTile(lon, lat);
 				
-				addTileSites(result, lon, lat,
-						minLon, minLat, maxLon, maxLat);
+				if (tile != null) {
+					addTileSites(result, tile, lon, lat,
+							minLon, minLat, maxLon, maxLat);
+				}
 				
 			}
 		}
@@ -102,66 +140,260 @@ public class SRTMData implements TerrainElevationData {
 		
 	}
 
-	private void loadTileIfNecessary(int lon, int lat) throws IOException {
+	@Override
+	public double getEle(VectorXZ pos, boolean bicubic) {
 		
-		if (getTile(lon, lat) == null) {
+		double lat = projection.calcLat(pos);
+		double lon = projection.calcLon(pos);
+		
+		int tileLon = (int)floor(lon);
+		int tileLat = (int)floor(lat);
+		
+		SRTMTile tile = getTileForSampling(tileLon, tileLat);
+		
+		if (tile == null) return Double.NaN;
+		
+		/* calculate the position in pixels. The first and last pixels
+		 * of each row and column are on the tile's edges (and duplicated
+		 * in adjacent tiles), so there are pixels-1 intervals per degree */
+		
+		double x = (lon - tileLon) * (tile.pixels - 1);
+		double y = (lat - tileLat) * (tile.pixels - 1);
+		
+		int x0 = (int)floor(x);
+		int y0 = (int)floor(y);
+		
+		if (bicubic) {
 			
-			String fileName = tileDirectory.getPath() + File.separator;
+			double ele = sampleBicubic(tileLon, tileLat, tile, x0, y0, x - x0, y - y0);
 			
-			if (lat >= 0) {
-				fileName += String.format("N%02d", lat);
-			} else {
-				fileName += String.format("S%02d", -lat);
+			if (!isNaN(ele)) {
+				return ele;
 			}
-
-			if (lon >= 0) {
-				fileName += String.format("E%03d", lon);
-			} else {
-				fileName += String.format("W%03d", -lon);
+			
+		}
+		
+		return sampleBilinear(tileLon, tileLat, tile, x0, y0, x - x0, y - y0);
+		
+	}
+	
+	/**
+	 * bilinear interpolation between the 4 pixels around a position.
+	 * Pixels without data are ignored, the weights of the others
+	 * are scaled accordingly.
+	 * 
+	 * @return  the elevation, or NaN if none of the pixels has data
+	 */
+	private double sampleBilinear(int tileLon, int tileLat, SRTMTile tile,
+			int x0, int y0, double dx, double dy) {
+		
+		double eleSum = 0;
+		double weightSum = 0;
+		
+		for (int i = 0; i <= 1; i++) {
+			for (int j = 0; j <= 1; j++) {
+				
+				double value = getPixel(tileLon, tileLat, tile, x0 + i, y0 + j);
+				
+				if (!isNaN(value)) {
+					double weight = (i == 0 ? 1 - dx : dx) * (j == 0 ? 1 - dy : dy);
+					eleSum += weight * value;
+					weightSum += weight;
+				}
+				
+			}
+		}
+		
+		return weightSum > 0 ? eleSum / weightSum : Double.NaN;
+		
+	}
+	
+	/**
+	 * bicubic interpolation (using a Catmull-Rom spline)
+	 * between the 16 pixels around a position.
+	 * 
+	 * @return  the elevation, or NaN if any of the pixels lacks data
+	 */
+	private double sampleBicubic(int tileLon, int tileLat, SRTMTile tile,
+			int x0, int y0, double dx, double dy) {
+		
+		double ele = 0;
+		
+		for (int j = -1; j <= 2; j++) {
+			
+			double weightY = cubicWeight(j - dy);
+			
+			for (int i = -1; i <= 2; i++) {
+				
+				double value = getPixel(tileLon, tileLat, tile, x0 + i, y0 + j);
+				
+				if (isNaN(value)) return Double.NaN;
+				
+				ele += cubicWeight(i - dx) * weightY * value;
+				
+			}
+			
+		}
+		
+		return ele;
+		
+	}
+	
+	/**
+	 * weight of a pixel at a given distance for bicubic interpolation
+	 */
+	static double cubicWeight(double distance) {
+		
+		double t = abs(distance);
+		
+		if (t <= 1) {
+			return (1.5 * t - 2.5) * t * t + 1;
+		} else if (t < 2) {
+			return ((-0.5 * t + 2.5) * t - 4) * t + 2;
+		} else {
+			return 0;
+		}
+		
+	}
+	
+	/**
+	 * returns a pixel's value. The pixel coordinates are relative to
+	 * the given tile, but may be up to one pixel outside of it,
+	 * in which case the adjacent tile is used.
+	 * 
+	 * @return  the pixel's value, or NaN if it is not available
+	 */
+	private double getPixel(int tileLon, int tileLat, SRTMTile tile,
+			int x, int y) {
+		
+		int last = tile.pixels - 1;
+		
+		if (x < 0 || x > last || y < 0 || y > last) {
+			
+			int lonOffset = (x < 0) ? -1 : (x > last) ? 1 : 0;
+			int latOffset = (y < 0) ? -1 : (y > last) ? 1 : 0;
+			
+			SRTMTile adjacentTile = getTileForSampling(
+					tileLon + lonOffset, tileLat + latOffset);
+			
+			if (adjacentTile == null || adjacentTile.pixels != tile.pixels) {
+				return Double.NaN;
 			}
 			
-			fileName += ".hgt";
+			tile = adjacentTile;
+			x -= lonOffset * last;
+			y -= latOffset * last;
 			
-			File file = new File(fileName);
+		}
+		
+		short value = tile.getData(x, y);
+		
+		return (value == SRTMTile.BLANK_VALUE) ? Double.NaN : value;
+		
+	}
+	
+	/**
+	 * returns the tile with the given lower left corner for sampling,
+	 * or null if it is not available. Thread-safe.
+	 */
+	private SRTMTile getTileForSampling(int tileLon, int tileLat) {
+		
+		Integer key = tileKey(tileLon, tileLat);
+		
+		SRTMTile tile = sampledTiles.get(key);
+		
+		if (tile == null && !missingTiles.contains(key)) {
 			
-			if (file.exists()) {
-				setTile(lon, lat, new SRTMTile(file));
-			} else {
-				System.err.println("warning: missing SRTM tile " + file.getName());
+			synchronized (sampledTiles) {
+				
+				tile = sampledTiles.get(key);
+				
+				if (tile == null && !missingTiles.contains(key)) {
+					
+					try {
+						tile = loadTile(tileLon, tileLat);
+					} catch (IOException e) {
+						System.err.println("warning: cannot load SRTM tile: "
+								+ e.getMessage());
+					}
+					
+					if (tile != null) {
+						sampledTiles.put(key, tile);
+					} else {
+						missingTiles.add(key);
+					}
+					
+				}
+				
 			}
 			
 		}
 		
+		return tile;
+		
 	}
 	
-	private void addTileSites(Collection<VectorXYZ> result,
-			int tileLon, int tileLat,
-			double minLon, double minLat, double maxLon, double maxLat) {
+	private static int tileKey(int tileLon, int tileLat) {
+		return tileLon * 1000 + tileLat;
+	}
+	
+	/**
+	 * returns the tile with the given lower left corner,
+	 * or null if the tile is not available
+	 */
+	private SRTMTile loadTile(int lon, int lat) throws IOException {
 		
-		SRTMTile tile = getTile(tileLon, tileLat);
+		String fileName = tileDirectory.getPath() + File.separator;
 		
-		if (tile == null) return;
+		if (lat >= 0) {
+			fileName += String.format("N%02d", lat);
+		} else {
+			fileName += String.format("S%02d", -lat);
+		}
+
+		if (lon >= 0) {
+			fileName += String.format("E%03d", lon);
+		} else {
+			fileName += String.format("W%03d", -lon);
+		}
+		
+		fileName += ".hgt";
+		
+		File file = new File(fileName);
+		
+		if (file.exists()) {
+			return tileCache.getTile(file);
+		} else {
+			System.err.println("warning: missing SRTM tile " + file.getName());
+			return null;
+		}
+		
+	}
+	
+	private void addTileSites(Collection<VectorXYZ> result, SRTMTile tile,
+			int tileLon, int tileLat,
+			double minLon, double minLat, double maxLon, double maxLat) {
 		
 		/* add a site for each SRTM pixel (except last line and column,
 		 * which is duplicated in adjacent tiles) */
 		
 		int minX = max(0,
-				(int)ceil(SRTMTile.PIXELS * (minLon - tileLon)));
-		int maxX = min(SRTMTile.PIXELS - 1,
-				(int)floor(SRTMTile.PIXELS * (maxLon - tileLon)));
+				(int)ceil(tile.pixels * (minLon - tileLon)));
+		int maxX = min(tile.pixels - 1,
+				(int)floor(tile.pixels * (maxLon - tileLon)));
 
 		int minY = max(0,
-				(int)ceil(SRTMTile.PIXELS * (minLat - tileLat)));
-		int maxY = min(SRTMTile.PIXELS - 1,
-				(int)floor(SRTMTile.PIXELS * (maxLat - tileLat)));
+				(int)ceil(tile.pixels * (minLat - tileLat)));
+		int maxY = min(tile.pixels - 1,
+				(int)floor(tile.pixels * (maxLat - tileLat)));
 		
 		for (int x = minX; x < maxX; x++) {
 			for (int y = minY; y < maxY; y++) {
 				
 				short value = tile.getData(x, y);
 				
-				double lat = tileLat + 1.0 / SRTMTile.PIXELS * (y + 0.5);
-				double lon = tileLon + 1.0 / SRTMTile.PIXELS * (x + 0.5);
+				double lat = tileLat + 1.0 / tile.pixels * (y + 0.5);
+				double lon = tileLon + 1.0 / tile.pixels * (x + 0.5);
 				
 				VectorXZ pos = projection.calcPos(lat, lon);
 				
@@ -175,12 +407,4 @@ public class SRTMData implements TerrainElevationData {
 				
 	}
 	
-	private SRTMTile getTile(int tileLon, int tileLat) {
-		return tiles[tileLon+180][tileLat+90];
-	}
-	
-	private void setTile(int tileLon, int tileLat, SRTMTile tile) {
-		tiles[tileLon+180][tileLat+90] = tile;
-	}
-	
 }
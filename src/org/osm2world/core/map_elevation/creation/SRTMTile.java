@@ -1,57 +1,89 @@
 package org.osm2world.core.map_elevation.creation;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.io.RandomAccessFile;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 /**
  * a single SRTM data tile.
- * 
+ *
  * Multiple such tiles are used by {@link SRTMData} to build coverage
- * for larger regions.
+ * for larger regions. The file is memory-mapped rather than read
+ * into memory, and tiles are usually obtained from a {@link SRTMTileCache}.
  */
 class SRTMTile {
 
 	/** value indicating a lack of data */
 	public static final short BLANK_VALUE = -32768;
 	
-	/** length of each dimension of an SRTM tile in pixels */
-	static final int PIXELS = 1201;
-		
+	/** length of each dimension of an SRTM3 (3 arc second) tile in pixels */
+	static final int SRTM3_PIXELS = 1201;
+	
+	/** length of each dimension of an SRTM1 (1 arc second) tile in pixels */
+	static final int SRTM1_PIXELS = 3601;
+	
 	public final File file;
+	
+	/** length of each dimension of this tile in pixels */
+	public final int pixels;
+	
 	private final ShortBuffer data;
 	
 	public SRTMTile(File file) throws IOException {
 		
 		this.file = file;
 		
+		long size = file.length();
+		
+		if (size == 2L * SRTM3_PIXELS * SRTM3_PIXELS) {
+			pixels = SRTM3_PIXELS;
+		} else if (size == 2L * SRTM1_PIXELS * SRTM1_PIXELS) {
+			pixels = SRTM1_PIXELS;
+		} else {
+			throw new IOException("unsupported size of SRTM tile "
+					+ file.getName() + ": " + size + " bytes");
+		}
+		
 		data = loadDataFromFile(file);
-				
+		
 	}
 
 	private static ShortBuffer loadDataFromFile(File file) throws IOException {
 
-		FileInputStream fis = new FileInputStream(file);
-		FileChannel fc = fis.getChannel();
-		ByteBuffer bb = ByteBuffer.allocateDirect((int) fc.size());
-		while (bb.remaining() > 0) fc.read(bb);
-		fc.close();
-		fis.close();
-		
-		bb.flip();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
 		
-		// choose the right endianness
-		return bb.order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+		try {
+			
+			FileChannel fc = raf.getChannel();
+			
+			/* the mapping remains valid after the channel is closed */
+			
+			MappedByteBuffer bb = fc.map(MapMode.READ_ONLY, 0, fc.size());
+			
+			// choose the right endianness
+			return bb.order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+			
+		} finally {
+			raf.close();
+		}
 		
 	}
 	
+	/**
+	 * returns the size of the tile's data in bytes
+	 */
+	public long getByteSize() {
+		return 2L * pixels * pixels;
+	}
+	
 	public final short getData(int x, int y) {
-		assert 0 <= x && x < PIXELS && 0 <= y && y < PIXELS;
-		return data.get((1200 - y) * 1201 + x);
+		assert 0 <= x && x < pixels && 0 <= y && y < pixels;
+		return data.get((pixels - 1 - y) * pixels + x);
 	}
 	
 	@Override
@@ -0,0 +1,106 @@
+package org.osm2world.core.map_elevation.creation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * cache for {@link SRTMTile}s, which allows tiles to be reused
+ * by all {@link SRTMData} instances (e.g. of subsequent conversions)
+ * instead of being loaded again.
+ *
+ * When the total size of the cached tiles exceeds the limit,
+ * the least recently used tiles are removed from the cache.
+ * This class is thread-safe.
+ */
+class SRTMTileCache {
+	
+	/** default size limit, enough for several SRTM1 or many SRTM3 tiles */
+	static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+	
+	private static final SRTMTileCache SHARED_INSTANCE =
+			new SRTMTileCache(DEFAULT_MAX_BYTES);
+	
+	/** tiles by absolute path, in access order */
+	private final Map<String, SRTMTile> tiles =
+			new LinkedHashMap<String, SRTMTile>(16, 0.75f, true);
+	
+	private long maxBytes;
+	private long bytes = 0;
+	
+	/**
+	 * @param maxBytes  limit for the total size of the cached tiles
+	 */
+	SRTMTileCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * returns the cache which is shared by all {@link SRTMData} instances
+	 */
+	static SRTMTileCache getSharedInstance() {
+		return SHARED_INSTANCE;
+	}
+	
+	/**
+	 * returns the tile for a file, loading it if it is not in the cache.
+	 *
+	 * Tiles which are evicted from the cache remain usable
+	 * as long as they are referenced.
+	 *
+	 * @param file  an existing .hgt file; != null
+	 */
+	public synchronized SRTMTile getTile(File file) throws IOException {
+		
+		String key = file.getAbsolutePath();
+		
+		SRTMTile tile = tiles.get(key);
+		
+		if (tile == null) {
+			
+			tile = new SRTMTile(file);
+			
+			tiles.put(key, tile);
+			bytes += tile.getByteSize();
+			
+			evictTiles();
+			
+		}
+		
+		return tile;
+		
+	}
+	
+	/**
+	 * changes the limit for the total size of the cached tiles.
+	 * The most recently used tile is always kept, even if it exceeds the limit.
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evictTiles();
+	}
+	
+	/** returns the total size of the cached tiles */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+	
+	/** returns the number of cached tiles */
+	public synchronized int size() {
+		return tiles.size();
+	}
+	
+	private void evictTiles() {
+		
+		Iterator<SRTMTile> iterator = tiles.values().iterator();
+		
+		while (bytes > maxBytes && tiles.size() > 1) {
+			bytes -= iterator.next().getByteSize();
+			iterator.remove();
+		}
+		
+	}
+	
+}
@@ -32,6 +32,10 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 	private Map<EleConnector, StiffConnectorSet> stiffSetMap =
 			new HashMap<EleConnector, StiffConnectorSet>();
 	
+	/** elevations required by {@link #requireFixedEle(EleConnector, double)} */
+	private Map<EleConnector, Double> fixedEleMap =
+			new HashMap<EleConnector, Double>();
+	
 	@Override
 	public void addConnectors(Iterable<EleConnector> newConnectors) {
 		
@@ -150,6 +154,11 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 		
 	}
 	
+	@Override
+	public void requireFixedEle(EleConnector c, double ele) {
+		fixedEleMap.put(c, ele);
+	}
+	
 	@Override
 	public void enforceConstraints() {
 		
@@ -189,6 +198,22 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 			
 		}
 		
+		/* fixed elevations override all of the above */
+		
+		for (Map.Entry<EleConnector, Double> entry : fixedEleMap.entrySet()) {
+			
+			EleConnector fixedConnector = entry.getKey();
+			StiffConnectorSet stiffSet = stiffSetMap.get(fixedConnector);
+			
+			Iterable<EleConnector> cs = stiffSet != null
+					? stiffSet : asList(fixedConnector);
+			
+			for (EleConnector c : cs) {
+				c.setPosXYZ(c.pos.xyz(entry.getValue()));
+			}
+			
+		}
+		
 	}
 	
 	/**
@@ -0,0 +1,471 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
+import static java.lang.Math.*;
+import static org.osm2world.core.map_elevation.data.GroundState.ON;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * enforces constraints with a sparse iterative method implemented in Java,
+ * without the native libraries needed by {@link LPEleConstraintEnforcer}.
+ *
+ * Like the linear program, it uses one variable for each set of joined
+ * connectors. The constraints are stored as rows of a sparse matrix in
+ * compressed sparse row (CSR) format, each with a lower and upper bound.
+ * The elevations are chosen to minimize the weighted squared distance to
+ * the interpolated terrain elevations, which are also the starting point
+ * of the iteration. Connectors which are not on the ground have a low
+ * weight, so they are moved in preference to the terrain.
+ *
+ * The problem is solved by Hildreth's method: Each iteration projects
+ * the elevations onto one constraint after the other, and keeps track of
+ * the corrections made for each constraint (the dual variables), so
+ * corrections which are no longer needed are taken back later on.
+ * The iteration stops once no constraint is violated by more than a
+ * tolerance and the elevations no longer change by more than that
+ * tolerance, or when the iteration budget is used up.
+ */
+public class SparseEleConstraintEnforcer implements EleConstraintEnforcer {
+	
+	/** default for the maximum constraint violation in meters */
+	public static final double DEFAULT_TOLERANCE = 0.001;
+	
+	/** default for the maximum number of iterations over all constraints */
+	public static final int DEFAULT_MAX_ITERATIONS = 1000;
+	
+	/** maximum change of the incline per meter for smoothness constraints */
+	private static final double MAX_INCLINE_DIFF_PER_METER = 0.5 / 100;
+	
+	/** weight of deviations from the terrain for connectors not on the ground */
+	private static final double OFF_GROUND_WEIGHT = 0.01;
+	
+	private final double tolerance;
+	private final int maxIterations;
+	
+	/** connectors whose elevation is represented by each variable */
+	private final List<List<EleConnector>> variableConnectors =
+			new ArrayList<List<EleConnector>>();
+	
+	private final Map<EleConnector, Integer> variableMap =
+			new HashMap<EleConnector, Integer>();
+	
+	/** variables at each position, used for joining connectors */
+	private final Map<VectorXZ, List<Integer>> positionMap =
+			new HashMap<VectorXZ, List<Integer>>();
+	
+	/**
+	 * start of each constraint's entries in {@link #columns} and
+	 * {@link #values}. The entries of row r end at rowStart[r+1].
+	 */
+	private int[] rowStart = new int[64];
+	
+	/** variable indices of the non-zero entries */
+	private int[] columns = new int[128];
+	
+	/** factors of the non-zero entries */
+	private double[] values = new double[128];
+	
+	/** bounds for each constraint, infinite if the constraint is one-sided */
+	private double[] lowerBounds = new double[64];
+	private double[] upperBounds = new double[64];
+	
+	private int rowCount = 0;
+	private int entryCount = 0;
+	
+	public SparseEleConstraintEnforcer() {
+		this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+	}
+	
+	/**
+	 * @param tolerance      maximum constraint violation in meters
+	 * @param maxIterations  maximum number of iterations over all constraints
+	 */
+	public SparseEleConstraintEnforcer(double tolerance, int maxIterations) {
+		this.tolerance = tolerance;
+		this.maxIterations = maxIterations;
+	}
+	
+	@Override
+	public void addConnectors(Iterable<EleConnector> connectors) {
+		
+		for (EleConnector c : connectors) {
+			
+			if (variableMap.containsKey(c)) continue;
+			
+			List<Integer> variablesAtPos = positionMap.get(c.pos);
+			
+			if (variablesAtPos == null) {
+				variablesAtPos = new ArrayList<Integer>(1);
+				positionMap.put(c.pos, variablesAtPos);
+			}
+			
+			/* join the connector with matching variables, merging them if
+			 * the connector is the first one to connect them */
+			
+			int variable = -1;
+			
+			for (Iterator<Integer> it = variablesAtPos.iterator(); it.hasNext(); ) {
+				
+				int v = it.next();
+				
+				if (connectsTo(v, c)) {
+					if (variable < 0) {
+						variable = v;
+					} else {
+						mergeVariables(variable, v);
+						it.remove();
+					}
+				}
+				
+			}
+			
+			if (variable < 0) {
+				variable = variableConnectors.size();
+				variableConnectors.add(new ArrayList<EleConnector>(2));
+				variablesAtPos.add(variable);
+			}
+			
+			variableConnectors.get(variable).add(c);
+			variableMap.put(c, variable);
+			
+		}
+		
+	}
+	
+	private boolean connectsTo(int variable, EleConnector connector) {
+		
+		for (EleConnector c : variableConnectors.get(variable)) {
+			if (c.connectsTo(connector)) return true;
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * moves all connectors from one variable to another.
+	 * The other variable is no longer used afterwards.
+	 */
+	private void mergeVariables(int variable, int otherVariable) {
+		
+		for (EleConnector c : variableConnectors.get(otherVariable)) {
+			variableMap.put(c, variable);
+		}
+		
+		variableConnectors.get(variable).addAll(variableConnectors.get(otherVariable));
+		variableConnectors.set(otherVariable, Collections.<EleConnector>emptyList());
+		
+		for (int i = 0; i < entryCount; i++) {
+			if (columns[i] == otherVariable) {
+				columns[i] = variable;
+			}
+		}
+		
+	}
+	
+	@Override
+	public void requireSameEle(EleConnector c1, EleConnector c2) {
+		
+		addConstraint(0, 0,
+				 1, c1,
+				-1, c2);
+		
+	}
+	
+	@Override
+	public void requireSameEle(Iterable<EleConnector> cs) {
+		
+		Iterator<EleConnector> csIterator = cs.iterator();
+		
+		if (csIterator.hasNext()) {
+			
+			EleConnector c = csIterator.next();
+			
+			while (csIterator.hasNext()) {
+				requireSameEle(c, csIterator.next());
+			}
+			
+		}
+		
+	}
+	
+	@Override
+	public void requireVerticalDistance(ConstraintType type, double distance,
+			EleConnector upper, EleConnector base1, EleConnector base2) {
+		
+		double dist1 = base1.pos.distanceTo(upper.pos);
+		double dist2 = base2.pos.distanceTo(upper.pos);
+		
+		double factor1 = (dist1 + dist2) > 0 ? dist2 / (dist1 + dist2) : 0.5;
+		
+		addConstraint(getLowerBound(type, distance), getUpperBound(type, distance),
+				 1, upper,
+				-factor1, base1,
+				-(1 - factor1), base2);
+		
+	}
+	
+	@Override
+	public void requireVerticalDistance(ConstraintType type, double distance,
+			EleConnector upper, EleConnector lower) {
+		
+		addConstraint(getLowerBound(type, distance), getUpperBound(type, distance),
+				 1, upper,
+				-1, lower);
+		
+	}
+	
+	@Override
+	public void requireIncline(ConstraintType type, double incline,
+			List<EleConnector> cs) {
+		
+		for (int i = 0; i+1 < cs.size(); i++) {
+			
+			double limit = incline * cs.get(i).pos.distanceTo(cs.get(i+1).pos);
+			
+			addConstraint(getLowerBound(type, limit), getUpperBound(type, limit),
+					 1, cs.get(i+1),
+					-1, cs.get(i));
+			
+		}
+		
+	}
+	
+	@Override
+	public void requireSmoothness(EleConnector from,
+			EleConnector via, EleConnector to) {
+		
+		double dist12 = from.pos.distanceTo(via.pos);
+		double dist23 = via.pos.distanceTo(to.pos);
+		
+		if (dist12 == 0 || dist23 == 0) return;
+		
+		/* limits the difference between the inclines before and after via:
+		 * | - 1/dist12 * from + (1/dist12 + 1/dist23) * via - 1/dist23 * to |
+		 *   <= maxInclineDiff */
+		
+		double maxInclineDiff = MAX_INCLINE_DIFF_PER_METER * (dist12 + dist23);
+		
+		addConstraint(-maxInclineDiff, maxInclineDiff,
+				-1 / dist12, from,
+				1 / dist12 + 1 / dist23, via,
+				-1 / dist23, to);
+		
+	}
+	
+	@Override
+	public void requireFixedEle(EleConnector c, double ele) {
+		
+		addConstraint(ele, ele,
+				1, c,
+				0, null);
+		
+	}
+	
+	private static double getLowerBound(ConstraintType type, double limit) {
+		return type == ConstraintType.MAX ? NEGATIVE_INFINITY : limit;
+	}
+	
+	private static double getUpperBound(ConstraintType type, double limit) {
+		return type == ConstraintType.MIN ? POSITIVE_INFINITY : limit;
+	}
+	
+	private void addConstraint(double lowerBound, double upperBound,
+			double factor1, EleConnector c1,
+			double factor2, EleConnector c2) {
+		
+		addConstraint(lowerBound, upperBound,
+				factor1, c1,
+				factor2, c2,
+				0, null);
+		
+	}
+	
+	/**
+	 * adds a constraint lowerBound <= sum of factor * elevation <= upperBound.
+	 * Connectors may be null if they are not needed.
+	 */
+	private void addConstraint(double lowerBound, double upperBound,
+			double factor1, EleConnector c1,
+			double factor2, EleConnector c2,
+			double factor3, EleConnector c3) {
+		
+		if (rowCount + 2 > rowStart.length) {
+			rowStart = Arrays.copyOf(rowStart, 2 * rowStart.length);
+			lowerBounds = Arrays.copyOf(lowerBounds, 2 * lowerBounds.length);
+			upperBounds = Arrays.copyOf(upperBounds, 2 * upperBounds.length);
+		}
+		
+		if (entryCount + 3 > columns.length) {
+			columns = Arrays.copyOf(columns, 2 * columns.length);
+			values = Arrays.copyOf(values, 2 * values.length);
+		}
+		
+		rowStart[rowCount] = entryCount;
+		
+		addEntry(factor1, c1);
+		addEntry(factor2, c2);
+		addEntry(factor3, c3);
+		
+		if (entryCount > rowStart[rowCount]) {
+			
+			lowerBounds[rowCount] = lowerBound;
+			upperBounds[rowCount] = upperBound;
+			
+			rowCount += 1;
+			rowStart[rowCount] = entryCount;
+			
+		}
+		
+	}
+	
+	/**
+	 * adds an entry to the current row,
+	 * or adds the factor to an existing entry for the same variable
+	 */
+	private void addEntry(double factor, EleConnector c) {
+		
+		if (c == null) return;
+		
+		Integer variable = variableMap.get(c);
+		
+		if (variable == null) {
+			throw new IllegalArgumentException("unknown connector " + c);
+		}
+		
+		for (int i = rowStart[rowCount]; i < entryCount; i++) {
+			if (columns[i] == variable) {
+				values[i] += factor;
+				return;
+			}
+		}
+		
+		columns[entryCount] = variable;
+		values[entryCount] = factor;
+		entryCount += 1;
+		
+	}
+	
+	@Override
+	public void enforceConstraints() {
+		
+		int variableCount = variableConnectors.size();
+		
+		/* start at the interpolated terrain elevations */
+		
+		double[] ele = new double[variableCount];
+		double[] inverseWeights = new double[variableCount];
+		
+		for (int v = 0; v < variableCount; v++) {
+			
+			List<EleConnector> connectors = variableConnectors.get(v);
+			
+			if (connectors.isEmpty()) {
+				inverseWeights[v] = 1;
+			} else {
+				ele[v] = connectors.get(0).getPosXYZ().y;
+				inverseWeights[v] = connectors.get(0).groundState == ON
+						? 1 : 1 / OFF_GROUND_WEIGHT;
+			}
+			
+		}
+		
+		/* calculate the weighted squared norm of each row */
+		
+		double[] rowNorms = new double[rowCount];
+		
+		for (int r = 0; r < rowCount; r++) {
+			for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+				rowNorms[r] += values[i] * values[i] * inverseWeights[columns[i]];
+			}
+		}
+		
+		/* project onto the constraints until the elevations are stable */
+		
+		double[] duals = new double[rowCount];
+		
+		double maxViolation = POSITIVE_INFINITY;
+		int iteration = 0;
+		
+		while (iteration < maxIterations) {
+			
+			maxViolation = 0;
+			double maxChange = 0;
+			
+			/* alternate the direction, which helps with long chains of constraints */
+			
+			boolean forward = iteration % 2 == 0;
+			
+			for (int step = 0; step < rowCount; step++) {
+				
+				int r = forward ? step : rowCount - 1 - step;
+				
+				if (rowNorms[r] == 0) continue;
+				
+				double value = 0;
+				
+				for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+					value += values[i] * ele[columns[i]];
+				}
+				
+				maxViolation = max(maxViolation, max(
+						lowerBounds[r] - value, value - upperBounds[r]));
+				
+				/* find the correction for this constraint, based on the
+				 * value the row would have without its previous correction */
+				
+				double uncorrectedValue = value + rowNorms[r] * duals[r];
+				
+				double target = min(upperBounds[r], max(lowerBounds[r], uncorrectedValue));
+				double dual = (uncorrectedValue - target) / rowNorms[r];
+				
+				double dualChange = dual - duals[r];
+				
+				if (dualChange != 0) {
+					
+					for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+						double change = values[i] * inverseWeights[columns[i]] * dualChange;
+						ele[columns[i]] -= change;
+						maxChange = max(maxChange, abs(change));
+					}
+					
+					duals[r] = dual;
+					
+				}
+				
+			}
+			
+			iteration += 1;
+			
+			if (maxViolation <= tolerance && maxChange <= tolerance) break;
+			
+		}
+		
+		if (maxViolation > tolerance) {
+			System.err.println(String.format(
+					"constraints violated by up to %.3f m after %d iterations",
+					maxViolation, iteration));
+		}
+		
+		/* apply elevation values */
+		
+		for (int v = 0; v < variableCount; v++) {
+			for (EleConnector c : variableConnectors.get(v)) {
+				c.setPosXYZ(c.pos.xyz(ele[v]));
+			}
+		}
+		
+	}
+	
+}
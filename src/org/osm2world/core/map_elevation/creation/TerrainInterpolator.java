@@ -10,8 +10,19 @@ import org.osm2world.core.math.VectorXZ;
  */
 public interface TerrainInterpolator {
 
+	/**
+	 * provides the known sites. Needs to be called once
+	 * before {@link #interpolateEle(VectorXZ)}.
+	 */
 	void setKnownSites(Collection<VectorXYZ> sites);
 	
+	/**
+	 * calculates the elevation at a position.
+	 * 
+	 * Implementations must allow concurrent calls of this method
+	 * from several threads after {@link #setKnownSites(Collection)}
+	 * has returned, i.e. queries must not modify shared state.
+	 */
 	VectorXYZ interpolateEle(VectorXZ pos);
 	
 }
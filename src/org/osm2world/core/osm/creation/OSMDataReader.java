@@ -2,8 +2,22 @@ package org.osm2world.core.osm.creation;
 
 import java.io.IOException;
 
+import org.osm2world.core.map_data.creation.LatLonBounds;
 import org.osm2world.core.osm.data.OSMData;
 
 public interface OSMDataReader {
+	
 	public OSMData getData() throws IOException;
+	
+	/**
+	 * variant of {@link #getData()} which only returns the data relevant
+	 * for a bounding box: nodes within the box, ways with nodes in the box
+	 * (including all their nodes), relations with members in the result and
+	 * the complete member ways of multipolygons touching the box.
+	 * The bounds of the result are replaced with the filter's bounds.
+	 * 
+	 * @param filter  bounding box; null to return all data
+	 */
+	public OSMData getData(LatLonBounds filter) throws IOException;
+	
 }
@@ -0,0 +1,588 @@
+package org.osm2world.core.osm.creation;
+
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.List;
+
+import org.openstreetmap.josm.plugins.graphview.core.data.TagGroup;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.osm2world.core.map_data.creation.LatLonBounds;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMElement;
+import org.osm2world.core.osm.data.OSMMember;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMRelation;
+import org.osm2world.core.osm.data.OSMWay;
+
+/**
+ * compact staging area for the entities delivered by an Osmosis source.
+ *
+ * Instead of keeping the Osmosis entity objects in id-keyed hash maps,
+ * the data is stored in primitive columns (ids, coordinates, way node refs
+ * as offset + id arrays, relation members likewise). References are
+ * resolved by binary search on the sorted id columns when the
+ * {@link OSMData} is created, so no intermediate maps are necessary.
+ *
+ * Entities are expected to be added in ascending id order per type,
+ * which is the order of practically all .osm and .pbf files.
+ * Other orders are supported, but require an additional sorting step.
+ * If an id occurs more than once, the last occurrence is used.
+ *
+ * An instance can only be turned into {@link OSMData} once.
+ */
+class OSMEntityStore {
+	
+	private static final byte MEMBER_NODE = 0;
+	private static final byte MEMBER_WAY = 1;
+	private static final byte MEMBER_RELATION = 2;
+	
+	/* node columns */
+	
+	private TLongArrayList nodeIds = new TLongArrayList();
+	private TDoubleArrayList nodeLats = new TDoubleArrayList();
+	private TDoubleArrayList nodeLons = new TDoubleArrayList();
+	private List<TagGroup> nodeTags = new ArrayList<TagGroup>();
+	
+	/* way columns; the refs of way i are at [wayNodeOffsets[i], wayNodeOffsets[i+1]) */
+	
+	private TLongArrayList wayIds = new TLongArrayList();
+	private List<TagGroup> wayTags = new ArrayList<TagGroup>();
+	private TIntArrayList wayNodeOffsets = new TIntArrayList(new int[] {0});
+	private TLongArrayList wayNodeRefs = new TLongArrayList();
+	
+	/* relation columns; members are stored like way node refs */
+	
+	private TLongArrayList relationIds = new TLongArrayList();
+	private List<TagGroup> relationTags = new ArrayList<TagGroup>();
+	private TIntArrayList memberOffsets = new TIntArrayList(new int[] {0});
+	private TLongArrayList memberIds = new TLongArrayList();
+	private TByteArrayList memberTypes = new TByteArrayList();
+	private List<String> memberRoles = new ArrayList<String>();
+	
+	public void addNode(long id, double lat, double lon, TagGroup tags) {
+		nodeIds.add(id);
+		nodeLats.add(lat);
+		nodeLons.add(lon);
+		nodeTags.add(tags);
+	}
+	
+	public void addWay(long id, TagGroup tags, List<WayNode> wayNodes) {
+		wayIds.add(id);
+		wayTags.add(tags);
+		for (WayNode wayNode : wayNodes) {
+			wayNodeRefs.add(wayNode.getNodeId());
+		}
+		wayNodeOffsets.add(wayNodeRefs.size());
+	}
+	
+	public void addRelation(long id, TagGroup tags,
+			List<RelationMember> members) {
+		
+		relationIds.add(id);
+		relationTags.add(tags);
+		
+		for (RelationMember member : members) {
+			
+			byte type;
+			
+			if (member.getMemberType() == EntityType.Node) {
+				type = MEMBER_NODE;
+			} else if (member.getMemberType() == EntityType.Way) {
+				type = MEMBER_WAY;
+			} else if (member.getMemberType() == EntityType.Relation) {
+				type = MEMBER_RELATION;
+			} else {
+				continue;
+			}
+			
+			memberIds.add(member.getMemberId());
+			memberTypes.add(type);
+			memberRoles.add(member.getMemberRole());
+			
+		}
+		
+		memberOffsets.add(memberIds.size());
+		
+	}
+	
+	public int getNodeCount() {
+		return nodeIds.size();
+	}
+	
+	public int getWayCount() {
+		return wayIds.size();
+	}
+	
+	public int getRelationCount() {
+		return relationIds.size();
+	}
+	
+	/**
+	 * creates the {@link OSMData} for all stored entities.
+	 * Releases the internal columns afterwards.
+	 * Way nodes and relation members which are not part of the store
+	 * are omitted.
+	 */
+	public OSMData toOSMData(Collection<Bound> bounds) {
+		return toOSMData(bounds, null);
+	}
+	
+	/**
+	 * creates the {@link OSMData} for the stored entities
+	 * which are relevant for a bounding box.
+	 *
+	 * This includes the nodes within the box, all ways with at least one
+	 * of those nodes or a segment crossing the box (including their nodes
+	 * outside the box) and all
+	 * relations with members in the result. For multipolygon relations,
+	 * all member ways are included as well, so their geometry is complete.
+	 * Other entities are never turned into {@link OSMElement}s.
+	 *
+	 * Releases the internal columns afterwards.
+	 *
+	 * @param bounds  the bounds from the input data;
+	 *                replaced with the filter's bounds if a filter is used
+	 * @param filter  bounding box for the result; null to return everything
+	 */
+	public OSMData toOSMData(Collection<Bound> bounds, LatLonBounds filter) {
+		
+		int[] nodeOrder = sortedUniqueOrder(nodeIds);
+		int[] wayOrder = sortedUniqueOrder(wayIds);
+		int[] relationOrder = sortedUniqueOrder(relationIds);
+		
+		long[] sortedNodeIds = select(nodeIds, nodeOrder);
+		long[] sortedWayIds = select(wayIds, wayOrder);
+		long[] sortedRelationIds = select(relationIds, relationOrder);
+		
+		/* resolve references to positions in the sorted id arrays */
+		
+		int[] wayNodeIndices = new int[wayNodeRefs.size()];
+		
+		for (int r = 0; r < wayNodeIndices.length; r++) {
+			wayNodeIndices[r] = Arrays.binarySearch(
+					sortedNodeIds, wayNodeRefs.get(r));
+		}
+		
+		int[] memberIndices = new int[memberIds.size()];
+		
+		for (int m = 0; m < memberIndices.length; m++) {
+			
+			long[] sortedIds;
+			
+			switch (memberTypes.get(m)) {
+			case MEMBER_NODE: sortedIds = sortedNodeIds; break;
+			case MEMBER_WAY: sortedIds = sortedWayIds; break;
+			default: sortedIds = sortedRelationIds;
+			}
+			
+			memberIndices[m] = Arrays.binarySearch(sortedIds, memberIds.get(m));
+			
+		}
+		
+		/* decide which entities will be part of the result */
+		
+		BitSet nodeSelection = new BitSet(nodeOrder.length);
+		BitSet waySelection = new BitSet(wayOrder.length);
+		BitSet relationSelection = new BitSet(relationOrder.length);
+		
+		if (filter == null) {
+			
+			nodeSelection.set(0, nodeOrder.length);
+			waySelection.set(0, wayOrder.length);
+			relationSelection.set(0, relationOrder.length);
+			
+		} else {
+			
+			selectForBounds(filter, nodeOrder, wayOrder, relationOrder,
+					wayNodeIndices, memberIndices,
+					nodeSelection, waySelection, relationSelection);
+			
+			bounds = Collections.singletonList(new Bound(
+					filter.maxlon, filter.minlon, filter.maxlat, filter.minlat,
+					"OSM2World"));
+			
+		}
+		
+		/* nodes */
+		
+		OSMNode[] nodes = new OSMNode[nodeOrder.length];
+		
+		for (int k = nodeSelection.nextSetBit(0); k >= 0;
+				k = nodeSelection.nextSetBit(k + 1)) {
+			int i = nodeOrder[k];
+			nodes[k] = new OSMNode(nodeLats.get(i), nodeLons.get(i),
+					nodeTags.get(i), nodeIds.get(i));
+		}
+		
+		nodeIds = null;
+		nodeLats = null;
+		nodeLons = null;
+		nodeTags = null;
+		
+		/* ways */
+		
+		OSMWay[] ways = new OSMWay[wayOrder.length];
+		
+		for (int k = waySelection.nextSetBit(0); k >= 0;
+				k = waySelection.nextSetBit(k + 1)) {
+			
+			int i = wayOrder[k];
+			int start = wayNodeOffsets.get(i);
+			int end = wayNodeOffsets.get(i + 1);
+			
+			List<OSMNode> wayNodes = new ArrayList<OSMNode>(end - start);
+			
+			for (int r = start; r < end; r++) {
+				if (wayNodeIndices[r] >= 0) {
+					wayNodes.add(nodes[wayNodeIndices[r]]);
+				}
+			}
+			
+			ways[k] = new OSMWay(wayTags.get(i), wayIds.get(i), wayNodes);
+			
+		}
+		
+		wayIds = null;
+		wayTags = null;
+		wayNodeOffsets = null;
+		wayNodeRefs = null;
+		
+		/* relations
+		 * (members need to be added *after* creation because relations
+		 * can be members of other relations) */
+		
+		OSMRelation[] relations = new OSMRelation[relationOrder.length];
+		
+		for (int k = relationSelection.nextSetBit(0); k >= 0;
+				k = relationSelection.nextSetBit(k + 1)) {
+			int i = relationOrder[k];
+			relations[k] = new OSMRelation(relationTags.get(i),
+					relationIds.get(i),
+					memberOffsets.get(i + 1) - memberOffsets.get(i));
+		}
+		
+		for (int k = relationSelection.nextSetBit(0); k >= 0;
+				k = relationSelection.nextSetBit(k + 1)) {
+			
+			int i = relationOrder[k];
+			
+			for (int m = memberOffsets.get(i); m < memberOffsets.get(i + 1); m++) {
+				
+				if (memberIndices[m] < 0) continue;
+				
+				OSMElement memberObject;
+				
+				switch (memberTypes.get(m)) {
+				case MEMBER_NODE: memberObject = nodes[memberIndices[m]]; break;
+				case MEMBER_WAY: memberObject = ways[memberIndices[m]]; break;
+				default: memberObject = relations[memberIndices[m]];
+				}
+				
+				if (memberObject != null) {
+					relations[k].relationMembers.add(
+							new OSMMember(memberRoles.get(m), memberObject));
+				}
+				
+			}
+			
+		}
+		
+		relationIds = null;
+		relationTags = null;
+		memberOffsets = null;
+		memberIds = null;
+		memberTypes = null;
+		memberRoles = null;
+		
+		return new OSMData(bounds, withoutNulls(nodes),
+				withoutNulls(ways), withoutNulls(relations));
+		
+	}
+	
+	/**
+	 * determines the entities that are relevant for a bounding box.
+	 * All indices refer to positions in the sorted id arrays.
+	 *
+	 * @see #toOSMData(Collection, LatLonBounds)
+	 */
+	private void selectForBounds(LatLonBounds filter,
+			int[] nodeOrder, int[] wayOrder, int[] relationOrder,
+			int[] wayNodeIndices, int[] memberIndices,
+			BitSet nodeSelection, BitSet waySelection, BitSet relationSelection) {
+		
+		/* nodes inside the box */
+		
+		BitSet nodesInside = new BitSet(nodeOrder.length);
+		
+		for (int k = 0; k < nodeOrder.length; k++) {
+			double lat = nodeLats.get(nodeOrder[k]);
+			double lon = nodeLons.get(nodeOrder[k]);
+			if (lat >= filter.minlat && lat <= filter.maxlat
+					&& lon >= filter.minlon && lon <= filter.maxlon) {
+				nodesInside.set(k);
+			}
+		}
+		
+		nodeSelection.or(nodesInside);
+		
+		/* ways with at least one node inside the box,
+		 * or with a segment crossing the box */
+		
+		for (int k = 0; k < wayOrder.length; k++) {
+			
+			int i = wayOrder[k];
+			
+			for (int r = wayNodeOffsets.get(i); r < wayNodeOffsets.get(i + 1); r++) {
+				if (wayNodeIndices[r] >= 0 && nodesInside.get(wayNodeIndices[r])) {
+					waySelection.set(k);
+					break;
+				}
+			}
+			
+			if (waySelection.get(k)) continue;
+			
+			for (int r = wayNodeOffsets.get(i) + 1; r < wayNodeOffsets.get(i + 1); r++) {
+				
+				if (wayNodeIndices[r - 1] < 0 || wayNodeIndices[r] < 0) continue;
+				
+				int n1 = nodeOrder[wayNodeIndices[r - 1]];
+				int n2 = nodeOrder[wayNodeIndices[r]];
+				
+				if (segmentIntersectsBounds(nodeLats.get(n1), nodeLons.get(n1),
+						nodeLats.get(n2), nodeLons.get(n2), filter)) {
+					waySelection.set(k);
+					break;
+				}
+				
+			}
+			
+		}
+		
+		/* relations with a node inside the box or a selected way,
+		 * repeated for relations with selected relation members */
+		
+		boolean changed = true;
+		
+		while (changed) {
+			
+			changed = false;
+			
+			for (int k = 0; k < relationOrder.length; k++) {
+				
+				if (relationSelection.get(k)) continue;
+				
+				int i = relationOrder[k];
+				
+				for (int m = memberOffsets.get(i); m < memberOffsets.get(i + 1); m++) {
+					
+					if (memberIndices[m] < 0) continue;
+					
+					BitSet memberSelection;
+					
+					switch (memberTypes.get(m)) {
+					case MEMBER_NODE: memberSelection = nodesInside; break;
+					case MEMBER_WAY: memberSelection = waySelection; break;
+					default: memberSelection = relationSelection;
+					}
+					
+					if (memberSelection.get(memberIndices[m])) {
+						relationSelection.set(k);
+						changed = true;
+						break;
+					}
+					
+				}
+				
+			}
+			
+		}
+		
+		/* complete the outlines of multipolygons */
+		
+		for (int k = relationSelection.nextSetBit(0); k >= 0;
+				k = relationSelection.nextSetBit(k + 1)) {
+			
+			int i = relationOrder[k];
+			
+			if (relationTags.get(i).contains("type", "multipolygon")) {
+				for (int m = memberOffsets.get(i); m < memberOffsets.get(i + 1); m++) {
+					if (memberTypes.get(m) == MEMBER_WAY && memberIndices[m] >= 0) {
+						waySelection.set(memberIndices[m]);
+					}
+				}
+			}
+			
+		}
+		
+		/* all nodes of selected ways */
+		
+		for (int k = waySelection.nextSetBit(0); k >= 0;
+				k = waySelection.nextSetBit(k + 1)) {
+			int i = wayOrder[k];
+			for (int r = wayNodeOffsets.get(i); r < wayNodeOffsets.get(i + 1); r++) {
+				if (wayNodeIndices[r] >= 0) {
+					nodeSelection.set(wayNodeIndices[r]);
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * checks whether a line segment between two coordinate pairs intersects
+	 * a bounding box. Latitude and longitude are treated as planar
+	 * coordinates, which is sufficiently precise for the small distances
+	 * between the nodes of a way.
+	 */
+	static final boolean segmentIntersectsBounds(double lat1, double lon1,
+			double lat2, double lon2, LatLonBounds bounds) {
+		
+		/* clip the segment's parameter range [0,1] against each side of the box */
+		
+		double tMin = 0;
+		double tMax = 1;
+		
+		double[] starts = {lat1, lon1};
+		double[] deltas = {lat2 - lat1, lon2 - lon1};
+		double[] mins = {bounds.minlat, bounds.minlon};
+		double[] maxs = {bounds.maxlat, bounds.maxlon};
+		
+		for (int d = 0; d < 2; d++) {
+			
+			if (deltas[d] == 0) {
+				
+				if (starts[d] < mins[d] || starts[d] > maxs[d]) {
+					return false;
+				}
+				
+			} else {
+				
+				double t1 = (mins[d] - starts[d]) / deltas[d];
+				double t2 = (maxs[d] - starts[d]) / deltas[d];
+				
+				tMin = Math.max(tMin, Math.min(t1, t2));
+				tMax = Math.min(tMax, Math.max(t1, t2));
+				
+				if (tMin > tMax) {
+					return false;
+				}
+				
+			}
+			
+		}
+		
+		return true;
+		
+	}
+	
+	private static final <E> List<E> withoutNulls(E[] elements) {
+		List<E> result = new ArrayList<E>(elements.length);
+		for (E element : elements) {
+			if (element != null) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+	
+	private static final long[] select(TLongArrayList values, int[] indices) {
+		long[] result = new long[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			result[i] = values.get(indices[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * returns the indices of the ids in ascending id order.
+	 * For duplicate ids, only the index of the last occurrence is kept.
+	 */
+	static final int[] sortedUniqueOrder(TLongArrayList ids) {
+		
+		int size = ids.size();
+		
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		
+		/* only sort if the input isn't already sorted (the common case) */
+		
+		boolean sorted = true;
+		boolean unique = true;
+		
+		for (int i = 1; i < size && sorted; i++) {
+			long previous = ids.get(i - 1);
+			long current = ids.get(i);
+			sorted = previous <= current;
+			unique &= previous != current;
+		}
+		
+		if (sorted && unique) {
+			return order;
+		}
+		
+		if (!sorted) {
+			mergeSort(ids, order, new int[size], 0, size);
+		}
+		
+		/* remove duplicates, keeping the last occurrence
+		 * (the merge sort is stable, so that's the last in each run) */
+		
+		int resultSize = 0;
+		
+		for (int i = 0; i < size; i++) {
+			if (i + 1 < size && ids.get(order[i]) == ids.get(order[i + 1])) {
+				continue;
+			}
+			order[resultSize++] = order[i];
+		}
+		
+		return Arrays.copyOf(order, resultSize);
+		
+	}
+	
+	/**
+	 * stable merge sort of the index range [from, to)
+	 * using the ids as keys
+	 */
+	private static final void mergeSort(TLongArrayList ids,
+			int[] order, int[] buffer, int from, int to) {
+		
+		if (to - from < 2) return;
+		
+		int middle = (from + to) >>> 1;
+		
+		mergeSort(ids, order, buffer, from, middle);
+		mergeSort(ids, order, buffer, middle, to);
+		
+		if (ids.get(order[middle - 1]) <= ids.get(order[middle])) return;
+		
+		System.arraycopy(order, from, buffer, from, to - from);
+		
+		int left = from;
+		int right = middle;
+		
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle
+					&& ids.get(buffer[left]) <= ids.get(buffer[right]))) {
+				order[i] = buffer[left++];
+			} else {
+				order[i] = buffer[right++];
+			}
+		}
+		
+	}
+	
+}
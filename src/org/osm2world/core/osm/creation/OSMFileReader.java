@@ -6,6 +6,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 
+import org.osm2world.core.map_data.creation.LatLonBounds;
 import org.osm2world.core.osm.data.OSMData;
 
 /**
@@ -20,9 +21,20 @@ import org.osm2world.core.osm.data.OSMData;
 public class OSMFileReader implements OSMDataReader {
 
 	private final File file;
+	private final int pbfThreads;
 	
 	public OSMFileReader(File file) throws FileNotFoundException {
+		this(file, StrictOSMFileReader.getDefaultPBFThreads());
+	}
+	
+	/**
+	 * @param pbfThreads  number of threads used for decoding .pbf files,
+	 *                    see {@link StrictOSMFileReader#StrictOSMFileReader(File, int)}
+	 */
+	public OSMFileReader(File file, int pbfThreads)
+			throws FileNotFoundException {
 		this.file = file;
+		this.pbfThreads = pbfThreads;
 		if (!file.exists()) {
 			throw new FileNotFoundException(file.toString());
 		}
@@ -30,6 +42,11 @@ public class OSMFileReader implements OSMDataReader {
 	
 	@Override
 	public OSMData getData() throws IOException {
+		return getData(null);
+	}
+	
+	@Override
+	public OSMData getData(LatLonBounds filter) throws IOException {
 		
 		OSMData osmData = null;
 		boolean useJOSMReader = false;
@@ -41,7 +58,7 @@ public class OSMFileReader implements OSMDataReader {
 			/* try to read file using Osmosis */
 			
 			try {
-				osmData = new StrictOSMFileReader(file).getData();
+				osmData = new StrictOSMFileReader(file, pbfThreads).getData(filter);
 			} catch (IOException e) {
 				
 				System.out.println("could not read file," +
@@ -58,7 +75,7 @@ public class OSMFileReader implements OSMDataReader {
 		if (useJOSMReader) {
 			
 			try {
-				osmData = new JOSMFileReader(file).getData();
+				osmData = new JOSMFileReader(file).getData(filter);
 			} catch (Exception e2) {
 				throw new IOException("could not read OSM file" +
 						" (not even with workaround for JOSM files)", e2);
@@ -0,0 +1,260 @@
+package org.osm2world.core.osm.creation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+import com.google.protobuf.ByteString;
+
+import crosby.binary.Fileformat.Blob;
+import crosby.binary.Fileformat.BlobHeader;
+import crosby.binary.file.FileBlock;
+import crosby.binary.osmosis.OsmosisBinaryParser;
+
+/**
+ * source component for an Osmosis pipeline that reads .pbf files.
+ * Replacement for Osmosis' single-threaded
+ * {@link crosby.binary.osmosis.OsmosisReader}.
+ *
+ * The blobs of a .pbf file are compressed independently of each other.
+ * This reader only reads the raw blobs on the calling thread, decompresses
+ * and decodes them on a pool of worker threads, and passes the resulting
+ * entities to the sink in the original block order.
+ */
+public class ParallelPBFReader implements RunnableSource {
+
+	/** maximum size of a blob header according to the format specification */
+	private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+	/** maximum size of a blob according to the format specification */
+	private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+	private final InputStream input;
+	private final int threads;
+
+	private Sink sink;
+
+	/**
+	 * @param input    the .pbf data; will be closed after reading
+	 * @param threads  number of threads used for decoding blocks; &gt;= 1
+	 */
+	public ParallelPBFReader(InputStream input, int threads) {
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("thread count must be positive");
+		}
+
+		this.input = input;
+		this.threads = threads;
+
+	}
+
+	@Override
+	public void setSink(Sink sink) {
+		this.sink = sink;
+	}
+
+	@Override
+	public void run() {
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try {
+
+			sink.initialize(Collections.<String, Object>emptyMap());
+
+			/* read blobs and submit them for decoding. The number of
+			 * pending blocks is limited to keep memory consumption bounded. */
+
+			int maxPendingBlocks = 4 * threads;
+
+			Queue<Future<List<EntityContainer>>> pendingBlocks =
+					new ArrayDeque<Future<List<EntityContainer>>>();
+
+			DataInputStream dataInput = new DataInputStream(
+					new BufferedInputStream(input, 256 * 1024));
+
+			try {
+
+				BlockTask task;
+
+				while ((task = readBlock(dataInput)) != null) {
+
+					pendingBlocks.add(pool.submit(task));
+
+					if (pendingBlocks.size() >= maxPendingBlocks) {
+						sendToSink(pendingBlocks.remove());
+					}
+
+				}
+
+				while (!pendingBlocks.isEmpty()) {
+					sendToSink(pendingBlocks.remove());
+				}
+
+			} finally {
+				dataInput.close();
+			}
+
+			sink.complete();
+
+		} catch (IOException e) {
+			throw new OsmosisRuntimeException("Unable to process PBF stream", e);
+		} finally {
+			pool.shutdownNow();
+			sink.release();
+		}
+
+	}
+
+	/**
+	 * reads the next blob header and blob from the input
+	 *
+	 * @return  a task decoding the blob; null at the end of the input
+	 */
+	private static BlockTask readBlock(DataInputStream dataInput)
+			throws IOException {
+
+		int headerSize;
+
+		try {
+			headerSize = dataInput.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+
+		if (headerSize < 0 || headerSize > MAX_HEADER_SIZE) {
+			throw new IOException("invalid blob header size " + headerSize);
+		}
+
+		byte[] headerBytes = new byte[headerSize];
+		dataInput.readFully(headerBytes);
+		BlobHeader header = BlobHeader.parseFrom(headerBytes);
+
+		if (header.getDatasize() < 0 || header.getDatasize() > MAX_BLOB_SIZE) {
+			throw new IOException("invalid blob size " + header.getDatasize());
+		}
+
+		byte[] blobBytes = new byte[header.getDatasize()];
+		dataInput.readFully(blobBytes);
+
+		return new BlockTask(header, blobBytes);
+
+	}
+
+	private void sendToSink(Future<List<EntityContainer>> block)
+			throws IOException {
+
+		List<EntityContainer> entities;
+
+		try {
+			entities = block.get();
+		} catch (InterruptedException e) {
+			throw new IOException("interrupted while decoding PBF blocks", e);
+		} catch (ExecutionException e) {
+			throw new IOException("could not decode PBF block", e.getCause());
+		}
+
+		for (EntityContainer entity : entities) {
+			sink.process(entity);
+		}
+
+	}
+
+	/**
+	 * decompresses and decodes a single blob.
+	 * Each task uses its own parser because the parser stores
+	 * per-block state (string table, granularity, offsets).
+	 */
+	private static class BlockTask implements Callable<List<EntityContainer>> {
+
+		private final BlobHeader header;
+		private final byte[] blobBytes;
+
+		public BlockTask(BlobHeader header, byte[] blobBytes) {
+			this.header = header;
+			this.blobBytes = blobBytes;
+		}
+
+		@Override
+		public List<EntityContainer> call() throws IOException {
+
+			Blob blob = Blob.parseFrom(blobBytes);
+			ByteString data;
+
+			if (blob.hasRaw()) {
+
+				data = blob.getRaw();
+
+			} else if (blob.hasZlibData()) {
+
+				byte[] rawData = new byte[blob.getRawSize()];
+
+				Inflater inflater = new Inflater();
+
+				try {
+					inflater.setInput(blob.getZlibData().toByteArray());
+					inflater.inflate(rawData);
+					if (!inflater.finished()) {
+						throw new IOException("incomplete zlib data in PBF block");
+					}
+				} catch (DataFormatException e) {
+					throw new IOException("invalid zlib data in PBF block", e);
+				} finally {
+					inflater.end();
+				}
+
+				data = ByteString.copyFrom(rawData);
+
+			} else {
+				throw new IOException("unsupported PBF blob compression");
+			}
+
+			final List<EntityContainer> result = new ArrayList<EntityContainer>();
+
+			OsmosisBinaryParser parser = new OsmosisBinaryParser();
+
+			parser.setSink(new Sink() {
+				public void initialize(Map<String, Object> metaData) {
+					/* do nothing */
+				}
+				public void process(EntityContainer entityContainer) {
+					result.add(entityContainer);
+				}
+				public void complete() {
+					/* do nothing */
+				}
+				public void release() {
+					/* do nothing */
+				}
+			});
+
+			parser.handleBlock(FileBlock.newInstance(
+					header.getType(), data, header.getIndexdata()));
+
+			return result;
+
+		}
+
+	}
+
+}
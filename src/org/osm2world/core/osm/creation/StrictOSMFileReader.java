@@ -21,7 +21,17 @@ public class StrictOSMFileReader extends OsmosisReader  {
 	private final File file;
 	
 	public StrictOSMFileReader(File file) throws FileNotFoundException {
-		super(createSourceForFile(file));
+		this(file, getDefaultPBFThreads());
+	}
+	
+	/**
+	 * @param pbfThreads  number of threads used for decoding .pbf files;
+	 *                    1 disables parallel decoding.
+	 *                    Has no effect for other file formats.
+	 */
+	public StrictOSMFileReader(File file, int pbfThreads)
+			throws FileNotFoundException {
+		super(createSourceForFile(file, pbfThreads));
 		this.file = file;
 	}
 	
@@ -29,8 +39,16 @@ public class StrictOSMFileReader extends OsmosisReader  {
 		return file;
 	}
 	
-	private static final RunnableSource createSourceForFile(File file)
-			throws FileNotFoundException {
+	/**
+	 * returns the number of threads used for decoding .pbf files
+	 * if no thread count is explicitly set
+	 */
+	public static final int getDefaultPBFThreads() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+	
+	private static final RunnableSource createSourceForFile(File file,
+			int pbfThreads) throws FileNotFoundException {
 		
 		boolean pbf = false;
 		CompressionMethod compression = CompressionMethod.None;
@@ -45,7 +63,10 @@ public class StrictOSMFileReader extends OsmosisReader  {
 		
 		RunnableSource reader;
 		
-		if (pbf) {
+		if (pbf && pbfThreads > 1) {
+			reader = new ParallelPBFReader(
+					new FileInputStream(file), pbfThreads);
+		} else if (pbf) {
 			reader = new crosby.binary.osmosis.OsmosisReader(
 					new FileInputStream(file));
 		} else {
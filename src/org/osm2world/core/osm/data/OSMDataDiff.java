@@ -0,0 +1,145 @@
+package org.osm2world.core.osm.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * changes to an {@link OSMData} set, such as those caused by an edit.
+ *
+ * Changed elements replace the elements with the same type and id,
+ * or are added if no such element exists. Elements referencing changed
+ * nodes or ways do not need to be part of the diff,
+ * they will use the new version of the referenced element.
+ * Elements referencing deleted elements need to be changed as well,
+ * except for relations which simply lose these members.
+ */
+public class OSMDataDiff {
+	
+	private final Collection<OSMElement> changedElements;
+	private final Collection<OSMElement> deletedElements;
+	
+	/**
+	 * @param changedElements  added or modified nodes, ways and relations
+	 * @param deletedElements  deleted nodes, ways and relations
+	 */
+	public OSMDataDiff(Collection<? extends OSMElement> changedElements,
+			Collection<? extends OSMElement> deletedElements) {
+		this.changedElements = new ArrayList<OSMElement>(changedElements);
+		this.deletedElements = new ArrayList<OSMElement>(deletedElements);
+	}
+	
+	public Collection<OSMElement> getChangedElements() {
+		return changedElements;
+	}
+	
+	public Collection<OSMElement> getDeletedElements() {
+		return deletedElements;
+	}
+	
+	public boolean isEmpty() {
+		return changedElements.isEmpty() && deletedElements.isEmpty();
+	}
+	
+	/**
+	 * creates a new data set with the changes applied.
+	 * The original data set is not modified.
+	 */
+	public OSMData applyTo(OSMData osmData) {
+		
+		Map<OSMElement, OSMNode> nodes = new LinkedHashMap<OSMElement, OSMNode>();
+		Map<OSMElement, OSMWay> ways = new LinkedHashMap<OSMElement, OSMWay>();
+		Map<OSMElement, OSMRelation> relations = new LinkedHashMap<OSMElement, OSMRelation>();
+		
+		for (OSMNode node : osmData.getNodes()) {
+			nodes.put(node, node);
+		}
+		for (OSMWay way : osmData.getWays()) {
+			ways.put(way, way);
+		}
+		for (OSMRelation relation : osmData.getRelations()) {
+			relations.put(relation, relation);
+		}
+		
+		/* replace or remove elements (OSMElement equality only uses type and id) */
+		
+		for (OSMElement element : deletedElements) {
+			nodes.remove(element);
+			ways.remove(element);
+			relations.remove(element);
+		}
+		
+		for (OSMElement element : changedElements) {
+			if (element instanceof OSMNode) {
+				nodes.put(element, (OSMNode) element);
+			} else if (element instanceof OSMWay) {
+				ways.put(element, (OSMWay) element);
+			} else if (element instanceof OSMRelation) {
+				relations.put(element, (OSMRelation) element);
+			}
+		}
+		
+		/* update the members of relations */
+		
+		for (Map.Entry<OSMElement, OSMRelation> entry : relations.entrySet()) {
+			
+			OSMRelation relation = entry.getValue();
+			
+			List<OSMMember> members = new ArrayList<OSMMember>(
+					relation.relationMembers.size());
+			
+			boolean membersChanged = false;
+			
+			for (OSMMember member : relation.relationMembers) {
+				
+				OSMElement current = getCurrentVersion(member.member,
+						nodes, ways, relations);
+				
+				if (current != member.member) {
+					membersChanged = true;
+				}
+				
+				if (current != null) {
+					members.add(current == member.member ? member
+							: new OSMMember(member.role, current));
+				}
+				
+			}
+			
+			if (membersChanged) {
+				OSMRelation newRelation = new OSMRelation(
+						relation.tags, relation.id, members.size());
+				newRelation.relationMembers.addAll(members);
+				entry.setValue(newRelation);
+			}
+			
+		}
+		
+		return new OSMData(osmData.getBounds(),
+				new ArrayList<OSMNode>(nodes.values()),
+				new ArrayList<OSMWay>(ways.values()),
+				new ArrayList<OSMRelation>(relations.values()));
+		
+	}
+	
+	/**
+	 * returns the element from the maps which is equal to the given element,
+	 * or null if it has been deleted
+	 */
+	private static OSMElement getCurrentVersion(OSMElement element,
+			Map<OSMElement, OSMNode> nodes, Map<OSMElement, OSMWay> ways,
+			Map<OSMElement, OSMRelation> relations) {
+		
+		if (element instanceof OSMNode) {
+			return nodes.get(element);
+		} else if (element instanceof OSMWay) {
+			return ways.get(element);
+		} else {
+			return relations.get(element);
+		}
+		
+	}
+	
+}
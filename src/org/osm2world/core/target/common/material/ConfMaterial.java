@@ -10,12 +10,32 @@ import org.osm2world.core.target.common.TextureData;
  * a material whose attributes can be configured at runtime.
  */
 public class ConfMaterial extends Material {
+	
+	/**
+	 * the material this is a configured copy of, null if it is not a copy.
+	 * See {@link MaterialRegistry}.
+	 */
+	final ConfMaterial original;
+	
+	/**
+	 * creates a copy of a material which can then be configured
+	 * without affecting the original
+	 */
+	ConfMaterial(ConfMaterial original) {
+		super(original.interpolation, original.color,
+				original.ambientFactor, original.diffuseFactor,
+				original.specularFactor, original.shininess,
+				original.transparency, original.shadow,
+				original.ambientOcclusion, original.textureDataList);
+		this.original = original.original != null ? original.original : original;
+	}
 
 	public ConfMaterial(Interpolation interpolation, Color color,
 			float ambientFactor, float diffuseFactor, float specularFactor, int shininess,
 			Transparency transparency, Shadow shadow, AmbientOcclusion ao, List<TextureData> textureDataList) {
 		super(interpolation, color, ambientFactor, diffuseFactor, specularFactor, shininess,
 				transparency, shadow, ao, textureDataList);
+		this.original = null;
 	}
 	
 	public ConfMaterial(Interpolation interpolation, Color color,
@@ -23,15 +43,18 @@ public class ConfMaterial extends Material {
 			Transparency transparency, List<TextureData> textureDataList) {
 		super(interpolation, color, ambientFactor, diffuseFactor, 0.0f, 1,
 				transparency, Shadow.TRUE, AmbientOcclusion.TRUE, textureDataList);
+		this.original = null;
 	}
 	
 	public ConfMaterial(Interpolation interpolation, Color color,
 			Transparency transparency, List<TextureData> textureDataList) {
 		super(interpolation, color, transparency, textureDataList);
+		this.original = null;
 	}
 	
 	public ConfMaterial(Interpolation interpolation, Color color) {
 		super(interpolation, color);
+		this.original = null;
 	}
 	
 	public void setInterpolation(Interpolation interpolation) {
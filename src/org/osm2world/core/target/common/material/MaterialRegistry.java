@@ -0,0 +1,220 @@
+package org.osm2world.core.target.common.material;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.awt.Color;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.configuration.Configuration;
+import org.osm2world.core.target.common.TextureData;
+import org.osm2world.core.target.common.TextureData.Wrap;
+import org.osm2world.core.target.common.material.Material.AmbientOcclusion;
+import org.osm2world.core.target.common.material.Material.Shadow;
+import org.osm2world.core.target.common.material.Material.Transparency;
+import org.osm2world.core.util.ConfigUtil;
+
+/**
+ * the materials used by a conversion: the materials defined in
+ * {@link Materials}, with the attributes set in a configuration.
+ * 
+ * The materials in {@link Materials} are shared defaults and never modified.
+ * A registry creates its own copy of a default material if the configuration
+ * changes any of its attributes. The registry cannot be modified
+ * after its creation, so conversions with different configurations
+ * can use their own registries at the same time.
+ */
+public class MaterialRegistry {
+	
+	private static final Pattern CONF_KEY_PATTERN = Pattern.compile(
+			"material_(.+)_(color|specular|shininess|shadow|ssao|transparency|texture\\d*_(?:file|width|height|bumpmap))");
+	
+	/** configured copies, using the default materials as keys */
+	private final Map<ConfMaterial, ConfMaterial> configuredMaterials;
+	
+	/**
+	 * creates a registry with the default materials, modified by the
+	 * material attributes from a configuration
+	 */
+	public MaterialRegistry(Configuration config) {
+		
+		Map<ConfMaterial, ConfMaterial> configuredMaterials =
+				new HashMap<ConfMaterial, ConfMaterial>();
+		
+		// unchecked type parameter necessary due to Apache libs' old interface
+		@SuppressWarnings("unchecked")
+		Iterator<String> keyIterator = config.getKeys();
+		
+		while (keyIterator.hasNext()) {
+			
+			String key = keyIterator.next();
+			
+			Matcher matcher = CONF_KEY_PATTERN.matcher(key);
+			
+			if (matcher.matches()) {
+				
+				String materialName = matcher.group(1);
+				ConfMaterial defaultMaterial = Materials.getMaterial(materialName);
+				
+				if (defaultMaterial != null) {
+					
+					/* modify a copy, the default material is shared */
+					
+					ConfMaterial material = configuredMaterials.get(defaultMaterial);
+					
+					if (material == null) {
+						material = new ConfMaterial(defaultMaterial);
+						configuredMaterials.put(defaultMaterial, material);
+					}
+					
+					String attribute = matcher.group(2);
+					
+					if ("color".equals(attribute)) {
+						
+						Color color = ConfigUtil.parseColor(
+								config.getString(key));
+						
+						if (color != null) {
+							material.setColor(color);
+						} else {
+							System.err.println("incorrect color value: "
+									+ config.getString(key));
+						}
+						
+					} else if ("specular".equals(attribute)) {
+						
+						float specular = config.getFloat(key);
+						material.setSpecularFactor(specular);
+						
+					} else if ("shininess".equals(attribute)) {
+						
+						int shininess = config.getInt(key);
+						material.setShininess(shininess);
+						
+					} else if ("shadow".equals(attribute)) {
+						
+						String value = config.getString(key).toUpperCase();
+						Shadow shadow = Shadow.valueOf(value);
+						
+						if (shadow != null) {
+							material.setShadow(shadow);
+						}
+						
+					} else if ("ssao".equals(attribute)) {
+						
+						String value = config.getString(key).toUpperCase();
+						AmbientOcclusion ao = AmbientOcclusion.valueOf(value);
+						
+						if (ao != null) {
+							material.setAmbientOcclusion(ao);
+						}
+						
+					} else if ("transparency".equals(attribute)) {
+						
+						String value = config.getString(key).toUpperCase();
+						Transparency transparency = Transparency.valueOf(value);
+						
+						if (transparency != null) {
+							material.setTransparency(transparency);
+						}
+						
+					} else if (attribute.startsWith("texture")) {
+						
+						List<TextureData> textureDataList =
+							new ArrayList<TextureData>();
+						
+						for (int i = 0; i < 32; i++) {
+							
+							String fileKey = "material_" + materialName + "_texture" + i + "_file";
+							String widthKey = "material_" + materialName + "_texture" + i + "_width";
+							String heightKey = "material_" + materialName + "_texture" + i + "_height";
+							String wrapKey = "material_" + materialName + "_texture" + i + "_wrap";
+							String coordFunctionKey = "material_" + materialName + "_texture" + i + "_coord_function";
+							String colorableKey = "material_" + materialName + "_texture" + i + "_colorable";
+							String bumpmapKey = "material_" + materialName + "_texture" + i + "_bumpmap";
+							
+							if (config.getString(fileKey) == null) break;
+							
+							File file = new File(config.getString(fileKey));
+							
+							double width = config.getDouble(widthKey, 1);
+							double height = config.getDouble(heightKey, 1);
+							boolean colorable = config.getBoolean(colorableKey, false);
+							boolean isBumpMap = config.getBoolean(bumpmapKey, false);
+							
+							String wrapString = config.getString(wrapKey);
+							Wrap wrap = Wrap.REPEAT;
+							if ("clamp_to_border".equalsIgnoreCase(wrapString)) {
+								wrap = Wrap.CLAMP_TO_BORDER;
+							} else if ("clamp".equalsIgnoreCase(wrapString)) {
+								wrap = Wrap.CLAMP;
+							}
+							
+							String coordFunctionString = config.getString(coordFunctionKey);
+							TexCoordFunction coordFunction = null;
+							if (coordFunctionString != null) {
+								coordFunction = NamedTexCoordFunction.valueOf(
+										coordFunctionString.toUpperCase());
+							}
+							
+							// bumpmaps are only supported in the shader implementation, skip for others
+							if (!isBumpMap || "shader".equals(config.getString("joglImplementation"))) {
+								TextureData textureData = new TextureData(
+										file, width, height, wrap, coordFunction, colorable, isBumpMap);
+								textureDataList.add(textureData);
+							}
+							
+						}
+						
+						material.setTextureDataList(textureDataList);
+						
+					} else {
+						System.err.println("unknown material attribute: "
+								+ attribute);
+					}
+					
+				} else {
+					System.err.println("unknown material: " + materialName);
+				}
+				
+			}
+			
+		}
+		
+		this.configuredMaterials = unmodifiableMap(configuredMaterials);
+		
+	}
+	
+	/**
+	 * returns this registry's version of a material. For materials from
+	 * {@link Materials}, this is the configured copy (if there is one).
+	 * All other materials are returned unchanged.
+	 */
+	public Material get(Material material) {
+		Material result = configuredMaterials.get(material);
+		return result != null ? result : material;
+	}
+	
+	/**
+	 * returns this registry's versions of all materials from {@link Materials}
+	 */
+	public Collection<Material> getMaterials() {
+		
+		List<Material> result = new ArrayList<Material>();
+		
+		for (ConfMaterial material : Materials.getMaterials()) {
+			result.add(get(material));
+		}
+		
+		return result;
+		
+	}
+	
+}
@@ -1,31 +1,24 @@
 package org.osm2world.core.target.common.material;
 
 import java.awt.Color;
-import java.io.File;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import org.apache.commons.configuration.Configuration;
 import org.osm2world.core.target.common.TextureData;
-import org.osm2world.core.target.common.TextureData.Wrap;
-import org.osm2world.core.target.common.material.Material.AmbientOcclusion;
 import org.osm2world.core.target.common.material.Material.Interpolation;
-import org.osm2world.core.target.common.material.Material.Shadow;
 import org.osm2world.core.target.common.material.Material.Transparency;
-import org.osm2world.core.util.ConfigUtil;
 import org.osm2world.core.world.creation.WorldModule;
 
 /**
- * this class defines materials that can be used by all {@link WorldModule}s
+ * this class defines materials that can be used by all {@link WorldModule}s.
+ * 
+ * These are the default versions of the materials, which are shared by
+ * all conversions and must not be modified. Configured versions
+ * are provided by a conversion's {@link MaterialRegistry}.
  */
 public final class Materials {
 	
@@ -278,152 +271,15 @@ public final class Materials {
 	
 	/**
 	 * returns a human-readable, unique name for a material defined
-	 * within this class, null for all other materials.
+	 * within this class (or a configured copy of it),
+	 * null for all other materials.
 	 */
 	public static final String getUniqueName(Material material) {
-		return fieldNameMap.get(material);
-	}
-	
-	private static final String CONF_KEY_REGEX =
-			"material_(.+)_(color|specular|shininess|shadow|ssao|transparency|texture\\d*_(?:file|width|height|bumpmap))";
-	
-	/**
-	 * configures the attributes of the materials within this class
-	 * based on external configuration settings
-	 */
-	public static final void configureMaterials(Configuration config) {
-		
-		// unchecked type parameter necessary due to Apache libs' old interface
-		@SuppressWarnings("unchecked")
-		Iterator<String> keyIterator = config.getKeys();
-		
-		while (keyIterator.hasNext()) {
-			
-			String key = keyIterator.next();
-			
-			Matcher matcher = Pattern.compile(CONF_KEY_REGEX).matcher(key);
-			
-			if (matcher.matches()) {
-				
-				String materialName = matcher.group(1);
-				ConfMaterial material = getMaterial(materialName);
-				
-				if (material != null) {
-				
-					String attribute = matcher.group(2);
-					
-					if ("color".equals(attribute)) {
-						
-						Color color = ConfigUtil.parseColor(
-								config.getString(key));
-						
-						if (color != null) {
-							material.setColor(color);
-						} else {
-							System.err.println("incorrect color value: "
-									+ config.getString(key));
-						}
-						
-					} else if ("specular".equals(attribute)) {
-						
-						float specular = config.getFloat(key);
-						material.setSpecularFactor(specular);
-						
-					} else if ("shininess".equals(attribute)) {
-						
-						int shininess = config.getInt(key);
-						material.setShininess(shininess);
-						
-					} else if ("shadow".equals(attribute)) {
-						
-						String value = config.getString(key).toUpperCase();
-						Shadow shadow = Shadow.valueOf(value);
-						
-						if (shadow != null) {
-							material.setShadow(shadow);
-						}
-						
-					} else if ("ssao".equals(attribute)) {
-						
-						String value = config.getString(key).toUpperCase();
-						AmbientOcclusion ao = AmbientOcclusion.valueOf(value);
-						
-						if (ao != null) {
-							material.setAmbientOcclusion(ao);
-						}
-						
-					} else if ("transparency".equals(attribute)) {
-						
-						String value = config.getString(key).toUpperCase();
-						Transparency transparency = Transparency.valueOf(value);
-						
-						if (transparency != null) {
-							material.setTransparency(transparency);
-						}
-						
-					} else if (attribute.startsWith("texture")) {
-						
-						List<TextureData> textureDataList =
-							new ArrayList<TextureData>();
-						
-						for (int i = 0; i < 32; i++) {
-							
-							String fileKey = "material_" + materialName + "_texture" + i + "_file";
-							String widthKey = "material_" + materialName + "_texture" + i + "_width";
-							String heightKey = "material_" + materialName + "_texture" + i + "_height";
-							String wrapKey = "material_" + materialName + "_texture" + i + "_wrap";
-							String coordFunctionKey = "material_" + materialName + "_texture" + i + "_coord_function";
-							String colorableKey = "material_" + materialName + "_texture" + i + "_colorable";
-							String bumpmapKey = "material_" + materialName + "_texture" + i + "_bumpmap";
-
-							if (config.getString(fileKey) == null) break;
-							
-							File file = new File(config.getString(fileKey));
-							
-							double width = config.getDouble(widthKey, 1);
-							double height = config.getDouble(heightKey, 1);
-							boolean colorable = config.getBoolean(colorableKey, false);
-							boolean isBumpMap = config.getBoolean(bumpmapKey, false);
-							
-							String wrapString = config.getString(wrapKey);
-							Wrap wrap = Wrap.REPEAT;
-							if ("clamp_to_border".equalsIgnoreCase(wrapString)) {
-								wrap = Wrap.CLAMP_TO_BORDER;
-							} else if ("clamp".equalsIgnoreCase(wrapString)) {
-								wrap = Wrap.CLAMP;
-							}
-							
-							String coordFunctionString = config.getString(coordFunctionKey);
-							TexCoordFunction coordFunction = null;
-							if (coordFunctionString != null) {
-								coordFunction = NamedTexCoordFunction.valueOf(
-										coordFunctionString.toUpperCase());
-							}
-							
-							// bumpmaps are only supported in the shader implementation, skip for others
-							if (!isBumpMap || "shader".equals(config.getString("joglImplementation"))) {
-								TextureData textureData = new TextureData(
-										file, width, height, wrap, coordFunction, colorable, isBumpMap);
-								textureDataList.add(textureData);
-							}
-							
-						}
-						
-						material.setTextureDataList(textureDataList);
-							
-					} else {
-						System.err.println("unknown material attribute: "
-								+ attribute);
-					}
-				
-				} else {
-					System.err.println("unknown material: " + materialName);
-				}
-				
-			}
-			
+		if (material instanceof ConfMaterial
+				&& ((ConfMaterial) material).original != null) {
+			material = ((ConfMaterial) material).original;
 		}
-		
+		return fieldNameMap.get(material);
 	}
 	
 }
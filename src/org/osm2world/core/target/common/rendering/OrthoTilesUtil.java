@@ -3,9 +3,11 @@ package org.osm2world.core.target.common.rendering;
 import static java.lang.Math.PI;
 import static org.osm2world.core.math.AxisAlignedBoundingBoxXZ.union;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.osm2world.core.map_data.creation.LatLonBounds;
 import org.osm2world.core.map_data.creation.MapProjection;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
@@ -169,6 +171,54 @@ public final class OrthoTilesUtil {
 		
 	}
 	
+	/**
+	 * returns all tiles of a zoom level which intersect the given bounds
+	 */
+	public static final List<TileNumber> tilesForBounds(
+			LatLonBounds bounds, int zoom) {
+		
+		int minX = lon2tile(bounds.minlon, zoom);
+		int maxX = lon2tile(bounds.maxlon, zoom);
+		int minY = lat2tile(bounds.maxlat, zoom);
+		int maxY = lat2tile(bounds.minlat, zoom);
+		
+		List<TileNumber> result = new ArrayList<TileNumber>(
+				(maxX - minX + 1) * (maxY - minY + 1));
+		
+		for (int y = minY; y <= maxY; y++) {
+			for (int x = minX; x <= maxX; x++) {
+				result.add(new TileNumber(zoom, x, y));
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * returns the bounds covered by a group of tiles
+	 */
+	public static final LatLonBounds latLonBoundsForTiles(
+			List<TileNumber> tiles) {
+		
+		if (tiles.isEmpty()) { throw new IllegalArgumentException("empty tiles list"); }
+		
+		double minLat = Double.POSITIVE_INFINITY;
+		double minLon = Double.POSITIVE_INFINITY;
+		double maxLat = Double.NEGATIVE_INFINITY;
+		double maxLon = Double.NEGATIVE_INFINITY;
+		
+		for (TileNumber tile : tiles) {
+			minLat = Math.min(minLat, tile2lat(tile.y + 1, tile.zoom));
+			minLon = Math.min(minLon, tile2lon(tile.x, tile.zoom));
+			maxLat = Math.max(maxLat, tile2lat(tile.y, tile.zoom));
+			maxLon = Math.max(maxLon, tile2lon(tile.x + 1, tile.zoom));
+		}
+		
+		return new LatLonBounds(minLat, minLon, maxLat, maxLon);
+		
+	}
+	
 	private static final double tile2lon(int x, int z) {
 		return x / Math.pow(2.0, z) * 360.0 - 180;
 	}
@@ -178,4 +228,16 @@ public final class OrthoTilesUtil {
 		return Math.toDegrees(Math.atan(Math.sinh(n)));
 	}
 	
+	private static final int lon2tile(double lon, int z) {
+		int x = (int) Math.floor((lon + 180) / 360 * (1 << z));
+		return Math.max(0, Math.min((1 << z) - 1, x));
+	}
+	
+	private static final int lat2tile(double lat, int z) {
+		double latRad = Math.toRadians(lat);
+		int y = (int) Math.floor((1 - Math.log(Math.tan(latRad)
+				+ 1 / Math.cos(latRad)) / Math.PI) / 2 * (1 << z));
+		return Math.max(0, Math.min((1 << z) - 1, y));
+	}
+	
 }
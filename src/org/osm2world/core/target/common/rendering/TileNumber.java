@@ -48,9 +48,10 @@ public class TileNumber {
 	 * @throws IllegalArgumentException  for incorrect field values
 	 */
 	private void validateValues() {
-		if (zoom <= 0 || x <= 0 || y <= 0) {
-			//TODO (robustness): more validation
-			throw new IllegalArgumentException("not positive: " + x + ", " + y);
+		if (zoom < 0 || x < 0 || y < 0) {
+			throw new IllegalArgumentException("negative: " + this);
+		} else if (zoom < 31 && (x >= (1 << zoom) || y >= (1 << zoom))) {
+			throw new IllegalArgumentException("outside the world: " + this);
 		}
 	}
 	
@@ -0,0 +1,283 @@
+package org.osm2world.core.target.gltf;
+
+import static java.lang.Float.floatToIntBits;
+import static java.lang.Math.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * the triangles of a single material, as an indexed, interleaved vertex buffer
+ * in the binary layout used by glTF (little endian floats and unsigned ints).
+ *
+ * Each vertex consists of a position, a normal and (optionally)
+ * texture coordinates. Identical vertices are stored only once.
+ * Coordinates are converted to glTF's coordinate system,
+ * which requires mirroring the z axis like the OBJ output.
+ */
+class GltfGeometry {
+	
+	private static final int INITIAL_VERTICES = 64;
+	
+	/** whether vertices have texture coordinates */
+	public final boolean textured;
+	
+	/** size of each vertex in the vertex buffer, in bytes */
+	public final int vertexStride;
+	
+	private ByteBuffer vertexData;
+	private ByteBuffer indexData;
+	
+	private int vertexCount = 0;
+	
+	/**
+	 * open addressing hash table containing vertex indices,
+	 * with -1 for empty slots. Its length is a power of two.
+	 */
+	private int[] vertexTable;
+	
+	private final float[] currentVertex;
+	
+	private final float[] minPosition = {
+			Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+	private final float[] maxPosition = {
+			Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+	
+	public GltfGeometry(boolean textured) {
+		
+		this.textured = textured;
+		
+		currentVertex = new float[textured ? 8 : 6];
+		vertexStride = 4 * currentVertex.length;
+		
+		vertexData = allocate(INITIAL_VERTICES * vertexStride);
+		indexData = allocate(INITIAL_VERTICES * 4);
+		
+		vertexTable = new int[2 * INITIAL_VERTICES];
+		Arrays.fill(vertexTable, -1);
+		
+	}
+	
+	/**
+	 * adds a vertex unless an identical one exists already
+	 *
+	 * @param texCoord  texture coordinate; ignored unless {@link #textured}.
+	 *                  Can be null, this is treated as (0,0).
+	 * @return  the index of the vertex
+	 */
+	public int addVertex(VectorXYZ pos, VectorXYZ normal, VectorXZ texCoord) {
+		
+		currentVertex[0] = (float) pos.x;
+		currentVertex[1] = (float) pos.y;
+		currentVertex[2] = (float) -pos.z;
+		currentVertex[3] = (float) normal.x;
+		currentVertex[4] = (float) normal.y;
+		currentVertex[5] = (float) -normal.z;
+		
+		if (textured) {
+			currentVertex[6] = texCoord == null ? 0 : (float) texCoord.x;
+			currentVertex[7] = texCoord == null ? 1 : (float) (1 - texCoord.z);
+		}
+		
+		/* look for an identical vertex */
+		
+		int mask = vertexTable.length - 1;
+		int slot = hashCurrentVertex() & mask;
+		
+		while (vertexTable[slot] != -1) {
+			if (equalsCurrentVertex(vertexTable[slot])) {
+				return vertexTable[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		/* add a new vertex */
+		
+		int index = vertexCount;
+		
+		vertexData = ensureRemaining(vertexData, vertexStride);
+		
+		for (float f : currentVertex) {
+			vertexData.putFloat(f);
+		}
+		
+		for (int i = 0; i < 3; i++) {
+			minPosition[i] = min(minPosition[i], currentVertex[i]);
+			maxPosition[i] = max(maxPosition[i], currentVertex[i]);
+		}
+		
+		vertexTable[slot] = index;
+		vertexCount += 1;
+		
+		if (2 * vertexCount > vertexTable.length) {
+			rehash();
+		}
+		
+		return index;
+		
+	}
+	
+	/**
+	 * adds a triangle using the indices returned by
+	 * {@link #addVertex(VectorXYZ, VectorXYZ, VectorXZ)}.
+	 * Degenerate triangles are skipped.
+	 */
+	public void addTriangle(int i1, int i2, int i3) {
+		
+		if (i1 == i2 || i2 == i3 || i3 == i1) return;
+		
+		indexData = ensureRemaining(indexData, 12);
+		
+		indexData.putInt(i1);
+		indexData.putInt(i2);
+		indexData.putInt(i3);
+		
+	}
+	
+	public int getVertexCount() {
+		return vertexCount;
+	}
+	
+	public int getIndexCount() {
+		return indexData.position() / 4;
+	}
+	
+	/** returns the minimum of each position coordinate */
+	public float[] getMinPosition() {
+		return minPosition.clone();
+	}
+	
+	/** returns the maximum of each position coordinate */
+	public float[] getMaxPosition() {
+		return maxPosition.clone();
+	}
+	
+	/**
+	 * whether the indices fit into unsigned shorts,
+	 * see {@link #getIndexData()}
+	 */
+	public boolean hasShortIndices() {
+		return vertexCount <= 0xFFFF;
+	}
+	
+	/**
+	 * returns a read-only view of the vertex buffer
+	 */
+	public ByteBuffer getVertexData() {
+		ByteBuffer result = vertexData.duplicate();
+		result.flip();
+		return result.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/**
+	 * returns the index buffer. Uses unsigned shorts
+	 * if {@link #hasShortIndices()}, unsigned ints otherwise.
+	 * The length is padded to a multiple of 4 bytes.
+	 */
+	public ByteBuffer getIndexData() {
+		
+		ByteBuffer ints = indexData.duplicate();
+		ints.flip();
+		ints.order(ByteOrder.LITTLE_ENDIAN);
+		
+		if (!hasShortIndices()) {
+			return ints.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+		}
+		
+		int indexCount = getIndexCount();
+		
+		ByteBuffer shorts = allocate(((2 * indexCount + 3) / 4) * 4);
+		
+		for (int i = 0; i < indexCount; i++) {
+			shorts.putShort((short) ints.getInt(4 * i));
+		}
+		
+		shorts.position(0);
+		return shorts;
+		
+	}
+	
+	private int hashCurrentVertex() {
+		
+		int hash = 1;
+		
+		for (float f : currentVertex) {
+			hash = 31 * hash + floatToIntBits(f);
+		}
+		
+		return hash ^ (hash >>> 16);
+		
+	}
+	
+	private boolean equalsCurrentVertex(int index) {
+		
+		int offset = index * vertexStride;
+		
+		for (int i = 0; i < currentVertex.length; i++) {
+			if (floatToIntBits(vertexData.getFloat(offset + 4 * i))
+					!= floatToIntBits(currentVertex[i])) {
+				return false;
+			}
+		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * doubles the size of {@link #vertexTable}
+	 */
+	private void rehash() {
+		
+		vertexTable = new int[2 * vertexTable.length];
+		Arrays.fill(vertexTable, -1);
+		
+		int mask = vertexTable.length - 1;
+		
+		for (int index = 0; index < vertexCount; index++) {
+			
+			for (int i = 0; i < currentVertex.length; i++) {
+				currentVertex[i] = vertexData.getFloat(index * vertexStride + 4 * i);
+			}
+			
+			int slot = hashCurrentVertex() & mask;
+			
+			while (vertexTable[slot] != -1) {
+				slot = (slot + 1) & mask;
+			}
+			
+			vertexTable[slot] = index;
+			
+		}
+		
+	}
+	
+	private static ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/**
+	 * returns the buffer itself if it has enough space remaining,
+	 * otherwise a larger copy of it
+	 */
+	private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+		
+		if (buffer.remaining() >= bytes) {
+			return buffer;
+		}
+		
+		ByteBuffer result = allocate(
+				max(2 * buffer.capacity(), buffer.position() + bytes));
+		
+		buffer.flip();
+		result.put(buffer);
+		
+		return result;
+		
+	}
+	
+}
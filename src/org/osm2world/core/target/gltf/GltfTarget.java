@@ -0,0 +1,506 @@
+package org.osm2world.core.target.gltf;
+
+import static java.lang.Math.pow;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.GlobalValues;
+import org.osm2world.core.map_data.creation.MapProjection;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.target.RenderableToAllTargets;
+import org.osm2world.core.target.common.Primitive.Type;
+import org.osm2world.core.target.common.PrimitiveTarget;
+import org.osm2world.core.target.common.TextureData;
+import org.osm2world.core.target.common.TextureData.Wrap;
+import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.Material.Transparency;
+import org.osm2world.core.target.common.material.Materials;
+
+/**
+ * target creating a binary glTF 2.0 (.glb) file.
+ *
+ * The geometry is collected in one indexed vertex buffer per material,
+ * see {@link GltfGeometry}. The file is written by
+ * {@link #writeGlbFile(File, MapProjection)} after all objects have been drawn.
+ * Textures are referenced, rather than embedded into the file.
+ */
+public class GltfTarget extends PrimitiveTarget<RenderableToAllTargets> {
+	
+	private static final int GLB_MAGIC = 0x46546C67;
+	private static final int GLB_VERSION = 2;
+	private static final int CHUNK_TYPE_JSON = 0x4E4F534A;
+	private static final int CHUNK_TYPE_BIN = 0x004E4942;
+	
+	private static final int ARRAY_BUFFER = 34962;
+	private static final int ELEMENT_ARRAY_BUFFER = 34963;
+	private static final int UNSIGNED_SHORT = 5123;
+	private static final int UNSIGNED_INT = 5125;
+	private static final int FLOAT = 5126;
+	private static final int MODE_TRIANGLES = 4;
+	private static final int WRAP_REPEAT = 10497;
+	private static final int WRAP_CLAMP_TO_EDGE = 33071;
+	
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	private final Map<Material, GltfGeometry> geometryMap =
+			new LinkedHashMap<Material, GltfGeometry>();
+	
+	@Override
+	public Class<RenderableToAllTargets> getRenderableType() {
+		return RenderableToAllTargets.class;
+	}
+	
+	@Override
+	public void render(RenderableToAllTargets renderable) {
+		renderable.renderTo(this);
+	}
+	
+	@Override
+	protected void drawPrimitive(Type type, Material material,
+			List<VectorXYZ> vs, List<VectorXYZ> normals,
+			List<List<VectorXZ>> texCoordLists) {
+		
+		int textureLayer = getColorTextureLayer(material);
+		
+		GltfGeometry geometry = geometryMap.get(material);
+		
+		if (geometry == null) {
+			geometry = new GltfGeometry(textureLayer >= 0);
+			geometryMap.put(material, geometry);
+		}
+		
+		List<VectorXZ> texCoords = null;
+		
+		if (textureLayer >= 0 && texCoordLists != null
+				&& textureLayer < texCoordLists.size()) {
+			texCoords = texCoordLists.get(textureLayer);
+		}
+		
+		int[] indices = new int[vs.size()];
+		
+		for (int i = 0; i < vs.size(); i++) {
+			indices[i] = geometry.addVertex(vs.get(i), normals.get(i),
+					texCoords == null ? null : texCoords.get(i));
+		}
+		
+		switch (type) {
+		
+		case TRIANGLES:
+			for (int i = 0; i + 2 < indices.length; i += 3) {
+				geometry.addTriangle(indices[i], indices[i+1], indices[i+2]);
+			}
+			break;
+		
+		case TRIANGLE_STRIP:
+			for (int i = 0; i + 2 < indices.length; i++) {
+				if (i % 2 == 0) {
+					geometry.addTriangle(indices[i], indices[i+1], indices[i+2]);
+				} else {
+					geometry.addTriangle(indices[i+1], indices[i], indices[i+2]);
+				}
+			}
+			break;
+		
+		case TRIANGLE_FAN:
+		case CONVEX_POLYGON:
+			for (int i = 1; i + 1 < indices.length; i++) {
+				geometry.addTriangle(indices[0], indices[i], indices[i+1]);
+			}
+			break;
+			
+		}
+		
+	}
+	
+	/**
+	 * returns the index of the texture layer which is used as the glTF
+	 * base color texture, or -1 if the material has no suitable layer
+	 */
+	private static int getColorTextureLayer(Material material) {
+		
+		for (int i = 0; i < material.getNumTextureLayers(); i++) {
+			if (!material.getTextureDataList().get(i).isBumpMap) {
+				return i;
+			}
+		}
+		
+		return -1;
+		
+	}
+	
+	/**
+	 * writes everything drawn to this target to a .glb file
+	 *
+	 * @param mapProjection  projection which is documented in the file's
+	 *                       asset information; can be null
+	 */
+	public void writeGlbFile(File glbFile, MapProjection mapProjection)
+			throws IOException {
+		
+		/* arrange the binary data */
+		
+		List<Material> materials = new ArrayList<Material>();
+		List<ByteBuffer> binData = new ArrayList<ByteBuffer>();
+		
+		for (Map.Entry<Material, GltfGeometry> entry : geometryMap.entrySet()) {
+			if (entry.getValue().getIndexCount() > 0) {
+				materials.add(entry.getKey());
+				binData.add(entry.getValue().getVertexData());
+				binData.add(entry.getValue().getIndexData());
+			}
+		}
+		
+		int binLength = 0;
+		
+		for (ByteBuffer buffer : binData) {
+			binLength += buffer.remaining();
+		}
+		
+		/* create the JSON chunk */
+		
+		byte[] json = createJson(materials, binData, binLength,
+				glbFile.getAbsoluteFile().getParentFile(), mapProjection)
+				.getBytes(UTF_8);
+		
+		int jsonChunkLength = (json.length + 3) / 4 * 4;
+		
+		/* write the file. Without geometry, there is no buffer in the JSON,
+		 * and the optional binary chunk is left out. */
+		
+		boolean hasBinChunk = binLength > 0;
+		
+		ByteBuffer header = ByteBuffer.allocate(
+				12 + 8 + jsonChunkLength + (hasBinChunk ? 8 : 0));
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		
+		header.putInt(GLB_MAGIC);
+		header.putInt(GLB_VERSION);
+		header.putInt(header.capacity() + binLength);
+		
+		header.putInt(jsonChunkLength);
+		header.putInt(CHUNK_TYPE_JSON);
+		header.put(json);
+		while (header.position() < 12 + 8 + jsonChunkLength) {
+			header.put((byte) ' ');
+		}
+		
+		if (hasBinChunk) {
+			header.putInt(binLength);
+			header.putInt(CHUNK_TYPE_BIN);
+		}
+		
+		header.flip();
+		
+		FileChannel channel = new FileOutputStream(glbFile).getChannel();
+		
+		try {
+			
+			writeFully(channel, header);
+			
+			for (ByteBuffer buffer : binData) {
+				writeFully(channel, buffer);
+			}
+			
+		} finally {
+			channel.close();
+		}
+		
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * @param binData  vertex and index buffer for each of the materials
+	 */
+	private String createJson(List<Material> materials,
+			List<ByteBuffer> binData, int binLength,
+			File directory, MapProjection mapProjection) {
+		
+		StringBuilder bufferViews = new StringBuilder();
+		StringBuilder accessors = new StringBuilder();
+		StringBuilder primitives = new StringBuilder();
+		StringBuilder materialsJson = new StringBuilder();
+		
+		Map<TextureData, Integer> textureIndexMap = new LinkedHashMap<TextureData, Integer>();
+		List<File> imageFiles = new ArrayList<File>();
+		List<Wrap> samplerWraps = new ArrayList<Wrap>();
+		
+		int byteOffset = 0;
+		int accessorCount = 0;
+		
+		for (int m = 0; m < materials.size(); m++) {
+			
+			Material material = materials.get(m);
+			GltfGeometry geometry = geometryMap.get(material);
+			
+			String separator = m > 0 ? "," : "";
+			
+			/* buffer views and accessors */
+			
+			int vertexLength = binData.get(2 * m).remaining();
+			int indexLength = binData.get(2 * m + 1).remaining();
+			
+			bufferViews.append(separator)
+				.append("{\"buffer\":0,\"byteOffset\":").append(byteOffset)
+				.append(",\"byteLength\":").append(vertexLength)
+				.append(",\"byteStride\":").append(geometry.vertexStride)
+				.append(",\"target\":").append(ARRAY_BUFFER).append("},")
+				.append("{\"buffer\":0,\"byteOffset\":").append(byteOffset + vertexLength)
+				.append(",\"byteLength\":").append(indexLength)
+				.append(",\"target\":").append(ELEMENT_ARRAY_BUFFER).append("}");
+			
+			byteOffset += vertexLength + indexLength;
+			
+			int vertexView = 2 * m;
+			int firstAccessor = accessorCount;
+			
+			appendAccessor(accessors, vertexView, 0, FLOAT,
+					geometry.getVertexCount(), "VEC3",
+					geometry.getMinPosition(), geometry.getMaxPosition());
+			appendAccessor(accessors, vertexView, 12, FLOAT,
+					geometry.getVertexCount(), "VEC3", null, null);
+			if (geometry.textured) {
+				appendAccessor(accessors, vertexView, 24, FLOAT,
+						geometry.getVertexCount(), "VEC2", null, null);
+			}
+			appendAccessor(accessors, vertexView + 1, 0,
+					geometry.hasShortIndices() ? UNSIGNED_SHORT : UNSIGNED_INT,
+					geometry.getIndexCount(), "SCALAR", null, null);
+			
+			int indexAccessor = firstAccessor + (geometry.textured ? 3 : 2);
+			accessorCount = indexAccessor + 1;
+			
+			/* mesh primitive */
+			
+			primitives.append(separator)
+				.append("{\"attributes\":{\"POSITION\":").append(firstAccessor)
+				.append(",\"NORMAL\":").append(firstAccessor + 1);
+			if (geometry.textured) {
+				primitives.append(",\"TEXCOORD_0\":").append(firstAccessor + 2);
+			}
+			primitives.append("},\"indices\":").append(indexAccessor)
+				.append(",\"material\":").append(m)
+				.append(",\"mode\":").append(MODE_TRIANGLES).append("}");
+			
+			/* material */
+			
+			TextureData textureData = null;
+			if (geometry.textured) {
+				textureData = material.getTextureDataList().get(
+						getColorTextureLayer(material));
+			}
+			
+			Color color = (textureData == null || textureData.colorable)
+					? material.getColor() : Color.WHITE;
+			
+			String name = Materials.getUniqueName(material);
+			
+			materialsJson.append(separator).append("{");
+			if (name != null) {
+				materialsJson.append("\"name\":").append(jsonString(name)).append(",");
+			}
+			materialsJson.append("\"pbrMetallicRoughness\":{\"baseColorFactor\":[")
+				.append(toLinear(color.getRed())).append(",")
+				.append(toLinear(color.getGreen())).append(",")
+				.append(toLinear(color.getBlue())).append(",")
+				.append(color.getAlpha() / 255f).append("]");
+			
+			if (textureData != null) {
+				
+				Integer textureIndex = textureIndexMap.get(textureData);
+				
+				if (textureIndex == null) {
+					textureIndex = textureIndexMap.size();
+					textureIndexMap.put(textureData, textureIndex);
+					if (!imageFiles.contains(textureData.file)) {
+						imageFiles.add(textureData.file);
+					}
+					if (!samplerWraps.contains(textureData.wrap)) {
+						samplerWraps.add(textureData.wrap);
+					}
+				}
+				
+				materialsJson.append(",\"baseColorTexture\":{\"index\":")
+					.append(textureIndex).append("}");
+				
+			}
+			
+			materialsJson.append(",\"metallicFactor\":0,\"roughnessFactor\":1}");
+			
+			if (material.getTransparency() == Transparency.TRUE) {
+				materialsJson.append(",\"alphaMode\":\"BLEND\"");
+			} else if (material.getTransparency() == Transparency.BINARY) {
+				materialsJson.append(",\"alphaMode\":\"MASK\"");
+			}
+			
+			materialsJson.append("}");
+			
+		}
+		
+		/* assemble the document */
+		
+		StringBuilder json = new StringBuilder();
+		
+		json.append("{\"asset\":{\"version\":\"2.0\",\"generator\":")
+			.append(jsonString("OSM2World " + GlobalValues.VERSION_STRING));
+		
+		if (mapProjection != null) {
+			json.append(",\"extras\":{\"originLat\":")
+				.append(mapProjection.calcLat(VectorXZ.NULL_VECTOR))
+				.append(",\"originLon\":")
+				.append(mapProjection.calcLon(VectorXZ.NULL_VECTOR))
+				.append("}");
+		}
+		
+		json.append("}");
+		
+		if (materials.isEmpty()) {
+			json.append(",\"scene\":0,\"scenes\":[{}]}");
+			return json.toString();
+		}
+		
+		json.append(",\"scene\":0,\"scenes\":[{\"nodes\":[0]}]");
+		json.append(",\"nodes\":[{\"mesh\":0}]");
+		json.append(",\"meshes\":[{\"primitives\":[").append(primitives).append("]}]");
+		json.append(",\"materials\":[").append(materialsJson).append("]");
+		
+		if (!textureIndexMap.isEmpty()) {
+			
+			json.append(",\"textures\":[");
+			String separator = "";
+			for (TextureData textureData : textureIndexMap.keySet()) {
+				json.append(separator)
+					.append("{\"source\":").append(imageFiles.indexOf(textureData.file))
+					.append(",\"sampler\":").append(samplerWraps.indexOf(textureData.wrap))
+					.append("}");
+				separator = ",";
+			}
+			json.append("]");
+			
+			json.append(",\"images\":[");
+			separator = "";
+			for (File imageFile : imageFiles) {
+				json.append(separator).append("{\"uri\":")
+					.append(jsonString(getImageUri(imageFile, directory))).append("}");
+				separator = ",";
+			}
+			json.append("]");
+			
+			json.append(",\"samplers\":[");
+			separator = "";
+			for (Wrap wrap : samplerWraps) {
+				int wrapMode = (wrap == Wrap.REPEAT) ? WRAP_REPEAT : WRAP_CLAMP_TO_EDGE;
+				json.append(separator).append("{\"wrapS\":").append(wrapMode)
+					.append(",\"wrapT\":").append(wrapMode).append("}");
+				separator = ",";
+			}
+			json.append("]");
+			
+		}
+		
+		json.append(",\"bufferViews\":[").append(bufferViews).append("]");
+		json.append(",\"accessors\":[").append(accessors).append("]");
+		json.append(",\"buffers\":[{\"byteLength\":").append(binLength).append("}]");
+		
+		json.append("}");
+		
+		return json.toString();
+		
+	}
+	
+	private static void appendAccessor(StringBuilder accessors,
+			int bufferView, int byteOffset, int componentType,
+			int count, String type, float[] min, float[] max) {
+		
+		if (accessors.length() > 0) {
+			accessors.append(",");
+		}
+		
+		accessors.append("{\"bufferView\":").append(bufferView)
+			.append(",\"byteOffset\":").append(byteOffset)
+			.append(",\"componentType\":").append(componentType)
+			.append(",\"count\":").append(count)
+			.append(",\"type\":\"").append(type).append("\"");
+		
+		if (min != null && max != null) {
+			accessors.append(",\"min\":[").append(min[0]).append(",")
+				.append(min[1]).append(",").append(min[2]).append("]")
+				.append(",\"max\":[").append(max[0]).append(",")
+				.append(max[1]).append(",").append(max[2]).append("]");
+		}
+		
+		accessors.append("}");
+		
+	}
+	
+	/**
+	 * converts an sRGB color component to the linear value used by glTF
+	 */
+	private static float toLinear(int component) {
+		double c = component / 255.0;
+		return (float) (c <= 0.04045 ? c / 12.92 : pow((c + 0.055) / 1.055, 2.4));
+	}
+	
+	/**
+	 * returns the URI of an image file, relative to the directory
+	 * of the .glb file if possible
+	 */
+	private static String getImageUri(File imageFile, File directory) {
+		
+		try {
+			
+			Path relativePath = directory.toPath().relativize(
+					imageFile.getAbsoluteFile().toPath());
+			
+			String path = relativePath.toString().replace(File.separatorChar, '/');
+			
+			return new URI(null, null, path, null).getRawPath();
+			
+		} catch (IllegalArgumentException e) {
+			return imageFile.getAbsoluteFile().toURI().toString();
+		} catch (URISyntaxException e) {
+			return imageFile.getAbsoluteFile().toURI().toString();
+		}
+		
+	}
+	
+	private static String jsonString(String s) {
+		
+		StringBuilder result = new StringBuilder("\"");
+		
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				result.append('\\').append(c);
+			} else if (c < 0x20) {
+				result.append(String.format("\\u%04x", (int) c));
+			} else {
+				result.append(c);
+			}
+		}
+		
+		return result.append("\"").toString();
+		
+	}
+	
+}
@@ -0,0 +1,33 @@
+package org.osm2world.core.target.gltf;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.osm2world.core.map_data.creation.MapProjection;
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.target.TargetUtil;
+
+/**
+ * utility class for creating a binary glTF (.glb) file
+ */
+public final class GltfWriter {
+	
+	/** prevents instantiation */
+	private GltfWriter() { }
+	
+	public static final void writeGlbFile(
+			File glbFile, MapData mapData,
+			MapProjection mapProjection)
+			throws IOException {
+		
+		GltfTarget target = new GltfTarget();
+		
+		TargetUtil.renderWorldObjects(target, mapData, true);
+		
+		target.finish();
+		
+		target.writeGlbFile(glbFile, mapProjection);
+		
+	}
+	
+}
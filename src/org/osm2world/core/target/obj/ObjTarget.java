@@ -1,17 +1,15 @@
 package org.osm2world.core.target.obj;
 
-import static java.awt.Color.WHITE;
-import static java.lang.Math.max;
+import static java.lang.Math.*;
 import static java.util.Collections.nCopies;
-import static org.osm2world.core.target.common.material.Material.multiplyColor;
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 
-import java.awt.Color;
-import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.osm2world.core.map_data.data.MapArea;
 import org.osm2world.core.map_data.data.MapElement;
@@ -23,36 +21,55 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.osm.data.OSMElement;
 import org.osm2world.core.target.common.FaceTarget;
-import org.osm2world.core.target.common.TextureData;
 import org.osm2world.core.target.common.material.Material;
-import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.world.data.WorldObject;
 
 public class ObjTarget extends FaceTarget<RenderableToObj> {
 
-	private final PrintStream objStream;
-	private final PrintStream mtlStream;
+	private final PrintWriter objStream;
+	private final ObjMaterialLibrary materialLibrary;
 	
-	private final Map<VectorXYZ, Integer> vertexIndexMap = new HashMap<VectorXYZ, Integer>();
-	private final Map<VectorXYZ, Integer> normalsIndexMap = new HashMap<VectorXYZ, Integer>();
-	private final Map<VectorXZ, Integer> texCoordsIndexMap = new HashMap<VectorXZ, Integer>();
-	private final Map<Material, String> materialMap = new HashMap<Material, String>();
+	private final TObjectIntMap<VectorXYZ> vertexIndexMap = createIndexMap();
+	private final TObjectIntMap<VectorXYZ> normalsIndexMap = createIndexMap();
+	private final TObjectIntMap<VectorXZ> texCoordsIndexMap = createIndexMap();
+	
+	/** reused for building the lines for vectors and faces */
+	private final StringBuilder line = new StringBuilder();
+	private char[] lineChars = new char[128];
 	
 	private Class<? extends WorldObject> currentWOGroup = null;
 	private int anonymousWOCounter = 0;
 	
 	private Material currentMaterial = null;
 	private int currentMaterialLayer = 0;
-	private static int anonymousMaterialCounter = 0;
 	
 	// this is approximatly one millimeter
 	private static final double SMALL_OFFSET = 1e-3;
 	
-	public ObjTarget(PrintStream objStream, PrintStream mtlStream) {
+	/** maximum number of decimal places for numbers in vector lines */
+	private static final int DECIMAL_PLACES = 6;
+	private static final long DECIMAL_FACTOR = 1000000;
+	
+	/**
+	 * @param objStream  writer for the .obj file. Should be buffered,
+	 *                   because the target writes many short lines.
+	 * @param mtlStream  writer for the .mtl file
+	 */
+	public ObjTarget(PrintWriter objStream, PrintWriter mtlStream) {
+		this(objStream, new ObjMaterialLibrary(mtlStream));
+	}
+	
+	/**
+	 * @param objStream        writer for the .obj file, see
+	 *                         {@link #ObjTarget(PrintWriter, PrintWriter)}
+	 * @param materialLibrary  the materials of the .mtl file,
+	 *                         may be shared with other targets
+	 */
+	ObjTarget(PrintWriter objStream, ObjMaterialLibrary materialLibrary) {
 		
 		this.objStream = objStream;
-		this.mtlStream = mtlStream;
-				
+		this.materialLibrary = materialLibrary;
+		
 	}
 	
 	@Override
@@ -172,16 +189,7 @@ public class ObjTarget extends FaceTarget<RenderableToObj> {
 	private void useMaterial(Material material, int layer) {
 		if (!material.equals(currentMaterial) || (layer != currentMaterialLayer)) {
 			
-			String name = materialMap.get(material);
-			if (name == null) {
-				name = Materials.getUniqueName(material);
-				if (name == null) {
-					name = "MAT_" + anonymousMaterialCounter;
-					anonymousMaterialCounter += 1;
-				}
-				materialMap.put(material, name);
-				writeMaterial(material, name);
-			}
+			String name = materialLibrary.getName(material);
 			
 			objStream.println("usemtl " + name + "_" + layer);
 			
@@ -202,28 +210,33 @@ public class ObjTarget extends FaceTarget<RenderableToObj> {
 	}
 	
 	private int[] verticesToIndices(List<? extends VectorXYZ> vs) {
-		return vectorsToIndices(vertexIndexMap, "v ", vs);
+		return vectorsToIndices(vertexIndexMap, "v  ", vs);
 	}
 
 	private int[] normalsToIndices(List<? extends VectorXYZ> normals) {
-		return vectorsToIndices(normalsIndexMap, "vn ", normals);
+		return vectorsToIndices(normalsIndexMap, "vn  ", normals);
 	}
 
 	private int[] texCoordsToIndices(List<VectorXZ> texCoords) {
-		return vectorsToIndices(texCoordsIndexMap, "vt ", texCoords);
+		return vectorsToIndices(texCoordsIndexMap, "vt  ", texCoords);
+	}
+	
+	private static <V> TObjectIntMap<V> createIndexMap() {
+		return new TObjectIntHashMap<V>(Constants.DEFAULT_CAPACITY,
+				Constants.DEFAULT_LOAD_FACTOR, -1);
 	}
 	
-	private <V> int[] vectorsToIndices(Map<V, Integer> indexMap,
+	private <V> int[] vectorsToIndices(TObjectIntMap<V> indexMap,
 			String objLineStart, List<? extends V> vectors) {
 		
 		int[] indices = new int[vectors.size()];
 		
 		for (int i=0; i<vectors.size(); i++) {
 			final V v = vectors.get(i);
-			Integer index = indexMap.get(v);
-			if (index == null) {
+			int index = indexMap.get(v);
+			if (index < 0) {
 				index = indexMap.size();
-				objStream.println(objLineStart + " " + formatVector(v));
+				writeVector(objLineStart, v);
 				indexMap.put(v, index);
 			}
 			indices[i] = index;
@@ -233,81 +246,116 @@ public class ObjTarget extends FaceTarget<RenderableToObj> {
 		
 	}
 	
-	private String formatVector(Object v) {
+	private void writeVector(String objLineStart, Object v) {
+		
+		line.setLength(0);
+		line.append(objLineStart);
 		
 		if (v instanceof VectorXYZ) {
 			VectorXYZ vXYZ = (VectorXYZ)v;
-			return vXYZ.x + " " + vXYZ.y + " " + (-vXYZ.z);
+			appendNumber(line, vXYZ.x);
+			line.append(' ');
+			appendNumber(line, vXYZ.y);
+			line.append(' ');
+			appendNumber(line, -vXYZ.z);
 		} else {
 			VectorXZ vXZ = (VectorXZ)v;
-			return vXZ.x + " " + vXZ.z;
+			appendNumber(line, vXZ.x);
+			line.append(' ');
+			appendNumber(line, vXZ.z);
 		}
 		
+		writeLine();
+		
 	}
-
+	
+	/**
+	 * appends a number with at most {@link #DECIMAL_PLACES} decimal places,
+	 * omitting trailing zeros. Faster than {@link Double#toString(double)}
+	 * and does not use exponential notation for small numbers.
+	 */
+	static void appendNumber(StringBuilder sb, double value) {
+		
+		if (Double.isNaN(value) || Double.isInfinite(value)
+				|| abs(value) >= Long.MAX_VALUE / DECIMAL_FACTOR) {
+			sb.append(value);
+			return;
+		}
+		
+		long scaled = round(abs(value) * DECIMAL_FACTOR);
+		
+		if (scaled == 0) {
+			sb.append('0');
+			return;
+		}
+		
+		if (value < 0) {
+			sb.append('-');
+		}
+		
+		sb.append(scaled / DECIMAL_FACTOR);
+		
+		long fraction = scaled % DECIMAL_FACTOR;
+		
+		if (fraction != 0) {
+			
+			sb.append('.');
+			
+			for (long d = DECIMAL_FACTOR / 10; d > fraction; d /= 10) {
+				sb.append('0');
+			}
+			
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+			}
+			
+			sb.append(fraction);
+			
+		}
+		
+	}
+	
 	private void writeFace(int[] vertexIndices, int[] normalIndices,
 			int[] texCoordIndices) {
 
 		assert normalIndices == null
 				|| vertexIndices.length == normalIndices.length;
 
-		objStream.print("f");
+		line.setLength(0);
+		line.append('f');
 
 		for (int i = 0; i < vertexIndices.length; i++) {
 
-			objStream.print(" " + (vertexIndices[i]+1));
+			line.append(' ').append(vertexIndices[i]+1);
 
 			if (texCoordIndices != null && normalIndices == null) {
-				objStream.print("/" + (texCoordIndices[i]+1));
+				line.append('/').append(texCoordIndices[i]+1);
 			} else if (texCoordIndices == null && normalIndices != null) {
-				objStream.print("//" + (normalIndices[i]+1));
+				line.append("//").append(normalIndices[i]+1);
 			} else if (texCoordIndices != null && normalIndices != null) {
-				objStream.print("/" + (texCoordIndices[i]+1)
-						+ "/" + (normalIndices[i]+1));
+				line.append('/').append(texCoordIndices[i]+1)
+					.append('/').append(normalIndices[i]+1);
 			}
 
 		}
 
-		objStream.println();
+		writeLine();
 	}
 	
-	private void writeMaterial(Material material, String name) {
-
-		for (int i = 0; i < max(1, material.getNumTextureLayers()); i++) {
-			
-			TextureData textureData = null;
-			if (material.getNumTextureLayers() > 0) {
-				textureData = material.getTextureDataList().get(i);
-			}
-		
-			mtlStream.println("newmtl " + name + "_" + i);
-			
-			if (textureData == null || textureData.colorable) {
-				writeColorLine("Ka", material.ambientColor());
-				writeColorLine("Kd", material.diffuseColor());
-				//Ks
-				//Ns
-			} else {
-				writeColorLine("Ka", multiplyColor(WHITE, material.getAmbientFactor()));
-				writeColorLine("Kd", multiplyColor(WHITE, 1 - material.getAmbientFactor()));
-				//Ks
-				//Ns
-			}
+	/**
+	 * writes the content of {@link #line} to the obj stream,
+	 * without creating a temporary string
+	 */
+	private void writeLine() {
 		
-			if (textureData != null) {
-				mtlStream.println("map_Ka " + textureData.file);
-				mtlStream.println("map_Kd " + textureData.file);
-			}
-			mtlStream.println();
+		if (lineChars.length < line.length()) {
+			lineChars = new char[2 * line.length()];
 		}
-	}
-	
-	private void writeColorLine(String lineStart, Color color) {
 		
-		mtlStream.println(lineStart
-				+ " " + color.getRed() / 255f
-				+ " " + color.getGreen() / 255f
-				+ " " + color.getBlue() / 255f);
+		line.getChars(0, line.length(), lineChars, 0);
+		
+		objStream.write(lineChars, 0, line.length());
+		objStream.println();
 		
 	}
 
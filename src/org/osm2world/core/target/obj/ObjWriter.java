@@ -1,28 +1,45 @@
 package org.osm2world.core.target.obj;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.*;
 import static java.lang.String.format;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.osm2world.core.GlobalValues;
 import org.osm2world.core.map_data.creation.MapProjection;
 import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.TargetUtil;
 import org.osm2world.core.target.common.rendering.Camera;
 import org.osm2world.core.target.common.rendering.Projection;
+import org.osm2world.core.world.data.WorldObject;
 
 /**
  * utility class for creating an Wavefront OBJ file
  */
 public final class ObjWriter {
 
+	/** size of the buffer for each file, in chars */
+	private static final int BUFFER_SIZE = 1 << 16;
+	
 	/** prevents instantiation */
 	private ObjWriter() { }
 	
@@ -41,8 +58,8 @@ public final class ObjWriter {
 			mtlFile.createNewFile();
 		}
 		
-		PrintStream objStream = new PrintStream(objFile);
-		PrintStream mtlStream = new PrintStream(mtlFile);
+		PrintWriter objStream = createWriter(objFile);
+		PrintWriter mtlStream = createWriter(mtlFile);
 		
 		/* write comments at the beginning of both files */
 		
@@ -60,8 +77,8 @@ public final class ObjWriter {
 		
 		TargetUtil.renderWorldObjects(target, mapData, true);
 		
-		objStream.close();
-		mtlStream.close();
+		close(objStream, objFile);
+		close(mtlStream, mtlFile);
 		
 	}
 	
@@ -84,71 +101,300 @@ public final class ObjWriter {
 			mtlFile.createNewFile();
 		}
 		
-		final PrintStream mtlStream = new PrintStream(mtlFile);
+		final PrintWriter mtlStream = createWriter(mtlFile);
 		
 		writeMtlHeader(mtlStream);
 		
-		/* create iterator which creates and wraps .obj files as needed */
-				
-		Iterator<ObjTarget> objIterator = new Iterator<ObjTarget>() {
-
-			private int fileCounter = 0;
-			PrintStream objStream = null;
-
-			@Override
-			public boolean hasNext() {
-				return true;
-			}
-
-			@Override
-			public ObjTarget next() {
-
-				try {
-					
-					if (objStream != null) {
-						objStream.close();
-						fileCounter ++;
-					}
+		/* write file content, using an iterator which creates .obj files as needed */
+		
+		ObjFileIterator objIterator = new ObjFileIterator(objDirectory, mtlFile,
+				new ObjMaterialLibrary(mtlStream), mapProjection);
+		
+		TargetUtil.renderWorldObjects(objIterator, mapData, primitiveThresholdPerFile);
+		
+		objIterator.close();
+		close(mtlStream, mtlFile);
+		
+	}
+	
+	/**
+	 * writes the world objects to multiple .obj files, one for each cell
+	 * of a grid covering the data boundary. All files share a single .mtl file.
+	 * The files are written concurrently, each with its own vertex indices.
+	 *
+	 * @param tileSize  width and depth of the grid cells, in meters; > 0
+	 * @param threads   number of files which are written at the same time
+	 */
+	public static final void writeTiledObjFiles(
+			final File objDirectory, MapData mapData,
+			final MapProjection mapProjection,
+			Camera camera, Projection projection,
+			double tileSize, int threads)
+			throws IOException {
+		
+		checkArgument(tileSize > 0, "tile size must be positive");
+		
+		if (!objDirectory.exists()) {
+			objDirectory.mkdir();
+		}
+		
+		checkArgument(objDirectory.isDirectory());
+		
+		final File mtlFile = new File(objDirectory.getPath()
+				+ File.separator + "materials.mtl");
+		if (!mtlFile.exists()) {
+			mtlFile.createNewFile();
+		}
+		
+		final PrintWriter mtlStream = createWriter(mtlFile);
+		
+		writeMtlHeader(mtlStream);
+		
+		final ObjMaterialLibrary materialLibrary = new ObjMaterialLibrary(mtlStream);
+		
+		/* assign world objects to grid cells based on their map element's center */
+		
+		final AxisAlignedBoundingBoxXZ bounds = mapData.getDataBoundary();
+		
+		final int cellsX = max(1, (int) ceil(bounds.sizeX() / tileSize));
+		final int cellsZ = max(1, (int) ceil(bounds.sizeZ() / tileSize));
+		
+		List<List<WorldObject>> objectsPerCell =
+				new ArrayList<List<WorldObject>>(cellsX * cellsZ);
+		
+		for (int i = 0; i < cellsX * cellsZ; i++) {
+			objectsPerCell.add(new ArrayList<WorldObject>());
+		}
+		
+		for (MapElement element : mapData.getMapElements()) {
+			
+			if (element.getRepresentations().isEmpty()) continue;
+			
+			VectorXZ center = element.getAxisAlignedBoundingBoxXZ().center();
+			
+			int cellX = (int) floor((center.x - bounds.minX) / tileSize);
+			int cellZ = (int) floor((center.z - bounds.minZ) / tileSize);
+			
+			cellX = min(max(cellX, 0), cellsX - 1);
+			cellZ = min(max(cellZ, 0), cellsZ - 1);
+			
+			objectsPerCell.get(cellZ * cellsX + cellX).addAll(
+					element.getRepresentations());
+			
+		}
+		
+		/* write one file per non-empty cell */
+		
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		
+		for (int i = 0; i < objectsPerCell.size(); i++) {
+			
+			final List<WorldObject> objects = objectsPerCell.get(i);
+			
+			if (objects.isEmpty()) continue;
+			
+			final int cellIndex = i;
+			
+			tasks.add(new Callable<Void>() {
+				@Override public Void call() throws IOException {
 					
 					File objFile = new File(objDirectory.getPath() + File.separator
-							+ "part" + format("%04d", fileCounter) + ".obj");
+							+ "part" + format("%04d", cellIndex) + ".obj");
 					
-					if (!objFile.exists()) {
-						objFile.createNewFile();
-					}
+					PrintWriter objStream = createWriter(objFile);
 					
-					objStream = new PrintStream(objFile);
+					boolean written = false;
 					
-					writeObjHeader(objStream, mapProjection);
-	
-					objStream.println("mtllib " + mtlFile.getName() + "\n");
+					try {
+						
+						writeObjHeader(objStream, mapProjection);
+						
+						double minX = bounds.minX + (cellIndex % cellsX) * tileSize;
+						double minZ = bounds.minZ + (cellIndex / cellsX) * tileSize;
+						
+						objStream.println("# Tile bounds: x " + minX + " to " + (minX + tileSize)
+								+ ", z " + minZ + " to " + (minZ + tileSize) + "\n");
+						
+						objStream.println("mtllib " + mtlFile.getName() + "\n");
+						
+						ObjTarget target = new ObjTarget(objStream, materialLibrary);
+						
+						for (WorldObject object : objects) {
+							try {
+								TargetUtil.renderObject(target, object);
+							} catch (Exception e) {
+								System.err.println("ignored exception:");
+								//TODO proper logging
+								e.printStackTrace();
+								System.err.println("this exception occurred for the following input:\n"
+										+ object.getPrimaryMapElement());
+							}
+						}
+						
+						close(objStream, objFile);
+						
+						written = true;
+						
+					} finally {
+						
+						/* don't leave a partial tile behind */
+						
+						if (!written) {
+							objStream.close();
+							objFile.delete();
+						}
+						
+					}
 					
-					return new ObjTarget(objStream, mtlStream);
+					return null;
 					
-				} catch (FileNotFoundException e) {
-					throw new RuntimeException(e);
-				} catch (IOException e) {
-					throw new RuntimeException(e);
 				}
-				
+			});
+			
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		boolean tilesWritten = false;
+		
+		try {
+			
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
 			}
-
-			@Override
-			public void remove() {
-				throw new UnsupportedOperationException();
+			
+			tilesWritten = true;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while writing .obj files", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
 			}
+		} finally {
+			
+			pool.shutdown();
 			
-		};
+			if (!tilesWritten) {
+				mtlStream.close();
+			}
+			
+		}
 		
-		/* write file content */
+		close(mtlStream, mtlFile);
 		
-		TargetUtil.renderWorldObjects(objIterator, mapData, primitiveThresholdPerFile);
+	}
+	
+	/**
+	 * iterator which creates and wraps .obj files as needed
+	 */
+	private static final class ObjFileIterator implements Iterator<ObjTarget> {
+		
+		private final File objDirectory;
+		private final File mtlFile;
+		private final ObjMaterialLibrary materialLibrary;
+		private final MapProjection mapProjection;
+		
+		private int fileCounter = 0;
+		private File objFile = null;
+		private PrintWriter objStream = null;
 		
-		mtlStream.close();
+		public ObjFileIterator(File objDirectory, File mtlFile,
+				ObjMaterialLibrary materialLibrary, MapProjection mapProjection) {
+			this.objDirectory = objDirectory;
+			this.mtlFile = mtlFile;
+			this.materialLibrary = materialLibrary;
+			this.mapProjection = mapProjection;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return true;
+		}
+		
+		@Override
+		public ObjTarget next() {
+			
+			try {
+				
+				if (objStream != null) {
+					close();
+					fileCounter ++;
+				}
+				
+				objFile = new File(objDirectory.getPath() + File.separator
+						+ "part" + format("%04d", fileCounter) + ".obj");
+				
+				if (!objFile.exists()) {
+					objFile.createNewFile();
+				}
+				
+				objStream = createWriter(objFile);
+				
+				writeObjHeader(objStream, mapProjection);
+				
+				objStream.println("mtllib " + mtlFile.getName() + "\n");
+				
+				return new ObjTarget(objStream, materialLibrary);
+				
+			} catch (FileNotFoundException e) {
+				throw new RuntimeException(e);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		/** closes the current .obj file, if any */
+		public void close() throws IOException {
+			if (objStream != null) {
+				ObjWriter.close(objStream, objFile);
+			}
+		}
+		
+	}
+	
+	private static final PrintWriter createWriter(File file)
+			throws FileNotFoundException {
+		
+		try {
+			return new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(file), "UTF-8"), BUFFER_SIZE));
+		} catch (UnsupportedEncodingException e) {
+			throw new Error(e);
+		}
+		
+	}
+	
+	/**
+	 * closes a writer created by {@link #createWriter(File)}.
+	 * Unlike {@link PrintWriter#close()}, this reports errors which
+	 * occurred while writing.
+	 */
+	private static final void close(PrintWriter writer, File file)
+			throws IOException {
+		
+		writer.close();
+		
+		if (writer.checkError()) {
+			throw new IOException("error while writing " + file);
+		}
 		
 	}
 
-	private static final void writeObjHeader(PrintStream objStream,
+	private static final void writeObjHeader(PrintWriter objStream,
 			MapProjection mapProjection) {
 		
 		objStream.println("# This file was created by OSM2World "
@@ -167,7 +413,7 @@ public final class ObjWriter {
 		
 	}
 
-	private static final void writeMtlHeader(PrintStream mtlStream) {
+	private static final void writeMtlHeader(PrintWriter mtlStream) {
 		
 		mtlStream.println("# This file was created by OSM2World "
 				+ GlobalValues.VERSION_STRING + " - "
@@ -15,6 +15,7 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.common.AbstractTarget;
 import org.osm2world.core.target.common.TextureData;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
 
 public class POVRayTarget extends AbstractTarget<RenderableToPOVRay> {
@@ -114,9 +115,13 @@ public class POVRayTarget extends AbstractTarget<RenderableToPOVRay> {
 		
 	}
 	
-	public void appendMaterialDefinitions() {
+	/**
+	 * declares all materials of a registry,
+	 * allowing them to be referenced by name
+	 */
+	public void appendMaterialDefinitions(MaterialRegistry materials) {
 		
-		for (Material material : Materials.getMaterials()) {
+		for (Material material : materials.getMaterials()) {
 			
 			String uniqueName = Materials.getUniqueName(material);
 			String name = "texture_" + uniqueName;
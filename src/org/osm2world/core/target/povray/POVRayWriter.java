@@ -11,6 +11,7 @@ import org.osm2world.core.map_data.data.MapElement;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.target.TargetUtil;
 import org.osm2world.core.target.common.lighting.GlobalLightingParameters;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.rendering.Camera;
 import org.osm2world.core.target.common.rendering.Projection;
 import org.osm2world.core.world.data.WorldObject;
@@ -24,7 +25,7 @@ public final class POVRayWriter {
 	private POVRayWriter() { }
 	
 	public static final void writePOVInstructionFile(File file, MapData mapData,
-			Camera camera, Projection projection)
+			MaterialRegistry materials, Camera camera, Projection projection)
 			throws IOException {
 		
 		if (!file.exists()) {
@@ -34,14 +35,14 @@ public final class POVRayWriter {
 		PrintStream printStream = new PrintStream(file);
 		
 		writePOVInstructionStringToStream(printStream,
-				mapData, camera, projection);
+				mapData, materials, camera, projection);
 		
 		printStream.close();
 		
 	}
 
 	private static final void writePOVInstructionStringToStream(
-			PrintStream stream, MapData mapData,
+			PrintStream stream, MapData mapData, MaterialRegistry materials,
 			Camera camera, Projection projection) {
 				
 		POVRayTarget target = new POVRayTarget(stream);
@@ -68,7 +69,7 @@ public final class POVRayWriter {
 				"sky_sphere {\n pigment { Blue_Sky3 }\n} ");
 		target.append("sky_sphere {sky_sphere_def}\n\n");
 		
-		target.appendMaterialDefinitions();
+		target.appendMaterialDefinitions(materials);
 		
 		for (MapElement element : mapData.getMapElements()) {
 			for (WorldObject r : element.getRepresentations()) {
@@ -0,0 +1,47 @@
+package org.osm2world.core.util.metrics;
+
+import org.osm2world.core.ConversionFacade.Phase;
+
+/**
+ * a single value measured during a conversion,
+ * such as the duration of a step or the number of created objects.
+ * Immutable.
+ */
+public class Measurement {
+	
+	public static enum Unit {
+		
+		NANOSECONDS("ns"), COUNT("count"), BYTES("bytes");
+		
+		/** short name used in reports */
+		public final String symbol;
+		
+		private Unit(String symbol) {
+			this.symbol = symbol;
+		}
+		
+	}
+	
+	public final Phase phase;
+	public final String name;
+	public final Unit unit;
+	public final long value;
+	
+	/**
+	 * @param phase  the phase during which the value was measured
+	 * @param name   name of the measured quantity, such as "module.RoadModule".
+	 *               Dots separate the parts of hierarchical names.
+	 */
+	public Measurement(Phase phase, String name, Unit unit, long value) {
+		this.phase = phase;
+		this.name = name;
+		this.unit = unit;
+		this.value = value;
+	}
+	
+	@Override
+	public String toString() {
+		return phase + " " + name + ": " + value + " " + unit.symbol;
+	}
+	
+}
@@ -0,0 +1,14 @@
+package org.osm2world.core.util.metrics;
+
+/**
+ * implemented by classes that want to receive {@link Measurement}s
+ * taken during a conversion run.
+ * 
+ * Measurements can be reported by several threads at the same time,
+ * so implementations need to be thread-safe.
+ */
+public interface MetricsListener {
+	
+	public void measured(Measurement measurement);
+	
+}
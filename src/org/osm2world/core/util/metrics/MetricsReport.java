@@ -0,0 +1,215 @@
+package org.osm2world.core.util.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osm2world.core.ConversionFacade.Phase;
+import org.osm2world.core.util.metrics.Measurement.Unit;
+
+/**
+ * collects the {@link Measurement}s of a conversion run
+ * and writes them to a JSON or CSV file.
+ *
+ * Measurements with the same phase, name and unit are combined
+ * into one entry with their number, sum, minimum and maximum.
+ * Reports are appended to existing files, so a file can collect the
+ * measurements of many conversions. Each line of a JSON report is a
+ * complete JSON object for one conversion. CSV reports have one line
+ * per entry, and start with a header line.
+ */
+public class MetricsReport implements MetricsListener {
+	
+	/** header of CSV files, see {@link #writeCSV(File)} */
+	public static final String CSV_HEADER = "start,phase,name,unit,count,sum,min,max";
+	
+	/** one entry of a report, combining measurements of the same quantity */
+	public static class Entry {
+		
+		public final Phase phase;
+		public final String name;
+		public final Unit unit;
+		
+		private long count = 0;
+		private long sum = 0;
+		private long min = Long.MAX_VALUE;
+		private long max = Long.MIN_VALUE;
+		
+		private Entry(Phase phase, String name, Unit unit) {
+			this.phase = phase;
+			this.name = name;
+			this.unit = unit;
+		}
+		
+		private void add(long value) {
+			count += 1;
+			sum += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		
+		/** returns the number of combined measurements */
+		public long getCount() {
+			return count;
+		}
+		
+		public long getSum() {
+			return sum;
+		}
+		
+		public long getMin() {
+			return min;
+		}
+		
+		public long getMax() {
+			return max;
+		}
+		
+	}
+	
+	private final long start = System.currentTimeMillis();
+	
+	/** entries in the order of their first measurement */
+	private final Map<List<Object>, Entry> entries =
+			new LinkedHashMap<List<Object>, Entry>();
+	
+	@Override
+	public synchronized void measured(Measurement measurement) {
+		
+		List<Object> key = Arrays.<Object>asList(
+				measurement.phase, measurement.name, measurement.unit);
+		
+		Entry entry = entries.get(key);
+		
+		if (entry == null) {
+			entry = new Entry(measurement.phase, measurement.name, measurement.unit);
+			entries.put(key, entry);
+		}
+		
+		entry.add(measurement.value);
+		
+	}
+	
+	/**
+	 * returns copies of the entries, in the order of their first measurement
+	 */
+	public synchronized List<Entry> getEntries() {
+		
+		List<Entry> result = new ArrayList<Entry>(entries.size());
+		
+		for (Entry entry : entries.values()) {
+			Entry copy = new Entry(entry.phase, entry.name, entry.unit);
+			copy.count = entry.count;
+			copy.sum = entry.sum;
+			copy.min = entry.min;
+			copy.max = entry.max;
+			result.add(copy);
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * appends the report to a file.
+	 * Uses CSV for files ending with .csv, and JSON otherwise.
+	 */
+	public void write(File file) throws IOException {
+		if (file.getName().toLowerCase().endsWith(".csv")) {
+			writeCSV(file);
+		} else {
+			writeJSON(file);
+		}
+	}
+	
+	/**
+	 * appends the report to a file as a single line of JSON
+	 */
+	public void writeJSON(File file) throws IOException {
+		
+		PrintWriter writer = new PrintWriter(new FileWriter(file, true));
+		
+		try {
+			
+			writer.print("{\"start\":" + start + ",\"measurements\":[");
+			
+			boolean first = true;
+			
+			for (Entry entry : getEntries()) {
+				
+				if (!first) {
+					writer.print(",");
+				}
+				
+				writer.print("{\"phase\":\"" + entry.phase + "\""
+						+ ",\"name\":\"" + escapeJSON(entry.name) + "\""
+						+ ",\"unit\":\"" + entry.unit.symbol + "\""
+						+ ",\"count\":" + entry.count
+						+ ",\"sum\":" + entry.sum
+						+ ",\"min\":" + entry.min
+						+ ",\"max\":" + entry.max + "}");
+				
+				first = false;
+				
+			}
+			
+			writer.println("]}");
+			
+		} finally {
+			writer.close();
+		}
+		
+	}
+	
+	/**
+	 * appends the report's entries to a CSV file.
+	 * The header line is only written if the file is empty.
+	 */
+	public void writeCSV(File file) throws IOException {
+		
+		boolean writeHeader = !file.exists() || file.length() == 0;
+		
+		PrintWriter writer = new PrintWriter(new FileWriter(file, true));
+		
+		try {
+			
+			if (writeHeader) {
+				writer.println(CSV_HEADER);
+			}
+			
+			for (Entry entry : getEntries()) {
+				writer.println(start
+						+ "," + entry.phase
+						+ "," + escapeCSV(entry.name)
+						+ "," + entry.unit.symbol
+						+ "," + entry.count
+						+ "," + entry.sum
+						+ "," + entry.min
+						+ "," + entry.max);
+			}
+			
+		} finally {
+			writer.close();
+		}
+		
+	}
+	
+	private static String escapeJSON(String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+	
+	private static String escapeCSV(String s) {
+		if (s.contains(",") || s.contains("\"")) {
+			return "\"" + s.replace("\"", "\"\"") + "\"";
+		} else {
+			return s;
+		}
+	}
+	
+}
@@ -0,0 +1,37 @@
+package org.osm2world.core.world.creation;
+
+import java.util.Collection;
+
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+
+/**
+ * a {@link WorldModule} which describes the {@link MapElement}s it works with.
+ * This allows the {@link WorldCreator} to apply it at the same time as other
+ * modules working with different elements.
+ *
+ * Modules which do not implement this interface are never applied
+ * concurrently with other modules.
+ */
+public interface ConcurrentWorldModule extends WorldModule {
+	
+	/**
+	 * returns the elements this module may add representations to,
+	 * or whose representations it may inspect,
+	 * during {@link #applyTo(MapData)}.
+	 *
+	 * Elements which are only read in other ways (such as their tags
+	 * or positions) do not need to be claimed.
+	 */
+	public Collection<ElementClaim> getClaims();
+	
+	/**
+	 * returns the types of modules which need to be applied before this one
+	 * if they are used in the same conversion.
+	 * The modules will also be applied in the order of the module list
+	 * if their claims overlap, so this is only necessary for dependencies
+	 * which are not reflected by the claims.
+	 */
+	public Collection<Class<? extends WorldModule>> getPredecessors();
+	
+}
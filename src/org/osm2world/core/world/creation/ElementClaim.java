@@ -0,0 +1,105 @@
+package org.osm2world.core.world.creation;
+
+import static java.util.Arrays.asList;
+
+import java.util.List;
+
+import org.openstreetmap.josm.plugins.graphview.core.data.TagGroup;
+import org.osm2world.core.map_data.data.MapArea;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.MapWaySegment;
+
+/**
+ * a group of {@link MapElement}s that a {@link ConcurrentWorldModule}
+ * works with, identified by element type and tag keys.
+ *
+ * Claims only need to be specific enough to tell modules apart,
+ * so they use keys rather than complete tags.
+ */
+public class ElementClaim {
+	
+	private final Class<? extends MapElement> type;
+	private final List<String> keys;
+	private final boolean viaConnectedWaySegments;
+	
+	private ElementClaim(Class<? extends MapElement> type, String[] keys,
+			boolean viaConnectedWaySegments) {
+		this.type = type;
+		this.keys = asList(keys);
+		this.viaConnectedWaySegments = viaConnectedWaySegments;
+	}
+	
+	/**
+	 * claims the nodes with at least one of the keys.
+	 * Claims all nodes if no keys are given.
+	 */
+	public static ElementClaim nodes(String... keys) {
+		return new ElementClaim(MapNode.class, keys, false);
+	}
+	
+	/**
+	 * claims the nodes connected to at least one way segment
+	 * with one of the keys. Claims all nodes with connected way segments
+	 * if no keys are given.
+	 */
+	public static ElementClaim nodesOfWaySegments(String... keys) {
+		return new ElementClaim(MapNode.class, keys, true);
+	}
+	
+	/**
+	 * claims the way segments with at least one of the keys.
+	 * Claims all way segments if no keys are given.
+	 */
+	public static ElementClaim waySegments(String... keys) {
+		return new ElementClaim(MapWaySegment.class, keys, false);
+	}
+	
+	/**
+	 * claims the areas with at least one of the keys.
+	 * Claims all areas if no keys are given.
+	 */
+	public static ElementClaim areas(String... keys) {
+		return new ElementClaim(MapArea.class, keys, false);
+	}
+	
+	/**
+	 * checks whether an element is part of this claim
+	 */
+	public boolean matches(MapElement element) {
+		
+		if (!type.isInstance(element)) {
+			return false;
+		}
+		
+		if (viaConnectedWaySegments) {
+			
+			for (MapWaySegment segment :
+					((MapNode) element).getConnectedWaySegments()) {
+				if (matches(segment.getTags())) {
+					return true;
+				}
+			}
+			
+			return false;
+			
+		} else {
+			
+			return matches(element.getTags());
+			
+		}
+		
+	}
+	
+	private boolean matches(TagGroup tags) {
+		return keys.isEmpty() || tags.containsAnyKey(keys);
+	}
+	
+	@Override
+	public String toString() {
+		return type.getSimpleName()
+				+ (viaConnectedWaySegments ? " connected to ways " : " ")
+				+ keys;
+	}
+	
+}
@@ -1,35 +1,288 @@
 package org.osm2world.core.world.creation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.configuration.Configuration;
+import org.osm2world.core.ConversionFacade.Phase;
 import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.target.common.material.MaterialRegistry;
+import org.osm2world.core.util.metrics.Measurement;
+import org.osm2world.core.util.metrics.Measurement.Unit;
+import org.osm2world.core.util.metrics.MetricsListener;
 
 public class WorldCreator {
 
-	private Collection<WorldModule> modules;
-		
+	private List<WorldModule> modules;
+	
+	private final int threads;
+	
+	private MetricsListener metricsListener = null;
+	
 	public WorldCreator(Configuration config, WorldModule... modules) {
 		this(config, Arrays.asList(modules));
 	}
 	
+	/**
+	 * creates a world creator whose modules use the materials
+	 * from a new {@link MaterialRegistry} for the configuration
+	 */
 	public WorldCreator(Configuration config, List<WorldModule> modules) {
+		this(config, new MaterialRegistry(config), modules);
+	}
+	
+	/**
+	 * @param config  configuration for the modules. Its "moduleThreads"
+	 *                property sets the number of threads for applying
+	 *                {@link ConcurrentWorldModule}s (default: 1)
+	 * @param materials  materials for the modules, usually created from config
+	 */
+	public WorldCreator(Configuration config, MaterialRegistry materials,
+			List<WorldModule> modules) {
 		this.modules = modules;
+		this.threads = config.getInt("moduleThreads", 1);
 		for (WorldModule module : modules) {
-			module.setConfiguration(config);
+			module.setConfiguration(config, materials);
 		}
 	}
 	
+	/**
+	 * sets a listener which receives the time needed by each module.
+	 * It will be called from several threads if modules are applied concurrently.
+	 * 
+	 * @param metricsListener  the listener; null to stop measuring
+	 */
+	public void setMetricsListener(MetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+	}
+	
 	public void addRepresentationsTo(MapData mapData) {
 		
-		for (WorldModule module : modules) {
-			module.applyTo(mapData);
+		if (threads > 1 && modules.size() > 1) {
+			applyModulesConcurrently(mapData);
+		} else {
+			for (WorldModule module : modules) {
+				applyModule(module, mapData);
+			}
 		}
 		
+		long start = System.nanoTime();
+		
 		NetworkCalculator.calculateNetworkInformationInGrid(mapData);
 		
+		measured("networkCalculation", start);
+		
+	}
+	
+	private void applyModule(WorldModule module, MapData mapData) {
+		
+		long start = System.nanoTime();
+		
+		module.applyTo(mapData);
+		
+		measured("module." + module.getClass().getSimpleName(), start);
+		
+	}
+	
+	private void measured(String name, long start) {
+		if (metricsListener != null) {
+			metricsListener.measured(new Measurement(Phase.REPRESENTATION,
+					name, Unit.NANOSECONDS, System.nanoTime() - start));
+		}
+	}
+	
+	/**
+	 * applies the modules using a pool of threads.
+	 * A module is started as soon as all modules it depends on
+	 * (see {@link #calculateModuleDependencies(List, MapData)}) are finished.
+	 */
+	private void applyModulesConcurrently(final MapData mapData) {
+		
+		List<BitSet> dependencies = calculateModuleDependencies(modules, mapData);
+		
+		int[] remainingDependencies = new int[modules.size()];
+		List<BitSet> dependentModules = new ArrayList<BitSet>(modules.size());
+		
+		for (int m = 0; m < modules.size(); m++) {
+			dependentModules.add(new BitSet(modules.size()));
+		}
+		
+		for (int m = 0; m < modules.size(); m++) {
+			BitSet d = dependencies.get(m);
+			remainingDependencies[m] = d.cardinality();
+			for (int i = d.nextSetBit(0); i >= 0; i = d.nextSetBit(i + 1)) {
+				dependentModules.get(i).set(m);
+			}
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		try {
+			
+			CompletionService<Integer> completionService =
+					new ExecutorCompletionService<Integer>(pool);
+			
+			for (int m = 0; m < modules.size(); m++) {
+				if (remainingDependencies[m] == 0) {
+					submitModule(completionService, m, mapData);
+				}
+			}
+			
+			for (int finished = 0; finished < modules.size(); finished++) {
+				
+				int m = completionService.take().get();
+				
+				BitSet d = dependentModules.get(m);
+				
+				for (int i = d.nextSetBit(0); i >= 0; i = d.nextSetBit(i + 1)) {
+					remainingDependencies[i] -= 1;
+					if (remainingDependencies[i] == 0) {
+						submitModule(completionService, i, mapData);
+					}
+				}
+				
+			}
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while applying modules", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		
+	}
+	
+	private void submitModule(CompletionService<Integer> completionService,
+			final int moduleIndex, final MapData mapData) {
+		
+		completionService.submit(new Callable<Integer>() {
+			@Override public Integer call() {
+				applyModule(modules.get(moduleIndex), mapData);
+				return moduleIndex;
+			}
+		});
+		
+	}
+	
+	/**
+	 * determines which modules need to be applied before each module.
+	 *
+	 * A module depends on an earlier module from the list if
+	 * <ul>
+	 * <li>at least one of them is not a {@link ConcurrentWorldModule},</li>
+	 * <li>their claims both match at least one element of the map data, or</li>
+	 * <li>the earlier module's type is one of the later module's
+	 *     {@link ConcurrentWorldModule#getPredecessors()}.</li>
+	 * </ul>
+	 * Modules never depend on later modules from the list, so modules
+	 * working with the same elements are always applied in list order.
+	 *
+	 * @return  one set of indices per module, containing the indices
+	 *          of the modules it depends on
+	 */
+	static List<BitSet> calculateModuleDependencies(
+			List<WorldModule> modules, MapData mapData) {
+		
+		List<BitSet> dependencies = new ArrayList<BitSet>(modules.size());
+		
+		for (int m = 0; m < modules.size(); m++) {
+			dependencies.add(new BitSet(modules.size()));
+		}
+		
+		/* modules without claims */
+		
+		for (int m = 0; m < modules.size(); m++) {
+			if (!(modules.get(m) instanceof ConcurrentWorldModule)) {
+				dependencies.get(m).set(0, m);
+				for (int later = m + 1; later < modules.size(); later++) {
+					dependencies.get(later).set(m);
+				}
+			}
+		}
+		
+		/* explicitly declared predecessors */
+		
+		for (int m = 0; m < modules.size(); m++) {
+			if (modules.get(m) instanceof ConcurrentWorldModule) {
+				
+				ConcurrentWorldModule module = (ConcurrentWorldModule) modules.get(m);
+				
+				for (Class<? extends WorldModule> predecessor : module.getPredecessors()) {
+					for (int earlier = 0; earlier < m; earlier++) {
+						if (predecessor.isInstance(modules.get(earlier))) {
+							dependencies.get(m).set(earlier);
+						}
+					}
+				}
+				
+			}
+		}
+		
+		/* overlapping claims. Combinations of modules are collected first,
+		 * because most elements are claimed by the same few combinations */
+		
+		List<Collection<ElementClaim>> claims =
+				new ArrayList<Collection<ElementClaim>>(modules.size());
+		
+		for (WorldModule module : modules) {
+			if (module instanceof ConcurrentWorldModule) {
+				claims.add(((ConcurrentWorldModule) module).getClaims());
+			} else {
+				claims.add(Collections.<ElementClaim>emptyList());
+			}
+		}
+		
+		Set<BitSet> claimCombinations = new HashSet<BitSet>();
+		
+		for (MapElement element : mapData.getMapElements()) {
+			
+			BitSet claimingModules = new BitSet(modules.size());
+			
+			for (int m = 0; m < modules.size(); m++) {
+				for (ElementClaim claim : claims.get(m)) {
+					if (claim.matches(element)) {
+						claimingModules.set(m);
+						break;
+					}
+				}
+			}
+			
+			if (claimingModules.cardinality() > 1) {
+				claimCombinations.add(claimingModules);
+			}
+			
+		}
+		
+		for (BitSet claimingModules : claimCombinations) {
+			for (int m = claimingModules.nextSetBit(0); m >= 0;
+					m = claimingModules.nextSetBit(m + 1)) {
+				BitSet earlierModules = claimingModules.get(0, m);
+				dependencies.get(m).or(earlierModules);
+			}
+		}
+		
+		return dependencies;
+		
 	}
 	
 }
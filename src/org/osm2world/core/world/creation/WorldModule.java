@@ -3,6 +3,7 @@ package org.osm2world.core.world.creation;
 import org.apache.commons.configuration.Configuration;
 import org.osm2world.core.map_data.data.MapData;
 import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.world.data.WorldObject;
 
 public interface WorldModule {
@@ -14,8 +15,12 @@ public interface WorldModule {
 	 * This is guaranteed to be called before {@link #applyTo(MapData)},
 	 * but not all parameters might be explicitly set in the configuration,
 	 * so defaults need to be available.
+	 * 
+	 * The {@link MaterialRegistry} contains the materials configured for
+	 * this conversion. Modules must use materials obtained from it,
+	 * rather than the shared default materials.
 	 */
-	public void setConfiguration(Configuration config);
+	public void setConfiguration(Configuration config, MaterialRegistry materials);
 	
 	/**
 	 * adds {@link WorldObject}s to {@link MapElement}s
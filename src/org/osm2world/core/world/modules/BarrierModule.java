@@ -1,14 +1,18 @@
 package org.osm2world.core.world.modules;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.nCopies;
 import static org.osm2world.core.target.common.material.Materials.CHAIN_LINK_FENCE;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.*;
 import static org.osm2world.core.target.common.material.TexCoordUtil.texCoordLists;
+import static org.osm2world.core.world.creation.ElementClaim.nodes;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.*;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -24,7 +28,11 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.NoOutlineNodeWorldObject;
 import org.osm2world.core.world.modules.common.AbstractModule;
 import org.osm2world.core.world.network.AbstractNetworkWaySegmentWorldObject;
@@ -32,7 +40,20 @@ import org.osm2world.core.world.network.AbstractNetworkWaySegmentWorldObject;
 /**
  * adds barriers to the world
  */
-public class BarrierModule extends AbstractModule {
+public class BarrierModule extends AbstractModule
+		implements ConcurrentWorldModule {
+	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				waySegments("barrier"),
+				nodes("barrier", "power"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
 	
 	@Override
 	protected void applyToWaySegment(MapWaySegment line) {
@@ -41,15 +62,15 @@ public class BarrierModule extends AbstractModule {
 		if (!tags.containsKey("barrier")) return; //fast exit for common case
 		
 		if (Wall.fits(tags)) {
-			line.addRepresentation(new Wall(line));
+			line.addRepresentation(new Wall(line, materials));
 		} else if (CityWall.fits(tags)) {
-			line.addRepresentation(new CityWall(line));
+			line.addRepresentation(new CityWall(line, materials));
 		} else if (Hedge.fits(tags)) {
-			line.addRepresentation(new Hedge(line));
+			line.addRepresentation(new Hedge(line, materials));
 		} else if (ChainLinkFence.fits(tags)) {
-			line.addRepresentation(new ChainLinkFence(line, tags));
+			line.addRepresentation(new ChainLinkFence(line, tags, materials));
 		} else if (Fence.fits(tags)) {
-			line.addRepresentation(new Fence(line, tags));
+			line.addRepresentation(new Fence(line, tags, materials));
 		}
 			
 	}
@@ -61,7 +82,7 @@ public class BarrierModule extends AbstractModule {
 		if (!tags.containsKey("barrier") && !tags.containsKey("power")) return; //fast exit for common case
 
 		if (Bollard.fits(tags)) {
-			node.addRepresentation(new Bollard(node, tags));
+			node.addRepresentation(new Bollard(node, tags, materials));
 		}
 
 		
@@ -169,7 +190,8 @@ public class BarrierModule extends AbstractModule {
 			return tags.contains("barrier", "wall");
 		}
 		
-		private static Material getMaterial(TagGroup tags) {
+		private static Material getMaterial(TagGroup tags,
+				MaterialRegistry materials) {
 			
 			Material material = null;
 			
@@ -180,15 +202,15 @@ public class BarrierModule extends AbstractModule {
 			}
 			
 			if (material != null) {
-				return material;
+				return materials.get(material);
 			} else {
-				return Materials.WALL_DEFAULT;
+				return materials.get(Materials.WALL_DEFAULT);
 			}
 			
 		}
 		
-		public Wall(MapWaySegment segment) {
-			super(getMaterial(segment.getTags()), segment, 1f, 0.25f);
+		public Wall(MapWaySegment segment, MaterialRegistry materials) {
+			super(getMaterial(segment.getTags(), materials), segment, 1f, 0.25f);
 		}
 		
 	}
@@ -197,8 +219,8 @@ public class BarrierModule extends AbstractModule {
 		public static boolean fits(TagGroup tags) {
 			return tags.contains("barrier", "city_wall");
 		}
-		public CityWall(MapWaySegment segment) {
-			super(Materials.WALL_DEFAULT, segment, 10, 2);
+		public CityWall(MapWaySegment segment, MaterialRegistry materials) {
+			super(materials.get(Materials.WALL_DEFAULT), segment, 10, 2);
 		}
 	}
 	
@@ -206,8 +228,8 @@ public class BarrierModule extends AbstractModule {
 		public static boolean fits(TagGroup tags) {
 			return tags.contains("barrier", "hedge");
 		}
-		public Hedge(MapWaySegment segment) {
-			super(Materials.HEDGE, segment, 1f, 0.5f);
+		public Hedge(MapWaySegment segment, MaterialRegistry materials) {
+			super(materials.get(Materials.HEDGE), segment, 1f, 0.5f);
 		}
 	}
 	
@@ -218,8 +240,12 @@ public class BarrierModule extends AbstractModule {
 					&& tags.contains("fence_type", "chain_link");
 		}
 		
-		public ChainLinkFence(MapWaySegment segment, TagGroup tags) {
+		private final Material material;
+		
+		public ChainLinkFence(MapWaySegment segment, TagGroup tags,
+				MaterialRegistry materials) {
 			super(segment, 1f, 0.02f);
+			material = materials.get(CHAIN_LINK_FENCE);
 		}
 		
 		@Override
@@ -232,9 +258,9 @@ public class BarrierModule extends AbstractModule {
 			List<VectorXYZ> vsFence = createVerticalTriangleStrip(
 					pointsWithEle, 0, height);
 			List<List<VectorXZ>> texCoordListsFence = texCoordLists(
-					vsFence, CHAIN_LINK_FENCE, STRIP_WALL);
+					vsFence, material, STRIP_WALL);
 			
-			target.drawTriangleStrip(CHAIN_LINK_FENCE, vsFence, texCoordListsFence);
+			target.drawTriangleStrip(material, vsFence, texCoordListsFence);
 
 			List<VectorXYZ> pointsWithEleBack =
 					new ArrayList<VectorXYZ>(pointsWithEle);
@@ -243,9 +269,9 @@ public class BarrierModule extends AbstractModule {
 			List<VectorXYZ> vsFenceBack = createVerticalTriangleStrip(
 					pointsWithEleBack, 0, height);
 			List<List<VectorXZ>> texCoordListsFenceBack = texCoordLists(
-					vsFenceBack, CHAIN_LINK_FENCE, STRIP_WALL);
+					vsFenceBack, material, STRIP_WALL);
 			
-			target.drawTriangleStrip(CHAIN_LINK_FENCE, vsFenceBack,
+			target.drawTriangleStrip(material, vsFenceBack,
 					texCoordListsFenceBack);
 						
 			/* render poles */
@@ -281,14 +307,15 @@ public class BarrierModule extends AbstractModule {
 		
 		private final Material material;
 		
-		public Fence(MapWaySegment segment, TagGroup tags) {
+		public Fence(MapWaySegment segment, TagGroup tags,
+				MaterialRegistry materials) {
 			super(segment, 0.5f, 0.1f);
 			
 			Material materialFromMap = MATERIAL_MAP.get(tags.getValue("fence_type"));
 			if (materialFromMap != null) {
-				material = materialFromMap;
+				material = materials.get(materialFromMap);
 			} else {
-				material = Materials.FENCE_DEFAULT;
+				material = materials.get(Materials.FENCE_DEFAULT);
 			}
 			
 		}
@@ -346,12 +373,14 @@ public class BarrierModule extends AbstractModule {
 		}
 		
 		private final float height;
+		private final Material material;
 		
-		public Bollard(MapNode node, TagGroup tags) {
+		public Bollard(MapNode node, TagGroup tags, MaterialRegistry materials) {
 			
 			super(node);
 			
 			height = parseHeight(tags, DEFAULT_HEIGHT);
+			material = materials.get(Materials.CONCRETE);
 						
 		}
 
@@ -362,7 +391,7 @@ public class BarrierModule extends AbstractModule {
 
 		@Override
 		public void renderTo(Target<?> target) {
-			target.drawColumn(Materials.CONCRETE,
+			target.drawColumn(material,
 					null, getBase(), height, 0.15f, 0.15f, false, true);
 		}
 		
@@ -1,10 +1,13 @@
 package org.osm2world.core.world.modules;
 
 
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.math.GeometryUtil.*;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -17,7 +20,11 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
+import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.WaySegmentWorldObject;
 import org.osm2world.core.world.data.WorldObject;
 import org.osm2world.core.world.modules.WaterModule.Water;
@@ -31,7 +38,8 @@ import org.osm2world.core.world.network.AbstractNetworkWaySegmentWorldObject;
  * Needs to be applied <em>after</em> all the modules that generate
  * whatever runs over the bridge.
  */
-public class BridgeModule extends AbstractModule {
+public class BridgeModule extends AbstractModule
+		implements ConcurrentWorldModule {
 
 	public static final boolean isBridge(TagGroup tags) {
 		return tags.containsKey("bridge")
@@ -42,6 +50,17 @@ public class BridgeModule extends AbstractModule {
 		return isBridge(segment.getTags());
 	}
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(waySegments("bridge"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return Arrays.<Class<? extends WorldModule>>asList(
+				RoadModule.class, RailwayModule.class, WaterModule.class);
+	}
+	
 	@Override
 	protected void applyToWaySegment(MapWaySegment segment) {
 		
@@ -60,7 +79,7 @@ public class BridgeModule extends AbstractModule {
 	
 	public static final double BRIDGE_UNDERSIDE_HEIGHT = 0.2f;
 		
-	private static class Bridge extends BridgeOrTunnel
+	private class Bridge extends BridgeOrTunnel
 			implements RenderableToAllTargets {
 		
 		public Bridge(MapWaySegment segment,
@@ -103,9 +122,11 @@ public class BridgeModule extends AbstractModule {
 			List<VectorXYZ> strip3 = createTriangleStripBetween(
 					rightOutline, belowRightOutline);
 			
-			target.drawTriangleStrip(Materials.BRIDGE_DEFAULT, strip1, null);
-			target.drawTriangleStrip(Materials.BRIDGE_DEFAULT, strip2, null);
-			target.drawTriangleStrip(Materials.BRIDGE_DEFAULT, strip3, null);
+			Material material = materials.get(Materials.BRIDGE_DEFAULT);
+			
+			target.drawTriangleStrip(material, strip1, null);
+			target.drawTriangleStrip(material, strip2, null);
+			target.drawTriangleStrip(material, strip3, null);
 			
 		}
 
@@ -161,7 +182,7 @@ public class BridgeModule extends AbstractModule {
 			/* draw the pillar */
 			
 			// TODO: start pillar at ground instead of just 100 meters below the bridge
-			target.drawColumn(Materials.BRIDGE_PILLAR_DEFAULT, null,
+			target.drawColumn(materials.get(Materials.BRIDGE_PILLAR_DEFAULT), null,
 					top.addY(-100),
 					100,
 					0.2, 0.2, false, false);
@@ -5,12 +5,15 @@ import static java.lang.Double.POSITIVE_INFINITY;
 import static java.lang.Math.*;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
+import static java.util.Collections.emptyList;
 import static org.openstreetmap.josm.plugins.graphview.core.util.ValueStringParser.*;
 import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.*;
 import static org.osm2world.core.map_elevation.data.GroundState.*;
 import static org.osm2world.core.math.GeometryUtil.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.*;
 import static org.osm2world.core.target.common.material.TexCoordUtil.*;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
+import static org.osm2world.core.world.creation.ElementClaim.nodes;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
 import java.awt.Color;
@@ -56,8 +59,12 @@ import org.osm2world.core.target.common.TextureData;
 import org.osm2world.core.target.common.material.ImmutableMaterial;
 import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.util.MinMaxUtil;
 import org.osm2world.core.util.exception.TriangulationException;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AreaWorldObject;
 import org.osm2world.core.world.data.NodeWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
@@ -71,7 +78,20 @@ import com.google.common.base.Function;
 /**
  * adds buildings to the world
  */
-public class BuildingModule extends ConfigurableWorldModule {
+public class BuildingModule extends ConfigurableWorldModule
+		implements ConcurrentWorldModule {
+	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				areas("building"),
+				nodes("building", "entrance"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
 	
 	@Override
 	public void applyTo(MapData mapData) {
@@ -88,7 +108,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			if (buildingValue != null && !buildingValue.equals("no")) {
 				
 				Building building = new Building(area,
-						useBuildingColors, drawBuildingWindows);
+						useBuildingColors, drawBuildingWindows, materials);
 				area.addRepresentation(building);
 								
 			}
@@ -107,7 +127,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 		private final EleConnectorGroup outlineConnectors;
 		
 		public Building(MapArea area, boolean useBuildingColors,
-				boolean drawBuildingWindows) {
+				boolean drawBuildingWindows, MaterialRegistry materials) {
 			
 			this.area = area;
 			
@@ -123,7 +143,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 							otherArea.getPolygon().getOuter())) {
 						parts.add(new BuildingPart(this, otherArea,
 							otherArea.getPolygon(), useBuildingColors,
-							drawBuildingWindows));
+							drawBuildingWindows, materials));
 					}
 					
 				}
@@ -136,7 +156,8 @@ public class BuildingModule extends ConfigurableWorldModule {
 			
 			if (parts.isEmpty() || isBuildingPart) {
 				parts.add(new BuildingPart(this, area,
-						area.getPolygon(), useBuildingColors, drawBuildingWindows));
+						area.getPolygon(), useBuildingColors, drawBuildingWindows,
+						materials));
 			} else {
 				List<SimplePolygonXZ> subtractPolygons = new ArrayList<SimplePolygonXZ>();
 				
@@ -152,7 +173,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 				
 				for (PolygonWithHolesXZ remainingPoly : remainingPolys) {
 					parts.add(new BuildingPart(this, area, remainingPoly,
-							useBuildingColors, drawBuildingWindows));
+							useBuildingColors, drawBuildingWindows, materials));
 				}
 				
 			}
@@ -297,6 +318,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 		private final Building building;
 		private final MapArea area;
 		private final PolygonWithHolesXZ polygon;
+		private final MaterialRegistry materials;
 		
 		private int buildingLevels;
 		private int minLevel;
@@ -313,11 +335,13 @@ public class BuildingModule extends ConfigurableWorldModule {
 		
 		public BuildingPart(Building building,
 				MapArea area, PolygonWithHolesXZ polygon,
-				boolean useBuildingColors, boolean drawBuildingWindows) {
+				boolean useBuildingColors, boolean drawBuildingWindows,
+				MaterialRegistry materials) {
 
 			this.building = building;
 			this.area = area;
 			this.polygon = polygon;
+			this.materials = materials;
 
 			setAttributes(useBuildingColors, drawBuildingWindows);
 			
@@ -811,12 +835,12 @@ public class BuildingModule extends ConfigurableWorldModule {
 		    	
 		    } else {
 		    	
-		    	materialWall = defaultMaterialWall;
-		    	materialRoof = defaultMaterialRoof;
+		    	materialWall = materials.get(defaultMaterialWall);
+		    	materialRoof = materials.get(defaultMaterialRoof);
 		    	
 		    }
 		    
-		    if (materialWall == Materials.GLASS) {
+		    if (materialWall == materials.get(Materials.GLASS)) {
 				// avoid placing windows into a glass front
 				// TODO: the == currently only works if GLASS is not colorable
 				defaultMaterialWindows = null;
@@ -826,7 +850,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 		    
 		    if (drawBuildingWindows) {
 
-		    	Material materialWindows = defaultMaterialWindows;
+		    	Material materialWindows = materials.get(defaultMaterialWindows);
 		    	
 		    	if (materialWindows != null) {
 		    		
@@ -857,6 +881,8 @@ public class BuildingModule extends ConfigurableWorldModule {
 				}
 			}
 			
+			material = materials.get(material);
+			
 			boolean colorable = material.getNumTextureLayers() == 0
 					|| material.getTextureDataList().get(0).colorable;
 			
@@ -2395,7 +2421,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			float height = parseHeight(node.getTags(), 2);
 			float width = parseWidth(node.getTags(), 1);
 			
-			target.drawBox(Materials.ENTRANCE_DEFAULT,
+			target.drawBox(buildingPart.materials.get(Materials.ENTRANCE_DEFAULT),
 					center, outOfBuilding, height, width, 0.1);
 			
 		}
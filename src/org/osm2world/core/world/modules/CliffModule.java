@@ -1,13 +1,17 @@
 package org.osm2world.core.world.modules;
 
 import static com.google.common.collect.Iterables.any;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.MIN;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.GLOBAL_X_Z;
 import static org.osm2world.core.target.common.material.TexCoordUtil.texCoordLists;
 import static org.osm2world.core.util.Predicates.hasType;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.createTriangleStripBetween;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.osm2world.core.map_data.data.MapData;
@@ -21,6 +25,9 @@ import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.common.ConfigurableWorldModule;
 import org.osm2world.core.world.network.AbstractNetworkWaySegmentWorldObject;
@@ -29,7 +36,18 @@ import org.osm2world.core.world.network.AbstractNetworkWaySegmentWorldObject;
  * adds cliffs and retaining walls to the world.
  * Their common property is that they offset terrain elevation.
  */
-public class CliffModule extends ConfigurableWorldModule {
+public class CliffModule extends ConfigurableWorldModule
+		implements ConcurrentWorldModule {
+	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(waySegments("natural", "barrier"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
 	
 	@Override
 	public void applyTo(MapData grid) {
@@ -60,7 +78,7 @@ public class CliffModule extends ConfigurableWorldModule {
 		
 	}
 	
-	private abstract static class AbstractCliff
+	private abstract class AbstractCliff
 			extends AbstractNetworkWaySegmentWorldObject
 			implements TerrainBoundaryWorldObject, RenderableToAllTargets {
 		
@@ -117,13 +135,13 @@ public class CliffModule extends ConfigurableWorldModule {
 					getOutline(false), getOutline(true));
 			
 			target.drawTriangleStrip(getMaterial(), groundVs,
-					texCoordLists(groundVs, Materials.RAIL_BALLAST_DEFAULT, GLOBAL_X_Z));
+					texCoordLists(groundVs, materials.get(Materials.RAIL_BALLAST_DEFAULT), GLOBAL_X_Z));
 			
 		}
 		
 	}
 	
-	public static class Cliff extends AbstractCliff {
+	public class Cliff extends AbstractCliff {
 
 		protected Cliff(MapWaySegment segment) {
 			super(segment);
@@ -136,12 +154,12 @@ public class CliffModule extends ConfigurableWorldModule {
 
 		@Override
 		protected Material getMaterial() {
-			return Materials.EARTH;
+			return materials.get(Materials.EARTH);
 		}
 		
 	}
 	
-	public static class RetainingWall extends AbstractCliff {
+	public class RetainingWall extends AbstractCliff {
 
 		protected RetainingWall(MapWaySegment segment) {
 			super(segment);
@@ -154,7 +172,7 @@ public class CliffModule extends ConfigurableWorldModule {
 
 		@Override
 		protected Material getMaterial() {
-			return Materials.CONCRETE;
+			return materials.get(Materials.CONCRETE);
 		}
 		
 	}
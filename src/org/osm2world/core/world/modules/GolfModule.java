@@ -2,9 +2,12 @@ package org.osm2world.core.world.modules;
 
 import static java.lang.Math.PI;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.math.VectorXZ.fromAngle;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.*;
 import static org.osm2world.core.target.common.material.TexCoordUtil.*;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.createTriangleStripBetween;
 
 import java.awt.Color;
@@ -33,9 +36,13 @@ import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.ImmutableMaterial;
 import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Material.Interpolation;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.util.MinMaxUtil;
 import org.osm2world.core.util.exception.TriangulationException;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.SurfaceAreaModule.SurfaceArea;
@@ -46,21 +53,32 @@ import com.google.common.base.Function;
 /**
  * adds golf courses to the map
  */
-public class GolfModule extends AbstractModule {
+public class GolfModule extends AbstractModule
+		implements ConcurrentWorldModule {
 	
 	private static final int HOLE_CIRCLE_VERTICES = 8;
 	private static final double HOLE_RADIUS = 0.108 / 2;
 	private static final double HOLE_DEPTH = 0.102;
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(areas("golf"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	public void applyToArea(MapArea area) {
 		
 		if (!area.getTags().containsKey("golf")) return;
 		
 		if (area.getTags().contains("golf", "tee")) {
-			area.addRepresentation(new Tee(area));
+			area.addRepresentation(new Tee(area, materials));
 		} else if (area.getTags().contains("golf", "fairway")) {
-			area.addRepresentation(new Fairway(area));
+			area.addRepresentation(new Fairway(area, materials));
 		} else if (area.getTags().contains("golf", "green")) {
 			area.addRepresentation(new Green(area));
 		}
@@ -69,11 +87,11 @@ public class GolfModule extends AbstractModule {
 	
 	private static class Tee extends SurfaceArea {
 
-		private Tee(MapArea area) {
+		private Tee(MapArea area, MaterialRegistry materials) {
 			
 			super(area, area.getTags().containsKey("surface")
 					? area.getTags().getValue("surface")
-					: "grass");
+					: "grass", materials);
 			
 		}
 		
@@ -81,17 +99,17 @@ public class GolfModule extends AbstractModule {
 	
 	private static class Fairway extends SurfaceArea {
 
-		private Fairway(MapArea area) {
+		private Fairway(MapArea area, MaterialRegistry materials) {
 			
 			super(area, area.getTags().containsKey("surface")
 					? area.getTags().getValue("surface")
-					: "grass");
+					: "grass", materials);
 			
 		}
 		
 	}
 	
-	private static class Green extends AbstractAreaWorldObject
+	private class Green extends AbstractAreaWorldObject
 			implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
 		private final VectorXZ pinPosition;
@@ -182,6 +200,8 @@ public class GolfModule extends AbstractModule {
 			if (surfaceValue != null && !"grass".equals(surfaceValue)) {
 				material = Materials.getSurfaceMaterial(surfaceValue, material);
 			}
+			
+			material = materials.get(material);
 
 			Collection<TriangleXZ> trianglesXZ = getGreenTriangulation();
 			Collection<TriangleXYZ> triangles = getEleConnectors().getTriangulationXYZ(trianglesXZ);
@@ -227,7 +247,7 @@ public class GolfModule extends AbstractModule {
 			
 		}
 
-		private static void drawPin(Target<?> target,
+		private void drawPin(Target<?> target,
 				VectorXZ pos, List<VectorXYZ> upperHoleRing) {
 			
 			double minHoleEle = MinMaxUtil.<VectorXYZ>min(upperHoleRing,
@@ -249,7 +269,7 @@ public class GolfModule extends AbstractModule {
 			List<VectorXYZ> vs = createTriangleStripBetween(
 					upperHoleRing, lowerHoleRing);
 			
-			Material groundMaterial = Materials.EARTH.makeSmooth();
+			Material groundMaterial = materials.get(Materials.EARTH).makeSmooth();
 			
 			target.drawTriangleStrip(groundMaterial, vs,
 					texCoordLists(vs, groundMaterial, STRIP_WALL));
@@ -259,7 +279,7 @@ public class GolfModule extends AbstractModule {
 			
 			/* draw flag */
 			
-			target.drawColumn(Materials.PLASTIC_GREY.makeSmooth(), null,
+			target.drawColumn(materials.get(Materials.PLASTIC_GREY).makeSmooth(), null,
 					pos.xyz(holeBottomEle), 1.5, 0.007, 0.007, false, true);
 			
 			ImmutableMaterial flagcloth = new ImmutableMaterial(Interpolation.SMOOTH, Color.YELLOW);
@@ -1,8 +1,11 @@
 package org.osm2world.core.world.modules;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.target.common.material.Materials.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.GLOBAL_X_Z;
 import static org.osm2world.core.target.common.material.TexCoordUtil.triangleTexCoordLists;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
 
 import java.util.Collection;
 
@@ -12,6 +15,9 @@ import org.osm2world.core.math.TriangleXYZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.common.AbstractModule;
@@ -19,7 +25,18 @@ import org.osm2world.core.world.modules.common.AbstractModule;
 /**
  * adds parking spaces to the world
  */
-public class ParkingModule extends AbstractModule {
+public class ParkingModule extends AbstractModule
+		implements ConcurrentWorldModule {
+	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(areas("amenity"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
 	
 	@Override
 	protected void applyToArea(MapArea area) {
@@ -34,7 +51,7 @@ public class ParkingModule extends AbstractModule {
 		}
 	}
 	
-	private static class SurfaceParking extends AbstractAreaWorldObject
+	private class SurfaceParking extends AbstractAreaWorldObject
 	implements TerrainBoundaryWorldObject, RenderableToAllTargets {
 		
 		public SurfaceParking(MapArea area) {
@@ -50,7 +67,7 @@ public class ParkingModule extends AbstractModule {
 		public void renderTo(Target<?> target) {
 			
 			String surface = area.getTags().getValue("surface");
-			Material material = getSurfaceMaterial(surface, ASPHALT);
+			Material material = materials.get(getSurfaceMaterial(surface, ASPHALT));
 			
 			Collection<TriangleXYZ> triangles = getTriangulation();
 			
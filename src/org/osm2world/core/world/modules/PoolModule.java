@@ -1,10 +1,13 @@
 package org.osm2world.core.world.modules;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.target.common.material.Materials.PURIFIED_WATER;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.GLOBAL_X_Z;
 import static org.osm2world.core.target.common.material.TexCoordUtil.*;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.createShapeExtrusionAlong;
 
 import java.util.Collection;
@@ -17,7 +20,11 @@ import org.osm2world.core.math.TriangleXYZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
+import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.common.AbstractModule;
@@ -25,7 +32,8 @@ import org.osm2world.core.world.modules.common.AbstractModule;
 /**
  * adds swimming pools and water parks to the world
  */
-public class PoolModule extends AbstractModule {
+public class PoolModule extends AbstractModule
+		implements ConcurrentWorldModule {
 
 	private final boolean isPool(TagGroup tags) {
 		boolean pool = tags.contains("amenity", "swimming_pool");
@@ -39,6 +47,16 @@ public class PoolModule extends AbstractModule {
 	}
 	
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(areas("amenity", "leisure"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	protected void applyToArea(MapArea area) {
 		if (isPool(area))
@@ -46,7 +64,7 @@ public class PoolModule extends AbstractModule {
 	}
 
 	
-	private static class Pool extends AbstractAreaWorldObject
+	private class Pool extends AbstractAreaWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 	
 		public Pool(MapArea area) {
@@ -65,8 +83,10 @@ public class PoolModule extends AbstractModule {
 			
 			Collection<TriangleXYZ> triangles = getTriangulation();
 			
-			target.drawTriangles(PURIFIED_WATER, triangles,
-					triangleTexCoordLists(triangles, PURIFIED_WATER, GLOBAL_X_Z));
+			Material water = materials.get(PURIFIED_WATER);
+			
+			target.drawTriangles(water, triangles,
+					triangleTexCoordLists(triangles, water, GLOBAL_X_Z));
 
 			/* draw a small area around the pool */
 
@@ -86,9 +106,11 @@ public class PoolModule extends AbstractModule {
 					wallShape, path,
 					nCopies(path.size(), VectorXYZ.Y_UNIT));
 			
+			Material concrete = materials.get(Materials.CONCRETE);
+			
 			for (List<VectorXYZ> strip : strips) {
-				target.drawTriangleStrip(Materials.CONCRETE, strip,
-						texCoordLists(strip, Materials.CONCRETE, GLOBAL_X_Z));
+				target.drawTriangleStrip(concrete, strip,
+						texCoordLists(strip, concrete, GLOBAL_X_Z));
 			}
 		}
 	}
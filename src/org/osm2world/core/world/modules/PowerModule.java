@@ -3,14 +3,19 @@ package org.osm2world.core.world.modules;
 import static java.lang.Math.PI;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
+import static java.util.Collections.emptyList;
 import static org.osm2world.core.math.VectorXYZ.Z_UNIT;
 import static org.osm2world.core.target.common.material.Materials.PLASTIC_GREY;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.STRIP_WALL;
 import static org.osm2world.core.target.common.material.TexCoordUtil.texCoordLists;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
+import static org.osm2world.core.world.creation.ElementClaim.nodes;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.*;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 
@@ -27,7 +32,11 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.NoOutlineNodeWorldObject;
 import org.osm2world.core.world.data.NoOutlineWaySegmentWorldObject;
@@ -38,7 +47,8 @@ import org.osm2world.core.world.modules.common.AbstractModule;
 /**
  * module for power infrastructure
  */
-public final class PowerModule extends AbstractModule {
+public final class PowerModule extends AbstractModule
+		implements ConcurrentWorldModule {
 		
 	private static TowerConfig generateTowerConfig(MapNode node) {
 
@@ -67,6 +77,19 @@ public final class PowerModule extends AbstractModule {
 		return new TowerConfig(node, cables, voltage, dir);
 	}
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				nodes("power"),
+				waySegments("power"),
+				areas("power"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	protected void applyToNode(MapNode node) {
 		
@@ -103,7 +126,7 @@ public final class PowerModule extends AbstractModule {
 		}
 		
 		if (segment.getTags().contains("power", "line")) {
-			segment.addRepresentation(new PowerLine(segment));
+			segment.addRepresentation(new PowerLine(segment, materials));
 		}
 	}
 	
@@ -111,11 +134,11 @@ public final class PowerModule extends AbstractModule {
 	protected void applyToArea(MapArea area) {
 		if (area.getTags().contains("power", "generator")
 				&& area.getTags().contains("generator:method", "photovoltaic")) {
-			area.addRepresentation(new PhotovoltaicPlant(area));
+			area.addRepresentation(new PhotovoltaicPlant(area, materials));
 		}
 	}
 	
-	private static final class PowerCabinet extends NoOutlineNodeWorldObject
+	private final class PowerCabinet extends NoOutlineNodeWorldObject
 	implements RenderableToAllTargets {
 
 		public PowerCabinet(MapNode node) {
@@ -133,7 +156,7 @@ public final class PowerModule extends AbstractModule {
 			double directionAngle = parseDirection(node.getTags(), PI);
 			VectorXZ faceVector = VectorXZ.fromAngle(directionAngle);
 						
-			target.drawBox(PLASTIC_GREY, getBase(),
+			target.drawBox(materials.get(PLASTIC_GREY), getBase(),
 					faceVector, 1.5, 0.8, 0.3);
 			
 		}
@@ -159,7 +182,7 @@ public final class PowerModule extends AbstractModule {
 		}
 	}
 	
-	private static final class Powerpole extends NoOutlineNodeWorldObject
+	private final class Powerpole extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public Powerpole(MapNode node) {
@@ -190,6 +213,8 @@ public final class PowerModule extends AbstractModule {
 						node.getTags().getValue("surface"), Materials.WOOD);
 			}
 			
+			material = materials.get(material);
+			
 			target.drawColumn(material, null, getBase(),
 					parseHeight(node.getTags(), 8f),
 					0.15, 0.15, false, true);
@@ -197,7 +222,7 @@ public final class PowerModule extends AbstractModule {
 		
 	}
 	
-	private static final class WindTurbine extends NoOutlineNodeWorldObject
+	private final class WindTurbine extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public WindTurbine(MapNode node) {
@@ -222,8 +247,8 @@ public final class PowerModule extends AbstractModule {
 			/* determine material */
 			
 			Material poleMaterial = null;
-			Material nacelleMaterial = Materials.STEEL;
-			Material bladeMaterial = Materials.STEEL; // probably fibre, but color matches roughly :)
+			Material nacelleMaterial = materials.get(Materials.STEEL);
+			Material bladeMaterial = materials.get(Materials.STEEL); // probably fibre, but color matches roughly :)
 			
 			//TODO parse color
 			
@@ -237,6 +262,8 @@ public final class PowerModule extends AbstractModule {
 						node.getTags().getValue("surface"), Materials.STEEL);
 			}
 			
+			poleMaterial = materials.get(poleMaterial);
+			
 			/* draw pole */
 			target.drawColumn(poleMaterial, null,
 					getBase(),
@@ -284,13 +311,13 @@ public final class PowerModule extends AbstractModule {
 		
 	}
 	
-	private static class PowerMinorLine
+	private class PowerMinorLine
 		extends NoOutlineWaySegmentWorldObject
 		implements RenderableToAllTargets {
 		
 		private static final float DEFAULT_THICKN = 0.05f; // width and height
 		private static final float DEFAULT_CLEARING_BL = 7.5f; // power pole height is 8
-		private static final Material material = Materials.PLASTIC;
+		private final Material material = materials.get(Materials.PLASTIC);
 		
 		public PowerMinorLine(MapWaySegment segment) {
 			super(segment);
@@ -357,8 +384,11 @@ public final class PowerModule extends AbstractModule {
 		private List<VectorXYZ> endPos = null;
 		
 		
-		public PowerLine(MapWaySegment line) {
+		private final MaterialRegistry materials;
+		
+		public PowerLine(MapWaySegment line, MaterialRegistry materials) {
 			super(line);
+			this.materials = materials;
 		}
 		
 		private void addPos(VectorXYZ baseStart, VectorXYZ baseEnd, double gotoRight, double up) {
@@ -509,7 +539,7 @@ public final class PowerModule extends AbstractModule {
 						nCopies(path.size(), VectorXYZ.Y_UNIT));
 				
 				for (List<VectorXYZ> strip : strips) {
-					target.drawTriangleStrip(CABLE_MATERIAL, strip, null);
+					target.drawTriangleStrip(materials.get(CABLE_MATERIAL), strip, null);
 				}
 			}
 		}
@@ -517,7 +547,7 @@ public final class PowerModule extends AbstractModule {
 	}
 	
 	
-	private static final class PowerTower extends NoOutlineNodeWorldObject
+	private final class PowerTower extends NoOutlineNodeWorldObject
 		implements RenderableToAllTargets {
 
 		private TowerConfig config;
@@ -545,6 +575,9 @@ public final class PowerModule extends AbstractModule {
 				material = Materials.getSurfaceMaterial(node.getTags().getValue("surface"), Materials.STEEL);
 			}
 			
+			material = materials.get(material);
+			Material holderMaterial = materials.get(Materials.CONCRETE);
+			
 			// draw base column
 			target.drawColumn(material, null, base, height, 0.5, 0.25, true, true);
 			
@@ -553,20 +586,20 @@ public final class PowerModule extends AbstractModule {
 		
 			// draw pieces holding the power lines
 			base = base.add(0, height + 0.25, 0);
-			target.drawColumn(Materials.CONCRETE, null, base.add(config.direction.rightNormal().mult(2)), 0.5, 0.1, 0.1, true, true);
-			target.drawColumn(Materials.CONCRETE, null, base.add(config.direction.rightNormal().mult(-2)), 0.5, 0.1, 0.1, true, true);
+			target.drawColumn(holderMaterial, null, base.add(config.direction.rightNormal().mult(2)), 0.5, 0.1, 0.1, true, true);
+			target.drawColumn(holderMaterial, null, base.add(config.direction.rightNormal().mult(-2)), 0.5, 0.1, 0.1, true, true);
 			if (config.cables >= 3) {
-				target.drawColumn(Materials.CONCRETE, null, base, 0.5, 0.1, 0.1, true, true);
+				target.drawColumn(holderMaterial, null, base, 0.5, 0.1, 0.1, true, true);
 			}
 			if (config.cables >= 5) {
-				target.drawColumn(Materials.CONCRETE, null, base.add(config.direction.rightNormal().mult(1.5)), -0.5, 0.1, 0.1, true, true);
-				target.drawColumn(Materials.CONCRETE, null, base.add(config.direction.rightNormal().mult(-1.5)), -0.5, 0.1, 0.1, true, true);
+				target.drawColumn(holderMaterial, null, base.add(config.direction.rightNormal().mult(1.5)), -0.5, 0.1, 0.1, true, true);
+				target.drawColumn(holderMaterial, null, base.add(config.direction.rightNormal().mult(-1.5)), -0.5, 0.1, 0.1, true, true);
 			}
 		}
 	}
 
 
-	private static final class HighVoltagePowerTower extends NoOutlineNodeWorldObject
+	private final class HighVoltagePowerTower extends NoOutlineNodeWorldObject
 		implements RenderableToAllTargets {
 
 		private TowerConfig config;
@@ -627,7 +660,7 @@ public final class PowerModule extends AbstractModule {
 				List<VectorXYZ> vs = new ArrayList<VectorXYZ>();
 				List<VectorXZ> tex = new ArrayList<VectorXZ>();
 				List<List<VectorXZ>> texList =
-					nCopies(Materials.POWER_TOWER_VERTICAL.getNumTextureLayers(), tex);
+					nCopies(materials.get(Materials.POWER_TOWER_VERTICAL).getNumTextureLayers(), tex);
 				
 				for (int i = 0; i < 2; i++) {
 					int idx = (a+i)%4;
@@ -637,7 +670,7 @@ public final class PowerModule extends AbstractModule {
 					tex.add(new VectorXZ(i, 0));
 				}
 				
-				target.drawTriangleStrip(Materials.POWER_TOWER_VERTICAL, vs, texList);
+				target.drawTriangleStrip(materials.get(Materials.POWER_TOWER_VERTICAL), vs, texList);
 			}
 		}
 	
@@ -648,7 +681,7 @@ public final class PowerModule extends AbstractModule {
 			List<VectorXYZ> vs = new ArrayList<VectorXYZ>();
 			List<VectorXZ> tex = new ArrayList<VectorXZ>();
 			List<List<VectorXZ>> texList =
-					nCopies(Materials.POWER_TOWER_HORIZONTAL.getNumTextureLayers(), tex);
+					nCopies(materials.get(Materials.POWER_TOWER_HORIZONTAL).getNumTextureLayers(), tex);
 		
 			vs.add(right.xyz(base));
 			vs.add(left.xyz(base));
@@ -660,7 +693,7 @@ public final class PowerModule extends AbstractModule {
 			tex.add(new VectorXZ(1, 0));
 			tex.add(new VectorXZ(0, 0));
 		
-			target.drawTriangleStrip(Materials.POWER_TOWER_HORIZONTAL, vs, texList);
+			target.drawTriangleStrip(materials.get(Materials.POWER_TOWER_HORIZONTAL), vs, texList);
 		}
 
 		private void drawHorizontalTop(Target<?> target, VectorXZ[][] points,
@@ -674,7 +707,7 @@ public final class PowerModule extends AbstractModule {
 				List<VectorXYZ> vs = new ArrayList<VectorXYZ>();
 				List<VectorXZ> tex = new ArrayList<VectorXZ>();
 				List<List<VectorXZ>> texList =
-						nCopies(Materials.POWER_TOWER_VERTICAL.getNumTextureLayers(), tex);
+						nCopies(materials.get(Materials.POWER_TOWER_VERTICAL).getNumTextureLayers(), tex);
 
 				for (int i = 0; i < 2; i++) {
 					vs.add(points[1][a+i].xyz(base + height[a+i]));
@@ -682,7 +715,7 @@ public final class PowerModule extends AbstractModule {
 					tex.add(new VectorXZ(0, i));
 					tex.add(new VectorXZ(1, i));
 				}
-				target.drawTriangleStrip(Materials.POWER_TOWER_VERTICAL, vs, texList);
+				target.drawTriangleStrip(materials.get(Materials.POWER_TOWER_VERTICAL), vs, texList);
 			}
 		}
 		
@@ -786,8 +819,11 @@ public final class PowerModule extends AbstractModule {
 			}
 		};
 
-		protected PhotovoltaicPlant(MapArea area) {
+		private final MaterialRegistry materials;
+		
+		protected PhotovoltaicPlant(MapArea area, MaterialRegistry materials) {
 			super(area);
+			this.materials = materials;
 		}
 		
 		@Override
@@ -916,15 +952,19 @@ public final class PowerModule extends AbstractModule {
 					bottomRight.add(upVector),
 					bottomRight);
 			
-			target.drawTriangleStrip(Materials.SOLAR_PANEL, vs,
-					texCoordLists(vs, Materials.SOLAR_PANEL, STRIP_WALL));
+			Material panelMaterial = materials.get(Materials.SOLAR_PANEL);
+			
+			target.drawTriangleStrip(panelMaterial, vs,
+					texCoordLists(vs, panelMaterial, STRIP_WALL));
 			
 			/* draw back */
 			
 			vs = asList(vs.get(2), vs.get(3), vs.get(0), vs.get(1));
 			
-			target.drawTriangleStrip(Materials.PLASTIC_GREY, vs,
-					texCoordLists(vs, Materials.PLASTIC_GREY, STRIP_WALL));
+			Material backMaterial = materials.get(Materials.PLASTIC_GREY);
+			
+			target.drawTriangleStrip(backMaterial, vs,
+					texCoordLists(vs, backMaterial, STRIP_WALL));
 						
 		}
 		
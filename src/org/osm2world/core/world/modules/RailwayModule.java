@@ -2,10 +2,14 @@ package org.osm2world.core.world.modules;
 
 import static com.google.common.collect.Iterables.any;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.GLOBAL_X_Z;
 import static org.osm2world.core.target.common.material.TexCoordUtil.texCoordLists;
 import static org.osm2world.core.util.Predicates.hasType;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -19,7 +23,11 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.common.ConfigurableWorldModule;
 import org.osm2world.core.world.modules.common.WorldModuleGeometryUtil;
@@ -29,18 +37,29 @@ import org.osm2world.core.world.network.JunctionNodeWorldObject;
 /**
  * adds rails to the world
  */
-public class RailwayModule extends ConfigurableWorldModule {
+public class RailwayModule extends ConfigurableWorldModule
+		implements ConcurrentWorldModule {
 
 	/** accepted values of the railway key */
 	private static final List<String> RAILWAY_VALUES = asList(
 			"rail", "light_rail", "tram", "subway", "disused");
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(waySegments("railway"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	public void applyTo(MapData grid) {
 		
 		for (MapWaySegment segment : grid.getMapWaySegments()) {
 			if (segment.getTags().containsAny("railway", RAILWAY_VALUES)) {
-				segment.addRepresentation(new Rail(segment));
+				segment.addRepresentation(new Rail(segment, materials));
 			}
 		}
 		
@@ -91,8 +110,11 @@ public class RailwayModule extends ConfigurableWorldModule {
 			}
 		}
 				
-		public Rail(MapWaySegment segment) {
+		private final MaterialRegistry materials;
+		
+		public Rail(MapWaySegment segment, MaterialRegistry materials) {
 			super(segment);
+			this.materials = materials;
 		}
 
 		@Override
@@ -115,8 +137,10 @@ public class RailwayModule extends ConfigurableWorldModule {
 			List<VectorXYZ> groundVs = WorldModuleGeometryUtil.createTriangleStripBetween(
 					getOutline(false), getOutline(true));
 			
-			target.drawTriangleStrip(Materials.RAIL_BALLAST_DEFAULT, groundVs,
-					texCoordLists(groundVs, Materials.RAIL_BALLAST_DEFAULT, GLOBAL_X_Z));
+			Material groundMaterial = materials.get(Materials.RAIL_BALLAST_DEFAULT);
+			
+			target.drawTriangleStrip(groundMaterial, groundVs,
+					texCoordLists(groundVs, groundMaterial, GLOBAL_X_Z));
 			
 			
 			/* draw rails */
@@ -132,6 +156,8 @@ public class RailwayModule extends ConfigurableWorldModule {
 					getOutline(false), getOutline(true),
 					1 - ((GROUND_WIDTH - RAIL_DIST) / GROUND_WIDTH) / 2);
 
+			Material railMaterial = materials.get(Materials.RAIL_DEFAULT);
+			
 			for (List<VectorXYZ> railLine : railLines) {
 				
 				List<List<VectorXYZ>> stripVectors =
@@ -140,7 +166,7 @@ public class RailwayModule extends ConfigurableWorldModule {
 					Collections.nCopies(railLine.size(), VectorXYZ.Y_UNIT));
 					
 				for (List<VectorXYZ> stripVector : stripVectors) {
-					target.drawTriangleStrip(Materials.RAIL_DEFAULT, stripVector, null);
+					target.drawTriangleStrip(railMaterial, stripVector, null);
 				}
 			
 			}
@@ -173,7 +199,7 @@ public class RailwayModule extends ConfigurableWorldModule {
 		
 	}
 	
-	public static class RailJunction
+	public class RailJunction
 		extends JunctionNodeWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
@@ -209,7 +235,7 @@ public class RailwayModule extends ConfigurableWorldModule {
 
 			List<VectorXYZ> vectors = getOutlinePolygon().getVertexLoop();
 
-			Material material = Materials.RAIL_BALLAST_DEFAULT;
+			Material material = materials.get(Materials.RAIL_BALLAST_DEFAULT);
 			
 			target.drawConvexPolygon(material, vectors,
 					texCoordLists(vectors, material, GLOBAL_X_Z));
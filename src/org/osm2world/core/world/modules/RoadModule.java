@@ -2,6 +2,7 @@ package org.osm2world.core.world.modules;
 
 import static java.lang.Math.*;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.reverse;
 import static org.openstreetmap.josm.plugins.graphview.core.data.EmptyTagGroup.EMPTY_TAG_GROUP;
 import static org.openstreetmap.josm.plugins.graphview.core.util.ValueStringParser.parseOsmDecimal;
@@ -11,6 +12,9 @@ import static org.osm2world.core.math.VectorXYZ.*;
 import static org.osm2world.core.target.common.material.Materials.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.*;
 import static org.osm2world.core.target.common.material.TexCoordUtil.*;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
+import static org.osm2world.core.world.creation.ElementClaim.nodesOfWaySegments;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.*;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
@@ -39,8 +43,12 @@ import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.TextureData;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.target.common.material.TexCoordFunction;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.common.ConfigurableWorldModule;
 import org.osm2world.core.world.network.AbstractNetworkWaySegmentWorldObject;
@@ -51,17 +59,31 @@ import org.osm2world.core.world.network.VisibleConnectorNodeWorldObject;
 /**
  * adds roads to the world
  */
-public class RoadModule extends ConfigurableWorldModule {
+public class RoadModule extends ConfigurableWorldModule
+		implements ConcurrentWorldModule {
 	
 	/** determines whether right-hand or left-hand traffic is the default */
 	private static final boolean RIGHT_HAND_TRAFFIC_BY_DEFAULT = true;
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				waySegments("highway", "railway", "leisure"),
+				areas("highway", "railway", "leisure"),
+				nodesOfWaySegments("highway", "railway", "leisure"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	public void applyTo(MapData grid) {
 		
 		for (MapWaySegment line : grid.getMapWaySegments()) {
 			if (isRoad(line.getTags())) {
-				line.addRepresentation(new Road(line, line.getTags()));
+				line.addRepresentation(new Road(line, line.getTags(), materials));
 			}
 		}
 
@@ -530,7 +552,7 @@ public class RoadModule extends ConfigurableWorldModule {
 				atLane2Start, atLane2Start));
 		
 		return new LaneConnection(lane1.type, RoadPart.LEFT,
-				lane1.road.rightHandTraffic,
+				lane1.road.rightHandTraffic, lane1.road.materials,
 				leftLaneBorder, rightLaneBorder);
 		
 	}
@@ -538,7 +560,7 @@ public class RoadModule extends ConfigurableWorldModule {
 	/**
 	 * representation for junctions between roads.
 	 */
-	public static class RoadJunction
+	public class RoadJunction
 		extends JunctionNodeWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 						
@@ -549,7 +571,7 @@ public class RoadModule extends ConfigurableWorldModule {
 		@Override
 		public void renderTo(Target<?> target) {
 			
-			Material material = getSurfaceForNode(node);
+			Material material = materials.get(getSurfaceForNode(node));
 			Collection<TriangleXYZ> triangles = super.getTriangulation();
 			
 			target.drawTriangles(material, triangles,
@@ -595,7 +617,7 @@ public class RoadModule extends ConfigurableWorldModule {
 	/**
 	 * visible connectors where a road changes width or lane layout
 	 */
-	public static class RoadConnector
+	public class RoadConnector
 		extends VisibleConnectorNodeWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
@@ -635,7 +657,7 @@ public class RoadModule extends ConfigurableWorldModule {
 			
 			//TODO: subtract area covered by connections
 			
-			Material material = getSurfaceForNode(node);
+			Material material = materials.get(getSurfaceForNode(node));
 			
 			Collection<TriangleXYZ> trianglesXYZ = getTriangulation();
 			
@@ -667,7 +689,7 @@ public class RoadModule extends ConfigurableWorldModule {
 	/**
 	 * representation for crossings (zebra crossing etc.) on roads
 	 */
-	public static class RoadCrossingAtConnector
+	public class RoadCrossingAtConnector
 		extends VisibleConnectorNodeWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
@@ -697,18 +719,18 @@ public class RoadModule extends ConfigurableWorldModule {
 			
 			/* determine surface material */
 			
-			Material surface = getSurfaceForNode(node);
+			Material surface = materials.get(getSurfaceForNode(node));
 			
 			if (node.getTags().contains("crossing", "zebra")
 					|| node.getTags().contains("crossing_ref", "zebra")) {
 				
 				surface = surface.withAddedLayers(
-						ROAD_MARKING_ZEBRA.getTextureDataList());
+						materials.get(ROAD_MARKING_ZEBRA).getTextureDataList());
 				
 			} else if (!node.getTags().contains("crossing", "unmarked")) {
 
 				surface = surface.withAddedLayers(
-						ROAD_MARKING_CROSSING.getTextureDataList());
+						materials.get(ROAD_MARKING_CROSSING).getTextureDataList());
 				
 			}
 			
@@ -773,12 +795,15 @@ public class RoadModule extends ConfigurableWorldModule {
 		final public VectorXZ startCoord, endCoord;
 	
 		final private boolean steps;
+		
+		final private MaterialRegistry materials;
 						
-		public Road(MapWaySegment line, TagGroup tags) {
+		public Road(MapWaySegment line, TagGroup tags, MaterialRegistry materials) {
 			
 			super(line);
 			
 			this.tags = tags;
+			this.materials = materials;
 			this.startCoord = line.getStartNode().getPos();
 			this.endCoord = line.getEndNode().getPos();
 			
@@ -1239,8 +1264,10 @@ public class RoadModule extends ConfigurableWorldModule {
 			List<VectorXYZ> vs = createTriangleStripBetween(
 					leftOutline, rightOutline);
 
-			target.drawTriangleStrip(ASPHALT, vs,
-					texCoordLists(vs, ASPHALT, GLOBAL_X_Z));
+			Material groundMaterial = materials.get(ASPHALT);
+			
+			target.drawTriangleStrip(groundMaterial, vs,
+					texCoordLists(vs, groundMaterial, GLOBAL_X_Z));
 			
 			/* determine the length of each individual step */
 			
@@ -1273,6 +1300,8 @@ public class RoadModule extends ConfigurableWorldModule {
 			
 			/* draw steps */
 			
+			Material stepMaterial = materials.get(Materials.STEPS_DEFAULT);
+			
 			for (int step = 0; step < stepBorderPositions.size() - 1; step++) {
 				
 				VectorXYZ frontCenter = stepBorderPositions.get(step);
@@ -1289,7 +1318,7 @@ public class RoadModule extends ConfigurableWorldModule {
 					faceDirection = faceDirection.invert();
 				}
 				
-				target.drawBox(Materials.STEPS_DEFAULT,
+				target.drawBox(stepMaterial,
 						center, faceDirection,
 						height, width, backCenter.distanceToXZ(frontCenter));
 				
@@ -1324,6 +1353,8 @@ public class RoadModule extends ConfigurableWorldModule {
 						(i + 1.0f) / (centerHandrails + 1)));
 			}
 			
+			Material handrailMaterial = materials.get(HANDRAIL_DEFAULT);
+			
 			for (List<VectorXYZ> handrailFootprint : handrailFootprints) {
 				
 				List<VectorXYZ> handrailLine = new ArrayList<VectorXYZ>();
@@ -1336,14 +1367,14 @@ public class RoadModule extends ConfigurableWorldModule {
 					Collections.nCopies(handrailLine.size(), VectorXYZ.Y_UNIT));
 				
 				for (List<VectorXYZ> strip : strips) {
-					target.drawTriangleStrip(HANDRAIL_DEFAULT, strip,
-							texCoordLists(strip, HANDRAIL_DEFAULT, STRIP_WALL));
+					target.drawTriangleStrip(handrailMaterial, strip,
+							texCoordLists(strip, handrailMaterial, STRIP_WALL));
 				}
 				
-				target.drawColumn(HANDRAIL_DEFAULT, 4,
+				target.drawColumn(handrailMaterial, 4,
 						handrailFootprint.get(0),
 						1, 0.03, 0.03, false, true);
-				target.drawColumn(HANDRAIL_DEFAULT, 4,
+				target.drawColumn(handrailMaterial, 4,
 						handrailFootprint.get(handrailFootprint.size()-1),
 						1, 0.03, 0.03, false, true);
 				
@@ -1355,6 +1386,8 @@ public class RoadModule extends ConfigurableWorldModule {
 
 			List<Lane> lanesLeftToRight = laneLayout.getLanesLeftToRight();
 			
+			Material surface = materials.get(getSurface());
+			
 			/* draw lanes themselves */
 			
 			for (Lane lane : lanesLeftToRight) {
@@ -1372,8 +1405,8 @@ public class RoadModule extends ConfigurableWorldModule {
 						getOutline(false),
 						addYList(getOutline(false), firstLane.getHeightAboveRoad()));
 				
-				target.drawTriangleStrip(getSurface(), vs,
-						texCoordLists(vs, getSurface(), STRIP_WALL));
+				target.drawTriangleStrip(surface, vs,
+						texCoordLists(vs, surface, STRIP_WALL));
 				
 			}
 			
@@ -1383,8 +1416,8 @@ public class RoadModule extends ConfigurableWorldModule {
 						addYList(getOutline(true), lastLane.getHeightAboveRoad()),
 						getOutline(true));
 				
-				target.drawTriangleStrip(getSurface(), vs,
-						texCoordLists(vs, getSurface(), STRIP_WALL));
+				target.drawTriangleStrip(surface, vs,
+						texCoordLists(vs, surface, STRIP_WALL));
 				
 			}
 						
@@ -1403,7 +1436,7 @@ public class RoadModule extends ConfigurableWorldModule {
 		
 	}
 	
-	public static class RoadArea extends NetworkAreaWorldObject
+	public class RoadArea extends NetworkAreaWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 
 		private static final float DEFAULT_CLEARING = 5f;
@@ -1416,7 +1449,7 @@ public class RoadModule extends ConfigurableWorldModule {
 		public void renderTo(Target<?> target) {
 			
 			String surface = area.getTags().getValue("surface");
-			Material material = getSurfaceMaterial(surface, ASPHALT);
+			Material material = materials.get(getSurfaceMaterial(surface, ASPHALT));
 			Collection<TriangleXYZ> triangles = getTriangulation();
 			
 			target.drawTriangles(material, triangles,
@@ -1673,7 +1706,7 @@ public class RoadModule extends ConfigurableWorldModule {
 					(float)relativePositionRight);
 			rightLaneBorder = addYList(rightLaneBorder, getHeightAboveRoad());
 			
-			type.render(target, roadPart, road.rightHandTraffic,
+			type.render(target, road.materials, roadPart, road.rightHandTraffic,
 					road.tags, laneTags, leftLaneBorder, rightLaneBorder);
 			
 		}
@@ -1693,16 +1726,18 @@ public class RoadModule extends ConfigurableWorldModule {
 		public final LaneType type;
 		public final RoadPart roadPart;
 		public final boolean rightHandTraffic;
+		public final MaterialRegistry materials;
 		
 		private final List<VectorXYZ> leftBorder;
 		private final List<VectorXYZ> rightBorder;
 		
 		private LaneConnection(LaneType type, RoadPart roadPart,
-				boolean rightHandTraffic,
+				boolean rightHandTraffic, MaterialRegistry materials,
 				List<VectorXYZ> leftBorder, List<VectorXYZ> rightBorder) {
 			this.type = type;
 			this.roadPart = roadPart;
 			this.rightHandTraffic = rightHandTraffic;
+			this.materials = materials;
 			this.leftBorder = leftBorder;
 			this.rightBorder = rightBorder;
 		}
@@ -1729,7 +1764,7 @@ public class RoadModule extends ConfigurableWorldModule {
 		
 		public void renderTo(Target<?> target) {
 			
-			type.render(target, roadPart, rightHandTraffic,
+			type.render(target, materials, roadPart, rightHandTraffic,
 					EMPTY_TAG_GROUP, EMPTY_TAG_GROUP, leftBorder, rightBorder);
 			
 		}
@@ -1756,7 +1791,8 @@ public class RoadModule extends ConfigurableWorldModule {
 			
 		}
 
-		public abstract void render(Target<?> target, RoadPart roadPart,
+		public abstract void render(Target<?> target,
+				MaterialRegistry materials, RoadPart roadPart,
 				boolean rightHandTraffic,
 				TagGroup roadTags, TagGroup laneTags,
 				List<VectorXYZ> leftLaneBorder,
@@ -1786,14 +1822,15 @@ public class RoadModule extends ConfigurableWorldModule {
 		}
 
 		@Override
-		public void render(Target<?> target, RoadPart roadPart,
+		public void render(Target<?> target,
+				MaterialRegistry materials, RoadPart roadPart,
 				boolean rightHandTraffic,
 				TagGroup roadTags, TagGroup laneTags,
 				List<VectorXYZ> leftLaneBorder,
 				List<VectorXYZ> rightLaneBorder) {
 			
-			Material surface = getSurface(roadTags, laneTags);
-			Material surfaceMiddle = getSurfaceMiddle(roadTags, laneTags);
+			Material surface = materials.get(getSurface(roadTags, laneTags));
+			Material surfaceMiddle = materials.get(getSurfaceMiddle(roadTags, laneTags));
 						
 			/* draw lane triangle strips */
 			
@@ -1807,7 +1844,7 @@ public class RoadModule extends ConfigurableWorldModule {
 				
 				
 				if (!roadTags.contains("highway", "motorway")) {
-					surface = addTurnArrows(surface, laneTags);
+					surface = addTurnArrows(surface, laneTags, materials);
 				}
 				
 				target.drawTriangleStrip(surface, vs,
@@ -1936,7 +1973,8 @@ public class RoadModule extends ConfigurableWorldModule {
 			"KERB", true, true) {
 		
 		@Override
-		public void render(Target<?> target, RoadPart roadPart,
+		public void render(Target<?> target,
+				MaterialRegistry materials, RoadPart roadPart,
 				boolean rightHandTraffic, TagGroup roadTags, TagGroup laneTags,
 				List<VectorXYZ> leftLaneBorder,
 				List<VectorXYZ> rightLaneBorder) {
@@ -1954,15 +1992,17 @@ public class RoadModule extends ConfigurableWorldModule {
 				border3 = addYList(rightLaneBorder, height);
 			}
 
+			Material material = materials.get(Materials.KERB);
+			
 			List<VectorXYZ> vs1_2 = createTriangleStripBetween(
 					border1, border2);
-			target.drawTriangleStrip(Materials.KERB, vs1_2,
-					texCoordLists(vs1_2, Materials.KERB, STRIP_FIT_HEIGHT));
+			target.drawTriangleStrip(material, vs1_2,
+					texCoordLists(vs1_2, material, STRIP_FIT_HEIGHT));
 
 			List<VectorXYZ> vs2_3 = createTriangleStripBetween(
 					border2, border3);
-			target.drawTriangleStrip(Materials.KERB, vs2_3,
-					texCoordLists(vs2_3, Materials.KERB, STRIP_FIT_HEIGHT));
+			target.drawTriangleStrip(material, vs2_3,
+					texCoordLists(vs2_3, material, STRIP_FIT_HEIGHT));
 			
 		}
 		
@@ -1984,7 +2024,7 @@ public class RoadModule extends ConfigurableWorldModule {
 	 * @return  a material based on the input, possibly with added turn arrows
 	 */
 	private static Material addTurnArrows(Material material,
-			TagGroup laneTags) {
+			TagGroup laneTags, MaterialRegistry materials) {
 		
 		Material arrowMaterial = null;
 		
@@ -2025,7 +2065,8 @@ public class RoadModule extends ConfigurableWorldModule {
 		/* apply the results */
 		
 		if (arrowMaterial != null) {
-			material = material.withAddedLayers(arrowMaterial.getTextureDataList());
+			material = material.withAddedLayers(
+					materials.get(arrowMaterial).getTextureDataList());
 		}
 		
 		return material;
@@ -2,13 +2,17 @@ package org.osm2world.core.world.modules;
 
 import static java.lang.Math.*;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.target.common.material.Materials.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.*;
 import static org.osm2world.core.target.common.material.TexCoordUtil.texCoordLists;
+import static org.osm2world.core.world.creation.ElementClaim.nodes;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.osm2world.core.map_data.data.MapNode;
@@ -21,14 +25,31 @@ import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.ImmutableMaterial;
 import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Material.Interpolation;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.NoOutlineNodeWorldObject;
 import org.osm2world.core.world.modules.common.AbstractModule;
 
 /**
  * adds various types of street furniture to the world
  */
-public class StreetFurnitureModule extends AbstractModule {
+public class StreetFurnitureModule extends AbstractModule
+		implements ConcurrentWorldModule {
+	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(nodes("man_made", "advertising", "amenity", "highway",
+					"public_transport", "summit:cross", "historic", "emergency",
+					"tourism"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
 	
 	@Override
 	protected void applyToNode(MapNode node) {
@@ -62,11 +83,11 @@ public class StreetFurnitureModule extends AbstractModule {
 		}
 		if (node.getTags().contains("amenity", "post_box")
 			&& (node.getTags().containsAnyKey(asList("operator", "brand")))) {
-			node.addRepresentation(new PostBox(node));
+			node.addRepresentation(new PostBox(node, materials));
 		}
 		if (node.getTags().contains("amenity", "telephone")
 			&& (node.getTags().containsAnyKey(asList("operator", "brand")))) {
-			node.addRepresentation(new Phone(node));
+			node.addRepresentation(new Phone(node, materials));
 		}
 		if (node.getTags().contains("amenity", "vending_machine")
 			&& (node.getTags().containsAny("vending", asList("parcel_pickup;parcel_mail_in", "parcel_mail_in") ))) {
@@ -74,7 +95,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		}
 		if (node.getTags().contains("amenity", "vending_machine")
 				&& (node.getTags().containsAny("vending", asList("bicycle_tube", "cigarettes", "condoms")))) {
-				node.addRepresentation(new VendingMachineVice(node));
+				node.addRepresentation(new VendingMachineVice(node, materials));
 		}
 		if (node.getTags().contains("amenity", "recycling")
 				&& (node.getTags().contains("recycling_type", "container"))) {
@@ -112,7 +133,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		return false;
 	}
 	
-	private static final class Flagpole extends NoOutlineNodeWorldObject
+	private final class Flagpole extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public Flagpole(MapNode node) {
@@ -127,7 +148,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		@Override
 		public void renderTo(Target<?> target) {
 			
-			target.drawColumn(STEEL, null, getBase(),
+			target.drawColumn(materials.get(STEEL), null, getBase(),
 					parseHeight(node.getTags(), 10f),
 					0.15, 0.15, false, true);
 			
@@ -135,7 +156,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 	
-	private static final class AdvertisingColumn extends NoOutlineNodeWorldObject
+	private final class AdvertisingColumn extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public AdvertisingColumn(MapNode node) {
@@ -154,17 +175,17 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			/* draw socket, poster and cap */
 			
-			target.drawColumn(CONCRETE, null,
+			target.drawColumn(materials.get(CONCRETE), null,
 					getBase(),
 					0.15 * height,
 					0.5, 0.5, false, false);
 			
-			target.drawColumn(ADVERTISING_POSTER, null,
+			target.drawColumn(materials.get(ADVERTISING_POSTER), null,
 					getBase(),
 					0.98 * height,
 					0.48, 0.48, false, false);
 			
-			target.drawColumn(CONCRETE, null,
+			target.drawColumn(materials.get(CONCRETE), null,
 					getBase().add(0, 0.95 * height, 0),
 					0.05 * height,
 					0.5, 0.5, false, true);
@@ -173,7 +194,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 	
-	private static final class Billboard extends NoOutlineNodeWorldObject
+	private final class Billboard extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public Billboard(MapNode node) {
@@ -209,8 +230,8 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			List<VectorXYZ> vsListPoster = asList(vsPoster);
 			
-			target.drawTriangleStrip(ADVERTISING_POSTER, vsListPoster,
-					texCoordLists(vsListPoster, ADVERTISING_POSTER, STRIP_FIT));
+			target.drawTriangleStrip(materials.get(ADVERTISING_POSTER), vsListPoster,
+					texCoordLists(vsListPoster, materials.get(ADVERTISING_POSTER), STRIP_FIT));
 			
 			VectorXYZ[] vsBoard = {
 					vsPoster[2],
@@ -221,8 +242,8 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			List<VectorXYZ> vsListBoard = asList(vsBoard);
 									
-			target.drawTriangleStrip(CONCRETE, vsListBoard,
-					texCoordLists(vsListBoard, CONCRETE, STRIP_WALL));
+			target.drawTriangleStrip(materials.get(CONCRETE), vsListBoard,
+					texCoordLists(vsListBoard, materials.get(CONCRETE), STRIP_WALL));
 			
 			
 			/* draw poles */
@@ -233,7 +254,7 @@ public class StreetFurnitureModule extends AbstractModule {
 			};
 			
 			for (VectorXZ pole : poles) {
-				target.drawBox(CONCRETE, pole.xyz(getBase().y),
+				target.drawBox(materials.get(CONCRETE), pole.xyz(getBase().y),
 						faceVector, minHeight, 0.2, 0.1);
 			}
 			
@@ -241,7 +262,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 	
-	private static final class Bench extends NoOutlineNodeWorldObject
+	private final class Bench extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public Bench(MapNode node) {
@@ -274,6 +295,8 @@ public class StreetFurnitureModule extends AbstractModule {
 						node.getTags().getValue("surface"), Materials.WOOD);
 			}
 			
+			material = materials.get(material);
+			
 			/* calculate vectors and corners */
 
 			double directionAngle = parseDirection(node.getTags(), PI);
@@ -315,7 +338,7 @@ public class StreetFurnitureModule extends AbstractModule {
 	/**
 	 * a summit cross or wayside cross
 	 */
-	private static final class Cross extends NoOutlineNodeWorldObject
+	private final class Cross extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public Cross(MapNode node) {
@@ -354,6 +377,8 @@ public class StreetFurnitureModule extends AbstractModule {
 						node.getTags().getValue("surface"), Materials.WOOD);
 			}
 			
+			material = materials.get(material);
+			
 			double directionAngle = parseDirection(node.getTags(), PI);
 			VectorXZ faceVector = VectorXZ.fromAngle(directionAngle);
 			
@@ -369,7 +394,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 	
-	private static final class RecyclingContainer extends NoOutlineNodeWorldObject
+	private final class RecyclingContainer extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		double directionAngle = parseDirection(node.getTags(), PI);
@@ -445,7 +470,7 @@ public class StreetFurnitureModule extends AbstractModule {
 					colourBack = new ImmutableMaterial(Interpolation.FLAT, new Color(0.39f, 0.15f, 0.11f));
 				}
 			
-				target.drawBox(STEEL,
+				target.drawBox(materials.get(STEEL),
 						pos,
 						faceVector, height, width, width);
 				target.drawBox(colourFront,
@@ -466,7 +491,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 	
-	private static final class WasteBasket extends NoOutlineNodeWorldObject
+	private final class WasteBasket extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public WasteBasket(MapNode node) {
@@ -497,6 +522,8 @@ public class StreetFurnitureModule extends AbstractModule {
 						node.getTags().getValue("surface"), STEEL);
 			}
 			
+			material = materials.get(material);
+			
 			/* draw pole */
 			target.drawColumn(material, null, getBase(),
 					1.2, 0.06, 0.06, false, true);
@@ -509,7 +536,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 
-	private static final class GritBin extends NoOutlineNodeWorldObject
+	private final class GritBin extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 	
 		public GritBin(MapNode node) {
@@ -544,6 +571,8 @@ public class StreetFurnitureModule extends AbstractModule {
 						node.getTags().getValue("surface"), Materials.GRITBIN_DEFAULT);
 			}
 			
+			material = materials.get(material);
+			
 			double directionAngle = parseDirection(node.getTags(), PI);
 						
 			VectorXZ faceVector = VectorXZ.fromAngle(directionAngle);
@@ -573,8 +602,11 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 		private static enum Type {WALL, PILLAR, CELL, HALFCELL}
 		
-		public Phone(MapNode node) {
+		private final MaterialRegistry materials;
+		
+		public Phone(MapNode node, MaterialRegistry materials) {
 			super(node);
+			this.materials = materials;
 		}
 		
 		@Override
@@ -601,11 +633,11 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			// Phones differ widely in appearance, hence we draw them only for known operators or brands
 			if (node.getTags().containsAny(asList("operator", "brand"), asList("Deutsche Telekom AG", "Deutsche Telekom", "Telekom") )) {
-				roofMaterial = TELEKOM_MANGENTA;
-				poleMaterial = STEEL;
+				roofMaterial = materials.get(TELEKOM_MANGENTA);
+				poleMaterial = materials.get(STEEL);
 			} else if (node.getTags().containsAny(asList("operator", "brand"), "British Telecom")) {
-				roofMaterial = POSTBOX_ROYALMAIL;
-				poleMaterial = POSTBOX_ROYALMAIL;
+				roofMaterial = materials.get(POSTBOX_ROYALMAIL);
+				poleMaterial = materials.get(POSTBOX_ROYALMAIL);
 			} else {
 				//no rendering, unknown operator or brand //TODO log info
 				return;
@@ -624,7 +656,7 @@ public class StreetFurnitureModule extends AbstractModule {
 					height = parseHeight(node.getTags(), 2.1f);
 					width = parseWidth(node.getTags(), 0.8f);
 	
-					target.drawBox(GLASS,
+					target.drawBox(materials.get(GLASS),
 							getBase(),
 							faceVector, height-0.2, width-0.06, width-0.06);
 					target.drawBox(roofMaterial,
@@ -654,8 +686,11 @@ public class StreetFurnitureModule extends AbstractModule {
 
 		private static enum Type {WALL, PILLAR}
 		
-		public VendingMachineVice(MapNode node) {
+		private final MaterialRegistry materials;
+		
+		public VendingMachineVice(MapNode node, MaterialRegistry materials) {
 			super(node);
+			this.materials = materials;
 		}
 		
 		@Override
@@ -670,7 +705,7 @@ public class StreetFurnitureModule extends AbstractModule {
 			VectorXZ faceVector = VectorXZ.fromAngle(directionAngle);
 			
 			Material machineMaterial = null;
-			Material poleMaterial = STEEL;
+			Material poleMaterial = materials.get(STEEL);
 			Type type = null;
 			
 			if (node.getTags().contains("vending", "bicycle_tube") && node.getTags().containsAny("operator", asList("Continental", "continental"))){
@@ -721,8 +756,11 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 		private static enum Type {WALL, PILLAR}
 	
-		public PostBox(MapNode node) {
+		private final MaterialRegistry materials;
+		
+		public PostBox(MapNode node, MaterialRegistry materials) {
 			super(node);
+			this.materials = materials;
 		}
 		
 		@Override
@@ -743,11 +781,11 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			// post boxes differ widely in appearance, hence we draw them only for known operators or brands
 			if (node.getTags().containsAny(asList("operator", "brand"), asList("Deutsche Post AG", "Deutsche Post"))) {
-				boxMaterial = POSTBOX_DEUTSCHEPOST;
-				poleMaterial = STEEL;
+				boxMaterial = materials.get(POSTBOX_DEUTSCHEPOST);
+				poleMaterial = materials.get(STEEL);
 				type = Type.WALL;
 			} else if (node.getTags().contains("operator", "Royal Mail")) {
-				boxMaterial = POSTBOX_ROYALMAIL;
+				boxMaterial = materials.get(POSTBOX_ROYALMAIL);
 				type = Type.PILLAR;
 			} else {
 				//no rendering, unknown operator or brand for post box //TODO log info
@@ -792,7 +830,7 @@ public class StreetFurnitureModule extends AbstractModule {
 	
 	}
 	
-	private static final class BusStop extends NoOutlineNodeWorldObject
+	private final class BusStop extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public BusStop(MapNode node) {
@@ -816,7 +854,7 @@ public class StreetFurnitureModule extends AbstractModule {
 				float signHeight = 0.7f;
 				float signWidth = 0.4f;
 				
-				Material poleMaterial = STEEL;
+				Material poleMaterial = materials.get(STEEL);
 				
 				double directionAngle = parseDirection(node.getTags(), PI);
 				
@@ -826,7 +864,7 @@ public class StreetFurnitureModule extends AbstractModule {
 					getBase(),
 					height-signHeight, 0.05, 0.05, true, true);
 				/* draw sign */
-				target.drawBox(BUS_STOP_SIGN,
+				target.drawBox(materials.get(BUS_STOP_SIGN),
 					getBase().addY(height - signHeight),
 					faceVector, signHeight, signWidth, 0.02);
 				/*  draw timetable */
@@ -841,7 +879,7 @@ public class StreetFurnitureModule extends AbstractModule {
 	}
 	
 	
-	private static final class ParcelMachine extends NoOutlineNodeWorldObject
+	private final class ParcelMachine extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 	
 		public ParcelMachine(MapNode node) {
@@ -860,8 +898,8 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			double directionAngle = parseDirection(node.getTags(), PI);
 			
-			Material boxMaterial = POSTBOX_DEUTSCHEPOST;
-			Material otherMaterial = STEEL;
+			Material boxMaterial = materials.get(POSTBOX_DEUTSCHEPOST);
+			Material otherMaterial = materials.get(STEEL);
 			
 			VectorXZ faceVector = VectorXZ.fromAngle(directionAngle);
 			VectorXZ rightVector = faceVector.rightNormal();
@@ -919,7 +957,7 @@ public class StreetFurnitureModule extends AbstractModule {
 	
 	}
 	
-	private static final class FireHydrant extends NoOutlineNodeWorldObject
+	private final class FireHydrant extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public FireHydrant(MapNode node) {
@@ -937,7 +975,7 @@ public class StreetFurnitureModule extends AbstractModule {
 			float height = parseHeight(node.getTags(), 1f);
 			
 			/* draw main pole */
-			target.drawColumn(FIREHYDRANT, null,
+			target.drawColumn(materials.get(FIREHYDRANT), null,
 					getBase(),
 					height,
 					0.15, 0.15, false, true);
@@ -947,17 +985,17 @@ public class StreetFurnitureModule extends AbstractModule {
 			VectorXZ smallValveVector = VectorXZ.X_UNIT;
 			VectorXZ largeValveVector = VectorXZ.Z_UNIT;
 			
-			target.drawBox(FIREHYDRANT,
+			target.drawBox(materials.get(FIREHYDRANT),
 				valveBaseVector,
 				smallValveVector, 0.1f, 0.5f, 0.1f);
-			target.drawBox(FIREHYDRANT,
+			target.drawBox(materials.get(FIREHYDRANT),
 				valveBaseVector.add(0.2f, -0.1f, 0f),
 				largeValveVector, 0.15f, 0.15f, 0.15f);
 		}
 		
 	}
 	
-	private static final class StreetLamp extends NoOutlineNodeWorldObject
+	private final class StreetLamp extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		public StreetLamp(MapNode node) {
@@ -990,6 +1028,8 @@ public class StreetFurnitureModule extends AbstractModule {
 						node.getTags().getValue("surface"), STEEL);
 			}
 			
+			material = materials.get(material);
+			
 			/* draw pole */
 			target.drawColumn(material, null,
 					getBase(),
@@ -1025,7 +1065,7 @@ public class StreetFurnitureModule extends AbstractModule {
 		
 	}
 	
-	private static final class Board extends NoOutlineNodeWorldObject
+	private final class Board extends NoOutlineNodeWorldObject
 	implements RenderableToAllTargets {
 
 		public Board(MapNode node) {
@@ -1042,10 +1082,10 @@ public class StreetFurnitureModule extends AbstractModule {
 			
 			double directionAngle = parseDirection(node.getTags(), PI);
 			VectorXZ faceVector = VectorXZ.fromAngle(directionAngle);
-			target.drawColumn(WOOD, null,
+			target.drawColumn(materials.get(WOOD), null,
 					getBase(),
 					1.5, 0.05, 0.05, false, true);
-			target.drawBox(WOOD,
+			target.drawBox(materials.get(WOOD),
 					getBase().addY(1.2),
 					faceVector, 0.4, 0.4, 0.1);
 		}
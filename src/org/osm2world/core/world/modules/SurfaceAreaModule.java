@@ -1,11 +1,14 @@
 package org.osm2world.core.world.modules;
 
 import static java.util.Collections.*;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.map_data.creation.EmptyTerrainBuilder.EMPTY_SURFACE_TAG;
 import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.MIN;
 import static org.osm2world.core.map_elevation.data.GroundState.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.GLOBAL_X_Z;
 import static org.osm2world.core.target.common.material.TexCoordUtil.triangleTexCoordLists;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -37,8 +40,12 @@ import org.osm2world.core.math.algorithms.Poly2TriTriangulationUtil;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.util.exception.TriangulationException;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.data.WorldObject;
@@ -49,7 +56,8 @@ import org.osm2world.core.world.modules.common.AbstractModule;
  * adds generic areas with surface information to the world.
  * Is based on surface information on otherwise unknown/unspecified areas.
  */
-public class SurfaceAreaModule extends AbstractModule {
+public class SurfaceAreaModule extends AbstractModule
+		implements ConcurrentWorldModule {
 	
 	/** assumptions about default surfaces for certain tags */
 	private static final Map<Tag, String> defaultSurfaceMap
@@ -66,6 +74,16 @@ public class SurfaceAreaModule extends AbstractModule {
 		defaultSurfaceMap.put(new Tag("landuse", "grass"), "grass");
 	}
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(areas("surface", "leisure", "landuse", "golf", "natural"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	protected void applyToArea(MapArea area) {
 		
@@ -74,13 +92,13 @@ public class SurfaceAreaModule extends AbstractModule {
 		TagGroup tags = area.getTags();
 		
 		if (tags.containsKey("surface")) {
-			area.addRepresentation(new SurfaceArea(area, tags.getValue("surface")));
+			area.addRepresentation(new SurfaceArea(area, tags.getValue("surface"), materials));
 		} else {
 		
 			for (Tag tagWithDefault : defaultSurfaceMap.keySet()) {
 				if (tags.contains(tagWithDefault)) {
 					area.addRepresentation(new SurfaceArea(
-							area, defaultSurfaceMap.get(tagWithDefault)));
+							area, defaultSurfaceMap.get(tagWithDefault), materials));
 				}
 			}
 			
@@ -92,12 +110,14 @@ public class SurfaceAreaModule extends AbstractModule {
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
 		private final String surface;
+		private final MaterialRegistry materials;
 		
 		private Collection<TriangleXZ> triangulationXZ;
 		
-		public SurfaceArea(MapArea area, String surface) {
+		public SurfaceArea(MapArea area, String surface, MaterialRegistry materials) {
 			super(area);
 			this.surface = surface;
+			this.materials = materials;
 		}
 
 		@Override
@@ -106,9 +126,9 @@ public class SurfaceAreaModule extends AbstractModule {
 			Material material = null;
 			
 			if (surface.equals(EMPTY_SURFACE_TAG.value)) {
-				material = Materials.TERRAIN_DEFAULT;
+				material = materials.get(Materials.TERRAIN_DEFAULT);
 			} else {
-				material = Materials.getSurfaceMaterial(surface);
+				material = materials.get(Materials.getSurfaceMaterial(surface));
 			}
 			
 			if (material != null) {
@@ -2,13 +2,17 @@ package org.osm2world.core.world.modules;
 
 import static java.lang.Math.PI;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.osm2world.core.math.VectorXYZ.X_UNIT;
 import static org.osm2world.core.target.common.material.Materials.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.STRIP_FIT;
 import static org.osm2world.core.target.common.material.TexCoordUtil.texCoordLists;
+import static org.osm2world.core.world.creation.ElementClaim.nodes;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.osm2world.core.map_data.data.MapNode;
@@ -19,6 +23,9 @@ import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.TextureData;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.NoOutlineNodeWorldObject;
 import org.osm2world.core.world.modules.common.AbstractModule;
 
@@ -26,7 +33,18 @@ import org.osm2world.core.world.modules.common.AbstractModule;
 /**
  * adds traffic signs to the world
  */
-public class TrafficSignModule extends AbstractModule {
+public class TrafficSignModule extends AbstractModule
+		implements ConcurrentWorldModule {
+	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return singletonList(nodes("traffic_sign"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
 	
 	@Override
 	protected void applyToNode(MapNode node) {
@@ -106,7 +124,7 @@ public class TrafficSignModule extends AbstractModule {
 		return false;
 	}
 	
-	private static final class TrafficSign extends NoOutlineNodeWorldObject
+	private final class TrafficSign extends NoOutlineNodeWorldObject
 			implements RenderableToAllTargets {
 		
 		private final List<TrafficSignType> types;
@@ -139,8 +157,10 @@ public class TrafficSignModule extends AbstractModule {
 				
 				TextureData textureData = null;
 				
-				if (types.get(sign).material.getNumTextureLayers() != 0) {
-					textureData = types.get(sign).material.getTextureDataList().get(0);
+				Material material = materials.get(types.get(sign).material);
+				
+				if (material.getNumTextureLayers() != 0) {
+					textureData = material.getTextureDataList().get(0);
 				}
 				
 				if (textureData == null) {
@@ -213,8 +233,10 @@ public class TrafficSignModule extends AbstractModule {
 			
 			/* render the post(s) */
 			
+			Material steel = materials.get(STEEL);
+			
 			for (VectorXYZ position : positions) {
-				target.drawColumn(STEEL, null, position,
+				target.drawColumn(steel, null, position,
 						height, postRadius, postRadius,
 						false, true);
 			}
@@ -223,16 +245,16 @@ public class TrafficSignModule extends AbstractModule {
 			
 			for (int sign = 0; sign < types.size(); sign++) {
 				
-				TrafficSignType type = types.get(sign);
+				Material material = materials.get(types.get(sign).material);
 				List<VectorXYZ> vs = signGeometries.get(sign);
 				
-				target.drawTriangleStrip(type.material, vs,
-						texCoordLists(vs, type.material, STRIP_FIT));
+				target.drawTriangleStrip(material, vs,
+						texCoordLists(vs, material, STRIP_FIT));
 				
 				vs = asList(vs.get(2), vs.get(3), vs.get(0), vs.get(1));
 				
-				target.drawTriangleStrip(STEEL, vs,
-						texCoordLists(vs, STEEL, STRIP_FIT));
+				target.drawTriangleStrip(steel, vs,
+						texCoordLists(vs, steel, STRIP_FIT));
 			
 			}
 			
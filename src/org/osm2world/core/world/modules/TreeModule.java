@@ -1,6 +1,10 @@
 package org.osm2world.core.world.modules;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
+import static org.osm2world.core.world.creation.ElementClaim.nodes;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.filterWorldObjectCollisions;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.parseHeight;
 
@@ -30,9 +34,13 @@ import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.FaceTarget;
 import org.osm2world.core.target.common.RenderableToFaceTarget;
 import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.target.povray.POVRayTarget;
 import org.osm2world.core.target.povray.RenderableToPOVRay;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AreaWorldObject;
 import org.osm2world.core.world.data.NoOutlineNodeWorldObject;
 import org.osm2world.core.world.data.WaySegmentWorldObject;
@@ -45,7 +53,8 @@ import org.osm2world.core.target.custom_binary.CustomBinaryTarget;
 /**
  * adds trees, tree rows, tree groups and forests to the world
  */
-public class TreeModule extends ConfigurableWorldModule {
+public class TreeModule extends ConfigurableWorldModule
+		implements ConcurrentWorldModule {
 	
 	private static final List<String> LEAF_TYPE_KEYS =
 			asList("leaf_type", "wood", "type");
@@ -140,13 +149,26 @@ public class TreeModule extends ConfigurableWorldModule {
 	private double defaultTreeHeightForest = 20;
 	
 	@Override
-	public void setConfiguration(Configuration config) {
-		super.setConfiguration(config);
+	public void setConfiguration(Configuration config, MaterialRegistry materials) {
+		super.setConfiguration(config, materials);
 		useBillboards = config.getBoolean("useBillboards", false);
 		defaultTreeHeight = config.getDouble("defaultTreeHeight", 10);
 		defaultTreeHeightForest = config.getDouble("defaultTreeHeightForest", 20);
 	}
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				nodes("natural"),
+				waySegments("natural"),
+				areas("natural", "landuse", "wood"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	public final void applyTo(MapData mapData) {
 		
@@ -208,10 +230,10 @@ public class TreeModule extends ConfigurableWorldModule {
 				boolean mirrored = (long)(pos.getX()) % 2 == 0;
 
 				Material material = species == TreeSpecies.APPLE_TREE
-						? Materials.TREE_BILLBOARD_BROAD_LEAVED_FRUIT
+						? materials.get(Materials.TREE_BILLBOARD_BROAD_LEAVED_FRUIT)
 						: leafType == LeafType.NEEDLELEAVED
-						? Materials.TREE_BILLBOARD_CONIFEROUS
-						: Materials.TREE_BILLBOARD_BROAD_LEAVED;
+						? materials.get(Materials.TREE_BILLBOARD_CONIFEROUS)
+						: materials.get(Materials.TREE_BILLBOARD_BROAD_LEAVED);
 
 				WorldModuleBillboardUtil.renderCrosstree(target, material, pos,
 						(species != null ? 1.0 : 0.5 ) * height, height, mirrored);
@@ -225,7 +247,7 @@ public class TreeModule extends ConfigurableWorldModule {
 		
 	}
 	
-	private static void renderTreeGeometry(Target<?> target,
+	private void renderTreeGeometry(Target<?> target,
 			VectorXYZ posXYZ, LeafType leafType, double height) {
 		
 		boolean coniferous = (leafType == LeafType.NEEDLELEAVED);
@@ -233,11 +255,11 @@ public class TreeModule extends ConfigurableWorldModule {
 		double stemRatio = coniferous?0.3:0.5;
 		double radius = height*TREE_RADIUS_PER_HEIGHT;
 		
-		target.drawColumn(Materials.TREE_TRUNK,
+		target.drawColumn(materials.get(Materials.TREE_TRUNK),
 				null, posXYZ, height*stemRatio,
 				radius / 4, radius / 5, false, true);
 		
-		target.drawColumn(Materials.TREE_CROWN,
+		target.drawColumn(materials.get(Materials.TREE_CROWN),
 				null, posXYZ.y(posXYZ.y+height*stemRatio),
 				height*(1-stemRatio),
 				radius,
@@ -4,9 +4,13 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.EXACT;
 import static org.osm2world.core.map_elevation.data.GroundState.ON;
+import static org.osm2world.core.world.creation.ElementClaim.nodesOfWaySegments;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.createTriangleStripBetween;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import org.openstreetmap.josm.plugins.graphview.core.data.TagGroup;
@@ -25,7 +29,11 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
+import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.NodeWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.data.WaySegmentWorldObject;
@@ -41,7 +49,8 @@ import org.osm2world.core.world.network.VisibleConnectorNodeWorldObject;
  * Needs to be applied <em>after</em> all the modules that generate
  * whatever runs through the tunnels.
  */
-public class TunnelModule extends AbstractModule {
+public class TunnelModule extends AbstractModule
+		implements ConcurrentWorldModule {
 
 	public static final boolean isTunnel(TagGroup tags) {
 		return tags.containsKey("tunnel")
@@ -57,6 +66,19 @@ public class TunnelModule extends AbstractModule {
 		}
 	}
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				waySegments("tunnel"),
+				nodesOfWaySegments("tunnel"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return Arrays.<Class<? extends WorldModule>>asList(
+				RoadModule.class, RailwayModule.class, WaterModule.class);
+	}
+	
 	@Override
 	protected void applyToWaySegment(MapWaySegment segment) {
 		
@@ -125,7 +147,7 @@ public class TunnelModule extends AbstractModule {
 		
 	}
 	
-	public static class Tunnel extends BridgeOrTunnel
+	public class Tunnel extends BridgeOrTunnel
 			implements RenderableToAllTargets {
 		
 		public Tunnel(MapWaySegment segment,
@@ -167,9 +189,11 @@ public class TunnelModule extends AbstractModule {
 			List<VectorXYZ> strip3 = createTriangleStripBetween(
 					aboveLeftOutline, leftOutline);
 			
-			target.drawTriangleStrip(Materials.TUNNEL_DEFAULT, strip1, null);
-			target.drawTriangleStrip(Materials.TUNNEL_DEFAULT, strip2, null);
-			target.drawTriangleStrip(Materials.TUNNEL_DEFAULT, strip3, null);
+			Material material = materials.get(Materials.TUNNEL_DEFAULT);
+			
+			target.drawTriangleStrip(material, strip1, null);
+			target.drawTriangleStrip(material, strip2, null);
+			target.drawTriangleStrip(material, strip3, null);
 					
 		}
 		
@@ -2,12 +2,16 @@ package org.osm2world.core.world.modules;
 
 import static com.google.common.collect.Iterables.any;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.nCopies;
 import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.MAX;
 import static org.osm2world.core.target.common.material.Materials.*;
 import static org.osm2world.core.target.common.material.NamedTexCoordFunction.*;
 import static org.osm2world.core.target.common.material.TexCoordUtil.*;
 import static org.osm2world.core.util.Predicates.hasType;
+import static org.osm2world.core.world.creation.ElementClaim.areas;
+import static org.osm2world.core.world.creation.ElementClaim.nodesOfWaySegments;
+import static org.osm2world.core.world.creation.ElementClaim.waySegments;
 import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.*;
 
 import java.util.Collection;
@@ -29,7 +33,11 @@ import org.osm2world.core.math.TriangleXYZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
+import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.world.creation.ConcurrentWorldModule;
+import org.osm2world.core.world.creation.ElementClaim;
+import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
 import org.osm2world.core.world.modules.common.ConfigurableWorldModule;
@@ -41,7 +49,8 @@ import org.osm2world.core.world.network.NetworkAreaWorldObject;
 /**
  * adds water bodies, streams, rivers and fountains to the world
  */
-public class WaterModule extends ConfigurableWorldModule {
+public class WaterModule extends ConfigurableWorldModule
+		implements ConcurrentWorldModule {
 
 	//TODO: add canal, ditch, drain
 
@@ -61,6 +70,19 @@ public class WaterModule extends ConfigurableWorldModule {
 	
 	//TODO: apply to is almost always the same! create a superclass handling this!
 	
+	@Override
+	public Collection<ElementClaim> getClaims() {
+		return asList(
+				waySegments("waterway"),
+				nodesOfWaySegments("waterway"),
+				areas("natural", "waterway", "amenity"));
+	}
+	
+	@Override
+	public Collection<Class<? extends WorldModule>> getPredecessors() {
+		return emptyList();
+	}
+	
 	@Override
 	public void applyTo(MapData mapData) {
 		
@@ -100,7 +122,7 @@ public class WaterModule extends ConfigurableWorldModule {
 		
 	}
 	
-	public static class Waterway extends AbstractNetworkWaySegmentWorldObject
+	public class Waterway extends AbstractNetworkWaySegmentWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
 		public Waterway(MapWaySegment line) {
@@ -191,9 +213,11 @@ public class WaterModule extends ConfigurableWorldModule {
 							rightWaterBorder, rightOutline)
 				);
 				
+				Material terrainMaterial = materials.get(TERRAIN_DEFAULT);
+				
 				for (List<VectorXYZ> strip : strips) {
-					target.drawTriangleStrip(TERRAIN_DEFAULT, strip,
-						texCoordLists(strip, TERRAIN_DEFAULT, GLOBAL_X_Z));
+					target.drawTriangleStrip(terrainMaterial, strip,
+						texCoordLists(strip, terrainMaterial, GLOBAL_X_Z));
 				}
 				
 				/* render water */
@@ -201,8 +225,10 @@ public class WaterModule extends ConfigurableWorldModule {
 				List<VectorXYZ> vs = createTriangleStripBetween(
 						leftWaterBorder, rightWaterBorder);
 				
-				target.drawTriangleStrip(WATER, vs,
-						texCoordLists(vs, WATER, GLOBAL_X_Z));
+				Material waterMaterial = materials.get(WATER);
+				
+				target.drawTriangleStrip(waterMaterial, vs,
+						texCoordLists(vs, waterMaterial, GLOBAL_X_Z));
 				
 			}
 			
@@ -224,7 +250,7 @@ public class WaterModule extends ConfigurableWorldModule {
 			return containedWithinRiverbank;
 		}
 
-		private static void modifyLineHeight(List<VectorXYZ> leftWaterBorder, float yMod) {
+		private void modifyLineHeight(List<VectorXYZ> leftWaterBorder, float yMod) {
 			for (int i = 0; i < leftWaterBorder.size(); i++) {
 				VectorXYZ v = leftWaterBorder.get(i);
 				leftWaterBorder.set(i, v.y(v.y+yMod));
@@ -233,7 +259,7 @@ public class WaterModule extends ConfigurableWorldModule {
 		
 	}
 
-	public static class RiverJunction
+	public class RiverJunction
 		extends JunctionNodeWorldObject
 		implements TerrainBoundaryWorldObject, RenderableToAllTargets {
 
@@ -253,8 +279,10 @@ public class WaterModule extends ConfigurableWorldModule {
 			
 			List<VectorXYZ> vertices = getOutlinePolygon().getVertices();
 			
-			target.drawConvexPolygon(WATER, vertices,
-					texCoordLists(vertices, WATER, GLOBAL_X_Z));
+			Material waterMaterial = materials.get(WATER);
+			
+			target.drawConvexPolygon(waterMaterial, vertices,
+					texCoordLists(vertices, waterMaterial, GLOBAL_X_Z));
 			
 			//TODO: only cover with water to 0.95 * distance to center; add land below
 			
@@ -262,7 +290,7 @@ public class WaterModule extends ConfigurableWorldModule {
 		
 	}
 	
-	public static class Water extends NetworkAreaWorldObject
+	public class Water extends NetworkAreaWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 		
 		//TODO: only cover with water to 0.95 * distance to center; add land below.
@@ -286,14 +314,15 @@ public class WaterModule extends ConfigurableWorldModule {
 		
 		@Override
 		public void renderTo(Target<?> target) {
+			Material waterMaterial = materials.get(WATER);
 			Collection<TriangleXYZ> triangles = getTriangulation();
-			target.drawTriangles(WATER, triangles,
-					triangleTexCoordLists(triangles, WATER, GLOBAL_X_Z));
+			target.drawTriangles(waterMaterial, triangles,
+					triangleTexCoordLists(triangles, waterMaterial, GLOBAL_X_Z));
 		}
 		
 	}
 	
-	private static class AreaFountain extends AbstractAreaWorldObject
+	private class AreaFountain extends AbstractAreaWorldObject
 		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
 
 		public AreaFountain(MapArea area) {
@@ -310,9 +339,10 @@ public class WaterModule extends ConfigurableWorldModule {
 
 			/* render water */
 				
+			Material waterMaterial = materials.get(PURIFIED_WATER);
 			Collection<TriangleXYZ> triangles = getTriangulation();
-			target.drawTriangles(PURIFIED_WATER, triangles,
-					triangleTexCoordLists(triangles, PURIFIED_WATER, GLOBAL_X_Z));
+			target.drawTriangles(waterMaterial, triangles,
+					triangleTexCoordLists(triangles, waterMaterial, GLOBAL_X_Z));
 			
 			/* render walls */
 			//note: mostly copy-pasted from BarrierModule
@@ -334,9 +364,11 @@ public class WaterModule extends ConfigurableWorldModule {
 					path,
 					nCopies(path.size(), VectorXYZ.Y_UNIT));
 			
+			Material wallMaterial = materials.get(Materials.CONCRETE);
+			
 			for (List<VectorXYZ> strip : strips) {
-				target.drawTriangleStrip(Materials.CONCRETE, strip,
-						texCoordLists(strip, Materials.CONCRETE, STRIP_WALL));
+				target.drawTriangleStrip(wallMaterial, strip,
+						texCoordLists(strip, wallMaterial, STRIP_WALL));
 			}
 							
 		}
@@ -1,19 +1,22 @@
 package org.osm2world.core.world.modules.common;
 
 import org.apache.commons.configuration.Configuration;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.world.creation.WorldModule;
 
 /**
- * simple superclass for {@link WorldModule}s that stores a configuration set by
- * {@link #setConfiguration(org.apache.commons.configuration.Configuration)}
+ * simple superclass for {@link WorldModule}s that stores a configuration
+ * and material registry set by {@link #setConfiguration(Configuration, MaterialRegistry)}
  */
 public abstract class ConfigurableWorldModule implements WorldModule {
 	
 	protected Configuration config;
+	protected MaterialRegistry materials;
 	
 	@Override
-	public void setConfiguration(Configuration config) {
+	public void setConfiguration(Configuration config, MaterialRegistry materials) {
 		this.config = config;
+		this.materials = materials;
 	}
 	
 }
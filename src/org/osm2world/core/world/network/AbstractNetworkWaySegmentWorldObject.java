@@ -424,45 +424,12 @@ public abstract class AbstractNetworkWaySegmentWorldObject
 		//TODO sensible maximum incline for road and rail; and waterway down-incline
 		// ... take incline differences, steps etc. into account => move into Road, Rail separately
 		
-		/* ensure a smooth transition from previous segment */
+		/* ensure smooth transitions to the connected segments */
 		
 		//TODO this might be more elegant with an "Invisible Connector WO"
 		
-		List<MapWaySegment> connectedSegments =
-				segment.getStartNode().getConnectedWaySegments();
-		
-		if (connectedSegments.size() == 2) {
-			
-			MapWaySegment previousSegment = null;
-			
-			for (MapWaySegment connectedSegment : connectedSegments) {
-				if (connectedSegment != this.segment) {
-					previousSegment = connectedSegment;
-				}
-			}
-			
-			WorldObject previousWO = previousSegment.getPrimaryRepresentation();
-			
-			if (previousWO instanceof AbstractNetworkWaySegmentWorldObject) {
-				
-				AbstractNetworkWaySegmentWorldObject previous =
-						(AbstractNetworkWaySegmentWorldObject)previousWO;
-				
-				if (!previous.isBroken()) {
-					
-					List<EleConnector> previousCenter =
-							previous.getCenterlineEleConnectors();
-					
-					enforcer.requireSmoothness(
-							previousCenter.get(previousCenter.size() - 2),
-							center.get(0),
-							center.get(1));
-					
-				}
-				
-			}
-
-		}
+		requireSmoothTransition(enforcer, center, segment.getStartNode());
+		requireSmoothTransition(enforcer, center, segment.getEndNode());
 		
 		/* ensure smooth transitions within the way itself */
 		
@@ -475,6 +442,58 @@ public abstract class AbstractNetworkWaySegmentWorldObject
 		
 	}
 	
+	/**
+	 * requires a smooth transition to the other segment at one of this
+	 * segment's nodes if exactly two segments are connected there.
+	 * 
+	 * Each transition is only required by the first segment in the node's
+	 * list of connected segments. If that segment's representation is
+	 * reused from a previous conversion, it does not define constraints,
+	 * so the other segment requires the transition instead.
+	 */
+	private void requireSmoothTransition(EleConstraintEnforcer enforcer,
+			List<EleConnector> center, MapNode node) {
+		
+		List<MapWaySegment> connectedSegments = node.getConnectedWaySegments();
+		
+		if (connectedSegments.size() != 2) return;
+		
+		MapWaySegment first = connectedSegments.get(0);
+		MapWaySegment other = (first == segment) ? connectedSegments.get(1) : first;
+		
+		if (other == segment) return;
+		
+		WorldObject otherWO = other.getPrimaryRepresentation();
+		
+		if (!(otherWO instanceof AbstractNetworkWaySegmentWorldObject)
+				|| ((AbstractNetworkWaySegmentWorldObject) otherWO).isBroken()) {
+			return;
+		}
+		
+		boolean otherIsReused = otherWO.getPrimaryMapElement() != other;
+		
+		if (first != segment && !otherIsReused) return;
+		
+		List<EleConnector> otherCenter =
+				((AbstractNetworkWaySegmentWorldObject) otherWO).getCenterlineEleConnectors();
+		
+		/* the segments' directions may differ, so check which end is at the node */
+		
+		enforcer.requireSmoothness(
+				getConnectorNextToEnd(otherCenter, other, node),
+				node == segment.getStartNode() ? center.get(0) : center.get(center.size() - 1),
+				getConnectorNextToEnd(center, segment, node));
+		
+	}
+	
+	/**
+	 * returns the centerline connector next to the one at one of a segment's ends
+	 */
+	private static EleConnector getConnectorNextToEnd(List<EleConnector> center,
+			MapWaySegment segment, MapNode end) {
+		return end == segment.getStartNode() ? center.get(1) : center.get(center.size() - 2);
+	}
+	
 	protected List<EleConnector> getCenterlineEleConnectors() {
 
 		if (isBroken()) return emptyList();
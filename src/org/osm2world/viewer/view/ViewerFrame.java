@@ -21,6 +21,7 @@ import javax.swing.JRadioButtonMenuItem;
 
 import org.apache.commons.configuration.Configuration;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.GridInterpolator;
 import org.osm2world.core.map_elevation.creation.InverseDistanceWeightingInterpolator;
 import org.osm2world.core.map_elevation.creation.LPEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator;
@@ -28,6 +29,7 @@ import org.osm2world.core.map_elevation.creation.LinearInterpolator;
 import org.osm2world.core.map_elevation.creation.NaturalNeighborInterpolator;
 import org.osm2world.core.map_elevation.creation.NoneEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.SimpleEleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.SparseEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
 import org.osm2world.core.map_elevation.creation.ZeroInterpolator;
 import org.osm2world.viewer.control.actions.AboutAction;
@@ -263,7 +265,8 @@ public class ViewerFrame extends JFrame {
 					LinearInterpolator.class,
 					InverseDistanceWeightingInterpolator.class,
 					LeastSquaresInterpolator.class,
-					NaturalNeighborInterpolator.class);
+					NaturalNeighborInterpolator.class,
+					GridInterpolator.class);
 			
 			for (Class<? extends TerrainInterpolator> c : interpolatorClasses) {
 				
@@ -285,7 +288,8 @@ public class ViewerFrame extends JFrame {
 			List<Class<? extends EleConstraintEnforcer>> enforcerClasses = asList(
 					NoneEleConstraintEnforcer.class,
 					SimpleEleConstraintEnforcer.class,
-					LPEleConstraintEnforcer.class);
+					LPEleConstraintEnforcer.class,
+					SparseEleConstraintEnforcer.class);
 			
 			for (Class<? extends EleConstraintEnforcer> c : enforcerClasses) {
 				
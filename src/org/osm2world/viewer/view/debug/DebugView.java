@@ -14,6 +14,7 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.target.common.material.ImmutableMaterial;
 import org.osm2world.core.target.common.material.Material.Interpolation;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.rendering.Camera;
 import org.osm2world.core.target.common.rendering.Projection;
 import org.osm2world.core.target.jogl.JOGLRenderingParameters;
@@ -30,6 +31,7 @@ public abstract class DebugView {
 	
 	protected MapData map;
 	protected TerrainElevationData eleData;
+	protected MaterialRegistry materials;
 	
 	protected Camera camera;
 	protected Projection projection;
@@ -64,6 +66,7 @@ public abstract class DebugView {
 	
 		this.map = conversionResults.getMapData();
 		this.eleData = conversionResults.getEleData();
+		this.materials = conversionResults.getMaterialRegistry();
 		
 		targetNeedsReset = true;
 	}
@@ -141,6 +141,11 @@ public class EleConstraintDebugView extends DebugView {
 			
 		}
 
+		@Override
+		public void requireFixedEle(EleConnector c, double ele) {
+			
+		}
+
 		@Override
 		public void enforceConstraints() {
 			
@@ -0,0 +1,66 @@
+package org.openstreetmap.josm.plugins.graphview.core.data;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class ArrayBasedTagGroupTest {
+	
+	private static ArrayBasedTagGroup createGroup(String... keysAndValues) {
+		String[] keys = new String[keysAndValues.length / 2];
+		String[] values = new String[keysAndValues.length / 2];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new String(keysAndValues[2*i]);
+			values[i] = new String(keysAndValues[2*i + 1]);
+		}
+		return new ArrayBasedTagGroup(keys, values);
+	}
+	
+	@Test
+	public void testLookup() {
+		
+		TagGroup tags = createGroup("name", "Main Street",
+				"highway", "residential", "lanes", "2");
+		
+		assertEquals(3, tags.size());
+		assertEquals("residential", tags.getValue("highway"));
+		assertNull(tags.getValue("building"));
+		assertTrue(tags.contains("lanes", "2"));
+		assertTrue(tags.contains(new Tag("highway", "residential")));
+		assertFalse(tags.contains("highway", "primary"));
+		assertTrue(tags.containsAny("highway", asList("primary", "residential")));
+		assertTrue(tags.containsValue("Main Street"));
+		
+	}
+	
+	@Test
+	public void testIterationOrderAndDuplicates() {
+		
+		TagGroup tags = createGroup("b", "1", "a", "2", "b", "3");
+		
+		Iterator<Tag> iterator = tags.iterator();
+		assertEquals(new Tag("a", "2"), iterator.next());
+		assertEquals(new Tag("b", "3"), iterator.next());
+		assertFalse(iterator.hasNext());
+		
+	}
+	
+	@Test
+	public void testCache() {
+		
+		ArrayBasedTagGroup.Cache cache = new ArrayBasedTagGroup.Cache();
+		
+		ArrayBasedTagGroup group1 = cache.get(createGroup("highway", "residential", "lit", "yes"));
+		ArrayBasedTagGroup group2 = cache.get(createGroup("lit", "yes", "highway", "residential"));
+		ArrayBasedTagGroup group3 = cache.get(createGroup("highway", "residential"));
+		
+		assertSame(group1, group2);
+		assertNotSame(group1, group3);
+		assertEquals(2, cache.size());
+		
+	}
+	
+}
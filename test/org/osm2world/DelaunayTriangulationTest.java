@@ -5,12 +5,16 @@ import static org.junit.Assert.*;
 import static org.osm2world.core.test.TestUtil.assertAlmostEquals;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 import org.osm2world.core.map_elevation.creation.DelaunayTriangulation;
 import org.osm2world.core.map_elevation.creation.DelaunayTriangulation.DelaunayTriangle;
+import org.osm2world.core.map_elevation.creation.DelaunayTriangulation.NaturalNeighbors;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
@@ -50,7 +54,7 @@ public class DelaunayTriangulationTest {
 				
 				points.add(point);
 				
-				// check whether undoing works
+				// check that probing does not modify the triangulation
 				
 				triangulation2.probe(point.xz());
 				
@@ -69,6 +73,185 @@ public class DelaunayTriangulationTest {
 		
 	}
 	
+	@Test
+	public void testInsertAll() {
+		
+		Random random = new Random(4000);
+		
+		AxisAlignedBoundingBoxXZ bounds = new AxisAlignedBoundingBoxXZ(
+				-SIZE, -SIZE, +SIZE, +SIZE);
+		
+		List<VectorXYZ> points = new ArrayList<VectorXYZ>();
+		
+		for (int i = 0; i < 500; i++) {
+			double x = (random.nextDouble() * 2 * SIZE) - SIZE;
+			double z = (random.nextDouble() * 2 * SIZE) - SIZE;
+			points.add(new VectorXYZ(x, 0, z));
+		}
+		
+		DelaunayTriangulation triangulation = new DelaunayTriangulation(bounds);
+		triangulation.insertAll(points);
+		
+		DelaunayTriangulation triangulation2 = new DelaunayTriangulation(bounds);
+		triangulation2.insertAll(points);
+		
+		assertTriangulationProperties(triangulation, points);
+		
+		/* the result must not depend on the insertion order */
+		
+		DelaunayTriangulation sequentialTriangulation = new DelaunayTriangulation(bounds);
+		for (VectorXYZ point : points) {
+			sequentialTriangulation.insert(point);
+		}
+		
+		assertEquals(getTriangleVertexSets(sequentialTriangulation),
+				getTriangleVertexSets(triangulation));
+		
+		/* check point location after the bulk insertion */
+		
+		for (int i = 0; i < 100; i++) {
+			
+			VectorXZ point = new VectorXZ(
+					(random.nextDouble() * 2 * SIZE) - SIZE,
+					(random.nextDouble() * 2 * SIZE) - SIZE);
+			
+			assertTrue(triangulation.getEnlosingTriangle(point)
+					.asTriangleXZ().contains(point));
+			
+			triangulation.probe(point);
+			
+		}
+		
+		assertTriangulationsEqual(triangulation, triangulation2);
+		
+	}
+	
+	@Test
+	public void testProbe() throws InterruptedException {
+		
+		Random random = new Random(50000);
+		
+		AxisAlignedBoundingBoxXZ bounds = new AxisAlignedBoundingBoxXZ(
+				-SIZE, -SIZE, +SIZE, +SIZE);
+		
+		List<VectorXYZ> points = new ArrayList<VectorXYZ>();
+		
+		for (int i = 0; i < 500; i++) {
+			double x = (random.nextDouble() * 2 * SIZE) - SIZE;
+			double z = (random.nextDouble() * 2 * SIZE) - SIZE;
+			points.add(new VectorXYZ(x, 0, z));
+		}
+		
+		final DelaunayTriangulation triangulation = new DelaunayTriangulation(bounds);
+		triangulation.insertAll(points);
+		
+		/* a site is its own only neighbor */
+		
+		NaturalNeighbors siteNeighbors = triangulation.probe(points.get(0).xz());
+		assertEquals(1, siteNeighbors.neighbors.length);
+		assertSame(points.get(0), siteNeighbors.neighbors[0]);
+		assertAlmostEquals(1, siteNeighbors.relativeWeights[0]);
+		
+		/* check the Sibson coordinates' properties for points inside the hull */
+		
+		final List<VectorXZ> probePoints = new ArrayList<VectorXZ>();
+		
+		for (int i = 0; i < 200; i++) {
+			probePoints.add(new VectorXZ(
+					(random.nextDouble() - 0.5) * SIZE,
+					(random.nextDouble() - 0.5) * SIZE));
+		}
+		
+		for (VectorXZ point : probePoints) {
+			assertNaturalNeighborProperties(triangulation.probe(point), point);
+		}
+		
+		/* probe concurrently from several threads */
+		
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		
+		List<Thread> threads = new ArrayList<Thread>();
+		
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 20; i++) {
+							for (VectorXZ point : probePoints) {
+								assertNaturalNeighborProperties(
+										triangulation.probe(point), point);
+							}
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+		}
+		
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		
+		assertTriangulationProperties(triangulation, points);
+		
+	}
+	
+	/**
+	 * asserts that the weights are non-negative, sum up to 1 and
+	 * reproduce the probed point as weighted average of the neighbors
+	 */
+	private static void assertNaturalNeighborProperties(
+			NaturalNeighbors naturalNeighbors, VectorXZ point) {
+		
+		double weightSum = 0;
+		double x = 0;
+		double z = 0;
+		
+		for (int i = 0; i < naturalNeighbors.neighbors.length; i++) {
+			
+			double weight = naturalNeighbors.relativeWeights[i];
+			
+			assertTrue(weight >= 0);
+			
+			weightSum += weight;
+			x += weight * naturalNeighbors.neighbors[i].x;
+			z += weight * naturalNeighbors.neighbors[i].z;
+			
+		}
+		
+		assertAlmostEquals(1, weightSum);
+		assertAlmostEquals(point.x, x);
+		assertAlmostEquals(point.z, z);
+		
+	}
+	
+	/**
+	 * returns the vertices of each triangle,
+	 * regardless of their order within the triangle
+	 */
+	private static Set<Set<VectorXYZ>> getTriangleVertexSets(
+			DelaunayTriangulation triangulation) {
+		
+		Set<Set<VectorXYZ>> result = new HashSet<Set<VectorXYZ>>();
+		
+		for (DelaunayTriangle t : triangulation.getTriangles()) {
+			result.add(new HashSet<VectorXYZ>(asList(t.p0, t.p1, t.p2)));
+		}
+		
+		return result;
+		
+	}
+	
 	/**
 	 * asserts that two triangulations are equal
 	 */
@@ -0,0 +1,115 @@
+package org.osm2world.console;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.EMPTY_LIST;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.osm2world.core.map_data.creation.LatLonBounds;
+import org.osm2world.core.osm.creation.OSMDataReader;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMWay;
+
+public class OSMDataCacheTest {
+	
+	/** reader which creates a new, small data set for each call */
+	private static class CountingReader implements OSMDataReader {
+		
+		int calls = 0;
+		
+		@Override
+		public OSMData getData() {
+			return getData(null);
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public OSMData getData(LatLonBounds filter) {
+			
+			calls += 1;
+			
+			OSMNode node1 = new OSMNode(0, 0, new MapBasedTagGroup(), 1);
+			OSMNode node2 = new OSMNode(0, 1, new MapBasedTagGroup(), 2);
+			OSMWay way = new OSMWay(new MapBasedTagGroup(), 1, asList(node1, node2));
+			
+			return new OSMData(EMPTY_LIST, asList(node1, node2),
+					asList(way), EMPTY_LIST);
+			
+		}
+		
+	}
+	
+	@Test
+	public void testReuse() throws IOException {
+		
+		File file = File.createTempFile("osm2world", ".osm");
+		
+		try {
+			
+			OSMDataCache cache = new OSMDataCache(Long.MAX_VALUE);
+			CountingReader reader = new CountingReader();
+			
+			OSMData data = cache.getData(file, null, reader);
+			assertSame(data, cache.getData(file, null, reader));
+			assertEquals(1, reader.calls);
+			
+			/* a different filter requires reading the file again */
+			
+			LatLonBounds bounds = new LatLonBounds(0, 0, 1, 1);
+			
+			OSMData filteredData = cache.getData(file, bounds, reader);
+			assertNotSame(data, filteredData);
+			assertSame(filteredData, cache.getData(file, bounds, reader));
+			assertEquals(2, reader.calls);
+			
+			assertEquals(2, cache.size());
+			assertEquals(2, cache.getHits());
+			assertEquals(2, cache.getMisses());
+			
+			/* a modified file is read again */
+			
+			file.setLastModified(file.lastModified() - 10000);
+			
+			assertNotSame(data, cache.getData(file, null, reader));
+			assertEquals(3, reader.calls);
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+	@Test
+	public void testEviction() throws IOException {
+		
+		File file1 = File.createTempFile("osm2world", ".osm");
+		File file2 = File.createTempFile("osm2world", ".osm");
+		
+		try {
+			
+			CountingReader reader = new CountingReader();
+			
+			long dataBytes = OSMDataCache.estimateByteSize(reader.getData());
+			OSMDataCache cache = new OSMDataCache(dataBytes);
+			
+			OSMData data1 = cache.getData(file1, null, reader);
+			cache.getData(file2, null, reader);
+			
+			assertEquals(1, cache.size());
+			assertEquals(dataBytes, cache.getBytes());
+			
+			assertNotSame(data1, cache.getData(file1, null, reader));
+			
+		} finally {
+			file1.delete();
+			file2.delete();
+		}
+		
+	}
+	
+}
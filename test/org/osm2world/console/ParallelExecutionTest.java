@@ -0,0 +1,78 @@
+package org.osm2world.console;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.co.flamingpenguin.jewel.cli.CliFactory;
+
+public class ParallelExecutionTest {
+	
+	@Test
+	public void testWriteParameterFile() throws IOException {
+		
+		List<String[]> unparsedLines = asList(
+				new String[] {"--input", "a b.osm", "-o", "out.obj"},
+				new String[] {"it's", "\"quoted\"", "both ' and \"", ""});
+		
+		File file = File.createTempFile("osm2world-parameters", ".txt");
+		
+		try {
+			
+			ParallelExecution.writeParameterFile(file, unparsedLines);
+			
+			List<String[]> readLines = CLIArgumentsUtil.getUnparsedParameterGroups(file);
+			
+			assertEquals(unparsedLines.size(), readLines.size());
+			
+			for (int i = 0; i < unparsedLines.size(); i++) {
+				assertArrayEquals(unparsedLines.get(i), readLines.get(i));
+			}
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+	@Test
+	public void testReplacePerformanceTable() {
+		
+		File table = new File("group0.txt");
+		
+		String[] unparsedArgs = {"-i", "in.osm", "--performanceTable", "perf.txt"};
+		
+		assertArrayEquals(
+				new String[] {"-i", "in.osm", "--performanceTable", table.getAbsolutePath()},
+				ParallelExecution.replacePerformanceTable(unparsedArgs, table));
+		
+		assertEquals("perf.txt", unparsedArgs[3]);
+		
+		assertArrayEquals(
+				new String[] {"--performanceTable=" + table.getAbsolutePath()},
+				ParallelExecution.replacePerformanceTable(
+						new String[] {"--performanceTable=perf.txt"}, table));
+		
+	}
+	
+	@Test
+	public void testInvalidParallel() throws Exception {
+		
+		CLIArguments args = CliFactory.parseArguments(CLIArguments.class,
+				"--parameterFile", "parameters.txt", "--parallel", "0");
+		
+		assertNotNull(CLIArgumentsUtil.getErrorString(args));
+		
+		args = CliFactory.parseArguments(CLIArguments.class,
+				"--parameterFile", "parameters.txt", "--parallel", "2");
+		
+		assertNull(CLIArgumentsUtil.getErrorString(args));
+		
+	}
+	
+}
@@ -0,0 +1,266 @@
+package org.osm2world.core.map_data.creation;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.osm2world.core.ConversionFacade;
+import org.osm2world.core.ConversionFacade.Results;
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.MapWaySegment;
+import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.SparseEleConstraintEnforcer;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMDataDiff;
+import org.osm2world.core.osm.data.OSMElement;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMRelation;
+import org.osm2world.core.osm.data.OSMWay;
+import org.osm2world.core.util.functions.Factory;
+import org.osm2world.core.world.data.WorldObject;
+
+public class MapDataUpdateUtilTest {
+	
+	private static final double METERS_PER_DEGREE = 111320;
+	
+	private static OSMNode createNode(double x, double z, long id, Tag... tags) {
+		return new OSMNode(z / METERS_PER_DEGREE, x / METERS_PER_DEGREE,
+				new MapBasedTagGroup(tags), id);
+	}
+	
+	/**
+	 * creates a road from west to east with nodes 10 meters apart,
+	 * and a bridge in its center which crosses a road from south to north
+	 */
+	private static OSMData createBridgeData() {
+		
+		List<OSMNode> roadNodes = new ArrayList<OSMNode>();
+		
+		for (int i = 0; i <= 40; i++) {
+			roadNodes.add(createNode(-200 + 10 * i, 0, i));
+		}
+		
+		List<OSMNode> crossingNodes = asList(
+				createNode(5, -100, 100),
+				createNode(5, 100, 101));
+		
+		List<OSMNode> nodes = new ArrayList<OSMNode>(roadNodes);
+		nodes.addAll(crossingNodes);
+		
+		List<OSMWay> ways = asList(
+				new OSMWay(new MapBasedTagGroup(
+						new Tag("highway", "residential")),
+						1000, roadNodes.subList(0, 19)),
+				new OSMWay(new MapBasedTagGroup(
+						new Tag("highway", "residential"),
+						new Tag("bridge", "yes"),
+						new Tag("layer", "1")),
+						1001, roadNodes.subList(18, 23)),
+				new OSMWay(new MapBasedTagGroup(
+						new Tag("highway", "residential")),
+						1002, roadNodes.subList(22, 41)),
+				new OSMWay(new MapBasedTagGroup(
+						new Tag("highway", "residential")),
+						1003, crossingNodes));
+		
+		return new OSMData(Collections.<Bound>emptyList(), nodes, ways,
+				Collections.<OSMRelation>emptyList());
+		
+	}
+	
+	/**
+	 * creates a facade using an enforcer that solves the constraints precisely,
+	 * so results of differently sized problems can be compared
+	 */
+	private static ConversionFacade createFacade() {
+		
+		ConversionFacade cf = new ConversionFacade();
+		
+		cf.setEleConstraintEnforcerFactory(new Factory<EleConstraintEnforcer>() {
+			@Override public EleConstraintEnforcer make() {
+				return new SparseEleConstraintEnforcer(0.0001, 100000);
+			}
+		});
+		
+		return cf;
+		
+	}
+	
+	private static int countElements(MapData mapData) {
+		return mapData.getMapNodes().size() + mapData.getMapWaySegments().size()
+				+ mapData.getMapAreas().size();
+	}
+	
+	/**
+	 * returns the segment of the west-east road which starts at a given node
+	 */
+	private static MapWaySegment findSegment(Results results, long startNodeId) {
+		
+		for (MapWaySegment segment : results.getMapData().getMapWaySegments()) {
+			if (segment.getStartNode().getOsmNode().id == startNodeId
+					&& segment.getEndNode().getOsmNode().id == startNodeId + 1) {
+				return segment;
+			}
+		}
+		
+		throw new AssertionError("no segment starting at node " + startNodeId);
+		
+	}
+	
+	@Test
+	public void testUpdateAfterNodeEdit() throws IOException {
+		
+		OSMData osmData = createBridgeData();
+		
+		/* edit a node on the bridge's ramp, 10 meters west of its center */
+		
+		OSMNode editedNode = createNode(-10, 0, 19, new Tag("name", "edited"));
+		
+		OSMDataDiff diff = new OSMDataDiff(asList(editedNode),
+				Collections.<OSMElement>emptyList());
+		
+		Results previousResults = createFacade().createRepresentations(
+				osmData, null, null, null);
+		Results updatedResults = createFacade().updateRepresentations(
+				previousResults, diff, null, null, null);
+		Results fullResults = createFacade().createRepresentations(
+				diff.applyTo(osmData), null, null, null);
+		
+		/* representations near the edit are new, all others are reused */
+		
+		assertNotSame(findSegment(previousResults, 19).getRepresentations().get(0),
+				findSegment(updatedResults, 19).getRepresentations().get(0));
+		assertSame(findSegment(previousResults, 35).getRepresentations().get(0),
+				findSegment(updatedResults, 35).getRepresentations().get(0));
+		
+		assertSame(previousResults.getMaterialRegistry(),
+				updatedResults.getMaterialRegistry());
+		
+		/* the ramp is raised for the bridge,
+		 * so new and reused representations meet above the ground */
+		
+		Set<WorldObject> previousRepresentations = new HashSet<WorldObject>();
+		
+		for (MapElement element : previousResults.getMapData().getMapElements()) {
+			previousRepresentations.addAll(element.getRepresentations());
+		}
+		
+		Map<VectorXZ, Double> reusedEles = new HashMap<VectorXZ, Double>();
+		Map<VectorXZ, Double> newEles = new HashMap<VectorXZ, Double>();
+		
+		for (MapElement element : updatedResults.getMapData().getMapElements()) {
+			for (WorldObject representation : element.getRepresentations()) {
+				
+				Map<VectorXZ, Double> eles = previousRepresentations.contains(representation)
+						? reusedEles : newEles;
+				
+				for (EleConnector c : representation.getEleConnectors()) {
+					eles.put(c.pos, c.getPosXYZ().y);
+				}
+				
+			}
+		}
+		
+		boolean raisedSeam = false;
+		
+		for (VectorXZ pos : newEles.keySet()) {
+			if (reusedEles.containsKey(pos) && reusedEles.get(pos) > 1) {
+				raisedSeam = true;
+				assertEquals(reusedEles.get(pos), newEles.get(pos), 0.01);
+			}
+		}
+		
+		assertTrue(raisedSeam);
+		
+		/* the update produces the same representations and elevations
+		 * as a full conversion of the edited data */
+		
+		Map<MapElement, MapElement> matches = MapDataUpdateUtil.matchElements(
+				fullResults.getMapData(), updatedResults.getMapData());
+		
+		assertEquals(countElements(fullResults.getMapData()), matches.size());
+		
+		for (MapElement element : updatedResults.getMapData().getMapElements()) {
+			
+			List<? extends WorldObject> representations = element.getRepresentations();
+			List<? extends WorldObject> fullRepresentations =
+					matches.get(element).getRepresentations();
+			
+			assertEquals(fullRepresentations.size(), representations.size());
+			
+			for (int i = 0; i < representations.size(); i++) {
+				
+				assertSame(fullRepresentations.get(i).getClass(),
+						representations.get(i).getClass());
+				
+				Iterator<EleConnector> fullConnectors =
+						fullRepresentations.get(i).getEleConnectors().iterator();
+				
+				for (EleConnector c : representations.get(i).getEleConnectors()) {
+					assertEquals(fullConnectors.next().getPosXYZ().y,
+							c.getPosXYZ().y, 0.01);
+				}
+				
+				assertFalse(fullConnectors.hasNext());
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test
+	public void testFindAffectedElements() throws IOException {
+		
+		OSMData osmData = createBridgeData();
+		
+		Results results = createFacade().createRepresentations(
+				osmData, null, null, null);
+		
+		Map<MapElement, MapElement> matches = MapDataUpdateUtil.matchElements(
+				results.getMapData(), results.getMapData());
+		
+		assertEquals(countElements(results.getMapData()), matches.size());
+		
+		for (Map.Entry<MapElement, MapElement> match : matches.entrySet()) {
+			assertSame(match.getKey(), match.getValue());
+		}
+		
+		/* a region around the edited node affects the adjacent segments,
+		 * their other nodes, but not the segments beyond these */
+		
+		MapNode editedNode = findSegment(results, 19).getStartNode();
+		
+		Set<MapElement> affectedElements = MapDataUpdateUtil.findAffectedElements(
+				results.getMapData(),
+				asList(editedNode.getAxisAlignedBoundingBoxXZ()),
+				matches);
+		
+		assertTrue(affectedElements.contains(editedNode));
+		assertTrue(affectedElements.contains(findSegment(results, 18)));
+		assertTrue(affectedElements.contains(findSegment(results, 19)));
+		assertTrue(affectedElements.contains(
+				findSegment(results, 19).getEndNode()));
+		assertFalse(affectedElements.contains(findSegment(results, 10)));
+		assertFalse(affectedElements.contains(findSegment(results, 30)));
+		
+	}
+	
+}
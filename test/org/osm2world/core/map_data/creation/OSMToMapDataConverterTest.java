@@ -6,14 +6,18 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.osm2world.core.map_data.data.MapArea;
 import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
 import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.overlaps.MapOverlap;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.osm.creation.StrictOSMFileReader;
 import org.osm2world.core.osm.data.OSMData;
@@ -24,6 +28,16 @@ public class OSMToMapDataConverterTest {
 	 * loads {@link MapData} from a file in the test files directory
 	 */
 	private static MapData loadMapData(String filename) throws IOException {
+		return loadMapData(filename, 1);
+	}
+	
+	/**
+	 * loads {@link MapData} from a file in the test files directory
+	 * 
+	 * @param overlapThreads  number of threads for the overlap calculation
+	 */
+	private static MapData loadMapData(String filename, int overlapThreads)
+			throws IOException {
 		
 		File testFile = new File("test"+File.separator+"files"
 				+File.separator+filename);
@@ -32,7 +46,10 @@ public class OSMToMapDataConverterTest {
 		OriginMapProjection mapProjection = new MetricMapProjection();
 		mapProjection.setOrigin(osmData);
 		
-		OSMToMapDataConverter converter = new OSMToMapDataConverter(mapProjection, new BaseConfiguration());
+		Configuration config = new BaseConfiguration();
+		config.setProperty("overlapThreads", overlapThreads);
+		
+		OSMToMapDataConverter converter = new OSMToMapDataConverter(mapProjection, config);
 		return converter.createMapData(osmData);
 		
 	}
@@ -210,4 +227,46 @@ public class OSMToMapDataConverterTest {
 		
 	}
 	
+	/**
+	 * checks that the parallel overlap calculation produces
+	 * the same overlaps as the sequential one
+	 */
+	@Test
+	public void testParallelOverlaps() throws IOException {
+		
+		for (String filename : asList("coastline_islands_and_coast.osm",
+				"mp_two_holes_advanced.osm", "self_intersection.osm")) {
+			
+			assertEquals(describeOverlaps(loadMapData(filename, 1)),
+					describeOverlaps(loadMapData(filename, 4)));
+			
+		}
+		
+	}
+	
+	private static List<String> describeOverlaps(MapData mapData) {
+		
+		List<String> result = new ArrayList<String>();
+		
+		for (MapElement element : mapData.getMapElements()) {
+			
+			/* the sequential calculation doesn't guarantee an order
+			 * for elements in more than one grid cell */
+			
+			List<String> elementOverlaps = new ArrayList<String>();
+			
+			for (MapOverlap<?, ?> overlap : element.getOverlaps()) {
+				elementOverlaps.add(overlap.type + " " + overlap);
+			}
+			
+			Collections.sort(elementOverlaps);
+			
+			result.add(element + ": " + elementOverlaps);
+			
+		}
+		
+		return result;
+		
+	}
+	
 }
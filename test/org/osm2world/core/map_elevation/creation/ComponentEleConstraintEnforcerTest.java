@@ -0,0 +1,173 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.osm2world.core.map_elevation.data.GroundState.*;
+import static org.osm2world.core.test.TestUtil.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.util.functions.DefaultFactory;
+import org.osm2world.core.util.functions.Factory;
+import org.osm2world.core.util.metrics.Measurement;
+import org.osm2world.core.util.metrics.MetricsListener;
+
+public class ComponentEleConstraintEnforcerTest {
+	
+	/**
+	 * creates sparse enforcers and remembers the connectors passed to each of them
+	 */
+	private static class RecordingFactory implements Factory<EleConstraintEnforcer> {
+		
+		final List<List<EleConnector>> connectorsPerEnforcer =
+				Collections.synchronizedList(new ArrayList<List<EleConnector>>());
+		
+		@Override
+		public EleConstraintEnforcer make() {
+			return new SparseEleConstraintEnforcer() {
+				@Override public void addConnectors(Iterable<EleConnector> connectors) {
+					List<EleConnector> list = new ArrayList<EleConnector>();
+					for (EleConnector c : connectors) {
+						list.add(c);
+					}
+					connectorsPerEnforcer.add(list);
+					super.addConnectors(connectors);
+				}
+			};
+		}
+		
+	}
+	
+	@Test
+	public void testComponents() {
+		
+		for (int threads : new int[] {1, 4}) {
+			
+			EleConnector a1 = createConnector(0, 0, 10, ON);
+			EleConnector a2 = createConnector(5, 0, 12, ON);
+			EleConnector b1 = createConnector(100, 0, 20, ON);
+			EleConnector b2 = createConnector(105, 0, 20, ON);
+			EleConnector unconstrained = createConnector(50, 0, 30, ABOVE);
+			
+			RecordingFactory factory = new RecordingFactory();
+			
+			final List<Measurement> measurements =
+					Collections.synchronizedList(new ArrayList<Measurement>());
+			
+			ComponentEleConstraintEnforcer enforcer =
+					new ComponentEleConstraintEnforcer(factory, threads);
+			enforcer.setMetricsListener(new MetricsListener() {
+				@Override public void measured(Measurement measurement) {
+					measurements.add(measurement);
+				}
+			});
+			
+			enforcer.addConnectors(asList(a1, a2, b1, b2, unconstrained));
+			
+			enforcer.requireSameEle(a1, a2);
+			enforcer.requireVerticalDistance(ConstraintType.MIN, 2, b1, b2);
+			
+			enforcer.enforceConstraints();
+			
+			assertAlmostEquals(11, a1.getPosXYZ().y);
+			assertAlmostEquals(11, a2.getPosXYZ().y);
+			assertAlmostEquals(21, b1.getPosXYZ().y);
+			assertAlmostEquals(19, b2.getPosXYZ().y);
+			assertAlmostEquals(30, unconstrained.getPosXYZ().y);
+			
+			/* each component has its own enforcer, the unconstrained connector is skipped */
+			
+			assertEquals(2, factory.connectorsPerEnforcer.size());
+			
+			for (List<EleConnector> connectors : factory.connectorsPerEnforcer) {
+				assertEquals(2, connectors.size());
+				assertFalse(connectors.contains(unconstrained));
+			}
+			
+			int componentTimes = 0;
+			
+			for (Measurement measurement : measurements) {
+				if ("enforcer.component".equals(measurement.name)) {
+					componentTimes += 1;
+				}
+			}
+			
+			assertEquals(2, componentTimes);
+			
+		}
+		
+	}
+	
+	@Test
+	public void testJoinedConnectors() {
+		
+		/* c1 and c2 are joined, so they must end up in the same component
+		 * even though they are not part of the same constraint */
+		
+		EleConnector c1 = createConnector(0, 0, 10, ON);
+		EleConnector c2 = createConnector(0, 0, 10, ON);
+		EleConnector lower = createConnector(3, 0, 10, ON);
+		EleConnector upper = createConnector(-3, 0, 10, ON);
+		
+		RecordingFactory factory = new RecordingFactory();
+		
+		EleConstraintEnforcer enforcer = new ComponentEleConstraintEnforcer(factory, 2);
+		enforcer.addConnectors(asList(c1, c2, lower, upper));
+		
+		enforcer.requireVerticalDistance(ConstraintType.MIN, 1, c1, lower);
+		enforcer.requireVerticalDistance(ConstraintType.MIN, 1, upper, c2);
+		
+		enforcer.enforceConstraints();
+		
+		assertEquals(1, factory.connectorsPerEnforcer.size());
+		assertEquals(c1.getPosXYZ(), c2.getPosXYZ());
+		
+	}
+	
+	@Test
+	public void testSameResultAsSingleEnforcer() {
+		
+		List<EleConnector> connectors1 = new ArrayList<EleConnector>();
+		List<EleConnector> connectors2 = new ArrayList<EleConnector>();
+		
+		for (int i = 0; i < 20; i++) {
+			connectors1.add(createConnector(i, 0, i % 3, i % 4 == 0 ? ABOVE : ON));
+			connectors2.add(createConnector(i, 0, i % 3, i % 4 == 0 ? ABOVE : ON));
+		}
+		
+		EleConstraintEnforcer single = new SparseEleConstraintEnforcer();
+		EleConstraintEnforcer split = new ComponentEleConstraintEnforcer(
+				new DefaultFactory<EleConstraintEnforcer>(SparseEleConstraintEnforcer.class), 3);
+		
+		List<List<EleConnector>> connectorLists = asList(connectors1, connectors2);
+		List<EleConstraintEnforcer> enforcers = asList(single, split);
+		
+		for (int e = 0; e < 2; e++) {
+			
+			List<EleConnector> cs = connectorLists.get(e);
+			EleConstraintEnforcer enforcer = enforcers.get(e);
+			
+			enforcer.addConnectors(cs);
+			
+			enforcer.requireIncline(ConstraintType.MAX, 0.1, cs.subList(0, 6));
+			enforcer.requireSameEle(cs.subList(8, 11));
+			enforcer.requireVerticalDistance(ConstraintType.MIN, 3,
+					cs.get(12), cs.get(13), cs.get(14));
+			
+			enforcer.enforceConstraints();
+			
+		}
+		
+		for (int i = 0; i < connectors1.size(); i++) {
+			assertEquals(connectors1.get(i).getPosXYZ().y,
+					connectors2.get(i).getPosXYZ().y, 0.01);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,83 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.osm2world.core.test.TestUtil.assertAlmostEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+public class GridInterpolatorTest {
+	
+	private static double planeEle(double x, double z) {
+		return 100 + 0.5 * x - 0.2 * z;
+	}
+	
+	@Test
+	public void testRegularSites() {
+		
+		List<VectorXYZ> sites = new ArrayList<VectorXYZ>();
+		
+		for (int x = 0; x <= 100; x += 10) {
+			for (int z = 0; z <= 100; z += 10) {
+				sites.add(new VectorXYZ(x, planeEle(x, z), z));
+			}
+		}
+		
+		for (boolean bicubic : new boolean[] {true, false}) {
+			
+			GridInterpolator interpolator = new GridInterpolator(bicubic);
+			interpolator.setKnownSites(sites);
+			
+			for (VectorXYZ site : sites) {
+				assertAlmostEquals(site.y, interpolator.interpolateEle(site.xz()).y);
+			}
+			
+			assertAlmostEquals(planeEle(55, 42),
+					interpolator.interpolateEle(new VectorXZ(55, 42)).y);
+			
+		}
+		
+	}
+	
+	@Test
+	public void testScatteredSites() {
+		
+		Random random = new Random(5);
+		
+		List<VectorXYZ> sites = new ArrayList<VectorXYZ>();
+		
+		for (int i = 0; i < 500; i++) {
+			double x = random.nextDouble() * 200;
+			double z = random.nextDouble() * 200;
+			sites.add(new VectorXYZ(x, planeEle(x, z), z));
+		}
+		
+		GridInterpolator interpolator = new GridInterpolator();
+		interpolator.setKnownSites(sites);
+		
+		/* linear terrain is reproduced wherever there is data */
+		
+		for (int x = 20; x <= 180; x += 40) {
+			for (int z = 20; z <= 180; z += 40) {
+				assertAlmostEquals(planeEle(x, z),
+						interpolator.interpolateEle(new VectorXZ(x, z)).y);
+			}
+		}
+		
+	}
+	
+	@Test
+	public void testNoSites() {
+		
+		GridInterpolator interpolator = new GridInterpolator();
+		interpolator.setKnownSites(new ArrayList<VectorXYZ>());
+		
+		assertAlmostEquals(0, interpolator.interpolateEle(new VectorXZ(5, 5)).y);
+		
+	}
+	
+}
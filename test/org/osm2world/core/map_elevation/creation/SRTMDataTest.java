@@ -0,0 +1,90 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.osm2world.core.map_data.creation.LatLon;
+import org.osm2world.core.map_data.creation.MetricMapProjection;
+import org.osm2world.core.math.VectorXZ;
+
+public class SRTMDataTest {
+	
+	private static final int PIXELS = SRTMTile.SRTM3_PIXELS;
+	
+	/**
+	 * writes an SRTM3 tile whose elevations form a plane
+	 * (see {@link #expectedEle(double, double)})
+	 */
+	private static void createTileFile(File directory, String name,
+			int tileLon, int tileLat) throws IOException {
+		
+		File file = new File(directory, name);
+		file.deleteOnExit();
+		
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		
+		try {
+			for (int row = 0; row < PIXELS; row++) {
+				for (int x = 0; x < PIXELS; x++) {
+					double lon = tileLon + x / (double)(PIXELS - 1);
+					double lat = tileLat + (PIXELS - 1 - row) / (double)(PIXELS - 1);
+					out.writeShort((int)Math.round(expectedEle(lon, lat)));
+				}
+			}
+		} finally {
+			out.close();
+		}
+		
+	}
+	
+	private static double expectedEle(double lon, double lat) {
+		return 1200 * lon + 12000 * lat;
+	}
+	
+	@Test
+	public void testGetEle() throws IOException {
+		
+		File directory = File.createTempFile("srtm", "");
+		directory.delete();
+		directory.mkdir();
+		directory.deleteOnExit();
+		
+		createTileFile(directory, "N00E000.hgt", 0, 0);
+		createTileFile(directory, "N00E001.hgt", 1, 0);
+		
+		MetricMapProjection projection = new MetricMapProjection();
+		projection.setOrigin(new LatLon(0.5, 1));
+		
+		SRTMData data = new SRTMData(directory, projection, new SRTMTileCache(0));
+		
+		double[][] latLons = {
+				{0.5, 0.5}, //inside a tile
+				{0.123, 0.9999}, //near the border between the tiles
+				{0.2, 1.0001},
+				{0.9999, 0.5}, //near a missing tile
+		};
+		
+		for (double[] latLon : latLons) {
+			
+			VectorXZ pos = projection.calcPos(latLon[0], latLon[1]);
+			
+			double expected = expectedEle(
+					projection.calcLon(pos), projection.calcLat(pos));
+			
+			assertEquals(expected, data.getEle(pos, false), 0.01);
+			assertEquals(expected, data.getEle(pos, true), 0.01);
+			
+		}
+		
+		/* no data in missing tile */
+		
+		assertTrue(Double.isNaN(data.getEle(projection.calcPos(1.5, 0.5), true)));
+		
+	}
+	
+}
@@ -0,0 +1,96 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class SRTMTileCacheTest {
+	
+	/**
+	 * writes a tile where each pixel's value is its x coordinate
+	 * plus 10 times its y coordinate (counted from the bottom)
+	 */
+	private static File createTileFile(int pixels) throws IOException {
+		
+		File file = File.createTempFile("srtm", ".hgt");
+		file.deleteOnExit();
+		
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		
+		try {
+			for (int row = 0; row < pixels; row++) {
+				for (int x = 0; x < pixels; x++) {
+					out.writeShort(x + 10 * (pixels - 1 - row));
+				}
+			}
+		} finally {
+			out.close();
+		}
+		
+		return file;
+		
+	}
+	
+	@Test
+	public void testTileSizes() throws IOException {
+		
+		SRTMTile srtm3Tile = new SRTMTile(createTileFile(SRTMTile.SRTM3_PIXELS));
+		
+		assertEquals(SRTMTile.SRTM3_PIXELS, srtm3Tile.pixels);
+		assertEquals(0, srtm3Tile.getData(0, 0));
+		assertEquals(1200, srtm3Tile.getData(1200, 0));
+		assertEquals(12, srtm3Tile.getData(2, 1));
+		
+		SRTMTile srtm1Tile = new SRTMTile(createTileFile(SRTMTile.SRTM1_PIXELS));
+		
+		assertEquals(SRTMTile.SRTM1_PIXELS, srtm1Tile.pixels);
+		assertEquals(3600, srtm1Tile.getData(3600, 0));
+		assertEquals(1005, srtm1Tile.getData(5, 100));
+		
+	}
+	
+	@Test(expected = IOException.class)
+	public void testInvalidTileSize() throws IOException {
+		new SRTMTile(createTileFile(1000));
+	}
+	
+	@Test
+	public void testEviction() throws IOException {
+		
+		File file1 = createTileFile(SRTMTile.SRTM3_PIXELS);
+		File file2 = createTileFile(SRTMTile.SRTM3_PIXELS);
+		File file3 = createTileFile(SRTMTile.SRTM3_PIXELS);
+		
+		long tileBytes = 2L * SRTMTile.SRTM3_PIXELS * SRTMTile.SRTM3_PIXELS;
+		
+		SRTMTileCache cache = new SRTMTileCache(2 * tileBytes);
+		
+		SRTMTile tile1 = cache.getTile(file1);
+		cache.getTile(file2);
+		
+		assertSame(tile1, cache.getTile(file1));
+		assertEquals(2, cache.size());
+		
+		/* file2 is the least recently used tile */
+		
+		cache.getTile(file3);
+		
+		assertEquals(2, cache.size());
+		assertEquals(2 * tileBytes, cache.getBytes());
+		assertSame(tile1, cache.getTile(file1));
+		
+		/* the most recently used tile is kept even if it exceeds the limit */
+		
+		cache.setMaxBytes(0);
+		
+		assertEquals(1, cache.size());
+		assertSame(tile1, cache.getTile(file1));
+		
+	}
+	
+}
@@ -0,0 +1,162 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.osm2world.core.map_elevation.data.GroundState.*;
+import static org.osm2world.core.test.TestUtil.*;
+
+import org.junit.Test;
+import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType;
+import org.osm2world.core.map_elevation.data.EleConnector;
+
+public class SparseEleConstraintEnforcerTest {
+	
+	@Test
+	public void testSameEle() {
+		
+		EleConnector c1 = createConnector(0, 0, 10, ON);
+		EleConnector c2 = createConnector(5, 0, 12, ON);
+		EleConnector c3 = createConnector(10, 0, 20, ON);
+		
+		EleConstraintEnforcer enforcer = new SparseEleConstraintEnforcer();
+		enforcer.addConnectors(asList(c1, c2, c3));
+		
+		enforcer.requireSameEle(asList(c1, c2, c3));
+		
+		enforcer.enforceConstraints();
+		
+		/* equal weights: the least squares solution is the average */
+		
+		assertAlmostEquals(14, c1.getPosXYZ().y);
+		assertAlmostEquals(14, c2.getPosXYZ().y);
+		assertAlmostEquals(14, c3.getPosXYZ().y);
+		
+	}
+	
+	@Test
+	public void testJoinedConnectors() {
+		
+		EleConnector c1 = createConnector(0, 0, 10, ON);
+		EleConnector c2 = createConnector(0, 0, 10, ON);
+		EleConnector above = createConnector(0, 0, 10, ABOVE);
+		EleConnector lower = createConnector(3, 0, 10, ON);
+		
+		EleConstraintEnforcer enforcer = new SparseEleConstraintEnforcer();
+		enforcer.addConnectors(asList(c1, c2, above, lower));
+		
+		enforcer.requireVerticalDistance(ConstraintType.MIN, 1, c1, lower);
+		
+		enforcer.enforceConstraints();
+		
+		/* c1 and c2 are joined, the connector above the ground is not */
+		
+		assertEquals(c1.getPosXYZ(), c2.getPosXYZ());
+		assertAlmostEquals(10.5, c2.getPosXYZ().y);
+		assertAlmostEquals(9.5, lower.getPosXYZ().y);
+		assertAlmostEquals(10, above.getPosXYZ().y);
+		
+	}
+	
+	@Test
+	public void testVerticalDistance() {
+		
+		EleConnector ground1 = createConnector(0, 0, 100, ON);
+		EleConnector ground2 = createConnector(20, 0, 110, ON);
+		EleConnector bridge = createConnector(5, 0, 102, ABOVE);
+		EleConnector tunnel = createConnector(5, 0, 102, BELOW);
+		
+		EleConstraintEnforcer enforcer = new SparseEleConstraintEnforcer();
+		enforcer.addConnectors(asList(ground1, ground2, bridge, tunnel));
+		
+		enforcer.requireVerticalDistance(ConstraintType.MIN, 5,
+				bridge, ground1, ground2);
+		enforcer.requireVerticalDistance(ConstraintType.MAX, -3,
+				tunnel, ground1, ground2);
+		
+		enforcer.enforceConstraints();
+		
+		double groundEle = 0.75 * ground1.getPosXYZ().y + 0.25 * ground2.getPosXYZ().y;
+		
+		assertTrue(bridge.getPosXYZ().y >= groundEle + 5 - 0.001);
+		assertTrue(tunnel.getPosXYZ().y <= groundEle - 3 + 0.001);
+		
+		/* connectors which are not on the ground are mostly moved instead of the terrain */
+		
+		assertEquals(100, ground1.getPosXYZ().y, 0.1);
+		assertEquals(110, ground2.getPosXYZ().y, 0.1);
+		
+	}
+	
+	@Test
+	public void testIncline() {
+		
+		EleConnector c1 = createConnector(0, 0, 0, ABOVE);
+		EleConnector c2 = createConnector(10, 0, 5, ABOVE);
+		EleConnector c3 = createConnector(20, 0, 3.5, ABOVE);
+		
+		EleConstraintEnforcer enforcer = new SparseEleConstraintEnforcer();
+		enforcer.addConnectors(asList(c1, c2, c3));
+		
+		enforcer.requireIncline(ConstraintType.MAX, 0.1, asList(c1, c2, c3));
+		
+		enforcer.enforceConstraints();
+		
+		assertTrue(c2.getPosXYZ().y - c1.getPosXYZ().y <= 1.001);
+		assertTrue(c3.getPosXYZ().y - c2.getPosXYZ().y <= 1.001);
+		
+		/* only the first step is too steep */
+		
+		assertAlmostEquals(2, c1.getPosXYZ().y);
+		assertAlmostEquals(3, c2.getPosXYZ().y);
+		assertAlmostEquals(3.5, c3.getPosXYZ().y);
+		
+	}
+	
+	@Test
+	public void testSmoothness() {
+		
+		EleConnector from = createConnector(0, 0, 0, ABOVE);
+		EleConnector via = createConnector(10, 0, 5, ABOVE);
+		EleConnector to = createConnector(20, 0, 0, ABOVE);
+		
+		EleConnector straight1 = createConnector(0, 10, 0, ON);
+		EleConnector straight2 = createConnector(10, 10, 1, ON);
+		EleConnector straight3 = createConnector(20, 10, 2, ON);
+		
+		EleConstraintEnforcer enforcer = new SparseEleConstraintEnforcer();
+		enforcer.addConnectors(asList(from, via, to,
+				straight1, straight2, straight3));
+		
+		enforcer.requireSmoothness(from, via, to);
+		enforcer.requireSmoothness(straight1, straight2, straight3);
+		
+		enforcer.enforceConstraints();
+		
+		/* the incline may change by 0.5% per meter, i.e. 0.1 over 20 meters */
+		
+		assertAlmostEquals(1.5, from.getPosXYZ().y);
+		assertAlmostEquals(2, via.getPosXYZ().y);
+		assertAlmostEquals(1.5, to.getPosXYZ().y);
+		
+		/* a constant incline is not affected */
+		
+		assertAlmostEquals(0, straight1.getPosXYZ().y);
+		assertAlmostEquals(1, straight2.getPosXYZ().y);
+		assertAlmostEquals(2, straight3.getPosXYZ().y);
+		
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownConnector() {
+		
+		EleConnector c1 = createConnector(0, 0, 0, ON);
+		EleConnector c2 = createConnector(1, 0, 0, ON);
+		
+		EleConstraintEnforcer enforcer = new SparseEleConstraintEnforcer();
+		enforcer.addConnectors(asList(c1));
+		
+		enforcer.requireSameEle(c1, c2);
+		
+	}
+	
+}
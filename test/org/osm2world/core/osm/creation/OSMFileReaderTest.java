@@ -6,6 +6,8 @@ import java.util.List;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.osm2world.core.map_data.creation.LatLonBounds;
 import org.osm2world.core.osm.creation.OsmosisReader;
 import org.osm2world.core.osm.data.OSMData;
 import org.osm2world.core.osm.data.OSMNode;
@@ -34,5 +36,75 @@ public class OSMFileReaderTest {
 		assertEquals("associatedStreet", relation.tags.getValue("type"));
 		
 	}
+	
+	@Test
+	public void testBoundingBoxFilterWay() throws IOException {
+		
+		File testFile = new File("test"+File.separator+"files"
+				+File.separator+"validFile.osm");
+		
+		/* box only containing node 1, which is part of the way */
+		
+		LatLonBounds filter = new LatLonBounds(48.5724, 13.4616, 48.5726, 13.4619);
+		OSMData osmData = new StrictOSMFileReader(testFile).getData(filter);
+		
+		assertSame(3, osmData.getNodes().size());
+		assertSame(1, osmData.getWays().size());
+		assertSame(1, osmData.getRelations().size());
+		
+		List<OSMNode> wayNodes = osmData.getWays().iterator().next().nodes;
+		assertSame(3, wayNodes.size());
+		assertEquals(1, wayNodes.get(0).id);
+		
+		OSMRelation relation = osmData.getRelations().iterator().next();
+		assertSame(1, relation.relationMembers.size());
+		assertEquals("street", relation.relationMembers.get(0).role);
+		
+		Bound bound = osmData.getBounds().iterator().next();
+		assertEquals(48.5724, bound.getBottom(), 1e-9);
+		assertEquals(13.4619, bound.getRight(), 1e-9);
+		
+	}
+	
+	@Test
+	public void testBoundingBoxFilterCrossingWay() throws IOException {
+		
+		File testFile = new File("test"+File.separator+"files"
+				+File.separator+"validFile.osm");
+		
+		/* box crossed by the segment between nodes 1 and 4, without any nodes */
+		
+		LatLonBounds filter = new LatLonBounds(48.5732, 13.4635, 48.5734, 13.4637);
+		OSMData osmData = new StrictOSMFileReader(testFile).getData(filter);
+		
+		assertSame(3, osmData.getNodes().size());
+		assertSame(1, osmData.getWays().size());
+		assertSame(1, osmData.getRelations().size());
+		
+		List<OSMNode> wayNodes = osmData.getWays().iterator().next().nodes;
+		assertSame(3, wayNodes.size());
+		
+	}
+	
+	@Test
+	public void testBoundingBoxFilterNode() throws IOException {
+		
+		File testFile = new File("test"+File.separator+"files"
+				+File.separator+"validFile.osm");
+		
+		/* box only containing node 3, which is not part of the way */
+		
+		LatLonBounds filter = new LatLonBounds(48.5743, 13.4671, 48.5745, 13.4673);
+		OSMData osmData = new StrictOSMFileReader(testFile).getData(filter);
+		
+		assertSame(1, osmData.getNodes().size());
+		assertSame(0, osmData.getWays().size());
+		assertSame(1, osmData.getRelations().size());
+		
+		OSMRelation relation = osmData.getRelations().iterator().next();
+		assertSame(1, relation.relationMembers.size());
+		assertEquals("house", relation.relationMembers.get(0).role);
+		
+	}
 
 }
@@ -0,0 +1,63 @@
+package org.osm2world.core.osm.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+
+public class OSMDataDiffTest {
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testApplyTo() {
+		
+		OSMNode node1 = new OSMNode(0, 0, new MapBasedTagGroup(), 1);
+		OSMNode node2 = new OSMNode(0, 1, new MapBasedTagGroup(), 2);
+		OSMNode node3 = new OSMNode(1, 1, new MapBasedTagGroup(), 3);
+		
+		OSMWay way1 = new OSMWay(new MapBasedTagGroup(), 1, asList(node1, node2));
+		OSMWay way2 = new OSMWay(new MapBasedTagGroup(), 2, asList(node2, node3));
+		
+		OSMRelation relation = new OSMRelation(new MapBasedTagGroup(), 1, 2);
+		relation.relationMembers.add(new OSMMember("outer", way1));
+		relation.relationMembers.add(new OSMMember("outer", way2));
+		
+		OSMData osmData = new OSMData(EMPTY_LIST, asList(node1, node2, node3),
+				asList(way1, way2), asList(relation));
+		
+		/* move a node, retag a way and delete another way */
+		
+		OSMNode movedNode1 = new OSMNode(0.5, 0, new MapBasedTagGroup(), 1);
+		OSMWay retaggedWay1 = new OSMWay(new MapBasedTagGroup(
+				new Tag("highway", "primary")), 1, asList(node1, node2));
+		
+		OSMDataDiff diff = new OSMDataDiff(
+				asList(movedNode1, retaggedWay1), asList(way2));
+		
+		OSMData result = diff.applyTo(osmData);
+		
+		assertEquals(asList(movedNode1, node2, node3),
+				new ArrayList<OSMNode>(result.getNodes()));
+		assertSame(movedNode1, result.getNodes().iterator().next());
+		
+		assertEquals(1, result.getWays().size());
+		assertSame(retaggedWay1, result.getWays().iterator().next());
+		
+		OSMRelation newRelation = result.getRelations().iterator().next();
+		assertEquals(1, newRelation.relationMembers.size());
+		assertSame(retaggedWay1, newRelation.relationMembers.get(0).member);
+		
+		/* the original data is not modified */
+		
+		assertSame(node1, osmData.getNodes().iterator().next());
+		assertEquals(2, relation.relationMembers.size());
+		assertSame(way1, relation.relationMembers.get(0).member);
+		
+	}
+	
+}
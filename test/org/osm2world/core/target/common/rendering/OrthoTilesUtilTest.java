@@ -0,0 +1,57 @@
+package org.osm2world.core.target.common.rendering;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.osm2world.core.map_data.creation.LatLonBounds;
+
+public class OrthoTilesUtilTest {
+	
+	@Test
+	public void testTilesForBounds() {
+		
+		List<TileNumber> tiles = OrthoTilesUtil.tilesForBounds(
+				new LatLonBounds(-10, -10, 10, 10), 1);
+		
+		assertEquals(4, tiles.size());
+		
+		tiles = OrthoTilesUtil.tilesForBounds(
+				new LatLonBounds(48.0, 11.0, 48.1, 11.1), 0);
+		
+		assertEquals(1, tiles.size());
+		assertEquals(0, tiles.get(0).x);
+		assertEquals(0, tiles.get(0).y);
+		
+	}
+	
+	@Test
+	public void testLatLonBoundsForTiles() {
+		
+		LatLonBounds bounds = OrthoTilesUtil.latLonBoundsForTiles(
+				Arrays.asList(new TileNumber(1, 1, 0), new TileNumber(1, 1, 1)));
+		
+		assertEquals(0, bounds.minlon, 1e-10);
+		assertEquals(180, bounds.maxlon, 1e-10);
+		assertEquals(-bounds.maxlat, bounds.minlat, 1e-10);
+		
+		/* the tiles covering the bounds contain the bounds */
+		
+		LatLonBounds input = new LatLonBounds(48.0, 11.0, 48.1, 11.1);
+		
+		bounds = OrthoTilesUtil.latLonBoundsForTiles(
+				OrthoTilesUtil.tilesForBounds(input, 14));
+		
+		assertTrue(bounds.minlat <= input.minlat && bounds.maxlat >= input.maxlat);
+		assertTrue(bounds.minlon <= input.minlon && bounds.maxlon >= input.maxlon);
+		
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTileNumber() {
+		new TileNumber(1, 2, 0);
+	}
+	
+}
@@ -0,0 +1,142 @@
+package org.osm2world.core.target.gltf;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.junit.Test;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.target.common.material.Materials;
+
+public class GltfTargetTest {
+	
+	@Test
+	public void testVertexDeduplication() {
+		
+		GltfGeometry geometry = new GltfGeometry(false);
+		
+		VectorXYZ normal = VectorXYZ.Y_UNIT;
+		
+		int i0 = geometry.addVertex(new VectorXYZ(0, 0, 0), normal, null);
+		int i1 = geometry.addVertex(new VectorXYZ(1, 0, 0), normal, null);
+		int i2 = geometry.addVertex(new VectorXYZ(0, 0, 1), normal, null);
+		
+		assertEquals(i1, geometry.addVertex(new VectorXYZ(1, 0, 0), normal, null));
+		assertEquals(3, geometry.getVertexCount());
+		
+		geometry.addTriangle(i0, i1, i2);
+		geometry.addTriangle(i0, i1, i1);
+		
+		assertEquals(3, geometry.getIndexCount());
+		
+		/* many vertices require growing the buffers and the hash table */
+		
+		for (int i = 0; i < 1000; i++) {
+			geometry.addVertex(new VectorXYZ(i, 1, 0), normal, null);
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(3 + i, geometry.addVertex(new VectorXYZ(i, 1, 0), normal, null));
+		}
+		
+		assertEquals(1003, geometry.getVertexCount());
+		assertEquals(1003 * 24, geometry.getVertexData().remaining());
+		
+	}
+	
+	private static byte[] readFile(File file) throws IOException {
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		
+		try {
+			byte[] bytes = new byte[(int) raf.length()];
+			raf.readFully(bytes);
+			return bytes;
+		} finally {
+			raf.close();
+		}
+		
+	}
+	
+	@Test
+	public void testGlbFile() throws IOException {
+		
+		GltfTarget target = new GltfTarget();
+		
+		List<VectorXYZ> vs = asList(new VectorXYZ(0, 0, 0),
+				new VectorXYZ(1, 0, 0), new VectorXYZ(1, 0, 1),
+				new VectorXYZ(0, 0, 1));
+		
+		target.drawConvexPolygon(Materials.ASPHALT, vs, null);
+		target.drawConvexPolygon(Materials.ASPHALT, vs, null);
+		
+		File file = File.createTempFile("osm2world", ".glb");
+		file.deleteOnExit();
+		
+		target.writeGlbFile(file, null);
+		
+		byte[] bytes = readFile(file);
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		
+		assertEquals(0x46546C67, buffer.getInt(0));
+		assertEquals(2, buffer.getInt(4));
+		assertEquals(bytes.length, buffer.getInt(8));
+		
+		int jsonLength = buffer.getInt(12);
+		
+		assertEquals(0, jsonLength % 4);
+		assertEquals(0x4E4F534A, buffer.getInt(16));
+		
+		String json = new String(bytes, 20, jsonLength, "UTF-8");
+		
+		assertTrue(json.contains("\"version\":\"2.0\""));
+		assertTrue(json.contains("\"name\":\"ASPHALT\""));
+		
+		/* 4 shared vertices and 4 triangles with unsigned short indices */
+		
+		int binLength = buffer.getInt(20 + jsonLength);
+		
+		assertEquals(0x004E4942, buffer.getInt(24 + jsonLength));
+		assertEquals(4 * 24 + 4 * 3 * 2, binLength);
+		assertEquals(28 + jsonLength + binLength, bytes.length);
+		
+		/* the z coordinate is mirrored */
+		
+		assertEquals(-1f, buffer.getFloat(28 + jsonLength + 2 * 24 + 8), 0);
+		
+	}
+	
+	@Test
+	public void testEmptyGlbFile() throws IOException {
+		
+		File file = File.createTempFile("osm2world", ".glb");
+		file.deleteOnExit();
+		
+		new GltfTarget().writeGlbFile(file, null);
+		
+		byte[] bytes = readFile(file);
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		
+		/* only the header and the JSON chunk, without a binary chunk */
+		
+		int jsonLength = buffer.getInt(12);
+		
+		assertEquals(bytes.length, buffer.getInt(8));
+		assertEquals(0x4E4F534A, buffer.getInt(16));
+		assertEquals(20 + jsonLength, bytes.length);
+		
+		String json = new String(bytes, 20, jsonLength, "UTF-8");
+		
+		assertFalse(json.contains("\"buffers\""));
+		
+	}
+	
+}
@@ -0,0 +1,34 @@
+package org.osm2world.core.target.obj;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ObjTargetTest {
+	
+	private static String format(double value) {
+		StringBuilder sb = new StringBuilder();
+		ObjTarget.appendNumber(sb, value);
+		return sb.toString();
+	}
+	
+	@Test
+	public void testAppendNumber() {
+		
+		assertEquals("0", format(0));
+		assertEquals("0", format(-0.0));
+		assertEquals("0", format(1e-9));
+		assertEquals("0", format(-1e-9));
+		assertEquals("2", format(2));
+		assertEquals("-2", format(-2));
+		assertEquals("1.5", format(1.5));
+		assertEquals("-1083.786", format(-1083.786));
+		assertEquals("0.0003", format(3.0000000000000003E-4));
+		assertEquals("-0.000042", format(-4.193277828687169E-5));
+		assertEquals("0.000001", format(0.0000005));
+		assertEquals("1", format(0.9999999));
+		assertEquals("12345678.123457", format(12345678.1234567));
+		
+	}
+	
+}
@@ -0,0 +1,263 @@
+package org.osm2world.core.target.obj;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.osm2world.core.ConversionFacade;
+import org.osm2world.core.ConversionFacade.Results;
+import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.map_elevation.data.GroundState;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMRelation;
+import org.osm2world.core.osm.data.OSMWay;
+import org.osm2world.core.target.RenderableToAllTargets;
+import org.osm2world.core.target.Target;
+import org.osm2world.core.world.data.NodeWorldObject;
+
+public class ObjWriterTest {
+	
+	private static final double METERS_PER_DEGREE = 111320;
+	
+	/**
+	 * creates a grid of small named buildings, 100 meters apart
+	 */
+	private static OSMData createBuildingGrid(int buildingsPerSide) {
+		
+		List<OSMNode> nodes = new ArrayList<OSMNode>();
+		List<OSMWay> ways = new ArrayList<OSMWay>();
+		
+		long id = 1;
+		
+		for (int x = 0; x < buildingsPerSide; x++) {
+			for (int z = 0; z < buildingsPerSide; z++) {
+				
+				List<OSMNode> wayNodes = new ArrayList<OSMNode>();
+				
+				double[][] corners = {{-5, -5}, {5, -5}, {5, 5}, {-5, 5}};
+				
+				for (double[] corner : corners) {
+					OSMNode node = new OSMNode(
+							(z * 100 + corner[1]) / METERS_PER_DEGREE,
+							(x * 100 + corner[0]) / METERS_PER_DEGREE,
+							new MapBasedTagGroup(), id++);
+					nodes.add(node);
+					wayNodes.add(node);
+				}
+				
+				wayNodes.add(wayNodes.get(0));
+				
+				ways.add(new OSMWay(new MapBasedTagGroup(
+						new Tag("building", "yes"),
+						new Tag("name", "b" + x + "_" + z)),
+						id++, wayNodes));
+				
+			}
+		}
+		
+		return new OSMData(Collections.<Bound>emptyList(), nodes, ways,
+				Collections.<OSMRelation>emptyList());
+		
+	}
+	
+	private static List<String> readLines(File file) throws IOException {
+		
+		List<String> lines = new ArrayList<String>();
+		
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return lines;
+		
+	}
+	
+	/**
+	 * a representation which fails while being rendered
+	 */
+	private static class FailingWorldObject
+			implements NodeWorldObject, RenderableToAllTargets {
+		
+		private final MapNode node;
+		
+		public FailingWorldObject(MapNode node) {
+			this.node = node;
+		}
+		
+		@Override
+		public MapNode getPrimaryMapElement() {
+			return node;
+		}
+		
+		@Override
+		public GroundState getGroundState() {
+			return GroundState.ON;
+		}
+		
+		@Override
+		public Iterable<EleConnector> getEleConnectors() {
+			return Collections.emptyList();
+		}
+		
+		@Override
+		public void defineEleConstraints(EleConstraintEnforcer enforcer) {}
+		
+		@Override
+		public void renderTo(Target<?> target) {
+			throw new Error("rendering failed");
+		}
+		
+	}
+	
+	private static void deleteDirectory(File directory) {
+		
+		if (directory.listFiles() != null) {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+		}
+		
+		directory.delete();
+		
+	}
+	
+	@Test
+	public void testWriteTiledObjFiles() throws IOException {
+		
+		Results results = new ConversionFacade().createRepresentations(
+				createBuildingGrid(3), null, null, null);
+		
+		File directory = File.createTempFile("osm2world-tiles", "");
+		directory.delete();
+		
+		try {
+			
+			ObjWriter.writeTiledObjFiles(directory, results.getMapData(),
+					results.getMapProjection(), null, null, 100, 4);
+			
+			/* one tile per building, plus the shared .mtl file */
+			
+			List<File> objFiles = new ArrayList<File>();
+			
+			for (File file : directory.listFiles()) {
+				if (file.getName().matches("part\\d{4}\\.obj")) {
+					objFiles.add(file);
+				} else {
+					assertEquals("materials.mtl", file.getName());
+				}
+			}
+			
+			assertEquals(9, objFiles.size());
+			
+			/* each object is written to exactly one tile,
+			 * and all tiles use the shared materials */
+			
+			Map<String, File> fileForObject = new HashMap<String, File>();
+			Set<String> usedMaterials = new HashSet<String>();
+			
+			for (File objFile : objFiles) {
+				
+				List<String> lines = readLines(objFile);
+				
+				assertTrue(lines.contains("mtllib materials.mtl"));
+				
+				for (String line : lines) {
+					
+					if (line.startsWith("o ")) {
+						String name = line.substring(line.lastIndexOf(' ') + 1);
+						File previousFile = fileForObject.put(name, objFile);
+						assertTrue(name, previousFile == null || previousFile.equals(objFile));
+					} else if (line.startsWith("usemtl ")) {
+						usedMaterials.add(line.substring("usemtl ".length()));
+					}
+					
+				}
+				
+			}
+			
+			assertEquals(9, fileForObject.size());
+			
+			/* the .mtl file defines each used material exactly once */
+			
+			Set<String> definedMaterials = new HashSet<String>();
+			
+			for (String line : readLines(new File(directory, "materials.mtl"))) {
+				if (line.startsWith("newmtl ")) {
+					assertTrue(line, definedMaterials.add(line.substring("newmtl ".length())));
+				}
+			}
+			
+			assertFalse(usedMaterials.isEmpty());
+			assertTrue(definedMaterials.containsAll(usedMaterials));
+			
+		} finally {
+			deleteDirectory(directory);
+		}
+		
+	}
+	
+	@Test
+	public void testFailedTileIsRemoved() throws IOException {
+		
+		Results results = new ConversionFacade().createRepresentations(
+				createBuildingGrid(3), null, null, null);
+		
+		MapNode node = results.getMapData().getMapNodes().iterator().next();
+		node.addRepresentation(new FailingWorldObject(node));
+		
+		File directory = File.createTempFile("osm2world-tiles", "");
+		directory.delete();
+		
+		try {
+			
+			try {
+				ObjWriter.writeTiledObjFiles(directory, results.getMapData(),
+						results.getMapProjection(), null, null, 100, 4);
+				fail("expected the failing representation to abort the export");
+			} catch (Error e) {
+				assertTrue(e.getMessage().contains("rendering failed"));
+			}
+			
+			/* the other tiles are complete, the failed one has been removed */
+			
+			int objFiles = 0;
+			
+			for (File file : directory.listFiles()) {
+				if (file.getName().endsWith(".obj")) {
+					objFiles += 1;
+				}
+			}
+			
+			assertEquals(8, objFiles);
+			
+		} finally {
+			deleteDirectory(directory);
+		}
+		
+	}
+	
+}
@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.List;
 
 import org.openstreetmap.josm.plugins.graphview.core.data.EmptyTagGroup;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.map_elevation.data.GroundState;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.osm.data.OSMNode;
@@ -27,6 +29,18 @@ public final class TestUtil {
 		return result;
 	}
 	
+	/**
+	 * creates a connector with an interpolated terrain elevation
+	 */
+	public static final EleConnector createConnector(double x, double z,
+			double terrainEle, GroundState groundState) {
+		
+		EleConnector c = new EleConnector(new VectorXZ(x, z), null, groundState);
+		c.setPosXYZ(c.pos.xyz(terrainEle));
+		return c;
+		
+	}
+	
 	/**
 	 * returns VectorXZ objects;
 	 * can be used to test properties that need to be true for all vectors.
@@ -0,0 +1,93 @@
+package org.osm2world.core.util.metrics;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.osm2world.core.ConversionFacade.Phase;
+import org.osm2world.core.util.metrics.Measurement.Unit;
+import org.osm2world.core.util.metrics.MetricsReport.Entry;
+
+public class MetricsReportTest {
+	
+	@Test
+	public void testAggregation() {
+		
+		MetricsReport report = new MetricsReport();
+		
+		report.measured(new Measurement(Phase.MAP_DATA, "a", Unit.COUNT, 5));
+		report.measured(new Measurement(Phase.REPRESENTATION, "b", Unit.NANOSECONDS, 3));
+		report.measured(new Measurement(Phase.REPRESENTATION, "b", Unit.NANOSECONDS, 7));
+		report.measured(new Measurement(Phase.REPRESENTATION, "b", Unit.BYTES, 1));
+		
+		List<Entry> entries = report.getEntries();
+		
+		assertEquals(3, entries.size());
+		
+		assertEquals("a", entries.get(0).name);
+		assertEquals(1, entries.get(0).getCount());
+		assertEquals(5, entries.get(0).getSum());
+		
+		Entry entry = entries.get(1);
+		assertEquals(Phase.REPRESENTATION, entry.phase);
+		assertEquals(Unit.NANOSECONDS, entry.unit);
+		assertEquals(2, entry.getCount());
+		assertEquals(10, entry.getSum());
+		assertEquals(3, entry.getMin());
+		assertEquals(7, entry.getMax());
+		
+		assertEquals(Unit.BYTES, entries.get(2).unit);
+		
+	}
+	
+	@Test
+	public void testCSVHeaderWrittenOnce() throws IOException {
+		
+		File file = File.createTempFile("osm2world", ".csv");
+		
+		try {
+			
+			MetricsReport report = new MetricsReport();
+			report.measured(new Measurement(Phase.MAP_DATA, "x,y", Unit.COUNT, 2));
+			
+			report.write(file);
+			report.write(file);
+			
+			List<String> lines = readLines(file);
+			
+			assertEquals(3, lines.size());
+			assertEquals(MetricsReport.CSV_HEADER, lines.get(0));
+			assertTrue(lines.get(1).endsWith(",MAP_DATA,\"x,y\",count,1,2,2,2"));
+			assertEquals(lines.get(1), lines.get(2));
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+	private static List<String> readLines(File file) throws IOException {
+		
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return lines;
+		
+	}
+	
+}
@@ -0,0 +1,119 @@
+package org.osm2world.core.world.creation;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.EMPTY_LIST;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+import org.osm2world.core.map_data.creation.MetricMapProjection;
+import org.osm2world.core.map_data.creation.OSMToMapDataConverter;
+import org.osm2world.core.map_data.creation.OriginMapProjection;
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMWay;
+import org.osm2world.core.world.data.WorldObject;
+import org.osm2world.core.world.modules.BridgeModule;
+import org.osm2world.core.world.modules.InvisibleModule;
+import org.osm2world.core.world.modules.RoadModule;
+import org.osm2world.core.world.modules.TreeModule;
+
+public class WorldCreatorTest {
+	
+	/**
+	 * creates a bridge with a tree next to it
+	 */
+	@SuppressWarnings("unchecked")
+	private static MapData createMapData() throws IOException {
+		
+		List<OSMNode> nodes = asList(
+				new OSMNode(0, 0, new MapBasedTagGroup(), 101),
+				new OSMNode(0, 0.001, new MapBasedTagGroup(), 102),
+				new OSMNode(0, 0.002, new MapBasedTagGroup(), 103),
+				new OSMNode(0.0005, 0.001, new MapBasedTagGroup(
+						new Tag("natural", "tree")), 104));
+		
+		List<OSMWay> ways = asList(
+				new OSMWay(new MapBasedTagGroup(new Tag("highway", "primary")),
+						201, nodes.subList(0, 2)),
+				new OSMWay(new MapBasedTagGroup(new Tag("highway", "primary"),
+						new Tag("bridge", "yes")), 202, nodes.subList(1, 3)));
+		
+		OSMData osmData = new OSMData(EMPTY_LIST, nodes, ways, EMPTY_LIST);
+		
+		OriginMapProjection mapProjection = new MetricMapProjection();
+		mapProjection.setOrigin(osmData);
+		
+		return new OSMToMapDataConverter(mapProjection, new BaseConfiguration())
+				.createMapData(osmData);
+		
+	}
+	
+	private static List<WorldModule> createModules() {
+		return asList(new RoadModule(), new TreeModule(),
+				new BridgeModule(), new InvisibleModule());
+	}
+	
+	@Test
+	public void testModuleDependencies() throws IOException {
+		
+		List<BitSet> dependencies = WorldCreator.calculateModuleDependencies(
+				createModules(), createMapData());
+		
+		assertEquals(bitSet(), dependencies.get(0));
+		assertEquals(bitSet(), dependencies.get(1));
+		assertEquals(bitSet(0), dependencies.get(2));
+		assertEquals(bitSet(0, 1, 2), dependencies.get(3));
+		
+	}
+	
+	@Test
+	public void testConcurrentRepresentations() throws IOException {
+		
+		assertEquals(describeRepresentations(1),
+				describeRepresentations(4));
+		
+	}
+	
+	private static List<String> describeRepresentations(int moduleThreads)
+			throws IOException {
+		
+		MapData mapData = createMapData();
+		
+		Configuration config = new BaseConfiguration();
+		config.setProperty("moduleThreads", moduleThreads);
+		
+		new WorldCreator(config, createModules()).addRepresentationsTo(mapData);
+		
+		List<String> result = new ArrayList<String>();
+		
+		for (MapElement element : mapData.getMapElements()) {
+			for (WorldObject representation : element.getRepresentations()) {
+				result.add(element + ": "
+						+ representation.getClass().getSimpleName());
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	private static BitSet bitSet(int... indices) {
+		BitSet result = new BitSet();
+		for (int index : indices) {
+			result.set(index);
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,111 @@
+package org.osm2world.core.world.modules;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.EMPTY_LIST;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+import org.osm2world.core.map_data.creation.MetricMapProjection;
+import org.osm2world.core.map_data.creation.OSMToMapDataConverter;
+import org.osm2world.core.map_data.creation.OriginMapProjection;
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.MapWaySegment;
+import org.osm2world.core.map_elevation.creation.NoneEleConstraintEnforcer;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMNode;
+import org.osm2world.core.osm.data.OSMWay;
+import org.osm2world.core.world.creation.WorldCreator;
+import org.osm2world.core.world.data.WorldObject;
+
+public class RoadModuleTest {
+	
+	/**
+	 * remembers the connectors of all smoothness constraints
+	 */
+	private static class SmoothnessRecorder extends NoneEleConstraintEnforcer {
+		
+		final List<EleConnector[]> triples = new ArrayList<EleConnector[]>();
+		
+		@Override
+		public void requireSmoothness(
+				EleConnector from, EleConnector via, EleConnector to) {
+			triples.add(new EleConnector[] {from, via, to});
+		}
+		
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSmoothTransitions() throws IOException {
+		
+		/* a road from west to east, continued by a way in opposite direction */
+		
+		List<OSMNode> nodes = new ArrayList<OSMNode>();
+		
+		for (int i = 0; i < 4; i++) {
+			nodes.add(new OSMNode(0, i * 0.0002, new MapBasedTagGroup(), 101 + i));
+		}
+		
+		List<OSMWay> ways = asList(
+				new OSMWay(new MapBasedTagGroup(new Tag("highway", "primary")),
+						201, nodes.subList(0, 3)),
+				new OSMWay(new MapBasedTagGroup(new Tag("highway", "primary")),
+						202, asList(nodes.get(3), nodes.get(2))));
+		
+		OSMData osmData = new OSMData(EMPTY_LIST, nodes, ways, EMPTY_LIST);
+		
+		OriginMapProjection mapProjection = new MetricMapProjection();
+		mapProjection.setOrigin(osmData);
+		
+		MapData mapData = new OSMToMapDataConverter(mapProjection,
+				new BaseConfiguration()).createMapData(osmData);
+		
+		new WorldCreator(new BaseConfiguration(), new RoadModule())
+				.addRepresentationsTo(mapData);
+		
+		SmoothnessRecorder recorder = new SmoothnessRecorder();
+		
+		for (WorldObject worldObject : mapData.getWorldObjects()) {
+			worldObject.defineEleConstraints(recorder);
+		}
+		
+		/* each joint between two segments is constrained exactly once,
+		 * using connectors on both sides of the joint */
+		
+		for (MapNode node : mapData.getMapNodes()) {
+			
+			int jointTriples = 0;
+			
+			for (EleConnector[] triple : recorder.triples) {
+				if (triple[1].pos.equals(node.getPos())) {
+					
+					jointTriples += 1;
+					
+					assertTrue((triple[0].pos.x - node.getPos().x)
+							* (triple[2].pos.x - node.getPos().x) < 0);
+					
+				}
+			}
+			
+			int connectedSegments = 0;
+			
+			for (MapWaySegment segment : node.getConnectedWaySegments()) {
+				connectedSegments += segment.getRepresentations().size();
+			}
+			
+			assertEquals(connectedSegments == 2 ? 1 : 0, jointTriples);
+			
+		}
+		
+	}
+	
+}